@@ -0,0 +1,43 @@
+package com.l3.benchmark;
+
+import com.l3.logparser.api.model.EdifactMessage;
+import com.l3.logparser.api.parser.ApiParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of ApiParser.parseLogContent over a generated das.log
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiParserBenchmark {
+
+    @Param({"STANDARD", "CUSTOM"})
+    public BenchmarkInputs.Syntax syntax;
+
+    @Param({"false", "true"})
+    public boolean multiLine;
+
+    @Param({"200"})
+    public int messages;
+
+    private ApiParser parser;
+    private String logContent;
+
+    @Setup
+    public void setUp() {
+        parser = new ApiParser();
+        logContent = BenchmarkInputs.apiLog(messages, 20, syntax, multiLine, 42);
+    }
+
+    @Benchmark
+    public List<EdifactMessage> parseLogContent() {
+        return parser.parseLogContent(logContent, BenchmarkInputs.TARGET_FLIGHT, false, null);
+    }
+}
@@ -0,0 +1,223 @@
+package com.l3.benchmark;
+
+import java.util.Random;
+
+/**
+ * Generated inputs for the parser benchmarks
+ * Seeded, so every run (and every fork) measures the same content.
+ */
+public final class BenchmarkInputs {
+
+    /** Flight the benchmarks extract; the other flights are noise the parsers have to skip */
+    public static final String TARGET_FLIGHT = "MS775";
+
+    private static final String[] FLIGHTS = {TARGET_FLIGHT, "EK0160", "QR512", "TS230"};
+    private static final String[] SURNAMES = {"DOE", "MÜLLER", "O'BRIEN", "SMITH-JONES", "AL HASHEMI", "GARCÍA", "NGUYEN"};
+    private static final String[] GIVEN_NAMES = {"JOHN", "ANNA MARIA", "JEAN+LUC", "LI", "FATIMA", "PETER:PAUL", "ZOË"};
+
+    /**
+     * EDIFACT separators used in the generated messages
+     */
+    public enum Syntax {
+        /** Standard UNA:+.? ' */
+        STANDARD(':', '+', '.', '?', ' ', '\''),
+        /** Custom separators as some carriers send them: UNA!*.? ~ */
+        CUSTOM('!', '*', '.', '?', ' ', '~');
+
+        public final char subElement;
+        public final char element;
+        public final char decimal;
+        public final char release;
+        public final char reserved;
+        public final char terminator;
+
+        Syntax(char subElement, char element, char decimal, char release, char reserved, char terminator) {
+            this.subElement = subElement;
+            this.element = element;
+            this.decimal = decimal;
+            this.release = release;
+            this.reserved = reserved;
+            this.terminator = terminator;
+        }
+
+        public String una() {
+            return "UNA" + subElement + element + decimal + release + reserved + terminator;
+        }
+
+        /**
+         * Escape separator characters in a value with the release character
+         */
+        public String escape(String value) {
+            StringBuilder escaped = new StringBuilder(value.length() + 4);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == subElement || c == element || c == release || c == terminator) {
+                    escaped.append(release);
+                }
+                escaped.append(c);
+            }
+            return escaped.toString();
+        }
+    }
+
+    private BenchmarkInputs() {}
+
+    /**
+     * API log in the das.log format: a noise line before every PAXLST message
+     * @param multiLine Put every segment on its own line instead of the whole message on one line
+     */
+    public static String apiLog(int messages, int passengersPerMessage, Syntax syntax, boolean multiLine, long seed) {
+        Random random = new Random(seed);
+        StringBuilder log = new StringBuilder(messages * (300 + passengersPerMessage * 80));
+        for (int i = 0; i < messages; i++) {
+            String time = String.format("10:%02d:%02d", (i / 60) % 60, i % 60);
+            log.append("2025-10-15 ").append(time).append(",100 INFO  [main] Processing queue entry ").append(i).append('\n');
+            log.append("2025-10-15 ").append(time).append(",123 INFO  [rcv] $STX$");
+            String flight = FLIGHTS[random.nextInt(FLIGHTS.length)];
+            log.append(apiMessage(random, flight, 1 + random.nextInt(3), passengersPerMessage, syntax, multiLine));
+            log.append('\n');
+        }
+        return log.toString();
+    }
+
+    /**
+     * API file as stored in an RCA input or output folder: one PAXLST message, segments on their own lines
+     */
+    public static String apiFile(int passengers, Syntax syntax, long seed) {
+        // RCA files carry the flight number in six characters
+        return apiMessage(new Random(seed), "MS0775", 1, passengers, syntax, true) + "\n";
+    }
+
+    private static String apiMessage(Random random, String flight, int part, int passengers, Syntax syntax, boolean multiLine) {
+        char e = syntax.element;
+        char s = syntax.subElement;
+        String reference = String.valueOf(10000 + random.nextInt(90000));
+        StringBuilder message = new StringBuilder();
+        String separator = syntax.terminator + (multiLine ? "\n" : "");
+        message.append(syntax.una()).append(multiLine ? "\n" : "");
+        segment(message, separator, "UNB" + e + "UNOA" + s + "4" + e + "SND" + e + "RCV" + e + "251015" + s + "1000" + e + reference);
+        segment(message, separator, "UNG" + e + "PAXLST" + e + "SND" + e + "RCV" + e + "251015" + s + "1000" + e + reference + e + "UN" + e + "D" + s + "05B");
+        segment(message, separator, "UNH" + e + reference + e + "PAXLST" + s + "D" + s + "05B" + s + "UN" + s + "IATA"
+                + e + flight + "2510151000" + e + String.format("%02d", part) + s + (random.nextBoolean() ? "C" : "F"));
+        segment(message, separator, "BGM" + e + "745");
+        segment(message, separator, "TDT" + e + "20" + e + flight);
+        segment(message, separator, "LOC" + e + "125" + e + "DXB");
+        segment(message, separator, "DTM" + e + "189" + s + "2510151030" + s + "201");
+        segment(message, separator, "LOC" + e + "87" + e + "CAI");
+        segment(message, separator, "DTM" + e + "232" + s + "2510151330" + s + "201");
+        int segments = 9;
+        for (int i = 0; i < passengers; i++) {
+            String surname = syntax.escape(SURNAMES[random.nextInt(SURNAMES.length)]);
+            String given = syntax.escape(GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)]);
+            segment(message, separator, "NAD" + e + "FL" + e + e + e + surname + s + given);
+            segment(message, separator, "DTM" + e + "329" + s + String.format("%02d%02d%02d", 50 + random.nextInt(50), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+            segment(message, separator, "DOC" + e + "P" + s + "110" + s + "111" + e + "P" + (1000000 + random.nextInt(9000000)));
+            segments += 3;
+        }
+        segment(message, separator, "UNT" + e + (segments - 1) + e + reference);
+        segment(message, separator, "UNE" + e + "1" + e + reference);
+        segment(message, separator, "UNZ" + e + "1" + e + reference);
+        return message.toString().stripTrailing();
+    }
+
+    /**
+     * PNRGOV input log in the MessageMHPNRGOV.log format
+     * @param multiLine Wrap the EDIFACT content over several lines at segment ends; otherwise one line per message
+     */
+    public static String pnrLog(int messages, int passengersPerMessage, Syntax syntax, boolean multiLine, long seed) {
+        Random random = new Random(seed);
+        StringBuilder log = new StringBuilder(messages * (400 + passengersPerMessage * 60));
+        for (int i = 0; i < messages; i++) {
+            String time = String.format("10:%02d:%02d", (i / 60) % 60, i % 60);
+            log.append("INFO  [2025-10-15T").append(time).append(",123] [trace.id:P").append(i).append("] Received PNRGOV_PNR_PUSH request\n");
+            String flight = FLIGHTS[random.nextInt(FLIGHTS.length)];
+            String message = pnrMessage(random, flight, 1 + random.nextInt(3), passengersPerMessage, syntax);
+            if (multiLine) {
+                // Wrapped after the first segment that reaches 120 characters on the line
+                int lineStart = 0;
+                for (int end = 0; end < message.length(); end++) {
+                    if (message.charAt(end) == syntax.terminator && message.charAt(end - 1) != syntax.release
+                            && (end - lineStart >= 120 || end == message.length() - 1)) {
+                        log.append(message, lineStart, end + 1).append('\n');
+                        lineStart = end + 1;
+                    }
+                }
+            } else {
+                log.append(message).append('\n');
+            }
+            log.append("2025-10-15T").append(time).append(",500 DEBUG Acknowledged trace.id:P").append(i).append('\n');
+        }
+        return log.toString();
+    }
+
+    private static String pnrMessage(Random random, String flight, int part, int passengers, Syntax syntax) {
+        char e = syntax.element;
+        char s = syntax.subElement;
+        char t = syntax.terminator;
+        String reference = String.format("%014d", 1 + random.nextInt(99999));
+        String airline = flight.substring(0, 2);
+        StringBuilder message = new StringBuilder(syntax.una());
+        message.append("UNB").append(e).append("IATA").append(s).append('1').append(e).append("EK").append(e).append("NR")
+                .append(e).append("251015").append(s).append("1030").append(e).append(reference).append(e).append(e).append("PNRGOV").append(t);
+        message.append("UNG").append(e).append("PNRGOV").append(e).append("EK").append(e).append("NR").append(e).append("251015").append(s)
+                .append("1030").append(e).append('1').append(e).append("IA").append(e).append("11").append(s).append('1').append(t);
+        message.append("UNH").append(e).append(reference).append(e).append("PNRGOV").append(s).append("11").append(s).append('1').append(s)
+                .append("IA").append(e).append(flight).append("/151025/1030").append(e).append(String.format("%02d", part)).append(s)
+                .append(random.nextBoolean() ? 'C' : 'F').append(t);
+        message.append("MSG").append(e).append(s).append("22").append(t);
+        message.append("ORG").append(e).append("EK").append(t);
+        message.append(tvl(syntax, flight)).append(t);
+        message.append("EQN").append(e).append(passengers).append(t);
+        for (int i = 0; i < passengers; i++) {
+            message.append("SRC").append(t);
+            message.append(rci(syntax, random)).append(t);
+            message.append(tif(syntax, random)).append(t);
+        }
+        message.append("UNT").append(e).append(6 + passengers * 3).append(e).append(reference).append(t);
+        message.append("UNE").append(e).append('1').append(e).append('1').append(t);
+        message.append("UNZ").append(e).append('1').append(e).append(reference).append(t);
+        return message.toString();
+    }
+
+    /**
+     * TIF segment (without terminator) with names that need release characters
+     */
+    public static String tif(Syntax syntax, Random random) {
+        char e = syntax.element;
+        String surname = syntax.escape(SURNAMES[random.nextInt(SURNAMES.length)]);
+        String given = syntax.escape(GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)]);
+        return "TIF" + e + surname + e + given + syntax.subElement + "A" + syntax.subElement + "1";
+    }
+
+    /**
+     * TVL segment (without terminator) of a flight
+     */
+    public static String tvl(Syntax syntax, String flight) {
+        char e = syntax.element;
+        char s = syntax.subElement;
+        return "TVL" + e + "151025" + s + "1030" + s + "151025" + s + "1330" + e + "DXB" + e + "CAI" + e + flight.substring(0, 2) + e + flight.substring(2);
+    }
+
+    /**
+     * RCI segment (without terminator) with a random record locator
+     */
+    public static String rci(Syntax syntax, Random random) {
+        StringBuilder locator = new StringBuilder(6);
+        for (int i = 0; i < 6; i++) {
+            locator.append((char) ('A' + random.nextInt(26)));
+        }
+        return "RCI" + syntax.element + "EK" + syntax.subElement + locator + syntax.subElement + "1" + syntax.subElement + "151025" + syntax.subElement + "0930";
+    }
+
+    /**
+     * NAD name element as FileParser passes it to NormalizeName: up to three components with released separators
+     */
+    public static String nadName(Syntax syntax, Random random) {
+        return syntax.escape(SURNAMES[random.nextInt(SURNAMES.length)]) + syntax.subElement
+                + syntax.escape(GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)]) + syntax.subElement + "MR";
+    }
+
+    private static void segment(StringBuilder message, String separator, String segment) {
+        message.append(segment).append(separator);
+    }
+}
@@ -0,0 +1,89 @@
+package com.l3.benchmark;
+
+import com.l3.rcaengine.api.model.Separators;
+import com.l3.rcaengine.api.utils.NormalizeName;
+import com.l3.rcaengine.pnr.utils.EdifactParser;
+import com.l3.rcaengine.pnr.utils.EdifactSeparators;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the per-segment helpers of the comparisons: PNRGOV TIF/TVL/RCI parsing,
+ * UNA detection and API name normalization
+ * Each invocation handles the next of a fixed set of generated inputs, so branch prediction cannot learn a single one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EdifactSegmentBenchmark {
+
+    private static final int INPUTS = 1024; // Power of two, see next()
+
+    @Param({"STANDARD", "CUSTOM"})
+    public BenchmarkInputs.Syntax syntax;
+
+    private EdifactSeparators pnrSeparators;
+    private Separators apiSeparators;
+    private String[] tifSegments;
+    private String[] tvlSegments;
+    private String[] rciSegments;
+    private String[] names;
+    private String[] pnrFiles;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        pnrSeparators = EdifactSeparators.parse(syntax.una() + "UNB");
+        apiSeparators = new Separators(syntax.subElement, syntax.element, syntax.decimal, syntax.release, syntax.reserved, syntax.terminator);
+        tifSegments = new String[INPUTS];
+        tvlSegments = new String[INPUTS];
+        rciSegments = new String[INPUTS];
+        names = new String[INPUTS];
+        pnrFiles = new String[INPUTS];
+        String[] flights = {"MS775", "EK0160", "QR512", "TS230"};
+        for (int i = 0; i < INPUTS; i++) {
+            tifSegments[i] = BenchmarkInputs.tif(syntax, random);
+            tvlSegments[i] = BenchmarkInputs.tvl(syntax, flights[i % flights.length]);
+            rciSegments[i] = BenchmarkInputs.rci(syntax, random);
+            names[i] = BenchmarkInputs.nadName(syntax, random);
+            // PNRGOV file content without the log line in front; parse() only looks at the first lines
+            String log = BenchmarkInputs.pnrLog(1, 3, syntax, i % 2 == 0, i);
+            pnrFiles[i] = log.substring(log.indexOf('\n') + 1);
+        }
+    }
+
+    private int next() {
+        return index = (index + 1) & (INPUTS - 1);
+    }
+
+    @Benchmark
+    public EdifactParser.TifData parseTif() {
+        return EdifactParser.parseTif(tifSegments[next()], pnrSeparators);
+    }
+
+    @Benchmark
+    public EdifactParser.TvlData parseTvl() {
+        return EdifactParser.parseTvl(tvlSegments[next()], pnrSeparators);
+    }
+
+    @Benchmark
+    public String parseRci() {
+        return EdifactParser.parseRci(rciSegments[next()], pnrSeparators);
+    }
+
+    @Benchmark
+    public EdifactSeparators parseSeparators() {
+        return EdifactSeparators.parse(pnrFiles[next()]);
+    }
+
+    @Benchmark
+    public String normalizeName() {
+        return NormalizeName.normalize(names[next()], apiSeparators);
+    }
+}
@@ -0,0 +1,60 @@
+package com.l3.benchmark;
+
+import com.l3.rcaengine.api.utils.FileParser;
+import com.l3.rcaengine.api.utils.ParseResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Throughput of the API comparison (FileParser.parseFolder) over a generated RCA folder
+ * The files stay in the page cache after the first iteration, so this measures parsing rather than the disk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileParserBenchmark {
+
+    @Param({"STANDARD", "CUSTOM"})
+    public BenchmarkInputs.Syntax syntax;
+
+    @Param({"300"})
+    public int passengers;
+
+    private FileParser parser;
+    private Path folder;
+
+    @Setup
+    public void setUp() throws IOException {
+        parser = new FileParser("pax", "api");
+        folder = Files.createTempDirectory("file-parser-benchmark");
+        Files.createDirectories(folder.resolve("input"));
+        Files.createDirectories(folder.resolve("output"));
+        // Two input parts and the output that merged them
+        Files.writeString(folder.resolve("input").resolve("part1.txt"), BenchmarkInputs.apiFile(passengers / 2, syntax, 1), StandardCharsets.UTF_8);
+        Files.writeString(folder.resolve("input").resolve("part2.txt"), BenchmarkInputs.apiFile(passengers / 2, syntax, 2), StandardCharsets.UTF_8);
+        Files.writeString(folder.resolve("output").resolve("output.txt"), BenchmarkInputs.apiFile(passengers, syntax, 1), StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public ParseResult parseFolder() throws Exception {
+        return parser.parseFolder(folder.toFile());
+    }
+}
@@ -0,0 +1,45 @@
+package com.l3.benchmark;
+
+import com.l3.logparser.enums.MessageType;
+import com.l3.logparser.pnr.model.PnrMessage;
+import com.l3.logparser.pnr.parser.PnrEdifactParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of PnrEdifactParser.parseLogContent over a generated PNRGOV input log
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PnrEdifactParserBenchmark {
+
+    @Param({"STANDARD", "CUSTOM"})
+    public BenchmarkInputs.Syntax syntax;
+
+    @Param({"false", "true"})
+    public boolean multiLine;
+
+    @Param({"200"})
+    public int messages;
+
+    private PnrEdifactParser parser;
+    private String logContent;
+
+    @Setup
+    public void setUp() {
+        parser = new PnrEdifactParser();
+        logContent = BenchmarkInputs.pnrLog(messages, 20, syntax, multiLine, 42);
+    }
+
+    @Benchmark
+    public List<PnrMessage> parseLogContent() {
+        parser.resetSeparatorLogging();
+        return parser.parseLogContent(logContent, BenchmarkInputs.TARGET_FLIGHT, MessageType.INPUT);
+    }
+}
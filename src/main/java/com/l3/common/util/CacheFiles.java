@@ -0,0 +1,102 @@
+package com.l3.common.util;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writing and evicting the files of persistent caches (flight indexes, parse results)
+ * A cache file is written to a temporary file of its own and then moved over the previous version, so
+ * concurrent extractions (GUI, batch runs) never read or replace a half-written file. Its modification
+ * time records its last use; eviction removes files unused for too long, then the least recently used
+ * ones until the directory fits its size limit.
+ */
+public final class CacheFiles {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private CacheFiles() {
+    }
+
+    /**
+     * Create a new temporary file next to a cache file (creating the directory if needed)
+     */
+    public static Path newTempFile(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, file.getFileName() + ".", TEMP_SUFFIX);
+    }
+
+    /**
+     * Replace a cache file with a completely written temporary file, atomically where supported
+     */
+    public static void replace(Path tempFile, Path file) throws IOException {
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Record that a cache file was used now
+     */
+    public static void markUsed(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only the eviction order is affected
+        }
+    }
+
+    /**
+     * Remove the cache files (and temporary files left by interrupted writers) unused for longer than
+     * the maximum age, then the least recently used cache files until their total size fits the limit
+     * @param suffix File name suffix of the cache files, e.g. ".idx"
+     */
+    public static void evict(Path directory, String suffix, long maxBytes, long maxAgeMillis) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        long expired = System.currentTimeMillis() - maxAgeMillis;
+        List<Path> files = new ArrayList<>();
+        Map<Path, Long> lastUsed = new HashMap<>();
+        Map<Path, Long> sizes = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    if (name.endsWith(TEMP_SUFFIX)) {
+                        if (Files.getLastModifiedTime(file).toMillis() < expired) {
+                            Files.deleteIfExists(file);
+                        }
+                    } else if (name.endsWith(suffix)) {
+                        lastUsed.put(file, Files.getLastModifiedTime(file).toMillis());
+                        sizes.put(file, Files.size(file));
+                        files.add(file);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Removed meanwhile by another extraction
+                }
+            }
+        }
+        files.sort(Comparator.comparing(lastUsed::get));
+
+        long total = 0;
+        for (Path file : files) {
+            total += sizes.get(file);
+        }
+        for (Path file : files) {
+            if (lastUsed.get(file) >= expired && total <= maxBytes) {
+                break;
+            }
+            Files.deleteIfExists(file);
+            total -= sizes.get(file);
+        }
+    }
+}
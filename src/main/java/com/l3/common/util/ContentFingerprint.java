@@ -0,0 +1,194 @@
+package com.l3.common.util;
+
+/**
+ * 128-bit fingerprint of the normalised body of an EDIFACT message
+ *
+ * The body is the text from the UNH segment up to and including the UNT segment (all of them when an
+ * interchange holds several messages); the UNA/UNB/UNZ envelope, which differs between the logs a
+ * message passes through, is left out. A message without UNH is fingerprinted as a whole. Segments are
+ * trimmed and line breaks and tabs inside them are ignored, so the same message logged on one line in
+ * one file and on several lines in another gets the same fingerprint.
+ *
+ * Two independent 64-bit hashes are combined; the fingerprint is not cryptographic, but an accidental
+ * collision between different messages is practically impossible.
+ */
+public final class ContentFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long SECOND_SEED = 0x9e3779b97f4a7c15L;
+    private static final long SECOND_MULTIPLIER = 0xc2b2ae3d27d4eb4fL;
+    // Hashed between two segments, cannot occur in a trimmed segment
+    private static final char SEGMENT_BOUNDARY = '\n';
+
+    private final long high;
+    private final long low;
+
+    public ContentFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public long getHigh() { return high; }
+
+    public long getLow() { return low; }
+
+    /**
+     * Fingerprint of this content combined with another value (e.g. to keep directions apart)
+     */
+    public ContentFingerprint combine(long value) {
+        return new ContentFingerprint(mix(high ^ value), mix(low + value * SECOND_SEED));
+    }
+
+    /**
+     * Fingerprint of EDIFACT content using the terminator and release indicator of its UNA header, or the defaults (' and ?)
+     */
+    public static ContentFingerprint ofEdifact(CharSequence content) {
+        if (content != null && content.length() >= 9 && content.charAt(0) == 'U' && content.charAt(1) == 'N'
+                && content.charAt(2) == 'A') {
+            return ofEdifact(content, content.charAt(8), content.charAt(6));
+        }
+        return ofEdifact(content, '\'', '?');
+    }
+
+    /**
+     * Fingerprint of EDIFACT content, split into segments by the terminator (a released terminator stays in the segment)
+     */
+    public static ContentFingerprint ofEdifact(CharSequence content, char terminator, char releaseIndicator) {
+        Builder builder = new Builder();
+        if (content == null) {
+            return builder.build();
+        }
+        int length = content.length();
+        int position = 0;
+        while (position < length) {
+            int i = position;
+            while (i < length) {
+                char c = content.charAt(i);
+                if (c == releaseIndicator && i + 1 < length) {
+                    i += 2;
+                } else if (c == terminator) {
+                    break;
+                } else {
+                    i++;
+                }
+            }
+            int end = Math.min(i, length);
+            builder.addSegment(content, position, end);
+            position = end + 1;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Computes a fingerprint segment by segment, while a message is being tokenised
+     * Not thread-safe; reset it to reuse it for another message.
+     */
+    public static final class Builder {
+
+        // Segments of the body (UNH..UNT) and the other segments, which are the fingerprint when there is no UNH
+        private final long[] body = new long[3];
+        private final long[] envelope = new long[3];
+        private boolean inBody;
+        private boolean bodySeen;
+
+        public Builder() {
+            reset();
+        }
+
+        public void reset() {
+            start(body);
+            start(envelope);
+            inBody = false;
+            bodySeen = false;
+        }
+
+        /**
+         * Add the segment text[start, end); it is trimmed here, empty segments are ignored
+         */
+        public void addSegment(CharSequence text, int start, int end) {
+            while (start < end && text.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && text.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start == end) {
+                return;
+            }
+
+            if (hasTag(text, start, end, 'H')) {
+                inBody = true;
+                bodySeen = true;
+            }
+            hash(inBody ? body : envelope, text, start, end);
+            if (inBody && hasTag(text, start, end, 'T')) {
+                inBody = false;
+            }
+        }
+
+        public ContentFingerprint build() {
+            long[] state = bodySeen ? body : envelope;
+            return new ContentFingerprint(mix(state[0] ^ state[2]), mix(state[1] + state[2]));
+        }
+
+        private static void start(long[] state) {
+            state[0] = FNV_OFFSET;
+            state[1] = SECOND_SEED;
+            state[2] = 0;
+        }
+
+        private static void hash(long[] state, CharSequence text, int start, int end) {
+            long first = state[0];
+            long second = state[1];
+            long length = state[2];
+            for (int i = start; i <= end; i++) {
+                char c = i < end ? text.charAt(i) : SEGMENT_BOUNDARY;
+                if (i < end && (c == '\n' || c == '\r' || c == '\t')) {
+                    continue;
+                }
+                first = (first ^ c) * FNV_PRIME;
+                second = Long.rotateLeft(second ^ (c * SECOND_MULTIPLIER), 29) * SECOND_SEED;
+                length++;
+            }
+            state[0] = first;
+            state[1] = second;
+            state[2] = length;
+        }
+
+        private static boolean hasTag(CharSequence text, int start, int end, char last) {
+            return end - start > 3 && text.charAt(start) == 'U' && text.charAt(start + 1) == 'N'
+                    && text.charAt(start + 2) == last && !Character.isLetterOrDigit(text.charAt(start + 3));
+        }
+    }
+
+    /**
+     * Finalisation step of MurmurHash3, spreads every input bit over the whole result
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb93fe53a893bL;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ContentFingerprint)) return false;
+        ContentFingerprint that = (ContentFingerprint) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (high ^ (high >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
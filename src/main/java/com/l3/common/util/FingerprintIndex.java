@@ -0,0 +1,117 @@
+package com.l3.common.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash table from content fingerprints to int values (e.g. positions in a result list)
+ *
+ * Fingerprints are stored as two longs in flat arrays with open addressing, so deduplicating many
+ * messages allocates no key objects and no entries. Not thread-safe.
+ */
+public class FingerprintIndex {
+
+    private static final int NOT_FOUND = -1;
+
+    private long[] highs;
+    private long[] lows;
+    // Value + 1 per slot, 0 for a free slot
+    private int[] values;
+    private int size;
+
+    public FingerprintIndex() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize Number of fingerprints the index holds without growing
+     */
+    public FingerprintIndex(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(8, expectedSize * 2) - 1) << 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add a fingerprint (with value 0 when it is used as a set)
+     * @return true if the fingerprint was not in the index yet
+     */
+    public boolean add(ContentFingerprint fingerprint) {
+        return putIfAbsent(fingerprint, 0) == NOT_FOUND;
+    }
+
+    public boolean contains(ContentFingerprint fingerprint) {
+        return get(fingerprint) != NOT_FOUND;
+    }
+
+    /**
+     * @return The value of the fingerprint, or -1 if it is not in the index
+     */
+    public int get(ContentFingerprint fingerprint) {
+        int slot = find(fingerprint.getHigh(), fingerprint.getLow());
+        return values[slot] - 1;
+    }
+
+    /**
+     * Add a fingerprint with a value unless it is in the index already
+     * @param value Value to store, not negative
+     * @return The value already stored for the fingerprint, or -1 if it was added
+     */
+    public int putIfAbsent(ContentFingerprint fingerprint, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        long high = fingerprint.getHigh();
+        long low = fingerprint.getLow();
+        int slot = find(high, low);
+        if (values[slot] != 0) {
+            return values[slot] - 1;
+        }
+        highs[slot] = high;
+        lows[slot] = low;
+        values[slot] = value + 1;
+        if (++size * 2 > values.length) {
+            grow();
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Slot of the fingerprint, or the free slot where it belongs
+     */
+    private int find(long high, long low) {
+        int mask = values.length - 1;
+        int slot = (int) (low ^ (low >>> 32)) & mask;
+        while (values[slot] != 0 && (highs[slot] != high || lows[slot] != low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        int[] oldValues = values;
+        allocate(oldValues.length * 2);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = find(oldHighs[i], oldLows[i]);
+                highs[slot] = oldHighs[i];
+                lows[slot] = oldLows[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        values = new int[capacity];
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+}
@@ -0,0 +1,108 @@
+package com.l3.common.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads gzip-compressed rotated log files (das.log.1.gz, ...) directly
+ * The content is inflated while it is read, so nothing is written to disk. Offsets in the
+ * decompressed content are not addressable, which is why compressed files are always read as a stream.
+ */
+public class GzipLogFiles {
+
+    private static final int INFLATE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Check if a log file is gzip-compressed (by its .gz extension)
+     */
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * Open a stream over the decompressed content of a gzip file
+     */
+    public static InputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        try {
+            return new GZIPInputStream(in, INFLATE_BUFFER_SIZE);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the decompressed content of a gzip log file in text batches of about batchSize bytes
+     * Every batch ends in front of a line whose beginning matches the entry-start pattern (like the
+     * boundaries of LogFileChunker), so no log entry is ever cut in two and parsing the batches one
+     * by one gives the same result as parsing the whole content.
+     * @param batchHandler Receives the batches in file order
+     */
+    public static void readEntryBatches(Path file, int batchSize, Pattern entryStart, Consumer<String> batchHandler) throws IOException {
+        try (InputStream in = open(file)) {
+            readEntryBatches(in, batchSize, entryStart, batchHandler);
+        }
+    }
+
+    /**
+     * Read an already decompressed log stream (e.g. one filtered by LogTimeWindow) in entry-aligned batches
+     * like readEntryBatches(Path, ...); the stream is not closed
+     */
+    public static void readEntryBatches(InputStream in, int batchSize, Pattern entryStart, Consumer<String> batchHandler) throws IOException {
+        byte[] buffer = new byte[Math.max(batchSize, INFLATE_BUFFER_SIZE) + INFLATE_BUFFER_SIZE];
+        int length = 0;
+        int searchFrom = 0; // Bytes before this offset are known not to hold a usable boundary
+
+        while (true) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2); // One entry is larger than a batch
+            }
+            int read = in.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+            if (length < batchSize) {
+                continue;
+            }
+
+            int cut = lastEntryStart(buffer, searchFrom, length, entryStart);
+            if (cut <= 0) {
+                // Only the last lines can turn into boundaries once more bytes arrive
+                searchFrom = Math.max(0, length - 256);
+                continue;
+            }
+            batchHandler.accept(new String(buffer, 0, cut, StandardCharsets.UTF_8));
+            System.arraycopy(buffer, cut, buffer, 0, length - cut);
+            length -= cut;
+            searchFrom = 0;
+        }
+
+        if (length > 0) {
+            batchHandler.accept(new String(buffer, 0, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Find the last line start in [from, length) that begins a log entry
+     * Lines without a newline after their prefix may still grow, but a match on a shorter prefix stays a match.
+     * @return The offset of that line, or -1 if there is none
+     */
+    private static int lastEntryStart(byte[] buffer, int from, int length, Pattern entryStart) {
+        for (int i = length - 2; i >= from; i--) {
+            if (buffer[i] == '\n' && LogFileChunker.isEntryStart(buffer, i + 1, length - i - 1, entryStart)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
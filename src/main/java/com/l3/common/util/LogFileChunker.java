@@ -0,0 +1,140 @@
+package com.l3.common.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a large log file into byte ranges that can be parsed independently
+ * Every boundary is moved forward to the start of the next log entry (a line whose beginning
+ * matches the given entry-start pattern), so no entry is ever cut in two.
+ */
+public class LogFileChunker {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    // Entry-start patterns only look at the beginning of a line
+    private static final int LINE_PREFIX_SIZE = 128;
+
+    /**
+     * Byte range [start, end) of a log file
+     */
+    public static final class Chunk {
+        private final long start;
+        private final long end;
+
+        public Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getStart() { return start; }
+
+        public long getEnd() { return end; }
+
+        public long getLength() { return end - start; }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + end + ")";
+        }
+    }
+
+    /**
+     * Split a file into at most chunkCount ranges aligned to log-entry starts
+     * @param file The log file
+     * @param chunkCount Wanted number of ranges
+     * @param entryStart Pattern matched (lookingAt) against the beginning of a line
+     * @return Adjacent ranges covering the whole file, in file order
+     */
+    public static List<Chunk> split(Path file, int chunkCount, Pattern entryStart) throws IOException {
+        return split(file, 0, Long.MAX_VALUE, chunkCount, entryStart);
+    }
+
+    /**
+     * Split the byte range [from, to) of a file (e.g. the range of a LogTimeWindow) into at most
+     * chunkCount ranges aligned to log-entry starts
+     * @param from Start of the range; must be a line start
+     * @param to End of the range, cut to the file size
+     * @return Adjacent ranges covering [from, to), in file order (empty if the range is empty)
+     */
+    public static List<Chunk> split(Path file, long from, long to, int chunkCount, Pattern entryStart) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = Math.min(to, channel.size());
+            if (from >= end) {
+                return chunks;
+            }
+            long start = from;
+
+            for (int i = 1; i < chunkCount; i++) {
+                long nominal = Math.max(start + 1, from + (end - from) / chunkCount * i);
+                if (nominal >= end) {
+                    break;
+                }
+                long boundary = nextEntryStart(channel, nominal, end, entryStart);
+                if (boundary < 0) {
+                    break; // No further entry starts - the rest stays in one range
+                }
+                chunks.add(new Chunk(start, boundary));
+                start = boundary;
+            }
+
+            chunks.add(new Chunk(start, end));
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Find the first line start after the given offset whose beginning matches the entry-start pattern
+     * @return The offset of that line, or -1 if there is none
+     */
+    private static long nextEntryStart(FileChannel channel, long from, long size, Pattern entryStart) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        ByteBuffer prefix = ByteBuffer.allocate(LINE_PREFIX_SIZE);
+        long pos = from;
+
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) != '\n') {
+                    continue;
+                }
+                long lineStart = pos + i + 1;
+                if (lineStart >= size) {
+                    return -1;
+                }
+                prefix.clear();
+                int prefixLength = channel.read(prefix, lineStart);
+                if (isEntryStart(prefix.array(), 0, Math.max(prefixLength, 0), entryStart)) {
+                    return lineStart;
+                }
+            }
+            pos += read;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Check if the line starting at the given offset begins a log entry
+     * Only the first LINE_PREFIX_SIZE bytes are looked at; a shorter prefix can only miss a boundary, never invent one.
+     * @param available Number of bytes of the line that are available from offset
+     */
+    static boolean isEntryStart(byte[] bytes, int offset, int available, Pattern entryStart) {
+        // Patterns are ASCII, so a Latin-1 view of the raw bytes is enough (multi-byte characters never match)
+        String line = new String(bytes, offset, Math.min(available, LINE_PREFIX_SIZE), StandardCharsets.ISO_8859_1);
+        return entryStart.matcher(line).lookingAt();
+    }
+}
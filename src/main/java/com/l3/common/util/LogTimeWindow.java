@@ -0,0 +1,437 @@
+package com.l3.common.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Time window of log entries an extraction is restricted to
+ *
+ * Log files are written in time order, so the entries of a window form one contiguous byte range.
+ * For plain files that range is found by binary search over byte offsets, probing the timestamp of
+ * the first entry after each offset; files whose first and last timestamps lie outside the window
+ * are skipped without being read. Compressed files cannot be read at an offset, so their content is
+ * filtered while it is inflated and reading stops at the first entry after the window.
+ *
+ * Entry timestamps are recognised at the start of a line, either directly ("2025-10-15 10:00:01,123 ...")
+ * or after the log level ("INFO  [2025-10-15T10:00:01,123] ..."). Lines without one belong to the
+ * entry above them. An entry is inside the window if its timestamp lies in [start, end].
+ */
+public class LogTimeWindow {
+
+    // Timestamps always sit in the first bytes of a line
+    private static final int LINE_PREFIX_SIZE = 64;
+    private static final int PROBE_BLOCK_SIZE = 16 * 1024;
+    // Below this size the binary search continues as a linear scan of the entries
+    private static final long LINEAR_SCAN_SIZE = 64 * 1024;
+
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final long startKey;
+    private final long endKey;
+
+    /**
+     * @param start First timestamp of the window (null for no lower bound)
+     * @param end Last timestamp of the window (null for no upper bound)
+     */
+    public LogTimeWindow(LocalDateTime start, LocalDateTime end) {
+        if (start != null && end != null && end.isBefore(start)) {
+            throw new IllegalArgumentException("Time window ends before it starts: " + start + " - " + end);
+        }
+        this.start = start;
+        this.end = end;
+        this.startKey = start != null ? timestampKey(start) : Long.MIN_VALUE;
+        this.endKey = end != null ? timestampKey(end) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Window reaching the given margin before and after a point in time (e.g. two hours around departure)
+     */
+    public static LogTimeWindow around(LocalDateTime center, Duration margin) {
+        return new LogTimeWindow(center.minus(margin), center.plus(margin));
+    }
+
+    public LocalDateTime getStart() { return start; }
+
+    public LocalDateTime getEnd() { return end; }
+
+    /**
+     * Check if an entry timestamp lies inside the window
+     */
+    public boolean contains(LocalDateTime timestamp) {
+        long key = timestampKey(timestamp);
+        return key >= startKey && key <= endKey;
+    }
+
+    /**
+     * Find the byte range of a plain log file that holds the entries of the window
+     * The range starts at the first entry at or after the window start and ends in front of the first
+     * entry after the window end; both are line starts. Without timestamps the whole file is returned.
+     * @return {from, to}; from == to if the file lies completely outside the window
+     */
+    public long[] findRange(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            BlockReader reader = new BlockReader(channel, channel.size());
+            long size = reader.size;
+
+            long[] first = nextTimestampedLine(reader, 0, size);
+            if (first == null) {
+                return new long[]{0, size};
+            }
+            long[] last = lastTimestampedLine(reader);
+            if (first[1] > endKey || (last != null && last[1] < startKey)) {
+                return new long[]{0, 0};
+            }
+
+            long from = start != null ? firstLineAtOrAfter(reader, startKey) : 0;
+            long to = end != null && endKey < Long.MAX_VALUE ? firstLineAtOrAfter(reader, endKey + 1) : size;
+            return new long[]{from, Math.max(from, to)};
+        }
+    }
+
+    /**
+     * Wrap a log stream so that only the lines of the window's entries are passed on
+     * Lines in front of the first entry at or after the window start are dropped, and the stream
+     * ends in front of the first entry after the window end without reading any further.
+     */
+    public InputStream filter(InputStream in) {
+        return new WindowInputStream(in);
+    }
+
+    /**
+     * Binary search for the first timestamped line whose timestamp is at least the key
+     * Keeps the invariant that the wanted line lies in [lo, hi) or is the best line found so far.
+     * @return Its offset, or the file size if there is none
+     */
+    private long firstLineAtOrAfter(BlockReader reader, long key) throws IOException {
+        long lo = 0;
+        long hi = reader.size;
+        long best = reader.size;
+
+        while (hi - lo > LINEAR_SCAN_SIZE) {
+            long mid = lo + (hi - lo) / 2;
+            long[] probe = nextTimestampedLine(reader, mid, hi);
+            if (probe == null) {
+                hi = mid; // No entry starts in [mid, hi)
+            } else if (probe[1] < key) {
+                lo = probe[2];
+            } else {
+                best = probe[0];
+                hi = mid;
+            }
+        }
+
+        long pos = lo;
+        while (pos < best) {
+            long[] line = nextTimestampedLine(reader, pos, best);
+            if (line == null) {
+                break;
+            }
+            if (line[1] >= key) {
+                return line[0];
+            }
+            pos = line[2];
+        }
+        return best;
+    }
+
+    /**
+     * Find the first line starting in [from, limit) that carries an entry timestamp
+     * From does not need to be a line start; a line that began before it is skipped.
+     * @return {line offset, timestamp key, offset of the next line}, or null if there is none
+     */
+    private static long[] nextTimestampedLine(BlockReader reader, long from, long limit) throws IOException {
+        long lineStart = from;
+        if (from > 0 && reader.get(from - 1) != '\n') {
+            long newline = reader.indexOfNewline(from);
+            if (newline < 0) {
+                return null;
+            }
+            lineStart = newline + 1;
+        }
+        byte[] prefix = new byte[LINE_PREFIX_SIZE];
+
+        while (lineStart < limit && lineStart < reader.size) {
+            int length = reader.read(lineStart, prefix);
+            long key = timestampKey(prefix, 0, length);
+            long newline = reader.indexOfNewline(lineStart);
+            long nextLine = newline < 0 ? reader.size : newline + 1;
+            if (key >= 0) {
+                return new long[]{lineStart, key, nextLine};
+            }
+            lineStart = nextLine;
+        }
+        return null;
+    }
+
+    /**
+     * Find the last line of the file that carries an entry timestamp, searching backwards block by block
+     */
+    private static long[] lastTimestampedLine(BlockReader reader) throws IOException {
+        long blockEnd = reader.size;
+        while (blockEnd > 0) {
+            long blockStart = Math.max(0, blockEnd - PROBE_BLOCK_SIZE);
+            long[] last = null;
+            long pos = blockStart;
+            while (true) {
+                long[] line = nextTimestampedLine(reader, pos, blockEnd);
+                if (line == null) {
+                    break;
+                }
+                last = line;
+                pos = line[2];
+            }
+            if (last != null) {
+                return last;
+            }
+            blockEnd = blockStart;
+        }
+        return null;
+    }
+
+    /**
+     * Sortable key of the entry timestamp at the start of a line (yyyyMMddHHmmssSSS as a number)
+     * @return The key, or -1 if the line does not start with an entry timestamp
+     */
+    static long timestampKey(byte[] line, int offset, int length) {
+        int end = offset + length;
+        int pos = offset;
+
+        // Optional log level followed by "[": INFO  [2025-10-15T10:00:01,123]
+        int letters = 0;
+        while (pos < end && line[pos] >= 'A' && line[pos] <= 'Z') {
+            pos++;
+            letters++;
+        }
+        if (letters > 0) {
+            while (pos < end && line[pos] == ' ') {
+                pos++;
+            }
+            if (pos >= end || line[pos] != '[') {
+                return -1;
+            }
+            pos++;
+        }
+
+        if (end - pos < 19 || line[pos + 4] != '-' || line[pos + 7] != '-' ||
+            (line[pos + 10] != ' ' && line[pos + 10] != 'T') || line[pos + 13] != ':' || line[pos + 16] != ':') {
+            return -1;
+        }
+        long year = digits(line, pos, 4);
+        long month = digits(line, pos + 5, 2);
+        long day = digits(line, pos + 8, 2);
+        long hour = digits(line, pos + 11, 2);
+        long minute = digits(line, pos + 14, 2);
+        long second = digits(line, pos + 17, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return -1;
+        }
+        long millis = 0;
+        if (end - pos >= 23 && (line[pos + 19] == ',' || line[pos + 19] == '.')) {
+            millis = Math.max(0, digits(line, pos + 20, 3));
+        }
+        return ((((year * 100 + month) * 100 + day) * 100 + hour) * 100 + minute) * 100_000 + second * 1000 + millis;
+    }
+
+    private static long timestampKey(LocalDateTime time) {
+        return ((((time.getYear() * 100L + time.getMonthValue()) * 100 + time.getDayOfMonth()) * 100 + time.getHour()) * 100
+                + time.getMinute()) * 100_000 + time.getSecond() * 1000L + time.getNano() / 1_000_000;
+    }
+
+    private static long digits(byte[] bytes, int offset, int count) {
+        long value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return (start != null ? start : "*") + " - " + (end != null ? end : "*");
+    }
+
+    /**
+     * Positional reads over a file channel with one cached block, for probing single lines
+     */
+    private static final class BlockReader {
+        private final FileChannel channel;
+        private final long size;
+        private final ByteBuffer block = ByteBuffer.allocate(PROBE_BLOCK_SIZE);
+        private long blockStart = -1;
+        private int blockLength = 0;
+
+        BlockReader(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        int get(long pos) throws IOException {
+            if (pos < blockStart || pos >= blockStart + blockLength) {
+                load(pos);
+            }
+            return block.get((int) (pos - blockStart));
+        }
+
+        /**
+         * Copy up to target.length bytes starting at pos, stopping at the end of the line
+         */
+        int read(long pos, byte[] target) throws IOException {
+            int length = 0;
+            while (length < target.length && pos + length < size) {
+                int b = get(pos + length);
+                if (b == '\n') {
+                    break;
+                }
+                target[length++] = (byte) b;
+            }
+            return length;
+        }
+
+        /**
+         * Offset of the first newline at or after pos, or -1
+         */
+        long indexOfNewline(long pos) throws IOException {
+            for (long i = pos; i < size; i++) {
+                if (get(i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void load(long pos) throws IOException {
+            block.clear();
+            blockStart = pos;
+            blockLength = 0;
+            while (block.hasRemaining()) {
+                int read = channel.read(block, pos + block.position());
+                if (read <= 0) {
+                    break;
+                }
+            }
+            blockLength = block.position();
+            if (blockLength == 0) {
+                throw new IOException("Cannot read log file at offset " + pos);
+            }
+        }
+    }
+
+    /**
+     * Stream over the lines of the window's entries (see filter)
+     */
+    private final class WindowInputStream extends FilterInputStream {
+        private final byte[] readBuffer = new byte[64 * 1024];
+        private int readPos = 0;
+        private int readLength = 0;
+        private byte[] line = new byte[8192];
+        private int lineLength = 0;
+        private int linePos = 0; // Bytes of the current line already passed on
+        private boolean inWindow = start == null;
+        private boolean finished = false;
+
+        WindowInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (linePos >= lineLength) {
+                if (finished || !nextLine()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, lineLength - linePos);
+            System.arraycopy(line, linePos, target, offset, count);
+            linePos += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] discard = new byte[(int) Math.min(n, 8192)];
+            int read = read(discard, 0, discard.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public int available() {
+            return lineLength - linePos;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Read the next line (with its newline) of the window into the line buffer
+         * @return false at the end of the window or the stream
+         */
+        private boolean nextLine() throws IOException {
+            while (true) {
+                lineLength = 0;
+                linePos = 0;
+                boolean complete = false;
+                while (!complete) {
+                    if (readPos >= readLength) {
+                        readLength = in.read(readBuffer, 0, readBuffer.length);
+                        readPos = 0;
+                        if (readLength <= 0) {
+                            readLength = 0;
+                            break;
+                        }
+                    }
+                    int newline = readPos;
+                    while (newline < readLength && readBuffer[newline] != '\n') {
+                        newline++;
+                    }
+                    complete = newline < readLength;
+                    int count = (complete ? newline + 1 : readLength) - readPos;
+                    if (lineLength + count > line.length) {
+                        line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + count));
+                    }
+                    System.arraycopy(readBuffer, readPos, line, lineLength, count);
+                    lineLength += count;
+                    readPos += count;
+                }
+                if (lineLength == 0) {
+                    finished = true;
+                    return false;
+                }
+
+                long key = timestampKey(line, 0, Math.min(lineLength, LINE_PREFIX_SIZE));
+                if (key >= 0 && key > endKey) {
+                    finished = true;
+                    lineLength = 0;
+                    return false;
+                }
+                if (key >= 0 && key >= startKey) {
+                    inWindow = true;
+                }
+                if (inWindow) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.l3.common.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes extracted messages to files on dedicated I/O threads
+ *
+ * Producers queue (file, content) pairs and continue; I/O threads take them in batches and write
+ * them without syncing each file. Queues are bounded, so a producer that is faster than the disk
+ * waits instead of holding every message in memory. All writes of one file go to the same thread,
+ * so a file written twice ends up with the content queued last. finish() waits for the queued
+ * files, syncs all written files and their directories to disk in one pass and returns the stats.
+ *
+ * Failures of single files are counted and reported, they do not stop the other writes (an I/O
+ * thread keeps draining its queue whatever a file throws, so producers never wait on a dead thread).
+ */
+public class MessageFileWriter implements AutoCloseable {
+
+    public static final int DEFAULT_THREADS = 2;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private static final AtomicInteger WRITER_COUNT = new AtomicInteger();
+    private static final PendingFile END = new PendingFile(null, null);
+
+    private static final class PendingFile {
+        final Path file;
+        final String content;
+
+        PendingFile(Path file, String content) {
+            this.file = file;
+            this.content = content;
+        }
+    }
+
+    /**
+     * Files and bytes written so far, with their rate
+     */
+    public static final class Stats {
+        private final long filesWritten;
+        private final long bytesWritten;
+        private final long filesFailed;
+        private final long elapsedMillis;
+
+        public Stats(long filesWritten, long bytesWritten, long filesFailed, long elapsedMillis) {
+            this.filesWritten = filesWritten;
+            this.bytesWritten = bytesWritten;
+            this.filesFailed = filesFailed;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getFilesWritten() { return filesWritten; }
+
+        public long getBytesWritten() { return bytesWritten; }
+
+        public long getFilesFailed() { return filesFailed; }
+
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public double getFilesPerSecond() {
+            return elapsedMillis > 0 ? filesWritten * 1000.0 / elapsedMillis : filesWritten;
+        }
+
+        public double getBytesPerSecond() {
+            return elapsedMillis > 0 ? bytesWritten * 1000.0 / elapsedMillis : bytesWritten;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d file(s), %.1f KB in %d ms (%.0f files/s, %.1f KB/s)%s",
+                    filesWritten, bytesWritten / 1024.0, elapsedMillis, getFilesPerSecond(),
+                    getBytesPerSecond() / 1024.0, filesFailed > 0 ? ", " + filesFailed + " failed" : "");
+        }
+    }
+
+    private final List<BlockingQueue<PendingFile>> queues = new ArrayList<>();
+    private final List<Future<?>> workers = new ArrayList<>();
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final Set<Path> writtenFiles = ConcurrentHashMap.newKeySet(); // Still existing, to sync
+    private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+    private final LongAdder filesWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder filesFailed = new LongAdder();
+    private volatile long startNanos = 0;
+    private volatile long endNanos = 0;
+    private volatile boolean finished = false;
+
+    public MessageFileWriter() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param threads Number of I/O threads
+     * @param queueCapacity Number of files that can be queued before write() waits
+     * @param batchSize Number of queued files an I/O thread takes at once
+     */
+    public MessageFileWriter(int threads, int queueCapacity, int batchSize) {
+        if (threads < 1 || queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Threads, queue capacity and batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        int writerNumber = WRITER_COUNT.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "message-writer-" + writerNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int capacityPerThread = Math.max(1, queueCapacity / threads);
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<PendingFile> queue = new ArrayBlockingQueue<>(capacityPerThread);
+            queues.add(queue);
+            workers.add(executor.submit(() -> writeLoop(queue)));
+        }
+    }
+
+    /**
+     * Queue a file to be written (UTF-8); waits while the queue of its I/O thread is full
+     * @param content Text of the file, null to delete it
+     */
+    public void write(Path file, String content) throws InterruptedException {
+        if (finished) {
+            throw new IllegalStateException("Writer is already finished");
+        }
+        if (startNanos == 0) {
+            startNanos = System.nanoTime();
+        }
+        queues.get(Math.floorMod(file.hashCode(), queues.size())).put(new PendingFile(file, content));
+    }
+
+    /**
+     * Queue a file to be deleted if it exists (e.g. a file written earlier for a message that was replaced)
+     * Ordered with the writes of the same file.
+     */
+    public void delete(Path file) throws InterruptedException {
+        write(file, null);
+    }
+
+    private void writeLoop(BlockingQueue<PendingFile> queue) {
+        List<PendingFile> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                for (PendingFile pending : batch) {
+                    if (pending == END) {
+                        return;
+                    }
+                    try {
+                        writeFile(pending);
+                    } catch (RuntimeException e) {
+                        // e.g. a path of a closed file system; counted like a failed write
+                        filesFailed.increment();
+                        errors.add(pending.file.getFileName() + ": " + e);
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeFile(PendingFile pending) {
+        if (pending.content == null) {
+            try {
+                Files.deleteIfExists(pending.file);
+                writtenFiles.remove(pending.file); // Nothing left to sync
+            } catch (IOException e) {
+                errors.add(pending.file.getFileName() + ": " + e.getMessage());
+            }
+            return;
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(pending.content);
+        long length = bytes.remaining();
+        try (FileChannel channel = FileChannel.open(pending.file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            writtenFiles.add(pending.file);
+            filesWritten.increment();
+            bytesWritten.add(length);
+        } catch (IOException e) {
+            filesFailed.increment();
+            errors.add(pending.file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stats of the files written so far (while writing is still going on)
+     */
+    public Stats getStats() {
+        long start = startNanos;
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        long elapsedMillis = start != 0 ? TimeUnit.NANOSECONDS.toMillis(end - start) : 0;
+        return new Stats(filesWritten.sum(), bytesWritten.sum(), filesFailed.sum(), elapsedMillis);
+    }
+
+    /**
+     * Messages of the files that could not be written (file name and cause)
+     */
+    public List<String> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    /**
+     * Wait until all queued files are written, sync them to disk and stop the I/O threads
+     * @param sync false to skip syncing (e.g. for temporary output)
+     */
+    public Stats finish(boolean sync) throws InterruptedException {
+        if (!finished) {
+            finished = true;
+            for (BlockingQueue<PendingFile> queue : queues) {
+                queue.put(END);
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    errors.add("Writer thread failed: " + e.getCause());
+                }
+            }
+            if (sync) {
+                syncWrittenFiles();
+            }
+            if (startNanos != 0) {
+                endNanos = System.nanoTime();
+            }
+            executor.shutdown();
+        }
+        return getStats();
+    }
+
+    public Stats finish() throws InterruptedException {
+        return finish(true);
+    }
+
+    /**
+     * Sync all written files and then their directories, split over the I/O threads
+     */
+    private void syncWrittenFiles() throws InterruptedException {
+        List<Path> files = new ArrayList<>(writtenFiles);
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Path file : files) {
+            if (file.toAbsolutePath().getParent() != null) {
+                directories.add(file.toAbsolutePath().getParent());
+            }
+        }
+
+        int threads = queues.size();
+        List<Future<?>> syncs = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            syncs.add(executor.submit(() -> {
+                for (int i = first; i < files.size(); i += threads) {
+                    force(files.get(i), StandardOpenOption.WRITE);
+                }
+            }));
+        }
+        for (Future<?> sync : syncs) {
+            try {
+                sync.get();
+            } catch (ExecutionException e) {
+                errors.add("Sync failed: " + e.getCause());
+            }
+        }
+        for (Path directory : directories) {
+            force(directory, StandardOpenOption.READ);
+        }
+    }
+
+    private void force(Path path, StandardOpenOption mode) {
+        try (FileChannel channel = FileChannel.open(path, mode)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened for syncing on every platform (e.g. Windows)
+            if (!Files.isDirectory(path)) {
+                errors.add("Sync of " + path.getFileName() + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Finish without syncing if finish() was not called; files still queued are written first
+     */
+    @Override
+    public void close() {
+        try {
+            finish(false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.l3.common.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps raw message contents in a file instead of on the heap
+ * Each stored content is appended to the file as UTF-8 and referenced by its offset and length (see Ref),
+ * so extracted messages only hold a small reference and their content is read back when it is saved,
+ * previewed or compared. Recently loaded contents are kept in a small LRU cache, bounded both in entries
+ * and in characters. The file belongs to the store: it is deleted when the store is closed, or once the
+ * store and all its references are no longer reachable. Storing and loading are thread-safe; the file is
+ * accessed under the store's lock (not through an interruptible channel, which an interrupted extraction
+ * thread would close for every reader).
+ */
+public final class RawContentStore implements Closeable {
+
+    static final int DEFAULT_CACHE_ENTRIES = 64;
+    static final long DEFAULT_CACHE_CHARS = 8L * 1024 * 1024;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * Reference to a content stored in a RawContentStore
+     */
+    public static final class Ref {
+        private final RawContentStore store;
+        private final long offset;
+        private final int byteLength;
+        private final int length;
+
+        private Ref(RawContentStore store, long offset, int byteLength, int length) {
+            this.store = store;
+            this.offset = offset;
+            this.byteLength = byteLength;
+            this.length = length;
+        }
+
+        /**
+         * Read the content back (from the cache if it was used recently)
+         * @throws UncheckedIOException If the store file cannot be read, e.g. after the store was closed
+         */
+        public String load() {
+            return store.load(this);
+        }
+
+        /**
+         * Length of the content in characters, known without loading it
+         */
+        public int length() { return length; }
+
+        public Path getPath() { return store.file; }
+
+        public long getOffset() { return offset; }
+
+        public int getByteLength() { return byteLength; }
+    }
+
+    /**
+     * Closes the file when the store is closed or unreachable; must not refer to the store itself
+     */
+    private static final class FileState implements Runnable {
+        private final RandomAccessFile data;
+        private final Path file;
+
+        FileState(RandomAccessFile data, Path file) {
+            this.data = data;
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            try {
+                data.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // The file is a temporary copy of contents that are no longer needed
+            }
+        }
+    }
+
+    private final Path file;
+    private final RandomAccessFile data;
+    private final Cleaner.Cleanable cleanable;
+    private final int cacheEntries;
+    private final long cacheChars;
+    private final LinkedHashMap<Ref, String> recent = new LinkedHashMap<>(16, 0.75f, true);
+    private long recentChars;
+    private long size;
+    private int storedCount;
+    private long cacheHits;
+    private long fileReads;
+
+    /**
+     * Create a store in a new temporary file
+     * The file is also deleted when the JVM exits, in case the store is never closed.
+     */
+    public static RawContentStore createTemp() throws IOException {
+        Path file = Files.createTempFile("l3-raw-content", ".edi");
+        file.toFile().deleteOnExit();
+        return new RawContentStore(file, DEFAULT_CACHE_ENTRIES, DEFAULT_CACHE_CHARS);
+    }
+
+    /**
+     * Create a store in the given file, replacing its content; the file is deleted with the store
+     * @param cacheEntries Maximum number of recently loaded contents kept in memory
+     * @param cacheChars Maximum number of characters of recently loaded contents kept in memory
+     */
+    public RawContentStore(Path file, int cacheEntries, long cacheChars) throws IOException {
+        this.file = file;
+        this.data = new RandomAccessFile(file.toFile(), "rw");
+        data.setLength(0);
+        this.cleanable = CLEANER.register(this, new FileState(data, file));
+        this.cacheEntries = Math.max(0, cacheEntries);
+        this.cacheChars = Math.max(0, cacheChars);
+    }
+
+    /**
+     * Append a content to the store
+     * @return The reference to load it again, or null if the content cannot be stored exactly (it contains
+     *         unpaired surrogates, which UTF-8 cannot represent) and has to stay in memory
+     */
+    public Ref store(String content) throws IOException {
+        ByteBuffer bytes;
+        try {
+            bytes = StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(content));
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+        int byteLength = bytes.remaining();
+        synchronized (this) {
+            long offset = size;
+            data.seek(offset);
+            data.write(bytes.array(), bytes.arrayOffset() + bytes.position(), byteLength);
+            size += byteLength;
+            storedCount++;
+            return new Ref(this, offset, byteLength, content.length());
+        }
+    }
+
+    private String load(Ref ref) {
+        byte[] bytes = new byte[ref.byteLength];
+        synchronized (this) {
+            String content = recent.get(ref);
+            if (content != null) {
+                cacheHits++;
+                return content;
+            }
+            fileReads++;
+            try {
+                data.seek(ref.offset);
+                data.readFully(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read stored message content from " + file, e);
+            }
+        }
+
+        String content = new String(bytes, StandardCharsets.UTF_8);
+        remember(ref, content);
+        return content;
+    }
+
+    private synchronized void remember(Ref ref, String content) {
+        if (content.length() > cacheChars || cacheEntries == 0) {
+            return;
+        }
+        if (recent.put(ref, content) == null) {
+            recentChars += content.length();
+        }
+        Iterator<Map.Entry<Ref, String>> eldest = recent.entrySet().iterator();
+        while (recent.size() > cacheEntries || recentChars > cacheChars) {
+            recentChars -= eldest.next().getValue().length();
+            eldest.remove();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Number of bytes written to the store file
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getStoredCount() {
+        return storedCount;
+    }
+
+    /**
+     * Number of loads answered from the cache of recently used contents
+     */
+    public synchronized long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Number of loads that read the store file
+     */
+    public synchronized long getFileReads() {
+        return fileReads;
+    }
+
+    /**
+     * Close and delete the store file; stored contents can no longer be loaded (closing again does nothing)
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            recent.clear();
+            recentChars = 0;
+        }
+        cleanable.clean();
+    }
+}
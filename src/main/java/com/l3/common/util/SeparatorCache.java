@@ -0,0 +1,173 @@
+package com.l3.common.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache from raw UNA headers to the separators parsed from them
+ * Messages and files almost always share a handful of UNA variants, so once a variant has been parsed,
+ * the separators of the next message cost one hash lookup over the nine header characters ("UNA" and the
+ * six separators), read in place without copying them. At most maxEntries variants are kept; others are
+ * parsed again on every lookup. Values are shared by all callers and threads, so they must be immutable.
+ */
+public final class SeparatorCache<T> {
+
+    public static final int HEADER_LENGTH = 9;
+
+    /**
+     * Lookups counted since the cache was created or its statistics were reset
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final int entries;
+
+        public Stats(long hits, long misses, int entries) {
+            this.hits = hits;
+            this.misses = misses;
+            this.entries = entries;
+        }
+
+        public long getHits() { return hits; }
+
+        public long getMisses() { return misses; }
+
+        public int getEntries() { return entries; }
+
+        /**
+         * Share of lookups answered from the cache, 0 without lookups
+         */
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups > 0 ? (double) hits / lookups : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d hit(s), %d miss(es), %.1f%% hit rate, %d UNA variant(s)",
+                    hits, misses, getHitRate() * 100, entries);
+        }
+    }
+
+    private static final class Entry<T> {
+        final String header;
+        final int hash;
+        final T value;
+
+        Entry(String header, int hash, T value) {
+            this.header = header;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    private final int maxEntries;
+    // Open addressing with linear probing; twice as many slots as entries keeps probe sequences short
+    private final AtomicReferenceArray<Entry<T>> table;
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SeparatorCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.table = new AtomicReferenceArray<>(Integer.highestOneBit(maxEntries * 2 - 1) << 1);
+    }
+
+    /**
+     * Get the separators of the header at text[start, start + 9), parsing and caching them on a miss
+     * @param parser Parses the header (exactly nine characters) into separators
+     */
+    public T get(CharSequence text, int start, Function<String, T> parser) {
+        T value = get(text, start);
+        if (value != null) {
+            return value;
+        }
+        return put(text, start, parser.apply(text.subSequence(start, start + HEADER_LENGTH).toString()));
+    }
+
+    /**
+     * Look up the header at text[start, start + 9)
+     * @return The cached separators, or null (counted as a miss)
+     */
+    public T get(CharSequence text, int start) {
+        int hash = hash(text, start);
+        int mask = table.length() - 1;
+        for (int i = 0; i <= mask; i++) {
+            Entry<T> entry = table.get((hash + i) & mask);
+            if (entry == null) {
+                break;
+            }
+            if (entry.hash == hash && regionEquals(entry.header, text, start)) {
+                hits.increment();
+                return entry.value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache the separators of the header at text[start, start + 9) if there is room left
+     * @return The separators now cached for the header (an earlier value wins), or value if the cache is full
+     */
+    public T put(CharSequence text, int start, T value) {
+        int hash = hash(text, start);
+        int mask = table.length() - 1;
+        Entry<T> added = null;
+        for (int i = 0; i <= mask; i++) {
+            int slot = (hash + i) & mask;
+            Entry<T> entry = table.get(slot);
+            if (entry == null) {
+                if (size.get() >= maxEntries) {
+                    return value;
+                }
+                if (added == null) {
+                    added = new Entry<>(text.subSequence(start, start + HEADER_LENGTH).toString(), hash, value);
+                }
+                if (table.compareAndSet(slot, null, added)) {
+                    size.incrementAndGet();
+                    return value;
+                }
+                entry = table.get(slot); // Taken meanwhile
+            }
+            if (entry.hash == hash && regionEquals(entry.header, text, start)) {
+                return entry.value;
+            }
+        }
+        return value;
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), size.get());
+    }
+
+    /**
+     * Reset the hit and miss counts; cached separators are kept
+     */
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+    }
+
+    private static int hash(CharSequence text, int start) {
+        int hash = 0;
+        for (int i = start; i < start + HEADER_LENGTH; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean regionEquals(String header, CharSequence text, int start) {
+        for (int i = 0; i < HEADER_LENGTH; i++) {
+            if (header.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,117 @@
+package com.l3.launcher;
+
+import java.time.LocalDateTime;
+
+/**
+ * One job of a headless batch run (see BatchLauncher)
+ * Read from a JSON job file or built from command-line arguments; which fields are used depends on the type.
+ */
+public class BatchJob {
+
+    /**
+     * What a job does
+     */
+    public enum Type {
+        /** Extract API messages of a flight from a log directory (MessageParserService) */
+        API,
+        /** Extract PNR messages of a flight from a log directory (PnrExtractionService) */
+        PNR,
+        /** Compare input and output API messages of a folder (FileParser.parseFolder) */
+        API_RCA,
+        /** Compare input and output PNRGOV messages of a folder (PnrgovProcessor.processFolder) */
+        PNR_RCA
+    }
+
+    private String id;
+    private Type type;
+
+    // Extraction jobs
+    private String logDirectory;
+    private String flightNumber;
+    private String departureDate;
+    private String departureAirport;
+    private String arrivalAirport;
+    private LocalDateTime fromTime;
+    private LocalDateTime toTime;
+    private String saveDirectory; // Extracted messages are saved here when set
+
+    // RCA jobs
+    private String folder;
+    private String recordType = "pax"; // pax or crew (API_RCA)
+
+    public BatchJob() {}
+
+    public BatchJob(String id, Type type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public String getLogDirectory() { return logDirectory; }
+    public void setLogDirectory(String logDirectory) { this.logDirectory = logDirectory; }
+
+    public String getFlightNumber() { return flightNumber; }
+    public void setFlightNumber(String flightNumber) { this.flightNumber = flightNumber; }
+
+    public String getDepartureDate() { return departureDate; }
+    public void setDepartureDate(String departureDate) { this.departureDate = departureDate; }
+
+    public String getDepartureAirport() { return departureAirport; }
+    public void setDepartureAirport(String departureAirport) { this.departureAirport = departureAirport; }
+
+    public String getArrivalAirport() { return arrivalAirport; }
+    public void setArrivalAirport(String arrivalAirport) { this.arrivalAirport = arrivalAirport; }
+
+    public LocalDateTime getFromTime() { return fromTime; }
+    public void setFromTime(LocalDateTime fromTime) { this.fromTime = fromTime; }
+
+    public LocalDateTime getToTime() { return toTime; }
+    public void setToTime(LocalDateTime toTime) { this.toTime = toTime; }
+
+    public String getSaveDirectory() { return saveDirectory; }
+    public void setSaveDirectory(String saveDirectory) { this.saveDirectory = saveDirectory; }
+
+    public String getFolder() { return folder; }
+    public void setFolder(String folder) { this.folder = folder; }
+
+    public String getRecordType() { return recordType; }
+    public void setRecordType(String recordType) { this.recordType = recordType; }
+
+    /**
+     * Check if the job is an extraction (API or PNR)
+     */
+    public boolean isExtraction() {
+        return type == Type.API || type == Type.PNR;
+    }
+
+    /**
+     * Check that the fields the type needs are set
+     * @throws IllegalArgumentException describing the first missing field
+     */
+    public void validate() {
+        if (type == null) {
+            throw new IllegalArgumentException("Job " + id + ": type is required (API, PNR, API_RCA or PNR_RCA)");
+        }
+        if (isExtraction()) {
+            if (logDirectory == null || logDirectory.isBlank()) {
+                throw new IllegalArgumentException("Job " + id + ": logDirectory is required for " + type);
+            }
+            if (fromTime != null && toTime != null && toTime.isBefore(fromTime)) {
+                throw new IllegalArgumentException("Job " + id + ": toTime is before fromTime");
+            }
+        } else if (folder == null || folder.isBlank()) {
+            throw new IllegalArgumentException("Job " + id + ": folder is required for " + type);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return id + " (" + type + (flightNumber != null ? " " + flightNumber : "") + ")";
+    }
+}
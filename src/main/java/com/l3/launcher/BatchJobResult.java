@@ -0,0 +1,75 @@
+package com.l3.launcher;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one batch job: status, timing and the figures of the extraction or comparison
+ */
+public class BatchJobResult {
+
+    public enum Status { OK, FAILED }
+
+    private String jobId;
+    private BatchJob.Type type;
+    private Status status = Status.OK;
+    private String flightNumber;
+    private long durationMillis;
+    private Map<String, Object> metrics = new LinkedHashMap<>();
+    private List<String> warnings = new ArrayList<>();
+    private List<String> errors = new ArrayList<>();
+
+    public BatchJobResult() {}
+
+    public BatchJobResult(BatchJob job) {
+        this.jobId = job.getId();
+        this.type = job.getType();
+        this.flightNumber = job.getFlightNumber();
+    }
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public BatchJob.Type getType() { return type; }
+    public void setType(BatchJob.Type type) { this.type = type; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getFlightNumber() { return flightNumber; }
+    public void setFlightNumber(String flightNumber) { this.flightNumber = flightNumber; }
+
+    public long getDurationMillis() { return durationMillis; }
+    public void setDurationMillis(long durationMillis) { this.durationMillis = durationMillis; }
+
+    /**
+     * Counts and flight details of the job, in the order they were added (CSV columns)
+     */
+    public Map<String, Object> getMetrics() { return metrics; }
+    public void setMetrics(Map<String, Object> metrics) { this.metrics = metrics; }
+
+    public List<String> getWarnings() { return warnings; }
+    public void setWarnings(List<String> warnings) { this.warnings = warnings; }
+
+    public List<String> getErrors() { return errors; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+
+    public void putMetric(String name, Object value) {
+        metrics.put(name, value);
+    }
+
+    /**
+     * Mark the job as failed with an error
+     */
+    public void fail(String error) {
+        status = Status.FAILED;
+        errors.add(error);
+    }
+
+    public boolean isOk() {
+        return status == Status.OK;
+    }
+}
@@ -0,0 +1,353 @@
+package com.l3.launcher;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Headless entry point: runs extraction and RCA jobs from the command line, without JavaFX
+ *
+ * Jobs come from a JSON job file (--jobs) or from the options of a single job; the results are
+ * written as JSON or CSV. Also reachable through the application jar: L3EngineLauncher --batch ...
+ * Exit code 0 when all jobs succeeded, 1 when a job failed, 2 for invalid arguments.
+ */
+public class BatchLauncher {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: BatchLauncher [--jobs FILE | --type TYPE job options] [--threads N] [--output FILE] [--quiet]",
+            "",
+            "  --jobs FILE          JSON job file: an array of jobs or {\"threads\": N, \"jobs\": [...]}",
+            "  --type TYPE          api, pnr (extraction) or api-rca, pnr-rca (comparison)",
+            "  --threads N          Jobs run at the same time (default: number of processors)",
+            "  --output FILE        Write the results to FILE, as CSV if it ends with .csv (default: JSON on stdout)",
+            "  --quiet              Do not print a line per finished job",
+            "",
+            "Extraction options (api, pnr):",
+            "  --logs DIR           Log directory",
+            "  --flight F[,F...]    Flight number(s), one job per flight",
+            "  --date DATE          Departure date filter",
+            "  --departure CODE     Departure airport filter",
+            "  --arrival CODE       Arrival airport filter",
+            "  --from TIME          Only read log entries from this time (yyyy-MM-ddTHH:mm[:ss])",
+            "  --to TIME            Only read log entries up to this time",
+            "  --save DIR           Save the extracted messages (in a subdirectory per flight for several flights)",
+            "",
+            "Comparison options (api-rca, pnr-rca):",
+            "  --folder DIR[,DIR...] Folder(s) with input and output subfolders, one job per folder",
+            "  --record-type TYPE   pax or crew (api-rca, default pax)");
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Run a batch from command-line arguments
+     * @return The exit code
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        List<BatchJob> jobs;
+        try {
+            options = Options.parse(args);
+            if (options.help) {
+                out.println(USAGE);
+                return 0;
+            }
+            jobs = options.jobFile != null ? readJobFile(options.jobFile, options) : options.jobs();
+            if (jobs.isEmpty()) {
+                throw new IllegalArgumentException("No jobs given");
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            err.println("Error: " + e.getMessage());
+            err.println();
+            err.println(USAGE);
+            return 2;
+        }
+
+        BatchRunner runner = new BatchRunner(options.threads);
+        if (!options.quiet) {
+            runner.setProgressCallback(err::println);
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            List<BatchJobResult> results = runner.run(jobs);
+            if (options.output == null) {
+                writeJson(results, out);
+            } else if (options.output.toString().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                try (Writer writer = Files.newBufferedWriter(options.output, StandardCharsets.UTF_8)) {
+                    writeCsv(results, writer);
+                }
+            } else {
+                createMapper().writeValue(options.output.toFile(), results);
+            }
+
+            long failed = results.stream().filter(result -> !result.isOk()).count();
+            if (!options.quiet) {
+                err.println(results.size() + " job(s) finished in " + (System.currentTimeMillis() - start) + " ms, " + failed + " failed");
+            }
+            return failed == 0 ? 0 : 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            err.println("Batch interrupted");
+            return 1;
+        } catch (IOException e) {
+            err.println("Error writing results: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    static ObjectMapper createMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
+                .build();
+    }
+
+    /**
+     * Read the jobs of a job file; a "threads" value in the file applies unless --threads was given
+     */
+    static List<BatchJob> readJobFile(Path jobFile, Options options) throws IOException {
+        ObjectMapper mapper = createMapper();
+        JsonNode root = mapper.readTree(jobFile.toFile());
+        JsonNode jobsNode = root;
+        if (root.isObject()) {
+            if (root.has("threads") && !options.threadsGiven) {
+                options.threads = Math.max(1, root.get("threads").asInt());
+            }
+            jobsNode = root.get("jobs");
+        }
+        if (jobsNode == null || !jobsNode.isArray()) {
+            throw new IllegalArgumentException("Job file must contain an array of jobs: " + jobFile);
+        }
+        List<BatchJob> jobs = new ArrayList<>();
+        for (JsonNode jobNode : jobsNode) {
+            jobs.add(mapper.treeToValue(jobNode, BatchJob.class));
+        }
+        return jobs;
+    }
+
+    private static void writeJson(List<BatchJobResult> results, PrintStream out) throws IOException {
+        out.println(createMapper().writeValueAsString(results));
+    }
+
+    /**
+     * Write one line per job; the metric columns are the metrics of all jobs, in order of appearance
+     */
+    static void writeCsv(List<BatchJobResult> results, Writer writer) throws IOException {
+        Set<String> metricNames = new LinkedHashSet<>();
+        for (BatchJobResult result : results) {
+            metricNames.addAll(result.getMetrics().keySet());
+        }
+
+        List<String> header = new ArrayList<>(List.of("jobId", "type", "status", "flightNumber", "durationMillis"));
+        header.addAll(metricNames);
+        header.add("warnings");
+        header.add("errors");
+        writeCsvLine(writer, header);
+
+        for (BatchJobResult result : results) {
+            List<String> line = new ArrayList<>();
+            line.add(result.getJobId());
+            line.add(String.valueOf(result.getType()));
+            line.add(String.valueOf(result.getStatus()));
+            line.add(result.getFlightNumber() != null ? result.getFlightNumber() : "");
+            line.add(String.valueOf(result.getDurationMillis()));
+            for (String name : metricNames) {
+                line.add(csvValue(result.getMetrics().get(name)));
+            }
+            line.add(String.valueOf(result.getWarnings().size()));
+            line.add(String.join("; ", result.getErrors()));
+            writeCsvLine(writer, line);
+        }
+    }
+
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Collection) {
+            List<String> parts = new ArrayList<>();
+            for (Object part : (Collection<?>) value) {
+                parts.add(String.valueOf(part));
+            }
+            return String.join("; ", parts);
+        }
+        return String.valueOf(value);
+    }
+
+    private static void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+                writer.write('"' + value.replace("\"", "\"\"") + '"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write(System.lineSeparator());
+    }
+
+    /**
+     * Parsed command-line arguments
+     */
+    static final class Options {
+        boolean help;
+        Path jobFile;
+        Path output;
+        boolean quiet;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        boolean threadsGiven;
+
+        BatchJob.Type type;
+        String logDirectory;
+        List<String> flights = new ArrayList<>();
+        String departureDate;
+        String departureAirport;
+        String arrivalAirport;
+        LocalDateTime fromTime;
+        LocalDateTime toTime;
+        String saveDirectory;
+        List<String> folders = new ArrayList<>();
+        String recordType = "pax";
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-h", "--help" -> options.help = true;
+                    case "--quiet" -> options.quiet = true;
+                    case "--jobs" -> options.jobFile = Paths.get(value(args, ++i, arg));
+                    case "--output" -> options.output = Paths.get(value(args, ++i, arg));
+                    case "--threads" -> {
+                        options.threads = positiveInt(value(args, ++i, arg), arg);
+                        options.threadsGiven = true;
+                    }
+                    case "--type" -> options.type = parseType(value(args, ++i, arg));
+                    case "--logs" -> options.logDirectory = value(args, ++i, arg);
+                    case "--flight" -> options.flights.addAll(list(value(args, ++i, arg)));
+                    case "--date" -> options.departureDate = value(args, ++i, arg);
+                    case "--departure" -> options.departureAirport = value(args, ++i, arg);
+                    case "--arrival" -> options.arrivalAirport = value(args, ++i, arg);
+                    case "--from" -> options.fromTime = dateTime(value(args, ++i, arg), arg);
+                    case "--to" -> options.toTime = dateTime(value(args, ++i, arg), arg);
+                    case "--save" -> options.saveDirectory = value(args, ++i, arg);
+                    case "--folder" -> options.folders.addAll(list(value(args, ++i, arg)));
+                    case "--record-type" -> options.recordType = value(args, ++i, arg);
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (!options.help && options.jobFile == null && options.type == null) {
+                throw new IllegalArgumentException("Either --jobs or --type is required");
+            }
+            return options;
+        }
+
+        /**
+         * The jobs described by the options: one per flight or folder
+         */
+        List<BatchJob> jobs() {
+            List<BatchJob> jobs = new ArrayList<>();
+            if (type == BatchJob.Type.API || type == BatchJob.Type.PNR) {
+                List<String> jobFlights = flights.isEmpty() ? java.util.Collections.singletonList(null) : flights;
+                for (String flight : jobFlights) {
+                    BatchJob job = new BatchJob(type.name().toLowerCase(Locale.ROOT) + "-" + (flight != null ? flight : "all"), type);
+                    job.setLogDirectory(logDirectory);
+                    job.setFlightNumber(flight);
+                    job.setDepartureDate(departureDate);
+                    job.setDepartureAirport(departureAirport);
+                    job.setArrivalAirport(arrivalAirport);
+                    job.setFromTime(fromTime);
+                    job.setToTime(toTime);
+                    if (saveDirectory != null) {
+                        job.setSaveDirectory(jobFlights.size() > 1 ? Paths.get(saveDirectory, flight).toString() : saveDirectory);
+                    }
+                    jobs.add(job);
+                }
+            } else {
+                if (folders.isEmpty()) {
+                    throw new IllegalArgumentException("--folder is required for " + type);
+                }
+                for (String folder : folders) {
+                    BatchJob job = new BatchJob(type.name().toLowerCase(Locale.ROOT) + "-" + Paths.get(folder).getFileName(), type);
+                    job.setFolder(folder);
+                    job.setRecordType(recordType);
+                    jobs.add(job);
+                }
+            }
+            return jobs;
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            return args[index];
+        }
+
+        private static int positiveInt(String value, String option) {
+            try {
+                int number = Integer.parseInt(value);
+                if (number > 0) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException(option + " must be a positive number: " + value);
+        }
+
+        private static BatchJob.Type parseType(String value) {
+            try {
+                return BatchJob.Type.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown job type: " + value + " (api, pnr, api-rca or pnr-rca)");
+            }
+        }
+
+        private static LocalDateTime dateTime(String value, String option) {
+            try {
+                return LocalDateTime.parse(value.trim().replace(' ', 'T'));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(option + " must be a time like 2025-10-15T06:00: " + value);
+            }
+        }
+
+        private static List<String> list(String value) {
+            List<String> values = new ArrayList<>();
+            for (String part : value.split(",")) {
+                if (!part.isBlank()) {
+                    values.add(part.trim());
+                }
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.l3.launcher;
+
+import com.l3.common.util.LogTimeWindow;
+import com.l3.common.util.MessageFileWriter;
+import com.l3.logparser.api.model.EdifactMessage;
+import com.l3.logparser.api.service.MessageParserService;
+import com.l3.logparser.enums.DataType;
+import com.l3.logparser.model.FlightCriteria;
+import com.l3.logparser.pnr.service.PnrExtractionService;
+import com.l3.rcaengine.api.model.Passenger;
+import com.l3.rcaengine.api.utils.FileParser;
+import com.l3.rcaengine.api.utils.ParseResult;
+import com.l3.rcaengine.pnr.PnrgovProcessor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs batch jobs concurrently without any UI
+ *
+ * Extraction jobs that read the same log directory with the same time window are run as one batch
+ * extraction, so the logs are scanned once for all their flights. Every other job runs on its own.
+ * Up to the configured number of extractions or comparisons run at the same time; the log files
+ * of one extraction are parsed in parallel on the processors left to it. A failing job only fails
+ * its own result.
+ */
+public class BatchRunner {
+
+    private final int threads;
+    private Consumer<String> progressCallback;
+
+    /**
+     * @param threads Number of extractions or comparisons run at the same time
+     */
+    public BatchRunner(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Set a callback receiving one line per finished job (optional)
+     */
+    public void setProgressCallback(Consumer<String> progressCallback) {
+        this.progressCallback = progressCallback;
+    }
+
+    /**
+     * Run all jobs and wait for them
+     * @return One result per job, in the order of the jobs
+     */
+    public List<BatchJobResult> run(List<BatchJob> jobs) throws InterruptedException {
+        BatchJobResult[] results = new BatchJobResult[jobs.size()];
+        Map<String, List<Integer>> extractionGroups = new LinkedHashMap<>();
+        List<Integer> comparisons = new ArrayList<>();
+
+        for (int i = 0; i < jobs.size(); i++) {
+            BatchJob job = jobs.get(i);
+            if (job.getId() == null || job.getId().isBlank()) {
+                job.setId("job-" + (i + 1));
+            }
+            try {
+                job.validate();
+            } catch (IllegalArgumentException e) {
+                results[i] = new BatchJobResult(job);
+                results[i].fail(e.getMessage());
+                continue;
+            }
+            if (job.isExtraction()) {
+                extractionGroups.computeIfAbsent(groupKey(job), k -> new ArrayList<>()).add(i);
+            } else {
+                comparisons.add(i);
+            }
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (List<Integer> group : extractionGroups.values()) {
+                tasks.add(executor.submit(() -> runExtractionGroup(jobs, group, results)));
+            }
+            for (int index : comparisons) {
+                tasks.add(executor.submit(() -> {
+                    results[index] = runComparison(jobs.get(index));
+                    report(results[index]);
+                }));
+            }
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    // Job failures are caught in the tasks; this is an error of the runner itself
+                    System.err.println("Batch task failed: " + e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<BatchJobResult> resultList = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = new BatchJobResult(jobs.get(i));
+                results[i].fail("Job did not run");
+            }
+            resultList.add(results[i]);
+        }
+        return resultList;
+    }
+
+    private static String groupKey(BatchJob job) {
+        return job.getType() + "|" + job.getLogDirectory() + "|" + job.getFromTime() + "|" + job.getToTime();
+    }
+
+    /**
+     * Run the extraction jobs of one log directory (and time window) in a single pass
+     */
+    private void runExtractionGroup(List<BatchJob> jobs, List<Integer> group, BatchJobResult[] results) {
+        BatchJob first = jobs.get(group.get(0));
+        List<FlightCriteria> flights = new ArrayList<>();
+        for (int index : group) {
+            BatchJob job = jobs.get(index);
+            flights.add(new FlightCriteria(job.getFlightNumber(), job.getDepartureDate(),
+                    job.getDepartureAirport(), job.getArrivalAirport()));
+        }
+        LogTimeWindow timeWindow = first.getFromTime() != null || first.getToTime() != null
+                ? new LogTimeWindow(first.getFromTime(), first.getToTime()) : null;
+        int threadsPerExtraction = Math.max(1, Runtime.getRuntime().availableProcessors() / threads);
+
+        long start = System.currentTimeMillis();
+        try {
+            if (first.getType() == BatchJob.Type.API) {
+                MessageParserService service = new MessageParserService();
+                service.setMaxParallelFiles(threadsPerExtraction);
+                service.setTimeWindow(timeWindow);
+                List<MessageParserService.ExtractionResult> extractions = group.size() == 1
+                        ? List.of(extractApi(service, first))
+                        : service.extractMessagesBatch(first.getLogDirectory(), flights, DataType.API, false, null);
+                long duration = (System.currentTimeMillis() - start) / group.size();
+                for (int i = 0; i < group.size(); i++) {
+                    int index = group.get(i);
+                    results[index] = apiResult(service, jobs.get(index), extractions.get(i), duration);
+                    report(results[index]);
+                }
+            } else {
+                try (PnrExtractionService service = new PnrExtractionService()) {
+                    service.setMaxParallelChunks(threadsPerExtraction);
+                    service.setTimeWindow(timeWindow);
+                    List<PnrExtractionService.PnrExtractionResult> extractions = group.size() == 1
+                            ? List.of(extractPnr(service, first))
+                            : service.extractPnrMessagesBatch(first.getLogDirectory(), flights);
+                    long duration = (System.currentTimeMillis() - start) / group.size();
+                    for (int i = 0; i < group.size(); i++) {
+                        int index = group.get(i);
+                        results[index] = pnrResult(service, jobs.get(index), extractions.get(i), duration);
+                        report(results[index]);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            for (int index : group) {
+                results[index] = new BatchJobResult(jobs.get(index));
+                results[index].fail("Extraction failed: " + e);
+                results[index].setDurationMillis(System.currentTimeMillis() - start);
+                report(results[index]);
+            }
+        }
+    }
+
+    private static MessageParserService.ExtractionResult extractApi(MessageParserService service, BatchJob job) {
+        return service.extractMessages(job.getLogDirectory(), job.getFlightNumber(), job.getDepartureDate(),
+                job.getDepartureAirport(), job.getArrivalAirport(), DataType.API, false, null);
+    }
+
+    private static PnrExtractionService.PnrExtractionResult extractPnr(PnrExtractionService service, BatchJob job) {
+        return service.extractPnrMessages(job.getLogDirectory(), job.getFlightNumber(), job.getDepartureDate(),
+                job.getDepartureAirport(), job.getArrivalAirport());
+    }
+
+    private static BatchJobResult apiResult(MessageParserService service, BatchJob job,
+                                            MessageParserService.ExtractionResult extraction, long duration) {
+        BatchJobResult result = new BatchJobResult(job);
+        result.setDurationMillis(duration);
+        List<EdifactMessage> messages = extraction.getExtractedMessages();
+        result.putMetric("messages", messages.size());
+        result.putMetric("passengerMessages", messages.stream().filter(m -> "PASSENGER".equals(m.getDataType())).count());
+        result.putMetric("crewMessages", messages.stream().filter(m -> "CREW".equals(m.getDataType())).count());
+        result.putMetric("filesProcessed", extraction.getProcessedFiles().size());
+        result.putMetric("entriesParsed", extraction.getPrefilterParsedCount());
+        result.putMetric("entriesSkipped", extraction.getPrefilterSkippedCount());
+        result.getWarnings().addAll(extraction.getWarnings());
+        result.getErrors().addAll(extraction.getErrors());
+        if (!extraction.isSuccess()) {
+            result.setStatus(BatchJobResult.Status.FAILED);
+        } else if (job.getSaveDirectory() != null && !messages.isEmpty()) {
+            boolean saved = service.saveExtractedMessages(messages, job.getSaveDirectory());
+            putSaveMetrics(result, saved, service.getLastSaveStats());
+        }
+        return result;
+    }
+
+    private static BatchJobResult pnrResult(PnrExtractionService service, BatchJob job,
+                                            PnrExtractionService.PnrExtractionResult extraction, long duration) {
+        BatchJobResult result = new BatchJobResult(job);
+        result.setDurationMillis(duration);
+        result.putMetric("messages", extraction.getExtractedMessages().size());
+        result.putMetric("multipartGroups", extraction.getMultipartGroupCount());
+        result.putMetric("completeGroups", extraction.getCompleteGroups());
+        result.putMetric("incompleteGroups", extraction.getIncompleteGroups());
+        result.putMetric("filesProcessed", extraction.getProcessedFiles().size());
+        result.putMetric("separatorCacheHitRate", extraction.getSeparatorCacheHitRate());
+        result.getWarnings().addAll(extraction.getWarnings());
+        result.getErrors().addAll(extraction.getErrors());
+        if (!extraction.isSuccess()) {
+            result.setStatus(BatchJobResult.Status.FAILED);
+        } else if (job.getSaveDirectory() != null && !extraction.getExtractedMessages().isEmpty()) {
+            boolean saved = service.saveExtractedMessages(extraction.getExtractedMessages(), job.getSaveDirectory());
+            putSaveMetrics(result, saved, service.getLastSaveStats());
+        }
+        return result;
+    }
+
+    private static void putSaveMetrics(BatchJobResult result, boolean saved, MessageFileWriter.Stats stats) {
+        if (stats != null) {
+            result.putMetric("filesSaved", stats.getFilesWritten());
+            result.putMetric("bytesSaved", stats.getBytesWritten());
+        }
+        if (!saved) {
+            result.fail("Failed to save extracted messages");
+        }
+    }
+
+    /**
+     * Run an RCA comparison job
+     */
+    private static BatchJobResult runComparison(BatchJob job) {
+        BatchJobResult result = new BatchJobResult(job);
+        long start = System.currentTimeMillis();
+        try {
+            File folder = new File(job.getFolder());
+            if (job.getType() == BatchJob.Type.API_RCA) {
+                ParseResult parsed = new FileParser(job.getRecordType(), "api").parseFolder(folder);
+                result.setFlightNumber(parsed.getFlightNumber());
+                putFlightMetrics(result, parsed.getDepartureDate(), parsed.getDepartureAirport(), parsed.getArrivalAirport());
+                result.putMetric("totalInput", parsed.getTotalInputAll());
+                result.putMetric("uniqueInput", parsed.getGlobalInputPassengers().size());
+                result.putMetric("totalOutput", parsed.getTotalOutput());
+                result.putMetric("dropped", parsed.getDropped().size());
+                result.putMetric("duplicates", parsed.getDuplicatePassengers().size());
+                result.putMetric("filesProcessed", parsed.getProcessedFiles().size());
+                result.putMetric("droppedPassengers", passengerNames(parsed.getDropped()));
+                result.getWarnings().addAll(parsed.getAllInvalidNads());
+                result.getWarnings().addAll(parsed.getAllInvalidDocs());
+                result.getWarnings().addAll(parsed.getAllMissingSegments());
+            } else {
+                PnrgovProcessor.PnrgovResult compared = new PnrgovProcessor().processFolder(folder);
+                result.setFlightNumber(compared.getFlightNumber());
+                putFlightMetrics(result, compared.getDepartureDate(), compared.getDepartureAirport(), compared.getArrivalAirport());
+                result.putMetric("totalInput", compared.getTotalInputAll());
+                result.putMetric("totalOutput", compared.getTotalOutput());
+                result.putMetric("inputPnrs", compared.getTotalInputPnrs());
+                result.putMetric("outputPnrs", compared.getTotalOutputPnrs());
+                result.putMetric("dropped", compared.getDroppedCount());
+                result.putMetric("processed", compared.getProcessedCount());
+                result.putMetric("added", compared.getAddedCount());
+                result.putMetric("duplicates", compared.getDuplicateCount());
+                result.putMetric("newPnrs", compared.getNewPnrCount());
+                result.putMetric("filesProcessed", compared.getProcessedFiles().size());
+                List<String> dropped = new ArrayList<>();
+                for (PnrgovProcessor.PnrgovTableRow row : compared.getDroppedPassengers()) {
+                    dropped.add(row.getName() + " (" + row.getPnrRloc() + ")");
+                }
+                result.putMetric("droppedPassengers", dropped);
+                result.getWarnings().addAll(compared.getAllInvalidNads());
+                result.getWarnings().addAll(compared.getAllInvalidDocs());
+                result.getWarnings().addAll(compared.getAllMissingSegments());
+            }
+        } catch (Exception e) {
+            result.fail(Objects.toString(e.getMessage(), e.toString()));
+        }
+        result.setDurationMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private static void putFlightMetrics(BatchJobResult result, String departureDate, String departureAirport, String arrivalAirport) {
+        result.putMetric("departureDate", departureDate);
+        result.putMetric("departureAirport", departureAirport);
+        result.putMetric("arrivalAirport", arrivalAirport);
+    }
+
+    private static List<String> passengerNames(List<Passenger> passengers) {
+        List<String> names = new ArrayList<>();
+        for (Passenger passenger : passengers) {
+            names.add(passenger.getName());
+        }
+        return names;
+    }
+
+    private void report(BatchJobResult result) {
+        if (progressCallback != null) {
+            progressCallback.accept(String.format("[%s] %s %s in %d ms%s", result.getJobId(), result.getType(),
+                    result.getStatus(), result.getDurationMillis(),
+                    result.getErrors().isEmpty() ? "" : " - " + result.getErrors().get(0)));
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package com.l3.launcher;
 
+import java.util.Arrays;
+
 public class L3EngineLauncher {
     public static void main(String[] args) {
+        // Headless batch mode runs without starting JavaFX
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchLauncher.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         Main.main(args);
     }
 }
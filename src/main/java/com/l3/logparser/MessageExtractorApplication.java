@@ -1,5 +1,6 @@
 package com.l3.logparser;
 
+import com.l3.logparser.controller.MessageParserController;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -13,19 +14,41 @@ import java.io.IOException;
  */
 public class MessageExtractorApplication extends Application {
 
+    private MessageParserController controller;
+
     @Override
     public void start(Stage primaryStage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(MessageExtractorApplication.class.getResource("/com/l3/rcaengine/api/log-parser-view.fxml"));
         Scene scene = new Scene(fxmlLoader.load());
 
+        // Get the controller for cleanup purposes
+        controller = fxmlLoader.getController();
+
         primaryStage.setTitle("L3 Engine - Log Parser Module");
         primaryStage.setScene(scene);
         primaryStage.setMaximized(true);
         primaryStage.setResizable(true);
         primaryStage.centerOnScreen();
+
+        // Handle window closing event to cleanup resources
+        primaryStage.setOnCloseRequest(event -> {
+            if (controller != null) {
+                controller.cleanup();
+            }
+        });
+
         primaryStage.show();
     }
 
+    @Override
+    public void stop() throws Exception {
+        // Cleanup when application is stopping
+        if (controller != null) {
+            controller.cleanup();
+        }
+        super.stop();
+    }
+
     public static void main(String[] args) {
         launch();
     }
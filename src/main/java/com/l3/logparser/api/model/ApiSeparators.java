@@ -0,0 +1,114 @@
+package com.l3.logparser.api.model;
+
+/**
+ * Immutable EDIFACT separators for a single API message
+ * Built from the message's UNA header, or the defaults when there is none (e.g., UNB messages).
+ * Each message carries its own instance through the parsing stages, so a single ApiParser
+ * can be shared by many threads and a message without UNA never inherits another message's separators.
+ */
+public final class ApiSeparators {
+
+    // Standard EDIFACT separators used when no UNA segment is available
+    public static final ApiSeparators DEFAULT = new ApiSeparators(':', '+', '.', '?', ' ', '\'');
+
+    private final char subElementSeparator;
+    private final char elementSeparator;
+    private final char decimalSeparator;
+    private final char releaseIndicator;
+    private final char reservedSeparator;
+    private final char terminatorSeparator;
+
+    public ApiSeparators(char subElementSeparator, char elementSeparator, char decimalSeparator,
+                         char releaseIndicator, char reservedSeparator, char terminatorSeparator) {
+        this.subElementSeparator = subElementSeparator;
+        this.elementSeparator = elementSeparator;
+        this.decimalSeparator = decimalSeparator;
+        this.releaseIndicator = releaseIndicator;
+        this.reservedSeparator = reservedSeparator;
+        this.terminatorSeparator = terminatorSeparator;
+    }
+
+    /**
+     * Create separators from a UNA header - with error recovery
+     * Handles both "$UNA:" and "UNA:" formats. Control characters are ignored and
+     * leading/trailing spaces trimmed before the separator characters are read.
+     * Corrupted or incomplete headers fall back to the defaults.
+     */
+    public static ApiSeparators fromUna(String line) {
+        if (line == null) {
+            return DEFAULT;
+        }
+
+        int start = 0;
+        int dollarUna = line.indexOf("$UNA");
+        if (dollarUna >= 0) {
+            start = dollarUna + 4; // Skip "$UNA"
+        }
+
+        // Collect the first nine significant characters (control characters removed, leading spaces trimmed)
+        char[] header = new char[9];
+        int count = 0;
+        int i = start;
+        for (; i < line.length() && count < header.length; i++) {
+            char c = line.charAt(i);
+            if (isControl(c) || (count == 0 && c == ' ')) {
+                continue;
+            }
+            header[count++] = c;
+        }
+
+        if (count < header.length) {
+            return DEFAULT; // Corrupted/incomplete UNA header
+        }
+
+        // Trailing spaces only count if something significant follows them (trim semantics)
+        if (header[8] == ' ' && !hasSignificantCharacter(line, i)) {
+            return DEFAULT;
+        }
+
+        if (header[0] == 'U' && header[1] == 'N' && header[2] == 'A') {
+            // Standard UNA processing - six separator characters immediately after "UNA"
+            return new ApiSeparators(header[3], header[4], header[5], header[6], header[7], header[8]);
+        }
+
+        // Malformed UNA that doesn't start with "UNA" - take separators from whatever we have
+        return new ApiSeparators(header[0], header[1], header[2], header[3], header[4], header[5]);
+    }
+
+    private static boolean isControl(char c) {
+        return c < 0x20 || c == 0x7F;
+    }
+
+    private static boolean hasSignificantCharacter(String line, int from) {
+        for (int i = from; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (!isControl(c) && c != ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Getters
+    public char getSubElementSeparator() { return subElementSeparator; }
+
+    public char getElementSeparator() { return elementSeparator; }
+
+    public char getDecimalSeparator() { return decimalSeparator; }
+
+    public char getReleaseIndicator() { return releaseIndicator; }
+
+    public char getReservedSeparator() { return reservedSeparator; }
+
+    public char getTerminatorSeparator() { return terminatorSeparator; }
+
+    @Override
+    public String toString() {
+        return "ApiSeparators{" +
+                "subElement='" + subElementSeparator + '\'' +
+                ", element='" + elementSeparator + '\'' +
+                ", release='" + releaseIndicator + '\'' +
+                ", terminator='" + terminatorSeparator + '\'' +
+                '}';
+    }
+}
@@ -1,7 +1,11 @@
 package com.l3.logparser.api.model;
 
+import com.l3.common.util.ContentFingerprint;
+import com.l3.common.util.RawContentStore;
 import com.l3.logparser.enums.MessageType;
 
+import java.io.IOException;
+
 /**
  * Model representing an EDIFACT message part extracted from logs
  */
@@ -15,6 +19,8 @@ public class EdifactMessage {
     private FlightDetails flightDetails;
     private String messageType; // PAXLST, etc.
     private String rawContent;
+    private RawContentStore.Ref rawContentRef; // Set instead of rawContent once the content is stored
+    private ContentFingerprint contentFingerprint; // Of the normalised body, for deduplication
     private String dataType; // "PASSENGER" or "CREW" based on BGM segment
     private MessageType direction; // INPUT or OUTPUT
 
@@ -48,8 +54,68 @@ public class EdifactMessage {
     public String getDataType() { return dataType; }
     public void setDataType(String dataType) { this.dataType = dataType; }
 
-    public String getRawContent() { return rawContent; }
-    public void setRawContent(String rawContent) { this.rawContent = rawContent; }
+    /**
+     * Raw content of the message, loaded from its store if it was moved there (see storeRawContent)
+     */
+    public String getRawContent() {
+        return rawContentRef != null ? rawContentRef.load() : rawContent;
+    }
+    public void setRawContent(String rawContent) {
+        this.rawContent = rawContent;
+        this.rawContentRef = null;
+        this.contentFingerprint = null;
+    }
+
+    /**
+     * Length of the raw content in characters without loading it (0 without content)
+     */
+    public int getRawContentLength() {
+        if (rawContentRef != null) {
+            return rawContentRef.length();
+        }
+        return rawContent != null ? rawContent.length() : 0;
+    }
+
+    /**
+     * Move the raw content into a store, keeping only a reference to it
+     * Content the store cannot hold exactly stays in memory.
+     */
+    public void storeRawContent(RawContentStore store) throws IOException {
+        if (rawContent == null || rawContentRef != null) {
+            return;
+        }
+        getContentFingerprint();
+        RawContentStore.Ref ref = store.store(rawContent);
+        if (ref != null) {
+            rawContentRef = ref;
+            rawContent = null;
+        }
+    }
+
+    public RawContentStore.Ref getRawContentRef() { return rawContentRef; }
+
+    /**
+     * Refer to content stored by another message (null keeps the current content)
+     */
+    public void setRawContentRef(RawContentStore.Ref rawContentRef) {
+        if (rawContentRef != null) {
+            this.rawContentRef = rawContentRef;
+            this.rawContent = null;
+            this.contentFingerprint = null;
+        }
+    }
+
+    /**
+     * Fingerprint of the message body (see ContentFingerprint)
+     * Set by the parser while it tokenises the message; computed from the raw content otherwise.
+     */
+    public ContentFingerprint getContentFingerprint() {
+        if (contentFingerprint == null) {
+            contentFingerprint = ContentFingerprint.ofEdifact(getRawContent());
+        }
+        return contentFingerprint;
+    }
+    public void setContentFingerprint(ContentFingerprint contentFingerprint) { this.contentFingerprint = contentFingerprint; }
 
     public MessageType getDirection() { return direction; }
     public void setDirection(MessageType direction) { this.direction = direction; }
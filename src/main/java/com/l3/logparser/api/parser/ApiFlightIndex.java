@@ -0,0 +1,305 @@
+package com.l3.logparser.api.parser;
+
+import com.l3.common.util.CacheFiles;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent index of the API messages in one log file
+ *
+ * For every byte range ApiLogScanner hands to the parser, the index keeps the flight key
+ * (see ApiParser.flightIndexKey) and departure date of the messages parsed from it. An extraction
+ * for one flight then only reads and parses the ranges that can contain it.
+ *
+ * The index belongs to one state of the file (size, modification time, first bytes) and one parser
+ * configuration. When the file only grew, it is extended from the resume offset: the start of the
+ * first range that could still change (a message open at the end of the file or a line without
+ * its newline yet). The file counts as grown when its first bytes and the bytes just before the
+ * resume offset are unchanged; anything else - a rotated, truncated or rewritten file - needs a rebuild.
+ *
+ * Index files are kept in one directory for all log files; loading an index marks it as used, and
+ * evict removes the ones unused for a week or beyond the directory's size limit.
+ */
+public class ApiFlightIndex {
+
+    private static final int MAGIC = 0x4c33_4649; // "L3FI"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEAD_CHECK_SIZE = 4096;
+    private static final int TAIL_CHECK_SIZE = 4096;
+    private static final String SUFFIX = ".idx";
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_MAX_AGE_MILLIS = 7L * 24 * 60 * 60 * 1000;
+
+    /**
+     * One message byte range and the messages parsed from it
+     */
+    public static final class Entry {
+        private final long from;
+        private final long to;
+        private final String[] flightKeys;
+        private final String[] departureDates;
+
+        public Entry(long from, long to, String[] flightKeys, String[] departureDates) {
+            this.from = from;
+            this.to = to;
+            this.flightKeys = flightKeys;
+            this.departureDates = departureDates;
+        }
+
+        public long getFrom() { return from; }
+
+        public long getTo() { return to; }
+
+        public long getLength() { return to - from; }
+
+        /**
+         * Check if one of the messages has the flight key and passes the departure date criterion
+         * @param departureDateDigits Digits of the wanted departure date, or null for any date
+         */
+        boolean matches(String flightKey, String departureDateDigits) {
+            for (int i = 0; i < flightKeys.length; i++) {
+                if (flightKey.equals(flightKeys[i]) &&
+                    (departureDateDigits == null || departureDates[i] == null || departureDateDigits.equals(departureDates[i]))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final String logFile;
+    private long fileSize;
+    private long lastModified;
+    private int headLength;
+    private long headChecksum;
+    private int tailLength;     // Bytes checked in front of the resume offset
+    private long tailChecksum;
+    private final long configFingerprint;
+    private long resumeOffset;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Create an empty index for a log file (everything still has to be scanned)
+     */
+    public ApiFlightIndex(Path logFile, long configFingerprint) {
+        this.logFile = logFile.toAbsolutePath().normalize().toString();
+        this.configFingerprint = configFingerprint;
+    }
+
+    public long getResumeOffset() { return resumeOffset; }
+
+    public int getEntryCount() { return entries.size(); }
+
+    /**
+     * Check if the index describes the file exactly as it is now
+     */
+    public boolean isCurrent(Path file, long configFingerprint) throws IOException {
+        return this.configFingerprint == configFingerprint &&
+               Files.size(file) == fileSize &&
+               Files.getLastModifiedTime(file).toMillis() == lastModified &&
+               headChecksum == checksum(file, 0, headLength) &&
+               tailChecksum == checksum(file, resumeOffset - tailLength, tailLength);
+    }
+
+    /**
+     * Check if the file only grew since it was indexed, so the index can be extended from the resume offset
+     * Besides the head, the bytes just before the resume offset must be unchanged: a file rewritten with the
+     * same head and at least the same size would otherwise keep the ranges of its old content.
+     */
+    public boolean canExtend(Path file, long configFingerprint) throws IOException {
+        return this.configFingerprint == configFingerprint &&
+               Files.size(file) >= fileSize &&
+               headChecksum == checksum(file, 0, headLength) &&
+               tailChecksum == checksum(file, resumeOffset - tailLength, tailLength);
+    }
+
+    /**
+     * Replace everything from the resume offset on with a freshly scanned tail
+     * Size and modification time must be taken before the scan, so a file that grows during
+     * the scan is simply extended again next time.
+     * @param tail Entries scanned from the old resume offset, in file order
+     * @param newResumeOffset Resume offset reported by the scan
+     */
+    public void extend(Path file, long size, long modified, List<Entry> tail, long newResumeOffset) throws IOException {
+        entries.removeIf(entry -> entry.from >= resumeOffset);
+        entries.addAll(tail);
+        resumeOffset = newResumeOffset;
+        fileSize = size;
+        lastModified = modified;
+        headLength = (int) Math.min(size, HEAD_CHECK_SIZE);
+        headChecksum = checksum(file, 0, headLength);
+        tailLength = (int) Math.min(resumeOffset, TAIL_CHECK_SIZE);
+        tailChecksum = checksum(file, resumeOffset - tailLength, tailLength);
+    }
+
+    /**
+     * Ranges holding a message of the flight that can pass the departure date filter, in file order
+     */
+    public List<Entry> lookup(String flightKey, String departureDateDigits) {
+        if (flightKey == null) {
+            return Collections.emptyList();
+        }
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.matches(flightKey, departureDateDigits)) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Ranges holding a message of any of several flights, in file order
+     * @param flightKeys Flight keys of the flights
+     * @param departureDateDigits Departure date digits per flight (same order, null entries for any date)
+     */
+    public List<Entry> lookupAny(List<String> flightKeys, List<String> departureDateDigits) {
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : entries) {
+            for (int i = 0; i < flightKeys.size(); i++) {
+                if (flightKeys.get(i) != null && entry.matches(flightKeys.get(i), departureDateDigits.get(i))) {
+                    matches.add(entry);
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Location of the index file of a log file inside the index directory
+     */
+    public static Path indexFileFor(Path indexDirectory, Path logFile) {
+        String path = logFile.toAbsolutePath().normalize().toString();
+        long hash = 1125899906842597L;
+        for (int i = 0; i < path.length(); i++) {
+            hash = 31 * hash + path.charAt(i);
+        }
+        return indexDirectory.resolve(logFile.getFileName() + "-" + Long.toHexString(hash) + SUFFIX);
+    }
+
+    /**
+     * Load the index of a log file
+     * @return The index, or null if there is none, it belongs to another file or it cannot be read
+     */
+    public static ApiFlightIndex load(Path indexFile, Path logFile) {
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            String path = in.readUTF();
+            if (!path.equals(logFile.toAbsolutePath().normalize().toString())) {
+                return null;
+            }
+            ApiFlightIndex index = new ApiFlightIndex(logFile, in.readLong());
+            index.fileSize = in.readLong();
+            index.lastModified = in.readLong();
+            index.headLength = in.readInt();
+            index.headChecksum = in.readLong();
+            index.tailLength = in.readInt();
+            index.tailChecksum = in.readLong();
+            index.resumeOffset = in.readLong();
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long from = in.readLong();
+                long to = in.readLong();
+                int messages = in.readInt();
+                String[] flightKeys = new String[messages];
+                String[] departureDates = new String[messages];
+                for (int m = 0; m < messages; m++) {
+                    flightKeys[m] = readNullable(in);
+                    departureDates[m] = readNullable(in);
+                }
+                index.entries.add(new Entry(from, to, flightKeys, departureDates));
+            }
+            CacheFiles.markUsed(indexFile);
+            return index;
+        } catch (IOException e) {
+            System.err.println("Warning: Could not read flight index " + indexFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write the index, replacing the previous file atomically
+     * Each save writes its own temporary file, so extractions running at the same time do not interfere.
+     */
+    public void save(Path indexFile) throws IOException {
+        Path tempFile = CacheFiles.newTempFile(indexFile);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(logFile);
+            out.writeLong(configFingerprint);
+            out.writeLong(fileSize);
+            out.writeLong(lastModified);
+            out.writeInt(headLength);
+            out.writeLong(headChecksum);
+            out.writeInt(tailLength);
+            out.writeLong(tailChecksum);
+            out.writeLong(resumeOffset);
+
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeLong(entry.from);
+                out.writeLong(entry.to);
+                out.writeInt(entry.flightKeys.length);
+                for (int m = 0; m < entry.flightKeys.length; m++) {
+                    writeNullable(out, entry.flightKeys[m]);
+                    writeNullable(out, entry.departureDates[m]);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        CacheFiles.replace(tempFile, indexFile);
+    }
+
+    /**
+     * Remove the index files unused for longer than a week, then the least recently used ones until the
+     * directory holds at most DEFAULT_MAX_BYTES
+     */
+    public static void evict(Path indexDirectory) throws IOException {
+        CacheFiles.evict(indexDirectory, SUFFIX, DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static long checksum(Path file, long from, int length) throws IOException {
+        CRC32 crc = new CRC32();
+        if (length > 0) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                while (buffer.hasRemaining() && channel.read(buffer, from + buffer.position()) > 0) {
+                    // Keep reading until the head is complete
+                }
+                buffer.flip();
+                crc.update(buffer);
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,495 @@
+package com.l3.logparser.api.parser;
+
+import com.l3.logparser.api.model.EdifactMessage;
+import com.l3.logparser.config.StartPatternMatcher;
+import com.l3.logparser.model.ExtractionMonitor;
+
+import com.l3.common.util.GzipLogFiles;
+import com.l3.common.util.LogTimeWindow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streaming scanner for API log files
+ * Memory-maps the file in windows and walks it line by line as raw bytes.
+ * Only lines that can contain a configured start pattern are decoded, and only the
+ * byte range of each EDIFACT message (start line up to its UNZ line) is handed to ApiParser,
+ * so heap usage stays flat regardless of file size.
+ * The extraction monitor of the parser (if any) is checked on every line and receives the bytes scanned.
+ */
+public class ApiLogScanner {
+
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 8;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_STEP = 1024 * 1024;
+    private static final byte[] UNZ_BYTES = "UNZ".getBytes(StandardCharsets.US_ASCII);
+
+    private final ApiParser parser;
+    private final int windowSize;
+
+    // Reusable decode buffer for single lines
+    private byte[] lineBuffer = new byte[8192];
+
+    public ApiLogScanner(ApiParser parser) {
+        this(parser, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Constructor with explicit mapping window size (mainly useful for tests)
+     */
+    ApiLogScanner(ApiParser parser, int windowSize) {
+        this.parser = parser;
+        this.windowSize = Math.max(1024, windowSize);
+    }
+
+    /**
+     * Scan a complete log file and return the parsed messages in file order
+     */
+    public List<EdifactMessage> scanFile(Path logFile, String targetFlightNumber, boolean debugMode, Consumer<String> debugLogger) throws IOException {
+        return scanFileForFlights(logFile, Collections.singletonList(targetFlightNumber), debugMode, debugLogger);
+    }
+
+    /**
+     * Scan a complete log file for several flights at once (see ApiParser.parseLogContentForFlights)
+     */
+    public List<EdifactMessage> scanFileForFlights(Path logFile, Collection<String> targetFlightNumbers, boolean debugMode, Consumer<String> debugLogger) throws IOException {
+        if (GzipLogFiles.isGzip(logFile)) {
+            try (InputStream in = GzipLogFiles.open(logFile)) {
+                return scanStream(in, targetFlightNumbers, debugMode, debugLogger);
+            }
+        }
+        return scanRangeForFlights(logFile, 0, Long.MAX_VALUE, targetFlightNumbers, debugMode, debugLogger);
+    }
+
+    /**
+     * Scan the messages of a log file whose start line lies in a time window
+     * Plain files are only read in the byte range of the window (see LogTimeWindow.findRange), compressed
+     * files are filtered while they are inflated. The skipped bytes count as read in the extraction monitor.
+     * @param timeWindow Time window of the entries to scan (null for the complete file)
+     */
+    public List<EdifactMessage> scanFileForFlights(Path logFile, LogTimeWindow timeWindow, Collection<String> targetFlightNumbers,
+                                                   boolean debugMode, Consumer<String> debugLogger) throws IOException {
+        if (timeWindow == null) {
+            return scanFileForFlights(logFile, targetFlightNumbers, debugMode, debugLogger);
+        }
+        if (GzipLogFiles.isGzip(logFile)) {
+            try (InputStream in = timeWindow.filter(GzipLogFiles.open(logFile))) {
+                return scanStream(in, targetFlightNumbers, debugMode, debugLogger);
+            }
+        }
+
+        long[] range = timeWindow.findRange(logFile);
+        ExtractionMonitor monitor = parser.getExtractionMonitor();
+        if (monitor != null) {
+            monitor.addBytesRead(Files.size(logFile) - (range[1] - range[0]));
+        }
+        if (debugLogger != null) {
+            debugLogger.accept("Time window " + timeWindow + ": reading bytes " + range[0] + "-" + range[1] + " of " + logFile.getFileName());
+        }
+        if (range[0] >= range[1]) {
+            return new ArrayList<>();
+        }
+        return scanRangeForFlights(logFile, range[0], range[1], targetFlightNumbers, debugMode, debugLogger);
+    }
+
+    /**
+     * Scan a log stream (e.g. an inflating gzip stream) line by line
+     * Lines are classified exactly like in scanRange and each message is handed to the parser with the
+     * same bytes, so the result equals scanning the same content as a file. Only the open message is buffered.
+     */
+    List<EdifactMessage> scanStream(InputStream in, Collection<String> targetFlightNumbers, boolean debugMode, Consumer<String> debugLogger) throws IOException {
+        List<EdifactMessage> messages = new ArrayList<>();
+        StartPatternMatcher startPatterns = parser.startPatternMatcher();
+
+        byte[] readBuffer = new byte[STREAM_BUFFER_SIZE];
+        byte[] line = new byte[8192];
+        ByteBuffer lineView = ByteBuffer.wrap(line);
+        int lineLength = 0;
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        boolean inMessage = false;
+        ExtractionMonitor monitor = parser.getExtractionMonitor();
+
+        while (true) {
+            int read = in.read(readBuffer);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = readBuffer[i];
+                if (b == '\n') {
+                    if (monitor != null) {
+                        monitor.checkCancelled();
+                    }
+                    inMessage = processStreamLine(lineView, lineLength, true, inMessage, message, startPatterns,
+                            targetFlightNumbers, debugMode, debugLogger, messages);
+                    lineLength = 0;
+                    continue;
+                }
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, line.length * 2);
+                    lineView = ByteBuffer.wrap(line);
+                }
+                line[lineLength++] = b;
+            }
+        }
+
+        if (lineLength > 0) {
+            inMessage = processStreamLine(lineView, lineLength, false, inMessage, message, startPatterns,
+                    targetFlightNumbers, debugMode, debugLogger, messages);
+        }
+        if (inMessage) {
+            parseBytes(message, targetFlightNumbers, debugMode, debugLogger, messages);
+        }
+
+        return messages;
+    }
+
+    /**
+     * Classify one line of a stream and update the open message
+     * @return Whether a message is open after this line
+     */
+    private boolean processStreamLine(ByteBuffer line, int length, boolean hasNewline, boolean inMessage, ByteArrayOutputStream message,
+                                      StartPatternMatcher startPatterns, Collection<String> targetFlightNumbers,
+                                      boolean debugMode, Consumer<String> debugLogger, List<EdifactMessage> messages) {
+        int contentEnd = length;
+        if (contentEnd > 0 && line.get(contentEnd - 1) == '\r') {
+            contentEnd--;
+        }
+
+        boolean needsExactCheck = containsTabOrBackslash(line, 0, contentEnd);
+        String startPattern = null;
+        boolean opensMessage = false;
+
+        if (needsExactCheck || startPatterns.mayMatch(line, 0, contentEnd)) {
+            String text = ApiParser.cleanCarriageReturns(decode(line, 0, contentEnd));
+            startPattern = parser.detectMessageStart(text, startPatterns);
+            if (startPattern != null) {
+                opensMessage = !parser.extractEdifactContent(text, startPattern).isEmpty();
+            }
+        }
+
+        if (startPattern != null && opensMessage) {
+            if (inMessage) {
+                parseBytes(message, targetFlightNumbers, debugMode, debugLogger, messages);
+            }
+            message.reset();
+            appendLine(message, line, length, hasNewline);
+            return true;
+        }
+        if (!inMessage) {
+            return false;
+        }
+        if (startPattern == null && containsUnz(line, 0, contentEnd, needsExactCheck)) {
+            // Message ends at the UNZ line, without its newline
+            appendLine(message, line, length, false);
+            parseBytes(message, targetFlightNumbers, debugMode, debugLogger, messages);
+            message.reset();
+            return false;
+        }
+        appendLine(message, line, length, hasNewline);
+        return true;
+    }
+
+    private void appendLine(ByteArrayOutputStream message, ByteBuffer line, int length, boolean withNewline) {
+        message.write(line.array(), 0, length);
+        if (withNewline) {
+            message.write('\n');
+        }
+    }
+
+    private void parseBytes(ByteArrayOutputStream message, Collection<String> targetFlightNumbers, boolean debugMode,
+                            Consumer<String> debugLogger, List<EdifactMessage> messages) {
+        if (message.size() > 0) {
+            String rawRange = message.toString(StandardCharsets.UTF_8);
+            List<EdifactMessage> parsed = parser.parseLogContentForFlights(rawRange, targetFlightNumbers, debugMode, debugLogger);
+            messages.addAll(parsed);
+            countFound(parsed);
+        }
+    }
+
+    /**
+     * Scan the messages whose start line lies in the byte range [from, to) of a log file
+     * The range must begin at a line start. A message still open at the end of the range is
+     * followed past the range end until its UNZ line or the next start line, and lines before the
+     * first start line are skipped, so adjacent ranges together give exactly the result of scanFile.
+     */
+    public List<EdifactMessage> scanRange(Path logFile, long from, long to, String targetFlightNumber, boolean debugMode, Consumer<String> debugLogger) throws IOException {
+        return scanRangeForFlights(logFile, from, to, Collections.singletonList(targetFlightNumber), debugMode, debugLogger);
+    }
+
+    /**
+     * Scan a byte range like scanRange for several flights at once
+     */
+    public List<EdifactMessage> scanRangeForFlights(Path logFile, long from, long to, Collection<String> targetFlightNumbers, boolean debugMode,
+                                                    Consumer<String> debugLogger) throws IOException {
+        List<EdifactMessage> messages = new ArrayList<>();
+        scan(logFile, from, to, targetFlightNumbers, debugMode, debugLogger, messages, null);
+        return messages;
+    }
+
+    /**
+     * Scan [from, to) like scanRange without a flight filter and record every message range for the flight index
+     * @param entries Receives one entry per range that yielded messages, in file order
+     * @return The resume offset if the scan reached the end of the file: the start of the first range
+     *         that may still change when the file grows (see ApiFlightIndex)
+     */
+    public long indexRange(Path logFile, long from, long to, List<ApiFlightIndex.Entry> entries, boolean debugMode, Consumer<String> debugLogger) throws IOException {
+        return scan(logFile, from, to, null, debugMode, debugLogger, new ArrayList<>(), entries);
+    }
+
+    /**
+     * Parse the message ranges of index entries with the flight filter, in the given order
+     * Each range is parsed exactly as the full scan parses it, so the result equals scanFile
+     * restricted to these ranges.
+     */
+    public List<EdifactMessage> scanEntries(Path logFile, List<ApiFlightIndex.Entry> entries, String targetFlightNumber, boolean debugMode, Consumer<String> debugLogger) throws IOException {
+        return scanEntriesForFlights(logFile, entries, Collections.singletonList(targetFlightNumber), debugMode, debugLogger);
+    }
+
+    /**
+     * Parse the message ranges of index entries for several flights at once
+     */
+    public List<EdifactMessage> scanEntriesForFlights(Path logFile, List<ApiFlightIndex.Entry> entries, Collection<String> targetFlightNumbers,
+                                                      boolean debugMode, Consumer<String> debugLogger) throws IOException {
+        List<EdifactMessage> messages = new ArrayList<>();
+        ExtractionMonitor monitor = parser.getExtractionMonitor();
+
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            for (ApiFlightIndex.Entry entry : entries) {
+                if (monitor != null) {
+                    monitor.checkCancelled();
+                }
+                int length = (int) entry.getLength();
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, entry.getFrom() + buffer.position()) < 0) {
+                        throw new IOException("Log file is shorter than its flight index: " + logFile);
+                    }
+                }
+                String rawRange = new String(buffer.array(), 0, length, StandardCharsets.UTF_8);
+                List<EdifactMessage> parsed = parser.parseLogContentForFlights(rawRange, targetFlightNumbers, debugMode, debugLogger);
+                messages.addAll(parsed);
+                countFound(parsed);
+            }
+        }
+
+        return messages;
+    }
+
+    private long scan(Path logFile, long from, long to, Collection<String> targetFlightNumbers, boolean debugMode, Consumer<String> debugLogger,
+                      List<EdifactMessage> messages, List<ApiFlightIndex.Entry> entries) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize == 0 || from >= fileSize) {
+                return Math.max(from, 0);
+            }
+
+            StartPatternMatcher startPatterns = parser.startPatternMatcher();
+
+            long pos = from;
+            long winStart = from;
+            int winLen = 0;
+            int size = windowSize;
+            MappedByteBuffer window = null;
+            long messageStart = -1; // -1 when not inside a message
+            long resumeOffset = fileSize;
+            ExtractionMonitor monitor = parser.getExtractionMonitor();
+            long rangeEnd = Math.min(to, fileSize);
+            long reportedPos = from; // Bytes of the range up to here are counted in the monitor
+
+            while (pos < fileSize && (pos < to || messageStart >= 0)) {
+                if (monitor != null) {
+                    monitor.checkCancelled();
+                    if (pos - reportedPos >= PROGRESS_STEP && reportedPos < rangeEnd) {
+                        long done = Math.min(pos, rangeEnd);
+                        monitor.addBytesRead(done - reportedPos);
+                        reportedPos = done;
+                    }
+                }
+                int lineStart = (int) (pos - winStart);
+                int newline = window == null ? -1 : indexOf(window, (byte) '\n', lineStart, winLen);
+                boolean windowAtEof = window != null && winStart + winLen >= fileSize;
+
+                if (newline < 0 && !windowAtEof) {
+                    // Line (or current message) runs past the window - remap anchored at the message start
+                    long anchor = messageStart >= 0 ? messageStart : pos;
+                    if (window != null && anchor == winStart) {
+                        if (size >= MAX_WINDOW_SIZE) {
+                            throw new IOException("Log entry too large to map at offset " + anchor + " in " + logFile);
+                        }
+                        size = (int) Math.min((long) size * 2, MAX_WINDOW_SIZE);
+                    }
+                    winStart = anchor;
+                    winLen = (int) Math.min(size, fileSize - anchor);
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, winStart, winLen);
+                    continue;
+                }
+
+                int lineEnd = newline >= 0 ? newline : winLen;
+                long nextPos = winStart + lineEnd + (newline >= 0 ? 1 : 0);
+                if (newline < 0) {
+                    resumeOffset = winStart + lineStart; // Last line is still missing its newline
+                }
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && window.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+
+                boolean needsExactCheck = containsTabOrBackslash(window, lineStart, contentEnd);
+                String startPattern = null;
+                boolean opensMessage = false;
+
+                if (needsExactCheck || startPatterns.mayMatch(window, lineStart, contentEnd)) {
+                    String line = ApiParser.cleanCarriageReturns(decode(window, lineStart, contentEnd));
+                    startPattern = parser.detectMessageStart(line, startPatterns);
+                    if (startPattern != null) {
+                        opensMessage = !parser.extractEdifactContent(line, startPattern).isEmpty();
+                    }
+                }
+
+                if (startPattern != null) {
+                    if (opensMessage) {
+                        if (messageStart >= 0) {
+                            parseRange(window, winStart, messageStart, winStart + lineStart, targetFlightNumbers, debugMode, debugLogger, messages, entries);
+                        }
+                        if (pos >= to) {
+                            // Message belongs to the next range
+                            messageStart = -1;
+                            break;
+                        }
+                        messageStart = winStart + lineStart;
+                    }
+                } else if (messageStart >= 0 && containsUnz(window, lineStart, contentEnd, needsExactCheck)) {
+                    parseRange(window, winStart, messageStart, winStart + lineEnd, targetFlightNumbers, debugMode, debugLogger, messages, entries);
+                    if (newline < 0) {
+                        resumeOffset = messageStart; // The UNZ line may still grow
+                    }
+                    messageStart = -1;
+                }
+
+                pos = nextPos;
+            }
+
+            if (messageStart >= 0 && window != null) {
+                parseRange(window, winStart, messageStart, winStart + winLen, targetFlightNumbers, debugMode, debugLogger, messages, entries);
+                resumeOffset = messageStart; // Message is still open at the end of the file
+            }
+            if (monitor != null && reportedPos < rangeEnd) {
+                monitor.addBytesRead(rangeEnd - reportedPos);
+            }
+            return resumeOffset;
+        }
+    }
+
+    /**
+     * Decode one message byte range and hand it to the parser
+     */
+    private void parseRange(MappedByteBuffer window, long winStart, long from, long to, Collection<String> targetFlightNumbers,
+                            boolean debugMode, Consumer<String> debugLogger, List<EdifactMessage> messages,
+                            List<ApiFlightIndex.Entry> entries) {
+        int length = (int) (to - from);
+        if (length <= 0) {
+            return;
+        }
+        byte[] bytes = new byte[length];
+        window.get((int) (from - winStart), bytes, 0, length);
+        String rawRange = new String(bytes, StandardCharsets.UTF_8);
+        List<EdifactMessage> parsed = parser.parseLogContentForFlights(rawRange, targetFlightNumbers, debugMode, debugLogger);
+        messages.addAll(parsed);
+        if (entries == null) {
+            countFound(parsed);
+        }
+
+        if (entries != null && !parsed.isEmpty()) {
+            String[] flightKeys = new String[parsed.size()];
+            String[] departureDates = new String[parsed.size()];
+            for (int i = 0; i < parsed.size(); i++) {
+                flightKeys[i] = parser.flightIndexKey(parsed.get(i));
+                departureDates[i] = parser.departureDateKey(parsed.get(i));
+            }
+            entries.add(new ApiFlightIndex.Entry(from, to, flightKeys, departureDates));
+        }
+    }
+
+    /**
+     * Count parsed messages in the extraction monitor (index builds are not counted, they keep every flight)
+     */
+    private void countFound(List<EdifactMessage> parsed) {
+        ExtractionMonitor monitor = parser.getExtractionMonitor();
+        if (monitor != null) {
+            monitor.addMessagesFound(parsed.size());
+        }
+    }
+
+    private boolean containsUnz(ByteBuffer buffer, int from, int to, boolean needsExactCheck) {
+        if (needsExactCheck) {
+            return ApiParser.cleanCarriageReturns(decode(buffer, from, to)).contains("UNZ");
+        }
+        return indexOf(buffer, UNZ_BYTES, from, to) >= 0;
+    }
+
+    /**
+     * Lines with tabs or backslashes are altered by cleanCarriageReturns, so byte checks are not exact for them
+     */
+    private boolean containsTabOrBackslash(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '\t' || b == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String decode(ByteBuffer buffer, int from, int to) {
+        int length = to - from;
+        if (lineBuffer.length < length) {
+            lineBuffer = new byte[Math.max(length, lineBuffer.length * 2)];
+        }
+        buffer.get(from, lineBuffer, 0, length);
+        return new String(lineBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte[] literal, int from, int to) {
+        int last = to - literal.length;
+        byte first = literal[0];
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (buffer.get(i) != first) {
+                continue;
+            }
+            for (int j = 1; j < literal.length; j++) {
+                if (buffer.get(i + j) != literal[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
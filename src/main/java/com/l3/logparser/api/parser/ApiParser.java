@@ -1,13 +1,19 @@
 package com.l3.logparser.api.parser;
 
+import com.l3.common.util.ContentFingerprint;
+import com.l3.logparser.api.model.ApiSeparators;
 import com.l3.logparser.api.model.EdifactMessage;
 import com.l3.logparser.api.model.FlightDetails;
 import com.l3.logparser.config.AdvancedParserConfig;
 import com.l3.logparser.config.ApiPatternConfig;
+import com.l3.logparser.config.StartPatternMatcher;
+import com.l3.logparser.model.ExtractionMonitor;
+import com.l3.logparser.model.ParseTrace;
+import com.l3.logparser.model.TraceEvent;
 
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
-import java.util.regex.Pattern;
 
 /**
  * Parser for EDIFACT messages found in log files
@@ -18,141 +24,111 @@ public class ApiParser {
     private static final String UNA_PATTERN = "UNA:(.)(.)(.)(.)(.)(.)";
     private static final String UNH_PATTERN = "UNH(.)(\\d+)(.)(PAXLST:D:05B:UN:IATA(.)(\\w+)(.)(.+?)(.)";
 
-    private char subElementSeparator;
-    private char elementSeparator;
-    private char decimalSeparator;
-    private char releaseIndicator;
-    private char reservedSeparator;
-    private char terminatorSeparator;
-
     // Advanced configuration for customizable patterns and codes
-    private AdvancedParserConfig advancedConfig;
+    // Separators are per message (see ApiSeparators), so the parser itself holds no parse state
+    // and one instance can be shared between threads
+    private volatile AdvancedParserConfig advancedConfig;
+
+    // Start patterns compiled into a single automaton; recompiled when the pattern configuration changes
+    private volatile StartPatternMatcher startPatternMatcher;
+
+    // Flight prefilter statistics: messages fully parsed vs. skipped before segment splitting
+    private final LongAdder prefilterParsed = new LongAdder();
+    private final LongAdder prefilterSkipped = new LongAdder();
+
+    // Cancellation and progress of the running extraction (optional)
+    private volatile ExtractionMonitor extractionMonitor;
+
+    // Receives the debug events in debug mode instead of the debug logger (optional)
+    private volatile ParseTrace parseTrace;
 
     /**
-     * Constructor - initialize with default EDIFACT separators and load configuration
+     * Constructor - load default configuration
      */
     public ApiParser() {
-        setDefaultSeparators();
         this.advancedConfig = new AdvancedParserConfig();
+        this.startPatternMatcher = compileStartPatterns();
     }
 
     /**
      * Constructor with custom configuration
      */
     public ApiParser(AdvancedParserConfig config) {
-        setDefaultSeparators();
         this.advancedConfig = config != null ? config : new AdvancedParserConfig();
+        this.startPatternMatcher = compileStartPatterns();
     }
 
     /**
-     * Set default EDIFACT separators when UNA segment is not available (e.g., for UNB messages)
+     * Set the monitor of the running extraction; parsing stops with a CancellationException once it is cancelled
      */
-    private void setDefaultSeparators() {
-        subElementSeparator = ':';
-        elementSeparator = '+';
-        decimalSeparator = '.';
-        releaseIndicator = '?';
-        reservedSeparator = ' ';
-        terminatorSeparator = '\'';
+    public void setExtractionMonitor(ExtractionMonitor extractionMonitor) {
+        this.extractionMonitor = extractionMonitor;
+    }
+
+    public ExtractionMonitor getExtractionMonitor() {
+        return extractionMonitor;
     }
 
     /**
-     * Parse UNA segment to extract separators - enhanced with error recovery
+     * Set the trace that receives the debug events of debug-mode parsing
+     * Events are recorded without formatting; without a trace they are formatted and passed to the debug logger.
      */
-    public boolean parseUNA(String line) {
-
-        // Handle both $UNA: and UNA: formats
-        String unaLine = line;
-        if (line.contains("$UNA")) {
-            unaLine = line.substring(line.indexOf("$UNA") + 4); // Skip "$UNA"
-        }
-
-        // ENHANCED FIX: More aggressive whitespace and control character removal
-        String originalUnaLine = unaLine;
-        unaLine = unaLine.replaceAll("[\\r\\n\\t]", ""); // Remove carriage returns, newlines, tabs
-        unaLine = unaLine.replaceAll("\\p{Cntrl}", ""); // Remove all control characters
-        unaLine = unaLine.trim(); // Remove leading/trailing whitespace
-
-        // Handle corrupted/incomplete UNA headers
-        if (unaLine.length() < 9) {
-            // Use common EDIFACT separators as fallback
-            subElementSeparator = ':';
-            elementSeparator = '+';
-            decimalSeparator = '.';
-            releaseIndicator = '?';
-            reservedSeparator = ' ';
-            terminatorSeparator = '\'';
-            return true; // Return success with defaults
-        }
-
-        // Handle malformed UNA that doesn't start with "UNA"
-        if (!unaLine.startsWith("UNA")) {
-            // Try to extract separators from whatever we have
-            if (unaLine.length() >= 6) {
-                try {
-                    subElementSeparator = unaLine.charAt(0);
-                    elementSeparator = unaLine.charAt(1);
-                    decimalSeparator = unaLine.charAt(2);
-                    releaseIndicator = unaLine.charAt(3);
-                    reservedSeparator = unaLine.charAt(4);
-                    terminatorSeparator = unaLine.charAt(5);
-                    return true;
-                } catch (Exception e) {
-                    // Silent fallback to defaults
-                    setDefaultSeparators();
-                }
-            }
-
-            // Use defaults if extraction fails
-            setDefaultSeparators();
-            return true;
-        }
-
-        // Standard UNA processing
-        if (unaLine.startsWith("UNA") && unaLine.length() >= 9) {
-            // Extract the 6 separator characters immediately after "UNA"
-            subElementSeparator = unaLine.charAt(3);  // 1st separator after "UNA"
-            elementSeparator = unaLine.charAt(4);     // 2nd separator after "UNA"
-            decimalSeparator = unaLine.charAt(5);     // 3rd separator after "UNA"
-            releaseIndicator = unaLine.charAt(6);     // 4th separator after "UNA"
-            reservedSeparator = unaLine.charAt(7);    // 5th separator after "UNA"
-            terminatorSeparator = unaLine.charAt(8);  // 6th separator after "UNA"
-            return true;
-        }
+    public void setParseTrace(ParseTrace parseTrace) {
+        this.parseTrace = parseTrace;
+    }
 
-        // Final fallback to standard EDIFACT separators
-        setDefaultSeparators();
+    public ParseTrace getParseTrace() {
+        return parseTrace;
+    }
 
-        return true; // Always return true so processing can continue
+    /**
+     * Parse UNA segment to extract separators - enhanced with error recovery
+     * Falls back to the standard EDIFACT separators when the header is corrupted or incomplete.
+     */
+    public ApiSeparators parseUNA(String line) {
+        return ApiSeparators.fromUna(line);
     }
 
 
     public List<EdifactMessage> parseLogContent(String logContent, String targetFlightNumber, boolean debugMode, Consumer<String> debugLogger) {
+        return parseLogContentForFlights(logContent, Collections.singletonList(targetFlightNumber), debugMode, debugLogger);
+    }
+
+    /**
+     * Parse log content for several flights at once
+     * A message is kept if it matches any of the target flight numbers; an empty target (or none at all) keeps everything.
+     */
+    public List<EdifactMessage> parseLogContentForFlights(String logContent, Collection<String> targetFlightNumbers, boolean debugMode, Consumer<String> debugLogger) {
         List<EdifactMessage> messages = new ArrayList<>();
         String[] lines = logContent.split("\\r?\\n");
 
         // First stage: Extract complete message boundaries
-        List<String> rawMessages = extractRawMessages(lines, debugMode, debugLogger);
+        List<String> rawMessages = extractRawMessages(lines, startPatternMatcher(), debugMode, debugLogger);
 
-        if (debugMode && debugLogger != null) {
-            debugLogger.accept("Stage 1 complete: Found " + rawMessages.size() + " raw message boundaries");
+        if (debugMode) {
+            trace(debugLogger, TraceEvent.Type.RAW_MESSAGES_FOUND, 0, rawMessages.size(), 0, null);
         }
 
         // Second stage: Parse each extracted message
+        FlightTokenFilter flightFilter = FlightTokenFilter.forTargets(targetFlightNumbers);
+        ExtractionMonitor monitor = extractionMonitor;
         for (int i = 0; i < rawMessages.size(); i++) {
+            if (monitor != null) {
+                monitor.checkCancelled();
+            }
             String rawMessage = rawMessages.get(i);
-            if (debugMode && debugLogger != null) {
-                debugLogger.accept("Stage 2: Processing message " + (i + 1) + " of " + rawMessages.size());
+            if (debugMode) {
+                trace(debugLogger, TraceEvent.Type.MESSAGE_PROCESSING, i + 1, rawMessages.size(), 0, null);
             }
 
-            EdifactMessage parsedMessage = parseRawMessage(rawMessage, debugMode, debugLogger);
-            if (parsedMessage != null && matchesFlightCriteria(parsedMessage, targetFlightNumber)) {
+            EdifactMessage parsedMessage = parseRawMessage(rawMessage, i + 1, flightFilter, debugMode, debugLogger);
+            if (parsedMessage != null && matchesAnyFlight(parsedMessage, targetFlightNumbers)) {
                 messages.add(parsedMessage);
             }
         }
 
-        if (debugMode && debugLogger != null) {
-            debugLogger.accept("Parsing complete. Total valid messages: " + messages.size());
+        if (debugMode) {
+            trace(debugLogger, TraceEvent.Type.PARSE_COMPLETE, 0, messages.size(), 0, null);
         }
         return messages;
     }
@@ -161,11 +137,12 @@ public class ApiParser {
      * Stage 1: Extract raw EDIFACT messages from log content
      * Finds message boundaries from start patterns to UNZ segments
      */
-    private List<String> extractRawMessages(String[] lines, boolean debugMode, Consumer<String> debugLogger) {
+    private List<String> extractRawMessages(String[] lines, StartPatternMatcher startPatterns, boolean debugMode, Consumer<String> debugLogger) {
         List<String> rawMessages = new ArrayList<>();
         StringBuilder currentRawMessage = new StringBuilder();
         boolean inMessage = false;
         String messageType = null;
+        ApiSeparators separators = ApiSeparators.DEFAULT;
         int lineNumber = 0;
 
         for (String line : lines) {
@@ -173,7 +150,7 @@ public class ApiParser {
             line = cleanCarriageReturns(line);
 
             // Check for various start patterns
-            String startPattern = detectMessageStart(line);
+            String startPattern = detectMessageStart(line, startPatterns);
 
             if (startPattern != null) {
                 // Save previous message if exists
@@ -181,8 +158,8 @@ public class ApiParser {
                     String rawMsg = currentRawMessage.toString().trim();
                     if (!rawMsg.isEmpty()) {
                         rawMessages.add(rawMsg);
-                        if (debugMode && debugLogger != null) {
-                            debugLogger.accept("Extracted raw message " + rawMessages.size() + " (ended by new start pattern)");
+                        if (debugMode) {
+                            trace(debugLogger, TraceEvent.Type.RAW_MESSAGE_NEXT_START, 0, rawMessages.size(), 0, null);
                         }
                     }
                 }
@@ -207,24 +184,25 @@ public class ApiParser {
                                 unaLine = extractedContent.substring(unaIndex, endIndex);
                             }
                         }
-                        parseUNA(unaLine);
-                        if (debugMode && debugLogger != null) {
-                            debugLogger.accept("Parsed UNA separators early: element='" + elementSeparator + "' terminator='" + terminatorSeparator + "'");
+                        separators = parseUNA(unaLine);
+                        if (debugMode) {
+                            trace(debugLogger, TraceEvent.Type.UNA_SEPARATORS, 0, separators.getElementSeparator(),
+                                    separators.getTerminatorSeparator(), null);
                         }
                     } else {
                         // No UNA, use defaults
-                        setDefaultSeparators();
+                        separators = ApiSeparators.DEFAULT;
                     }
 
-                    if (debugMode && debugLogger != null) {
-                        debugLogger.accept("[Line " + lineNumber + "] Started new message with pattern: " + startPattern);
+                    if (debugMode) {
+                        trace(debugLogger, TraceEvent.Type.MESSAGE_START, 0, lineNumber, 0, startPattern);
                     }
                 }
             }
             // Continue building message if we're inside one
             else if (inMessage) {
                 // Add line to current message if it looks like EDIFACT content
-                if (isEdifactContent(line)) {
+                if (isEdifactContent(line, separators)) {
                     currentRawMessage.append("\n").append(line);
                 }
 
@@ -234,8 +212,8 @@ public class ApiParser {
                     String rawMsg = currentRawMessage.toString().trim();
                     if (!rawMsg.isEmpty()) {
                         rawMessages.add(rawMsg);
-                        if (debugMode && debugLogger != null) {
-                            debugLogger.accept("Extracted raw message " + rawMessages.size() + " (ended by UNZ)");
+                        if (debugMode) {
+                            trace(debugLogger, TraceEvent.Type.RAW_MESSAGE_UNZ, 0, rawMessages.size(), 0, null);
                         }
                     }
                     currentRawMessage = new StringBuilder();
@@ -249,8 +227,8 @@ public class ApiParser {
             String rawMsg = currentRawMessage.toString().trim();
             if (!rawMsg.isEmpty()) {
                 rawMessages.add(rawMsg);
-                if (debugMode && debugLogger != null) {
-                    debugLogger.accept("Extracted final raw message " + rawMessages.size() + " (EOF)");
+                if (debugMode) {
+                    trace(debugLogger, TraceEvent.Type.RAW_MESSAGE_EOF, 0, rawMessages.size(), 0, null);
                 }
             }
         }
@@ -261,61 +239,43 @@ public class ApiParser {
     /**
      * Detect different types of message start patterns using configuration
      */
-    private String detectMessageStart(String line) {
+    String detectMessageStart(String line) {
+        return detectMessageStart(line, startPatternMatcher());
+    }
+
+    /**
+     * Detect the message start pattern of a line with already compiled patterns
+     * Returns the name of the first enabled pattern (in configuration order) that matches
+     */
+    String detectMessageStart(String line, StartPatternMatcher startPatterns) {
         if (line == null || line.trim().isEmpty()) {
             return null;
         }
+        return startPatterns.firstMatch(line);
+    }
 
+    /**
+     * Get the compiled start patterns, recompiling them if the pattern configuration was changed
+     * Call once per parse run rather than per line - the check walks the pattern list.
+     */
+    StartPatternMatcher startPatternMatcher() {
+        StartPatternMatcher matcher = startPatternMatcher;
         List<ApiPatternConfig.MessagePattern> patterns = advancedConfig.getApiConfig().getMessageStartPatterns();
-
-        for (ApiPatternConfig.MessagePattern pattern : patterns) {
-            if (!pattern.isEnabled()) {
-                continue; // Skip disabled patterns
-            }
-
-            boolean matches = false;
-
-            switch (pattern.getType()) {
-                case "contains":
-                    matches = line.contains(pattern.getValue());
-                    break;
-
-                case "startsWith":
-                    matches = line.startsWith(pattern.getValue());
-                    break;
-
-                case "multiple":
-                    matches = true; // Start with true, all conditions must match
-                    for (ApiPatternConfig.MessagePattern.Condition condition : pattern.getConditions()) {
-                        boolean conditionMatches = false;
-                        switch (condition.getType()) {
-                            case "contains":
-                                conditionMatches = line.contains(condition.getValue());
-                                break;
-                            case "startsWith":
-                                conditionMatches = line.startsWith(condition.getValue());
-                                break;
-                        }
-                        if (!conditionMatches) {
-                            matches = false;
-                            break;
-                        }
-                    }
-                    break;
-            }
-
-            if (matches) {
-                return pattern.getName();
-            }
+        if (matcher == null || matcher.getFingerprint() != StartPatternMatcher.fingerprintApi(patterns)) {
+            matcher = StartPatternMatcher.compileApi(patterns);
+            startPatternMatcher = matcher;
         }
+        return matcher;
+    }
 
-        return null;
+    private StartPatternMatcher compileStartPatterns() {
+        return StartPatternMatcher.compileApi(advancedConfig.getApiConfig().getMessageStartPatterns());
     }
 
     /**
      * Extract EDIFACT content based on the start pattern
      */
-    private String extractEdifactContent(String line, String startPattern) {
+    String extractEdifactContent(String line, String startPattern) {
         switch (startPattern) {
             case "$STX$UNA":
                 int stxUnaIndex = line.indexOf("$STX$UNA");
@@ -387,7 +347,7 @@ public class ApiParser {
     /**
      * Check if a line contains EDIFACT content
      */
-    private boolean isEdifactContent(String line) {
+    private boolean isEdifactContent(String line, ApiSeparators separators) {
         if (line == null || line.trim().isEmpty()) {
             return false;
         }
@@ -399,15 +359,15 @@ public class ApiParser {
                line.startsWith("LOC") ||
                line.startsWith("DTM") ||
                line.startsWith("NAD") ||
-               line.contains(String.valueOf(elementSeparator)) || // Use dynamic element separator
-               line.contains(String.valueOf(terminatorSeparator)); // Use dynamic terminator separator
+               line.indexOf(separators.getElementSeparator()) >= 0 || // Use dynamic element separator
+               line.indexOf(separators.getTerminatorSeparator()) >= 0; // Use dynamic terminator separator
     }
 
     /**
      * Stage 2: Parse raw EDIFACT message character by character
      * Split into segments using separators and extract data
      */
-    private EdifactMessage parseRawMessage(String rawMessage, boolean debugMode, Consumer<String> debugLogger) {
+    private EdifactMessage parseRawMessage(String rawMessage, int messageIndex, FlightTokenFilter flightFilter, boolean debugMode, Consumer<String> debugLogger) {
         if (rawMessage == null || rawMessage.trim().isEmpty()) {
             return null;
         }
@@ -417,184 +377,156 @@ public class ApiParser {
         try {
             // Step 1: Parse UNA header to get separators (if present)
             String workingMessage = rawMessage;
+            ApiSeparators separators;
             if (rawMessage.startsWith("UNA")) {
-                parseUNA(rawMessage);
-                if (debugMode && debugLogger != null) {
-                    debugLogger.accept("Parsed UNA header - separators extracted");
+                separators = parseUNA(rawMessage);
+                if (debugMode) {
+                    trace(debugLogger, TraceEvent.Type.UNA_PARSED, messageIndex, 0, 0, null);
                 }
             } else {
                 // No UNA header, use defaults
-                setDefaultSeparators();
-                if (debugMode && debugLogger != null) {
-                    debugLogger.accept("No UNA header found - using default separators");
+                separators = ApiSeparators.DEFAULT;
+                if (debugMode) {
+                    trace(debugLogger, TraceEvent.Type.UNA_MISSING, messageIndex, 0, 0, null);
                 }
             }
 
-            // Step 2: Split message into segments character by character
-            List<String> segments = splitIntoSegments(workingMessage);
+            // Skip messages that cannot contain the target flight number
+            if (flightFilter != null) {
+                if (!flightFilter.mayMatch(rawMessage, separators)) {
+                    prefilterSkipped.increment();
+                    if (debugMode) {
+                        trace(debugLogger, TraceEvent.Type.PREFILTER_SKIPPED, messageIndex, 0, 0, null);
+                    }
+                    return null;
+                }
+                prefilterParsed.increment();
+            }
 
-            if (debugMode && debugLogger != null) {
-                debugLogger.accept("Split into " + segments.size() + " segments");
+            // Step 2: Walk the segments in place and extract data from the ones we need
+            // The body fingerprint used for deduplication is computed in the same pass
+            EdifactTokenizer tokenizer = new EdifactTokenizer(separators);
+            ContentFingerprint.Builder fingerprint = new ContentFingerprint.Builder();
+            tokenizer.reset(workingMessage);
+            int segmentCount = 0;
+            while (tokenizer.nextSegment()) {
+                segmentCount++;
+                tokenizer.addSegmentTo(fingerprint);
+                processSegment(tokenizer, message, messageIndex, debugMode, debugLogger);
             }
 
-            // Step 3: Process each segment to extract data
-            for (String segment : segments) {
-                processSegment(segment, message, debugMode, debugLogger);
+            if (debugMode) {
+                trace(debugLogger, TraceEvent.Type.SEGMENTS_SPLIT, messageIndex, segmentCount, 0, null);
             }
 
             // Step 4: Set the complete raw content
             message.setRawContent(rawMessage);
+            message.setContentFingerprint(fingerprint.build());
 
             return message;
 
         } catch (Exception e) {
-            if (debugMode && debugLogger != null) {
-                debugLogger.accept("Error parsing raw message: " + e.getMessage());
+            if (debugMode) {
+                trace(debugLogger, TraceEvent.Type.MESSAGE_ERROR, messageIndex, 0, 0, String.valueOf(e.getMessage()));
             }
             return null;
         }
     }
 
     /**
-     * Split raw message into segments using the terminator separator
-     * Reads character by character to handle escape sequences properly
+     * Process the current segment of the tokenizer to extract data
      */
-    private List<String> splitIntoSegments(String rawMessage) {
-        List<String> segments = new ArrayList<>();
-        StringBuilder currentSegment = new StringBuilder();
-
-        char[] chars = rawMessage.toCharArray();
-        for (int i = 0; i < chars.length; i++) {
-            char c = chars[i];
-
-            // Check for release/escape character
-            if (c == releaseIndicator && i + 1 < chars.length) {
-                // Next character is escaped, add both characters
-                currentSegment.append(c);
-                currentSegment.append(chars[i + 1]);
-                i++; // Skip next character
-            }
-            // Check for segment terminator
-            else if (c == terminatorSeparator) {
-                // End of segment
-                String segment = currentSegment.toString().trim();
-                if (!segment.isEmpty()) {
-                    segments.add(segment);
-                }
-                currentSegment = new StringBuilder();
-            }
-            // Regular character
-            else {
-                currentSegment.append(c);
-            }
-        }
-
-        // Add final segment if exists
-        String finalSegment = currentSegment.toString().trim();
-        if (!finalSegment.isEmpty()) {
-            segments.add(finalSegment);
-        }
-
-        return segments;
-    }
-
-    /**
-     * Process individual segment to extract data
-     */
-    private void processSegment(String segment, EdifactMessage message, boolean debugMode, Consumer<String> debugLogger) {
-        if (segment == null || segment.trim().isEmpty()) {
-            return;
-        }
-
-        segment = segment.trim();
-
+    private void processSegment(EdifactTokenizer segment, EdifactMessage message, int messageIndex, boolean debugMode, Consumer<String> debugLogger) {
         try {
             // UNH segment - message header
-            if (segment.startsWith("UNH" + elementSeparator)) {
+            if (segment.isSegment("UNH")) {
                 parseUNH(segment, message);
-                if (debugMode && debugLogger != null) {
-                    debugLogger.accept("Processed UNH segment");
+                if (debugMode) {
+                    trace(debugLogger, TraceEvent.Type.SEGMENT_PROCESSED, messageIndex, segment.segmentTag(), 0, null);
                 }
             }
             // BGM segment - beginning of message
-            else if (segment.startsWith("BGM" + elementSeparator)) {
+            else if (segment.isSegment("BGM")) {
                 parseFlightDetails(segment, message);
-                if (debugMode && debugLogger != null) {
-                    debugLogger.accept("Processed BGM segment");
+                if (debugMode) {
+                    trace(debugLogger, TraceEvent.Type.SEGMENT_PROCESSED, messageIndex, segment.segmentTag(), 0, null);
                 }
             }
             // TDT segment - transport details
-            else if (segment.startsWith("TDT" + elementSeparator)) {
+            else if (segment.isSegment("TDT")) {
                 parseFlightDetails(segment, message);
-                if (debugMode && debugLogger != null) {
-                    debugLogger.accept("Processed TDT segment");
+                if (debugMode) {
+                    trace(debugLogger, TraceEvent.Type.SEGMENT_PROCESSED, messageIndex, segment.segmentTag(), 0, null);
                 }
             }
             // LOC segment - location
-            else if (segment.startsWith("LOC" + elementSeparator)) {
+            else if (segment.isSegment("LOC")) {
                 parseFlightDetails(segment, message);
-                if (debugMode && debugLogger != null) {
-                    debugLogger.accept("Processed LOC segment");
+                if (debugMode) {
+                    trace(debugLogger, TraceEvent.Type.SEGMENT_PROCESSED, messageIndex, segment.segmentTag(), 0, null);
                 }
             }
             // DTM segment - date/time
-            else if (segment.startsWith("DTM" + elementSeparator)) {
+            else if (segment.isSegment("DTM")) {
                 parseFlightDetails(segment, message);
-                if (debugMode && debugLogger != null) {
-                    debugLogger.accept("Processed DTM segment");
+                if (debugMode) {
+                    trace(debugLogger, TraceEvent.Type.SEGMENT_PROCESSED, messageIndex, segment.segmentTag(), 0, null);
                 }
             }
             // Other segments can be added as needed
             else {
-                if (debugMode && debugLogger != null) {
-                    String segmentType = segment.length() >= 3 ? segment.substring(0, 3) : segment;
-                    debugLogger.accept("Skipped segment type: " + segmentType);
+                if (debugMode) {
+                    trace(debugLogger, TraceEvent.Type.SEGMENT_SKIPPED, messageIndex, segment.segmentTag(), 0, null);
                 }
             }
         } catch (Exception e) {
-            if (debugMode && debugLogger != null) {
-                debugLogger.accept("Error processing segment: " + segment.substring(0, Math.min(segment.length(), 50)) + " - " + e.getMessage());
+            if (debugMode) {
+                String text = segment.segmentText();
+                trace(debugLogger, TraceEvent.Type.SEGMENT_ERROR, messageIndex, 0, 0,
+                        text.substring(0, Math.min(text.length(), 50)) + " - " + e.getMessage());
             }
         }
     }
 
     /**
-     * Parse UNH segment to extract message ID, flight number, and part information
+     * Pass a debug event to the parse trace, or format it for the debug logger if no trace is set
      */
-    private void parseUNH(String line, EdifactMessage message) {
-        // ENHANCED FIX: Use robust carriage return cleaning method
-        line = cleanCarriageReturns(line);
-
-        // Ensure the segment ends with terminator for consistent parsing
-        if (!line.endsWith(String.valueOf(terminatorSeparator))) {
-            line = line + terminatorSeparator;
+    private void trace(Consumer<String> debugLogger, TraceEvent.Type type, int messageIndex, long value, long secondValue, Object detail) {
+        ParseTrace trace = parseTrace;
+        if (trace != null) {
+            trace.record(type, messageIndex, value, secondValue, detail);
+        } else if (debugLogger != null) {
+            debugLogger.accept(TraceEvent.format(type, messageIndex, value, secondValue, detail));
         }
+    }
 
-        try {
-            // Split by element separator
-            String[] segments = line.split(Pattern.quote(String.valueOf(elementSeparator)));
-
-            if (segments.length >= 4) {
-                // Extract message reference (segment 1)
-                String messageRef = segments[1];
+    /**
+     * Parse UNH segment to extract message ID, flight number, and part information
+     */
+    private void parseUNH(EdifactTokenizer line, EdifactMessage message) {
+        char subElementSeparator = line.subElementSeparator();
 
-                // Extract message type info (segment 2) - PAXLST:D:05B:UN:IATA
-                String messageType = segments[2];
+        try {
+            // Elements of the segment (element 2 is the message type, e.g. PAXLST:D:05B:UN:IATA)
+            if (line.elementCount() >= 4) {
+                // Extract message reference (element 1)
+                String messageRef = line.element(1);
 
-                // Extract flight info and message ID (segment 3) - e.g., TS2302507251130
-                String flightInfo = segments[3];
+                // Extract flight info and message ID (element 3) - e.g., TS2302507251130
+                String flightInfo = line.element(3);
 
-                // Check if there's a part number in segment 4
+                // Check if there's a part number in element 4
                 String partInfo = "";
-                if (segments.length >= 5) {
-                    partInfo = segments[4].replace(String.valueOf(terminatorSeparator), "").trim();
+                if (line.elementCount() >= 5) {
+                    partInfo = line.elementValue(4);
                 }
 
                 // Parse part number and indicator
                 if (!partInfo.isEmpty()) {
                     // Check if part info contains sub-element separator (e.g., "13:F")
-                    if (partInfo.contains(String.valueOf(subElementSeparator))) {
-                        String[] partParts = partInfo.split(String.valueOf(subElementSeparator));
+                    int separatorIndex = partInfo.indexOf(subElementSeparator);
+                    if (separatorIndex >= 0) {
+                        String[] partParts = splitPartInfo(partInfo, separatorIndex, subElementSeparator);
                         if (partParts.length >= 2) {
                             try {
                                 int partNum = Integer.parseInt(partParts[0]);
@@ -653,6 +585,27 @@ public class ApiParser {
         }
     }
 
+    /**
+     * Split part info (e.g. "13:F") at the sub-element separator, dropping trailing empty parts like String.split
+     */
+    private String[] splitPartInfo(String partInfo, int firstSeparator, char subElementSeparator) {
+        List<String> parts = new ArrayList<>(2);
+        int start = 0;
+        int separator = firstSeparator;
+        while (separator >= 0) {
+            parts.add(partInfo.substring(start, separator));
+            start = separator + 1;
+            separator = partInfo.indexOf(subElementSeparator, start);
+        }
+        parts.add(partInfo.substring(start));
+
+        int size = parts.size();
+        while (size > 0 && parts.get(size - 1).isEmpty()) {
+            size--;
+        }
+        return parts.subList(0, size).toArray(new String[0]);
+    }
+
     /**
      * Set default part information when parsing fails
      */
@@ -703,12 +656,70 @@ public class ApiParser {
         }
 
         // Try padding variations (ensure 4-digit format for output files)
-        String msgPadded = msgAirlineCode + String.format("%04d", Integer.parseInt(msgNumberNormalized.isEmpty() ? "0" : msgNumberNormalized));
-        String targetPadded = targetAirlineCode + String.format("%04d", Integer.parseInt(targetNumberNormalized.isEmpty() ? "0" : targetNumberNormalized));
+        // Compared by digit value, so numbers beyond the int range don't abort the parse
+        return significantDigits(msgNumberNormalized).equals(significantDigits(targetNumberNormalized));
+    }
 
-        boolean paddedMatch = msgPadded.equals(targetPadded);
+    /**
+     * Digit values of a number without leading zeros (also for non-ASCII digits)
+     */
+    private String significantDigits(String number) {
+        StringBuilder digits = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            int value = Character.digit(number.charAt(i), 10);
+            if (value > 0 || digits.length() > 0) {
+                digits.append((char) ('0' + value));
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * Key of a flight number in the flight index
+     * Two flight numbers match (see isFlightNumberMatch) exactly when their keys are equal.
+     * @return The key, or null for a missing flight number
+     */
+    public String flightIndexKey(String flightNumber) {
+        if (flightNumber == null) {
+            return null;
+        }
+        String flight = flightNumber.toUpperCase().trim();
+        return extractAirlineCode(flight) + "/" + significantDigits(extractFlightNumber(flight));
+    }
+
+    /**
+     * Flight index key of the flight number matchesFlightCriteria checks for a message
+     */
+    String flightIndexKey(EdifactMessage message) {
+        String messageFlightNumber = message.getFlightNumber();
+        if (messageFlightNumber == null && message.getFlightDetails() != null) {
+            messageFlightNumber = message.getFlightDetails().getFlightNumber();
+        }
+        return flightIndexKey(messageFlightNumber);
+    }
+
+    /**
+     * Digits of the departure date of a message, as compared by the service's date filter
+     */
+    String departureDateKey(EdifactMessage message) {
+        FlightDetails details = message.getFlightDetails();
+        if (details == null || details.getDepartureDate() == null) {
+            return null;
+        }
+        return details.getDepartureDate().replaceAll("\\D", "");
+    }
 
-        return paddedMatch;
+    /**
+     * Fingerprint of the configuration parts that decide which ranges are messages and what is extracted
+     * A flight index built under another fingerprint is rebuilt.
+     */
+    public long flightIndexFingerprint() {
+        ApiPatternConfig apiConfig = advancedConfig.getApiConfig();
+        ApiPatternConfig.SegmentCodes codes = apiConfig.getSegmentCodes();
+        long fingerprint = StartPatternMatcher.fingerprintApi(apiConfig.getMessageStartPatterns());
+        return 31 * fingerprint + Objects.hash(codes.getBgmPassengerCode(), codes.getBgmCrewCode(),
+            codes.getLocDepartureCode(), codes.getLocArrivalCode(), codes.getDtmDepartureCode(),
+            codes.getDtmArrivalCode(), codes.getTdtFlightPosition());
     }
 
     private String extractAirlineCode(String flightNumber) {
@@ -748,15 +759,7 @@ public class ApiParser {
     /**
      * Parse flight details from EDIFACT segments (TDT, LOC, DTM, BGM) using configuration
      */
-    private void parseFlightDetails(String segment, EdifactMessage message) {
-        // ENHANCED FIX: Use robust carriage return cleaning method
-        segment = cleanCarriageReturns(segment);
-
-        // Ensure the segment ends with terminator for consistent parsing
-        if (!segment.endsWith(String.valueOf(terminatorSeparator))) {
-            segment = segment + terminatorSeparator;
-        }
-
+    private void parseFlightDetails(EdifactTokenizer segment, EdifactMessage message) {
         if (message.getFlightDetails() == null) {
             message.setFlightDetails(new FlightDetails());
         }
@@ -766,15 +769,13 @@ public class ApiParser {
 
         try {
             // Parse BGM segment for data type using configurable codes
-            if (segment.startsWith("BGM" + elementSeparator)) {
-                String[] parts = segment.split(Pattern.quote(String.valueOf(elementSeparator)));
-                if (parts.length >= 2) {
-                    String bgmCode = parts[1].replace(String.valueOf(terminatorSeparator), "").trim();
-                    if (codes.getBgmPassengerCode().equals(bgmCode)) {
+            if (segment.isSegment("BGM")) {
+                if (segment.elementCount() >= 2) {
+                    if (segment.elementValueEquals(1, codes.getBgmPassengerCode())) {
                         message.setDataType("PASSENGER");
                         details.setPassengerData(true);
                     }
-                    else if (codes.getBgmCrewCode().equals(bgmCode)) {
+                    else if (segment.elementValueEquals(1, codes.getBgmCrewCode())) {
                         message.setDataType("CREW");
                         details.setPassengerData(false);
                     }
@@ -782,73 +783,78 @@ public class ApiParser {
             }
 
             // Parse TDT segment for flight number using configurable position
-            else if (segment.startsWith("TDT" + elementSeparator)) {
-                String[] parts = segment.split(Pattern.quote(String.valueOf(elementSeparator)));
+            else if (segment.isSegment("TDT")) {
                 int flightPos = codes.getTdtFlightPosition();
-                if (parts.length > flightPos) {
-                    String flightNumber = parts[flightPos].replace(String.valueOf(terminatorSeparator), "").trim();
+                if (segment.elementCount() > flightPos) {
+                    String flightNumber = segment.elementValue(flightPos);
                     details.setFlightNumber(flightNumber);
                     message.setFlightNumber(flightNumber); // Also set on message directly
                 }
             }
 
             // Parse LOC segments for airports using configurable codes
-            else if (segment.startsWith("LOC" + elementSeparator)) {
-                String[] parts = segment.split(Pattern.quote(String.valueOf(elementSeparator)));
-                if (parts.length >= 3) {
-                    String locType = parts[1];
-                    String airport = parts[2].replace(String.valueOf(terminatorSeparator), "").trim();
-
-                    if (codes.getLocDepartureCode().equals(locType) && details.getDepartureAirport()==null) {
+            else if (segment.isSegment("LOC")) {
+                if (segment.elementCount() >= 3) {
+                    if (segment.elementEquals(1, codes.getLocDepartureCode()) && details.getDepartureAirport()==null) {
                         // Departure airport
-                        details.setDepartureAirport(airport);
+                        details.setDepartureAirport(segment.elementValue(2));
                     }
-                    else if (codes.getLocArrivalCode().equals(locType) && details.getArrivalAirport()==null) {
+                    else if (segment.elementEquals(1, codes.getLocArrivalCode()) && details.getArrivalAirport()==null) {
                         // Arrival airport
-                        details.setArrivalAirport(airport);
+                        details.setArrivalAirport(segment.elementValue(2));
                     }
                 }
             }
 
             // Parse DTM segments for dates and times using configurable codes
-            else if (segment.startsWith("DTM" + elementSeparator)) {
-                String[] parts = segment.split(Pattern.quote(String.valueOf(elementSeparator)));
-                if (parts.length >= 2) {
-                    String dtmInfo = parts[1];
-                    String[] dtmParts = dtmInfo.split(Pattern.quote(String.valueOf(subElementSeparator)));
-
-                    if (dtmParts.length >= 2) {
-                        String dtmType = dtmParts[0];
-                        String dateTime = dtmParts[1].replace(String.valueOf(terminatorSeparator), "").trim();
-
-                        if (codes.getDtmDepartureCode().equals(dtmType) && details.getDepartureDate()==null && details.getDepartureTime()==null) {
-                            // Departure date/time: format YYMMDDHHMM
-                            if (dateTime.length() >= 8) {
-                                String date = dateTime.substring(0, 6); // YYMMDD
-                                String time = dateTime.length() >= 10 ? dateTime.substring(6, 10) : ""; // HHMM
-                                details.setDepartureDate(date);
-                                details.setDepartureTime(time);
-                            }
+            else if (segment.isSegment("DTM")) {
+                // Element 1 is type:datetime, e.g. 189:2510151000
+                if (segment.elementCount() >= 2 && segment.subElementSeparatorIndex(1) >= 0) {
+                    if (segment.firstComponentEquals(1, codes.getDtmDepartureCode()) && details.getDepartureDate()==null && details.getDepartureTime()==null) {
+                        // Departure date/time: format YYMMDDHHMM
+                        String dateTime = segment.secondComponentValue(1);
+                        if (dateTime.length() >= 8) {
+                            String date = dateTime.substring(0, 6); // YYMMDD
+                            String time = dateTime.length() >= 10 ? dateTime.substring(6, 10) : ""; // HHMM
+                            details.setDepartureDate(date);
+                            details.setDepartureTime(time);
                         }
-                        else if (codes.getDtmArrivalCode().equals(dtmType) && details.getArrivalDate()==null && details.getArrivalTime()==null) {
-                            // Arrival date/time: format YYMMDDHHMM
-                            if (dateTime.length() >= 8) {
-                                String date = dateTime.substring(0, 6); // YYMMDD
-                                String time = dateTime.length() >= 10 ? dateTime.substring(6, 10) : ""; // HHMM
-                                details.setArrivalDate(date);
-                                details.setArrivalTime(time);
-                            }
+                    }
+                    else if (segment.firstComponentEquals(1, codes.getDtmArrivalCode()) && details.getArrivalDate()==null && details.getArrivalTime()==null) {
+                        // Arrival date/time: format YYMMDDHHMM
+                        String dateTime = segment.secondComponentValue(1);
+                        if (dateTime.length() >= 8) {
+                            String date = dateTime.substring(0, 6); // YYMMDD
+                            String time = dateTime.length() >= 10 ? dateTime.substring(6, 10) : ""; // HHMM
+                            details.setArrivalDate(date);
+                            details.setArrivalTime(time);
                         }
                     }
                 }
             }
 
         } catch (Exception e) {
-            System.err.println("Error parsing flight details from segment '" + segment + "': " + e.getMessage());
+            System.err.println("Error parsing flight details from segment '" + segment.segmentText() + "': " + e.getMessage());
         }
     }
 
-    private boolean matchesFlightCriteria(EdifactMessage message, String targetFlightNumber) {
+    private boolean matchesAnyFlight(EdifactMessage message, Collection<String> targetFlightNumbers) {
+        if (targetFlightNumbers == null || targetFlightNumbers.isEmpty()) {
+            return true;
+        }
+        for (String targetFlightNumber : targetFlightNumbers) {
+            if (matchesFlightCriteria(message, targetFlightNumber)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a parsed message belongs to the target flight, the way parseLogContent filters it
+     * An empty target matches every message.
+     */
+    public boolean matchesFlightCriteria(EdifactMessage message, String targetFlightNumber) {
         if (targetFlightNumber == null || targetFlightNumber.trim().isEmpty()) {
             return true; // No filter specified
         }
@@ -871,7 +877,7 @@ public class ApiParser {
      * Robust cleaning method to remove carriage returns and control characters
      * Handles different encodings and representations of \r characters
      */
-    private String cleanCarriageReturns(String input) {
+    static String cleanCarriageReturns(String input) {
         if (input == null) {
             return null;
         }
@@ -886,6 +892,28 @@ public class ApiParser {
         return cleaned;
     }
 
+    /**
+     * Number of messages fully parsed after passing the flight prefilter
+     */
+    public long getPrefilterParsedCount() {
+        return prefilterParsed.sum();
+    }
+
+    /**
+     * Number of messages skipped by the flight prefilter without being parsed
+     */
+    public long getPrefilterSkippedCount() {
+        return prefilterSkipped.sum();
+    }
+
+    /**
+     * Reset the flight prefilter statistics
+     */
+    public void resetPrefilterStats() {
+        prefilterParsed.reset();
+        prefilterSkipped.reset();
+    }
+
     /**
      * Get the current advanced parser configuration
      */
@@ -898,6 +926,7 @@ public class ApiParser {
      */
     public void setAdvancedConfig(AdvancedParserConfig config) {
         this.advancedConfig = config != null ? config : new AdvancedParserConfig();
+        this.startPatternMatcher = compileStartPatterns();
     }
 }
 
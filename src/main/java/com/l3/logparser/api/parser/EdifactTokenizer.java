@@ -0,0 +1,357 @@
+package com.l3.logparser.api.parser;
+
+import com.l3.common.util.ContentFingerprint;
+import com.l3.logparser.api.model.ApiSeparators;
+import com.l3.logparser.model.TraceEvent;
+
+import java.util.Arrays;
+
+/**
+ * Cursor over the segments and elements of one raw EDIFACT message
+ *
+ * Segments are delimited by the terminator (a released terminator stays inside the segment) and
+ * trimmed; empty segments are skipped. Elements are delimited by the element separator the same way
+ * ApiParser has always split them: the segment is cleaned like cleanCarriageReturns does and, if it
+ * does not end with the terminator, is read as if one were appended. Only offsets are tracked, so
+ * tags and codes are compared in place and a String is only created for values the caller reads.
+ *
+ * One instance is reused for all segments of a message and is not thread-safe.
+ */
+final class EdifactTokenizer {
+
+    private final char elementSeparator;
+    private final char subElementSeparator;
+    private final char releaseIndicator;
+    private final char terminatorSeparator;
+
+    private CharSequence message;
+    private int position;
+
+    // Current segment, trimmed, within the message
+    private int segmentStart;
+    private int segmentEnd;
+
+    // Text the elements are read from: the message itself, or a cleaned copy of the segment
+    private CharSequence text;
+    private int textStart;
+    private int textEnd;
+    // True if the segment is read with a terminator appended to its last element
+    private boolean virtualTerminator;
+
+    private int[] elementStarts = new int[16];
+    private int[] elementEnds = new int[16];
+    private int elementCount = -1;
+
+    EdifactTokenizer(ApiSeparators separators) {
+        this.elementSeparator = separators.getElementSeparator();
+        this.subElementSeparator = separators.getSubElementSeparator();
+        this.releaseIndicator = separators.getReleaseIndicator();
+        this.terminatorSeparator = separators.getTerminatorSeparator();
+    }
+
+    char subElementSeparator() {
+        return subElementSeparator;
+    }
+
+    /**
+     * Start reading a new message
+     */
+    void reset(CharSequence message) {
+        this.message = message;
+        this.position = 0;
+        this.segmentStart = 0;
+        this.segmentEnd = 0;
+        this.elementCount = -1;
+    }
+
+    /**
+     * Advance to the next non-empty segment
+     * @return false when the message has no more segments
+     */
+    boolean nextSegment() {
+        int length = message.length();
+        while (position < length) {
+            int start = position;
+            int i = position;
+            while (i < length) {
+                char c = message.charAt(i);
+                if (c == releaseIndicator && i + 1 < length) {
+                    i += 2; // Released character belongs to the segment
+                } else if (c == terminatorSeparator) {
+                    break;
+                } else {
+                    i++;
+                }
+            }
+            int end = Math.min(i, length);
+            position = end + 1;
+
+            // Same trimming as String.trim()
+            while (start < end && message.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && message.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start < end) {
+                segmentStart = start;
+                segmentEnd = end;
+                elementCount = -1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the current segment starts with the given tag followed by the element separator
+     */
+    boolean isSegment(String tag) {
+        int tagLength = tag.length();
+        if (segmentEnd - segmentStart <= tagLength || message.charAt(segmentStart + tagLength) != elementSeparator) {
+            return false;
+        }
+        for (int i = 0; i < tagLength; i++) {
+            if (message.charAt(segmentStart + i) != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * First three characters of the current segment packed into a number (see TraceEvent.packTag)
+     */
+    long segmentTag() {
+        return TraceEvent.packTag(message, segmentStart, Math.min(segmentEnd, segmentStart + 3));
+    }
+
+    /**
+     * Add the current segment to the fingerprint of the message
+     */
+    void addSegmentTo(ContentFingerprint.Builder fingerprint) {
+        fingerprint.addSegment(message, segmentStart, segmentEnd);
+    }
+
+    /**
+     * The current segment as a String (for diagnostics)
+     */
+    String segmentText() {
+        return message.subSequence(segmentStart, segmentEnd).toString();
+    }
+
+    /**
+     * Number of elements of the current segment, including the tag
+     */
+    int elementCount() {
+        if (elementCount < 0) {
+            splitElements();
+        }
+        return elementCount;
+    }
+
+    /**
+     * Check if an element, read as it is (terminator included when it is the last element), equals the value
+     */
+    boolean elementEquals(int index, String value) {
+        int start = elementStart(index);
+        int end = elementEnd(index);
+        boolean terminated = isTerminated(index);
+        int length = end - start + (terminated ? 1 : 0);
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) != value.charAt(i - start)) {
+                return false;
+            }
+        }
+        return !terminated || value.charAt(length - 1) == terminatorSeparator;
+    }
+
+    /**
+     * An element read as it is (terminator included when it is the last element)
+     */
+    String element(int index) {
+        String raw = text.subSequence(elementStart(index), elementEnd(index)).toString();
+        return isTerminated(index) ? raw + terminatorSeparator : raw;
+    }
+
+    /**
+     * An element with terminator characters removed and surrounding whitespace trimmed
+     */
+    String elementValue(int index) {
+        return value(elementStart(index), elementEnd(index));
+    }
+
+    /**
+     * Check if the value of an element (see elementValue) equals the given value
+     */
+    boolean elementValueEquals(int index, String value) {
+        return valueEquals(elementStart(index), elementEnd(index), value);
+    }
+
+    /**
+     * Position of the first sub-element separator within an element
+     * @return The offset of the separator in the element, or -1 if there is none
+     */
+    int subElementSeparatorIndex(int index) {
+        int start = elementStart(index);
+        int end = elementEnd(index);
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == subElementSeparator) {
+                return i - start;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if the first component of an element (text before its first sub-element separator) equals the value
+     */
+    boolean firstComponentEquals(int index, String value) {
+        int separator = subElementSeparatorIndex(index);
+        if (separator < 0 || separator != value.length()) {
+            return false;
+        }
+        int start = elementStart(index);
+        for (int i = 0; i < separator; i++) {
+            if (text.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Value of the second component of an element (between its first and second sub-element separator),
+     * with terminator characters removed and whitespace trimmed
+     * @return The value, or null if the element has no sub-element separator
+     */
+    String secondComponentValue(int index) {
+        int separator = subElementSeparatorIndex(index);
+        if (separator < 0) {
+            return null;
+        }
+        int start = elementStart(index) + separator + 1;
+        int end = elementEnd(index);
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == subElementSeparator) {
+                end = i;
+                break;
+            }
+        }
+        return value(start, end);
+    }
+
+    private int elementStart(int index) {
+        checkIndex(index);
+        return elementStarts[index];
+    }
+
+    private int elementEnd(int index) {
+        checkIndex(index);
+        return elementEnds[index];
+    }
+
+    private boolean isTerminated(int index) {
+        return virtualTerminator && index == elementCount - 1;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= elementCount()) {
+            throw new IndexOutOfBoundsException("Element " + index + " of " + elementCount);
+        }
+    }
+
+    /**
+     * Locate the elements of the current segment
+     * Segments containing characters removed by cleanCarriageReturns are cleaned into a copy first.
+     */
+    private void splitElements() {
+        if (needsCleaning()) {
+            String cleaned = ApiParser.cleanCarriageReturns(segmentText());
+            text = cleaned;
+            textStart = 0;
+            textEnd = cleaned.length();
+        } else {
+            text = message;
+            textStart = segmentStart;
+            textEnd = segmentEnd;
+        }
+        virtualTerminator = textEnd == textStart || text.charAt(textEnd - 1) != terminatorSeparator;
+
+        int count = 0;
+        int start = textStart;
+        for (int i = textStart; i <= textEnd; i++) {
+            if (i == textEnd || text.charAt(i) == elementSeparator) {
+                if (count == elementStarts.length) {
+                    elementStarts = Arrays.copyOf(elementStarts, count * 2);
+                    elementEnds = Arrays.copyOf(elementEnds, count * 2);
+                }
+                elementStarts[count] = start;
+                elementEnds[count] = i;
+                count++;
+                start = i + 1;
+            }
+        }
+        elementCount = count;
+    }
+
+    private boolean needsCleaning() {
+        for (int i = segmentStart; i < segmentEnd; i++) {
+            char c = message.charAt(i);
+            if (c == '\n' || c == '\t' || (c == '\\' && i + 1 < segmentEnd && message.charAt(i + 1) == 'r')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean containsTerminator(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == terminatorSeparator) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Text of a range with terminator characters removed, then trimmed
+     */
+    private String value(int start, int end) {
+        if (containsTerminator(start, end)) {
+            String raw = text.subSequence(start, end).toString();
+            return raw.replace(String.valueOf(terminatorSeparator), "").trim();
+        }
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return text.subSequence(start, end).toString();
+    }
+
+    private boolean valueEquals(int start, int end, String value) {
+        if (containsTerminator(start, end)) {
+            return value.equals(value(start, end));
+        }
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) != value.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
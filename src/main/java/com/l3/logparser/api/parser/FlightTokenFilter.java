@@ -0,0 +1,152 @@
+package com.l3.logparser.api.parser;
+
+import com.l3.logparser.api.model.ApiSeparators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cheap pre-check that rejects raw API messages which cannot belong to the target flight(s)
+ *
+ * A message matches the target only if the first digit run of its flight number has the same
+ * value as the target's number (MS775, MS0775 and MS00775 all match each other). That run is always
+ * a whole run of digits in the raw message, so a message without any digit run of that value can be
+ * skipped before it is split into segments. Characters that ApiParser removes while cleaning a segment
+ * (newline, tab and the literal "\r") are skipped here as well, so the decision is never stricter than
+ * the full parse.
+ */
+class FlightTokenFilter {
+
+    // Significant digit values of each target number (leading zeros removed)
+    private final int[][] targets;
+    private final int maxLength;
+
+    private FlightTokenFilter(int[][] targets) {
+        this.targets = targets;
+        int max = 0;
+        for (int[] digits : targets) {
+            max = Math.max(max, digits.length);
+        }
+        this.maxLength = max;
+    }
+
+    /**
+     * Build the filter for a target flight number
+     * @return The filter, or null if every message has to be parsed (no target, or no number in it)
+     */
+    static FlightTokenFilter forTarget(String targetFlightNumber) {
+        return forTargets(Collections.singletonList(targetFlightNumber));
+    }
+
+    /**
+     * Build the filter for several target flight numbers (a message passes if it can contain any of them)
+     * @return The filter, or null if every message has to be parsed (no targets, or one of them has no number)
+     */
+    static FlightTokenFilter forTargets(Collection<String> targetFlightNumbers) {
+        if (targetFlightNumbers == null || targetFlightNumbers.isEmpty()) {
+            return null;
+        }
+        List<int[]> targets = new ArrayList<>();
+        for (String targetFlightNumber : targetFlightNumbers) {
+            int[] digits = significantDigits(targetFlightNumber);
+            if (digits == null) {
+                return null;
+            }
+            targets.add(digits);
+        }
+        return new FlightTokenFilter(targets.toArray(new int[0][]));
+    }
+
+    private static int[] significantDigits(String targetFlightNumber) {
+        if (targetFlightNumber == null || targetFlightNumber.trim().isEmpty()) {
+            return null;
+        }
+
+        String target = targetFlightNumber.toUpperCase().trim();
+        int start = 0;
+        while (start < target.length() && !Character.isDigit(target.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < target.length() && Character.isDigit(target.charAt(end))) {
+            end++;
+        }
+        while (start < end && Character.digit(target.charAt(start), 10) == 0) {
+            start++;
+        }
+        if (start == end) {
+            return null; // Number is empty or zero - messages without digits can still match
+        }
+
+        int[] digits = new int[end - start];
+        for (int i = start; i < end; i++) {
+            digits[i - start] = Character.digit(target.charAt(i), 10);
+        }
+        return digits;
+    }
+
+    /**
+     * Check if the raw message can contain one of the target flight numbers
+     */
+    boolean mayMatch(String rawMessage, ApiSeparators separators) {
+        if (isDigit(separators.getSubElementSeparator()) || isDigit(separators.getElementSeparator()) ||
+            isDigit(separators.getReleaseIndicator()) || isDigit(separators.getTerminatorSeparator())) {
+            return true; // Digit separators change how runs are delimited - let the full parse decide
+        }
+
+        int[] run = new int[maxLength];
+        boolean inRun = false;
+        boolean leadingZeros = true;
+        int runLength = 0; // Significant digits of the current run
+
+        for (int i = 0, length = rawMessage.length(); i <= length; i++) {
+            char c = i < length ? rawMessage.charAt(i) : ' ';
+
+            // Removed by cleanCarriageReturns, so they never split a digit run
+            if (c == '\n' || c == '\t') {
+                continue;
+            }
+            if (c == '\\' && i + 1 < length && rawMessage.charAt(i + 1) == 'r') {
+                i++;
+                continue;
+            }
+
+            if (Character.isDigit(c)) {
+                int value = Character.digit(c, 10);
+                inRun = true;
+                if (leadingZeros && value == 0) {
+                    continue;
+                }
+                leadingZeros = false;
+                if (runLength < maxLength) {
+                    run[runLength] = value;
+                }
+                runLength++;
+            } else if (inRun) {
+                if (matchesTarget(run, runLength)) {
+                    return true;
+                }
+                inRun = false;
+                leadingZeros = true;
+                runLength = 0;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesTarget(int[] run, int runLength) {
+        for (int[] digits : targets) {
+            if (digits.length == runLength && Arrays.equals(digits, 0, runLength, run, 0, runLength)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDigit(char c) {
+        return Character.isDigit(c);
+    }
+}
@@ -1,15 +1,32 @@
 package com.l3.logparser.api.service;
 
+import com.l3.common.util.FingerprintIndex;
+import com.l3.common.util.GzipLogFiles;
+import com.l3.common.util.LogFileChunker;
+import com.l3.common.util.LogTimeWindow;
+import com.l3.common.util.MessageFileWriter;
+import com.l3.common.util.RawContentStore;
 import com.l3.logparser.api.model.EdifactMessage;
 import com.l3.logparser.api.model.FlightDetails;
+import com.l3.logparser.api.parser.ApiFlightIndex;
+import com.l3.logparser.api.parser.ApiLogScanner;
 import com.l3.logparser.api.parser.ApiParser;
 import com.l3.logparser.enums.DataType;
 import com.l3.logparser.config.AdvancedParserConfig;
+import com.l3.logparser.model.ExtractionListener;
+import com.l3.logparser.model.ExtractionMonitor;
+import com.l3.logparser.model.FlightCriteria;
+import com.l3.logparser.model.ParseTrace;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -19,12 +36,36 @@ import java.util.stream.Collectors;
 public class MessageParserService {
 
     private final ApiParser edifactParser;
+    private final ApiLogScanner logScanner;
     private static final List<String> LOG_FILE_PATTERNS = Arrays.asList(
             "das.log*", "MessageTypeB.log*", "MessageAPI.log*", "MessageForwarder.log*"
     );
 
+    // Lines that begin a new log entry - large files are only split in front of these
+    private static final Pattern LOG_ENTRY_START = Pattern.compile("\\d{4}-\\d{2}-\\d{2}|(?:INFO|DEBUG|WARN|ERROR) ");
+
+    // Parallel file extraction settings
+    private boolean parallelExtraction = true;
+    private int maxParallelFiles = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private long largeFileThreshold = 64L * 1024 * 1024;
+
+    // Persistent per-file flight index, used when a flight number is given
+    private boolean flightIndexEnabled = true;
+    private Path flightIndexDirectory = Paths.get(System.getProperty("user.home"), ".l3engine", "flight-index");
+
+    // Cancellation token and progress counters of the next extraction (optional)
+    private ExtractionMonitor extractionMonitor;
+    private LogTimeWindow timeWindow;
+
+    // Store the raw contents of extracted messages are moved to (null keeps them in memory)
+    private RawContentStore rawContentStore;
+
+    // Files and bytes written by the last save
+    private volatile MessageFileWriter.Stats lastSaveStats;
+
     public MessageParserService() {
         this.edifactParser = new ApiParser();
+        this.logScanner = new ApiLogScanner(edifactParser);
     }
 
     /**
@@ -37,6 +78,116 @@ public class MessageParserService {
         }
     }
 
+    /**
+     * Enable or disable parsing several log files concurrently
+     */
+    public void setParallelExtraction(boolean parallelExtraction) {
+        this.parallelExtraction = parallelExtraction;
+    }
+
+    public boolean isParallelExtraction() {
+        return parallelExtraction;
+    }
+
+    /**
+     * Set the maximum number of log files parsed at the same time in parallel mode
+     */
+    public void setMaxParallelFiles(int maxParallelFiles) {
+        this.maxParallelFiles = Math.max(1, maxParallelFiles);
+    }
+
+    public int getMaxParallelFiles() {
+        return maxParallelFiles;
+    }
+
+    /**
+     * Set the file size from which a single log file is split into chunks parsed in parallel
+     */
+    public void setLargeFileThreshold(long largeFileThreshold) {
+        this.largeFileThreshold = Math.max(1, largeFileThreshold);
+    }
+
+    public long getLargeFileThreshold() {
+        return largeFileThreshold;
+    }
+
+    /**
+     * Enable or disable the persistent flight index (see ApiFlightIndex)
+     */
+    public void setFlightIndexEnabled(boolean flightIndexEnabled) {
+        this.flightIndexEnabled = flightIndexEnabled;
+    }
+
+    public boolean isFlightIndexEnabled() {
+        return flightIndexEnabled;
+    }
+
+    /**
+     * Set the directory the flight index files are stored in (default ~/.l3engine/flight-index)
+     */
+    public void setFlightIndexDirectory(Path flightIndexDirectory) {
+        this.flightIndexDirectory = flightIndexDirectory;
+    }
+
+    public Path getFlightIndexDirectory() {
+        return flightIndexDirectory;
+    }
+
+    /**
+     * Set the monitor used to cancel extractions and follow their progress
+     * Cancelling stops the parsers at their next log entry; the extraction then returns a result
+     * marked as cancelled. Use a new monitor for each extraction.
+     */
+    public void setExtractionMonitor(ExtractionMonitor extractionMonitor) {
+        this.extractionMonitor = extractionMonitor;
+        edifactParser.setExtractionMonitor(extractionMonitor);
+    }
+
+    public ExtractionMonitor getExtractionMonitor() {
+        return extractionMonitor;
+    }
+
+    /**
+     * Set the trace that receives the parser's debug events in debug mode (null to pass them to the debug logger)
+     * Drain it with a TraceDrainer; the parsing threads only record the events.
+     */
+    public void setParseTrace(ParseTrace parseTrace) {
+        edifactParser.setParseTrace(parseTrace);
+    }
+
+    public ParseTrace getParseTrace() {
+        return edifactParser.getParseTrace();
+    }
+
+    /**
+     * Restrict extractions to the log entries of a time window (e.g. the hours around departure)
+     * Only messages whose log entry starts inside the window are extracted; files are read only in the
+     * byte range of the window, and rotated files completely outside it are skipped.
+     * @param timeWindow The window, or null to read the complete files
+     */
+    public void setTimeWindow(LogTimeWindow timeWindow) {
+        this.timeWindow = timeWindow;
+    }
+
+    public LogTimeWindow getTimeWindow() {
+        return timeWindow;
+    }
+
+    /**
+     * Keep the raw contents of extracted messages in a store instead of in memory
+     * The content of each file's (or chunk's) messages is moved to the store once it is parsed; it is
+     * loaded again when a message is saved, previewed or compared. Use a new store for each extraction
+     * whose results are kept, the store file lives as long as the messages referring to it.
+     * @param rawContentStore The store, or null to keep the contents in memory
+     */
+    public void setRawContentStore(RawContentStore rawContentStore) {
+        this.rawContentStore = rawContentStore;
+    }
+
+    public RawContentStore getRawContentStore() {
+        return rawContentStore;
+    }
+
     /**
      * Extract messages from a log directory for a specific flight
      * @param logDirectoryPath Path to the log directory
@@ -55,6 +206,26 @@ public class MessageParserService {
                                           DataType dataType,
                                           boolean debugMode,
                                           Consumer<String> debugLogger) {
+        return extractMessages(logDirectoryPath, flightNumber, departureDate, departureAirport, arrivalAirport,
+                dataType, debugMode, debugLogger, null);
+    }
+
+    /**
+     * Extract messages for a specific flight and report them while the files are scanned
+     * Each message is passed to the listener as soon as the file it comes from has been merged (files
+     * are merged in priority order) and it passed the filters and deduplication.
+     * @param listener Receives messages and file completion events (optional)
+     * @return ExtractionResult containing found messages and processing info
+     */
+    public ExtractionResult extractMessages(String logDirectoryPath,
+                                          String flightNumber,
+                                          String departureDate,
+                                          String departureAirport,
+                                          String arrivalAirport,
+                                          DataType dataType,
+                                          boolean debugMode,
+                                          Consumer<String> debugLogger,
+                                          ExtractionListener<EdifactMessage> listener) {
 
         ExtractionResult result = new ExtractionResult();
         result.setFlightNumber(flightNumber);
@@ -72,89 +243,522 @@ public class MessageParserService {
             List<EdifactMessage> allMessages = new ArrayList<>();
 
             // Process different log file types based on data type
+            FlightCriteria flight = new FlightCriteria(flightNumber, departureDate, departureAirport, arrivalAirport);
             if (dataType == DataType.API) {
-                allMessages.addAll(extractApiMessages(logDir, flightNumber, result, debugMode, debugLogger));
+                edifactParser.resetPrefilterStats();
+                allMessages.addAll(extractApiMessages(logDir, Collections.singletonList(flight), result,
+                        listener != null ? streamTo(flight, listener) : null, debugMode, debugLogger));
+                result.setPrefilterStats(edifactParser.getPrefilterParsedCount(), edifactParser.getPrefilterSkippedCount());
             }
             if (debugMode && debugLogger != null) {
+                debugLogger.accept("Flight prefilter: " + result.getPrefilterParsedCount() + " messages parsed, " +
+                                 result.getPrefilterSkippedCount() + " skipped");
                 debugLogger.accept("Total messages after parsing all files: " + allMessages.size());
             }
 
+            completeResult(result, allMessages, flight, debugMode, debugLogger);
 
-            // Filter messages based on additional criteria
-            List<EdifactMessage> filteredMessages = filterMessages(allMessages, flightNumber, departureDate, departureAirport, arrivalAirport);
-            if (debugMode && debugLogger != null) {
-                debugLogger.accept("Total messages after filtering: " + filteredMessages.size());
+        } catch (Exception e) {
+            if (ExtractionMonitor.isCancellation(e)) {
+                result.setCancelled(true);
+                result.addError("Extraction cancelled");
+                return result;
             }
+            result.addError("Error processing log directory: " + e.getMessage());
+            System.err.println("ERROR in extractMessages: " + e.getMessage());
+            e.printStackTrace();
+        }
 
+        return result;
+    }
 
-            // Remove duplicate messages (same message ID from multiple files)
-            List<EdifactMessage> deduplicatedMessages = removeDuplicateMessages(filteredMessages);
-            if (debugMode && debugLogger != null) {
-                debugLogger.accept("Total messages after deduplication: " + deduplicatedMessages.size());
-            }
+    /**
+     * Extract messages for several flights with one pass over the log files
+     * The files are scanned once for all flight numbers together; every message is then routed to the
+     * flights it belongs to, and each flight gets its own filtering, deduplication and part analysis.
+     * Each result equals what extractMessages returns for that flight alone.
+     * @param flights Criteria of the flights to extract
+     * @return One ExtractionResult per flight, in the order of the criteria
+     */
+    public List<ExtractionResult> extractMessagesBatch(String logDirectoryPath,
+                                                       List<FlightCriteria> flights,
+                                                       DataType dataType,
+                                                       boolean debugMode,
+                                                       Consumer<String> debugLogger) {
+        List<ExtractionResult> results = new ArrayList<>();
+        for (FlightCriteria flight : flights) {
+            ExtractionResult result = new ExtractionResult();
+            result.setFlightNumber(flight.getFlightNumber());
+            result.setLogDirectoryPath(logDirectoryPath);
+            result.setRequestedDataType(dataType);
+            results.add(result);
+        }
+        if (flights.isEmpty()) {
+            return results;
+        }
 
-            // Analyze part completeness
-            analyzePartCompleteness(deduplicatedMessages, flightNumber);
+        try {
+            Path logDir = Paths.get(logDirectoryPath);
+            if (!Files.exists(logDir) || !Files.isDirectory(logDir)) {
+                results.forEach(result -> result.addError("Log directory does not exist: " + logDirectoryPath));
+                return results;
+            }
 
-            result.setExtractedMessages(deduplicatedMessages);
-            result.setSuccess(true);
+            // One scan for all flights
+            ExtractionResult scanResult = new ExtractionResult();
+            List<EdifactMessage> allMessages = new ArrayList<>();
+            if (dataType == DataType.API) {
+                edifactParser.resetPrefilterStats();
+                allMessages.addAll(extractApiMessages(logDir, flights, scanResult, null, debugMode, debugLogger));
+                scanResult.setPrefilterStats(edifactParser.getPrefilterParsedCount(), edifactParser.getPrefilterSkippedCount());
+            }
+            if (debugMode && debugLogger != null) {
+                debugLogger.accept("Batch of " + flights.size() + " flights: " + allMessages.size() + " messages after parsing all files");
+            }
 
-            if (deduplicatedMessages.isEmpty()) {
-                result.addWarning("No messages found matching the specified criteria");
+            // Route the messages to their flights
+            for (int i = 0; i < flights.size(); i++) {
+                FlightCriteria flight = flights.get(i);
+                ExtractionResult result = results.get(i);
+                scanResult.getProcessedFiles().forEach(result::addProcessedFile);
+                result.setPrefilterStats(scanResult.getPrefilterParsedCount(), scanResult.getPrefilterSkippedCount());
+
+                List<EdifactMessage> flightMessages = allMessages.stream()
+                        .filter(msg -> edifactParser.matchesFlightCriteria(msg, flight.getFlightNumber()))
+                        .collect(Collectors.toList());
+                if (debugMode && debugLogger != null) {
+                    debugLogger.accept("Flight " + flight + ": " + flightMessages.size() + " messages");
+                }
+                completeResult(result, flightMessages, flight, debugMode, debugLogger);
             }
 
         } catch (Exception e) {
-            result.addError("Error processing log directory: " + e.getMessage());
-            System.err.println("ERROR in extractMessages: " + e.getMessage());
+            if (ExtractionMonitor.isCancellation(e)) {
+                results.forEach(result -> {
+                    result.setCancelled(true);
+                    result.addError("Extraction cancelled");
+                });
+                return results;
+            }
+            results.forEach(result -> result.addError("Error processing log directory: " + e.getMessage()));
+            System.err.println("ERROR in extractMessagesBatch: " + e.getMessage());
             e.printStackTrace();
         }
 
-        return result;
+        return results;
+    }
+
+    /**
+     * Create a file handler that reports the messages of each merged file to a listener
+     * Applies the same filter and first-wins deduplication as completeResult, so the listener sees
+     * exactly the messages of the final result.
+     */
+    private BiConsumer<Path, List<EdifactMessage>> streamTo(FlightCriteria flight, ExtractionListener<EdifactMessage> listener) {
+        FingerprintIndex reported = new FingerprintIndex();
+        return (logFile, fileMessages) -> {
+            int count = 0;
+            for (EdifactMessage msg : fileMessages) {
+                if (matchesFlightCriteria(msg, flight.getFlightNumber(), flight.getDepartureDate(),
+                        flight.getDepartureAirport(), flight.getArrivalAirport()) && reported.add(msg.getContentFingerprint())) {
+                    listener.onMessage(msg);
+                    count++;
+                }
+            }
+            listener.onFileCompleted(logFile, count);
+        };
+    }
+
+    /**
+     * Filter, deduplicate and analyze the parsed messages of one flight and store them in its result
+     */
+    private void completeResult(ExtractionResult result, List<EdifactMessage> allMessages, FlightCriteria flight,
+                                boolean debugMode, Consumer<String> debugLogger) {
+        // Filter messages based on additional criteria
+        List<EdifactMessage> filteredMessages = filterMessages(allMessages, flight.getFlightNumber(), flight.getDepartureDate(),
+                flight.getDepartureAirport(), flight.getArrivalAirport());
+        if (debugMode && debugLogger != null) {
+            debugLogger.accept("Total messages after filtering: " + filteredMessages.size());
+        }
+
+
+        // Remove duplicate messages (same message ID from multiple files)
+        List<EdifactMessage> deduplicatedMessages = removeDuplicateMessages(filteredMessages);
+        if (debugMode && debugLogger != null) {
+            debugLogger.accept("Total messages after deduplication: " + deduplicatedMessages.size());
+        }
+
+        // Analyze part completeness
+        analyzePartCompleteness(deduplicatedMessages, flight.getFlightNumber());
+
+        result.setExtractedMessages(deduplicatedMessages);
+        result.setSuccess(true);
+
+        if (deduplicatedMessages.isEmpty()) {
+            result.addWarning("No messages found matching the specified criteria");
+        }
     }
 
     /**
      * Extract API messages from log files
+     * Files are read in priority order (das.log first, MessageForwarder.log last).
+     * In parallel mode the files are parsed concurrently and files above the large-file threshold
+     * are split into chunks aligned to log-entry starts, so one huge file also uses all threads.
+     * Results are merged back in file and chunk order so deduplication keeps the same message.
+     * With flight numbers and the flight index enabled, only indexed ranges of the flights are parsed.
+     * Several flights are extracted in the same pass: a message is kept if it belongs to any of them.
+     * The file handler (optional) receives each file's messages as soon as that file is merged.
+     * The extraction monitor (if set) is started with the size of all files and counts completed files.
      */
-    private List<EdifactMessage> extractApiMessages(Path logDir, String flightNumber, ExtractionResult result, boolean debugMode, Consumer<String> debugLogger) throws IOException {
+    private List<EdifactMessage> extractApiMessages(Path logDir, List<FlightCriteria> flights, ExtractionResult result,
+                                                    BiConsumer<Path, List<EdifactMessage>> fileHandler,
+                                                    boolean debugMode, Consumer<String> debugLogger) throws IOException {
         List<EdifactMessage> messages = new ArrayList<>();
+        List<String> flightNumbers = flights.stream().map(FlightCriteria::getFlightNumber).collect(Collectors.toList());
 
-        // 1. Process das.log files first (highest priority for API)
-        List<Path> dasLogFiles = findLogFiles(logDir, "das.log*");
+        // Collect files in priority order: das.log, MessageTypeB.log, MessageAPI.log, MessageForwarder.log
+        List<Path> logFiles = new ArrayList<>();
+        for (String pattern : LOG_FILE_PATTERNS) {
+            logFiles.addAll(findLogFiles(logDir, pattern));
+        }
+
+        ExtractionMonitor monitor = extractionMonitor;
+        if (monitor != null) {
+            long totalBytes = 0;
+            for (Path logFile : logFiles) {
+                totalBytes += Files.size(logFile);
+            }
+            monitor.start(logFiles.size(), totalBytes);
+        }
 
-        for (Path logFile : dasLogFiles) {
-            List<EdifactMessage> fileMessages = processLogFile(logFile, flightNumber, debugMode, debugLogger);
-            messages.addAll(fileMessages);
-            result.addProcessedFile(logFile.toString());
+        int maxThreads = parallelExtraction ? maxParallelFiles : 1;
+
+        if (flightIndexEnabled && flights.stream().allMatch(FlightCriteria::hasFlightNumber)) {
+            messages = extractIndexedApiMessages(logFiles, flights, maxThreads, result, fileHandler, debugMode, debugLogger);
+            if (monitor != null) {
+                monitor.finish();
+            }
+            return messages;
         }
 
-        // 2. Process MessageTypeB.log files for additional API parts
-        List<Path> typeBLogFiles = findLogFiles(logDir, "MessageTypeB.log*");
-        for (Path logFile : typeBLogFiles) {
-            List<EdifactMessage> fileMessages = processLogFile(logFile, flightNumber, debugMode, debugLogger);
-            messages.addAll(fileMessages);
-            result.addProcessedFile(logFile.toString());
+        if (maxThreads <= 1) {
+            for (Path logFile : logFiles) {
+                List<EdifactMessage> fileMessages = processLogFile(logScanner, logFile, flightNumbers, debugMode, debugLogger);
+                messages.addAll(fileMessages);
+                result.addProcessedFile(logFile.toString());
+                if (fileHandler != null) {
+                    fileHandler.accept(logFile, fileMessages);
+                }
+                if (monitor != null) {
+                    monitor.fileCompleted();
+                }
+            }
+            if (monitor != null) {
+                monitor.finish();
+            }
+            return messages;
         }
 
-        // 3. Process MessageAPI.log files for additional API parts
-        List<Path> apiLogFiles = findLogFiles(logDir, "MessageAPI.log*");
-        for (Path logFile : apiLogFiles) {
-            List<EdifactMessage> fileMessages = processLogFile(logFile, flightNumber, debugMode, debugLogger);
-            messages.addAll(fileMessages);
-            result.addProcessedFile(logFile.toString());
+        // Work units: whole small files, or chunks of large files
+        List<List<LogFileChunker.Chunk>> fileChunks = new ArrayList<>();
+        int unitCount = 0;
+        for (Path logFile : logFiles) {
+            List<LogFileChunker.Chunk> chunks = null;
+            if (!GzipLogFiles.isGzip(logFile) && Files.size(logFile) >= largeFileThreshold) {
+                if (timeWindow != null) {
+                    long[] range = timeWindow.findRange(logFile);
+                    chunks = LogFileChunker.split(logFile, range[0], range[1], maxThreads, LOG_ENTRY_START);
+                    if (monitor != null) {
+                        monitor.addBytesRead(Files.size(logFile) - (range[1] - range[0]));
+                    }
+                } else {
+                    chunks = LogFileChunker.split(logFile, maxThreads, LOG_ENTRY_START);
+                }
+                if (debugLogger != null) {
+                    debugLogger.accept("Large file " + logFile.getFileName() + " split into " + chunks.size() + " chunk(s)");
+                }
+            }
+            fileChunks.add(chunks);
+            unitCount += chunks != null ? chunks.size() : 1;
         }
 
-        // 4. Process MessageForwarder.log files for API output messages
-        List<Path> forwarderLogFiles = findLogFiles(logDir, "MessageForwarder.log*");
-        for (Path logFile : forwarderLogFiles) {
-            List<EdifactMessage> fileMessages = processLogFile(logFile, flightNumber, debugMode, debugLogger);
-            messages.addAll(fileMessages);
-            result.addProcessedFile(logFile.toString());
+        int threadCount = Math.min(maxThreads, unitCount);
+        if (debugLogger != null) {
+            debugLogger.accept("Processing " + logFiles.size() + " log files using " + threadCount + " threads...");
         }
 
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        List<List<CompletableFuture<List<EdifactMessage>>>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < logFiles.size(); i++) {
+                Path logFile = logFiles.get(i);
+                List<LogFileChunker.Chunk> chunks = fileChunks.get(i);
+                List<CompletableFuture<List<EdifactMessage>>> fileFutures = new ArrayList<>();
+
+                // ApiParser is shared; the scanner holds a line buffer, so each task gets its own
+                if (chunks == null) {
+                    fileFutures.add(CompletableFuture.supplyAsync(() ->
+                            processLogFile(new ApiLogScanner(edifactParser), logFile, flightNumbers, debugMode, debugLogger), pool));
+                } else {
+                    for (int c = 0; c < chunks.size(); c++) {
+                        LogFileChunker.Chunk chunk = chunks.get(c);
+                        String label = logFile.getFileName() + " chunk " + (c + 1) + "/" + chunks.size();
+                        fileFutures.add(CompletableFuture.supplyAsync(() ->
+                                processLogChunk(new ApiLogScanner(edifactParser), logFile, chunk, label, flightNumbers, debugMode, debugLogger), pool));
+                    }
+                }
+                if (monitor != null) {
+                    CompletableFuture.allOf(fileFutures.toArray(new CompletableFuture<?>[0])).thenRun(monitor::fileCompleted);
+                }
+                futures.add(fileFutures);
+            }
+
+            // Merge in submission (priority) order
+            for (int i = 0; i < logFiles.size(); i++) {
+                List<EdifactMessage> fileMessages = new ArrayList<>();
+                for (CompletableFuture<List<EdifactMessage>> future : futures.get(i)) {
+                    fileMessages.addAll(future.join());
+                }
+                messages.addAll(fileMessages);
+                result.addProcessedFile(logFiles.get(i).toString());
+                if (fileHandler != null) {
+                    fileHandler.accept(logFiles.get(i), fileMessages);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        if (monitor != null) {
+            monitor.finish();
+        }
         return messages;
     }
+
+    /**
+     * Extract API messages through the persistent flight index
+     * First every file's index is brought up to date: kept if the file is unchanged, extended from its
+     * resume offset if the file only grew, rebuilt otherwise (large files in chunks). Then only the
+     * ranges holding one of the flights are read and parsed. The departure date is pushed down as well, since
+     * filterMessages drops messages with another date anyway. Compressed files and files whose index
+     * cannot be refreshed are scanned completely. The bytes an index lets the scan skip count as read
+     * in the extraction monitor once the file is done.
+     */
+    private List<EdifactMessage> extractIndexedApiMessages(List<Path> logFiles, List<FlightCriteria> flights, int maxThreads,
+                                                           ExtractionResult result, BiConsumer<Path, List<EdifactMessage>> fileHandler,
+                                                           boolean debugMode, Consumer<String> debugLogger) throws IOException {
+        List<String> flightNumbers = new ArrayList<>();
+        List<String> flightKeys = new ArrayList<>();
+        List<String> departureDateDigits = new ArrayList<>();
+        for (FlightCriteria flight : flights) {
+            String departureDate = flight.getDepartureDate();
+            flightNumbers.add(flight.getFlightNumber());
+            flightKeys.add(edifactParser.flightIndexKey(flight.getFlightNumber()));
+            departureDateDigits.add(departureDate == null || departureDate.trim().isEmpty() ? null : departureDate.replaceAll("\\D", ""));
+        }
+        long fingerprint = edifactParser.flightIndexFingerprint();
+        ExtractionMonitor monitor = extractionMonitor;
+
+        List<EdifactMessage> messages = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, maxThreads));
+
+        try {
+            // Phase 1: refresh the indexes - one scan task per file, or per chunk for a large file that needs a full build
+            List<ApiFlightIndex> indexes = new ArrayList<>();
+            List<long[]> fileStates = new ArrayList<>();
+            List<List<CompletableFuture<Long>>> scanFutures = new ArrayList<>();
+            List<List<List<ApiFlightIndex.Entry>>> scannedEntries = new ArrayList<>();
+            List<Long> coveredBytes = new ArrayList<>(); // Bytes of each file the index covers without a scan
+
+            for (Path logFile : logFiles) {
+                if (GzipLogFiles.isGzip(logFile)) {
+                    // Offsets in compressed content cannot be read directly - always scanned completely
+                    indexes.add(null);
+                    fileStates.add(null);
+                    scanFutures.add(new ArrayList<>());
+                    scannedEntries.add(new ArrayList<>());
+                    coveredBytes.add(0L);
+                    continue;
+                }
+                long size = Files.size(logFile);
+                long modified = Files.getLastModifiedTime(logFile).toMillis();
+                ApiFlightIndex index = ApiFlightIndex.load(ApiFlightIndex.indexFileFor(flightIndexDirectory, logFile), logFile);
+
+                List<long[]> ranges = new ArrayList<>();
+                long covered = 0;
+                if (index != null && index.isCurrent(logFile, fingerprint)) {
+                    covered = size;
+                    if (debugLogger != null) {
+                        debugLogger.accept("Flight index of " + logFile.getFileName() + " is up to date (" + index.getEntryCount() + " ranges)");
+                    }
+                } else if (index != null && index.canExtend(logFile, fingerprint)) {
+                    if (debugLogger != null) {
+                        debugLogger.accept("Extending flight index of " + logFile.getFileName() + " from offset " + index.getResumeOffset());
+                    }
+                    ranges.add(new long[]{index.getResumeOffset(), Long.MAX_VALUE});
+                    covered = index.getResumeOffset();
+                } else {
+                    index = new ApiFlightIndex(logFile, fingerprint);
+                    if (maxThreads > 1 && size >= largeFileThreshold) {
+                        for (LogFileChunker.Chunk chunk : LogFileChunker.split(logFile, maxThreads, LOG_ENTRY_START)) {
+                            ranges.add(new long[]{chunk.getStart(), chunk.getEnd()});
+                        }
+                        ranges.get(ranges.size() - 1)[1] = Long.MAX_VALUE; // Last chunk follows the file to its current end
+                    } else {
+                        ranges.add(new long[]{0, Long.MAX_VALUE});
+                    }
+                    if (debugLogger != null) {
+                        debugLogger.accept("Building flight index of " + logFile.getFileName() + " in " + ranges.size() + " part(s)");
+                    }
+                }
+
+                List<CompletableFuture<Long>> fileFutures = new ArrayList<>();
+                List<List<ApiFlightIndex.Entry>> fileEntries = new ArrayList<>();
+                for (long[] range : ranges) {
+                    List<ApiFlightIndex.Entry> entries = new ArrayList<>();
+                    fileEntries.add(entries);
+                    fileFutures.add(CompletableFuture.supplyAsync(() -> indexLogRange(new ApiLogScanner(edifactParser), logFile,
+                            range[0], range[1], entries, debugMode, debugLogger), pool));
+                }
+                indexes.add(index);
+                fileStates.add(new long[]{size, modified});
+                coveredBytes.add(covered);
+                scanFutures.add(fileFutures);
+                scannedEntries.add(fileEntries);
+            }
+
+            // Phase 2: store the refreshed indexes and parse the matching ranges
+            List<CompletableFuture<List<EdifactMessage>>> parseFutures = new ArrayList<>();
+            for (int i = 0; i < logFiles.size(); i++) {
+                Path logFile = logFiles.get(i);
+                ApiFlightIndex index = indexes.get(i);
+                List<CompletableFuture<Long>> fileFutures = scanFutures.get(i);
+
+                if (index == null) {
+                    parseFutures.add(CompletableFuture.supplyAsync(() ->
+                            processLogFile(new ApiLogScanner(edifactParser), logFile, flightNumbers, debugMode, debugLogger), pool));
+                    continue;
+                }
+                if (fileFutures.isEmpty()) {
+                    parseFutures.add(parseIndexedRanges(index, logFile, flightKeys, departureDateDigits, flightNumbers, pool, debugMode, debugLogger));
+                    continue;
+                }
+
+                long resumeOffset = -1;
+                List<ApiFlightIndex.Entry> tail = new ArrayList<>();
+                for (int c = 0; c < fileFutures.size(); c++) {
+                    resumeOffset = fileFutures.get(c).join();
+                    tail.addAll(scannedEntries.get(i).get(c));
+                }
+
+                if (resumeOffset < 0) {
+                    // Index could not be refreshed - fall back to a complete scan of this file
+                    parseFutures.add(CompletableFuture.supplyAsync(() ->
+                            processLogFile(new ApiLogScanner(edifactParser), logFile, flightNumbers, debugMode, debugLogger), pool));
+                    continue;
+                }
+
+                index.extend(logFile, fileStates.get(i)[0], fileStates.get(i)[1], tail, resumeOffset);
+                try {
+                    index.save(ApiFlightIndex.indexFileFor(flightIndexDirectory, logFile));
+                } catch (IOException e) {
+                    System.err.println("Warning: Could not save flight index for " + logFile + ": " + e.getMessage());
+                }
+                parseFutures.add(parseIndexedRanges(index, logFile, flightKeys, departureDateDigits, flightNumbers, pool, debugMode, debugLogger));
+            }
+            try {
+                ApiFlightIndex.evict(flightIndexDirectory);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not clean up flight index directory " + flightIndexDirectory + ": " + e.getMessage());
+            }
+
+            if (monitor != null) {
+                for (int i = 0; i < logFiles.size(); i++) {
+                    long covered = coveredBytes.get(i);
+                    parseFutures.get(i).thenRun(() -> {
+                        monitor.addBytesRead(covered);
+                        monitor.fileCompleted();
+                    });
+                }
+            }
+
+            // Merge in priority order
+            for (int i = 0; i < logFiles.size(); i++) {
+                List<EdifactMessage> fileMessages = parseFutures.get(i).join();
+                messages.addAll(fileMessages);
+                result.addProcessedFile(logFiles.get(i).toString());
+                if (fileHandler != null) {
+                    fileHandler.accept(logFiles.get(i), fileMessages);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        return messages;
+    }
+
+    /**
+     * Scan one range of a log file for its flight index
+     * @return The resume offset reported by the scan, or -1 if the file could not be read
+     */
+    private long indexLogRange(ApiLogScanner scanner, Path logFile, long from, long to, List<ApiFlightIndex.Entry> entries,
+                               boolean debugMode, Consumer<String> debugLogger) {
+        try {
+            return scanner.indexRange(logFile, from, to, entries, debugMode, debugLogger);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (IOException e) {
+            System.err.println("Error indexing log file " + logFile + ": " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Unexpected error indexing " + logFile + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    /**
+     * Parse the ranges of a log file that the flight index lists for the flights
+     */
+    private CompletableFuture<List<EdifactMessage>> parseIndexedRanges(ApiFlightIndex index, Path logFile, List<String> flightKeys, List<String> departureDateDigits,
+                                                                       List<String> flightNumbers, ForkJoinPool pool, boolean debugMode, Consumer<String> debugLogger) {
+        List<ApiFlightIndex.Entry> entries = filterTimeWindow(logFile, index.lookupAny(flightKeys, departureDateDigits));
+        if (debugLogger != null) {
+            debugLogger.accept("Flight index: " + entries.size() + " of " + index.getEntryCount() + " ranges in " +
+                    logFile.getFileName() + " hold flight " + String.join(", ", flightNumbers));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return new ApiLogScanner(edifactParser).scanEntriesForFlights(logFile, entries, flightNumbers, debugMode, debugLogger);
+            } catch (IOException e) {
+                // File changed after indexing - parse it completely instead
+                System.err.println("Error reading indexed ranges of " + logFile + ": " + e.getMessage());
+                return processLogFile(new ApiLogScanner(edifactParser), logFile, flightNumbers, debugMode, debugLogger);
+            }
+        }, pool);
+    }
+
+    /**
+     * Keep the index entries whose messages start inside the time window (all of them without a window)
+     */
+    private List<ApiFlightIndex.Entry> filterTimeWindow(Path logFile, List<ApiFlightIndex.Entry> entries) {
+        if (timeWindow == null) {
+            return entries;
+        }
+        try {
+            long[] range = timeWindow.findRange(logFile);
+            return entries.stream()
+                    .filter(entry -> entry.getFrom() >= range[0] && entry.getFrom() < range[1])
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            System.err.println("Error applying time window to " + logFile + ": " + e.getMessage());
+            return entries;
+        }
+    }
+
     /**
      * Find log files matching a pattern in the directory
+     * The patterns end with a wildcard, so compressed rotations (das.log.1.gz) are included and read through GzipLogFiles
      */
     private List<Path> findLogFiles(Path directory, String pattern) throws IOException {
         List<Path> files = new ArrayList<>();
@@ -172,27 +776,31 @@ public class MessageParserService {
 
     /**
      * Process a single log file
+     * The file is memory-mapped and scanned as bytes, so the same path is used for every file size
      */
-    private List<EdifactMessage> processLogFile(Path logFile, String flightNumber, boolean debugMode, Consumer<String> debugLogger) {
+    private List<EdifactMessage> processLogFile(ApiLogScanner scanner, Path logFile, List<String> flightNumbers, boolean debugMode, Consumer<String> debugLogger) {
         List<EdifactMessage> messages = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
 
         try {
             if (debugLogger != null) {
                 debugLogger.accept("Processing file: " + logFile.getFileName());
             }
-            long fileSize = Files.size(logFile);
 
-            if (fileSize > 50 * 1024 * 1024)
-            { // If file is larger than 50MB
-                messages = processLargeLogFile(logFile, flightNumber, debugMode, debugLogger);
+            messages = scanner.scanFileForFlights(logFile, timeWindow, flightNumbers, debugMode, debugLogger);
+            storeRawContents(messages);
+            if (extractionMonitor != null && GzipLogFiles.isGzip(logFile)) {
+                // Compressed files are counted as a whole, the scanner only sees inflated bytes
+                extractionMonitor.addBytesRead(Files.size(logFile));
             }
-            else
-            {
-                String content = Files.readString(logFile);
 
-                messages = edifactParser.parseLogContent(content, flightNumber, debugMode, debugLogger);
+            if (debugLogger != null) {
+                debugLogger.accept("Finished file: " + logFile.getFileName() + " - " + messages.size() +
+                        " message(s) in " + (System.currentTimeMillis() - startTime) + " ms");
             }
 
+        } catch (CancellationException e) {
+            throw e;
         } catch (IOException e) {
             System.err.println("Error reading log file " + logFile + ": " + e.getMessage());
         } catch (Exception e) {
@@ -204,52 +812,42 @@ public class MessageParserService {
     }
 
     /**
-     * Process large log files by reading in chunks
+     * Move the raw contents of parsed messages to the raw content store, if one is set
+     */
+    private void storeRawContents(List<EdifactMessage> messages) throws IOException {
+        RawContentStore store = rawContentStore;
+        if (store != null) {
+            for (EdifactMessage message : messages) {
+                message.storeRawContent(store);
+            }
+        }
+    }
+
+    /**
+     * Process one chunk of a large log file
+     * Messages starting in the chunk are parsed completely, even when they run into the next chunk
      */
-    private List<EdifactMessage> processLargeLogFile(Path logFile, String flightNumber, boolean debugMode, Consumer<String> debugLogger) throws IOException {
+    private List<EdifactMessage> processLogChunk(ApiLogScanner scanner, Path logFile, LogFileChunker.Chunk chunk, String label,
+                                                 List<String> flightNumbers, boolean debugMode, Consumer<String> debugLogger) {
         List<EdifactMessage> messages = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
 
-        try (BufferedReader reader = Files.newBufferedReader(logFile)) {
-            StringBuilder buffer = new StringBuilder();
-            String line;
-            boolean inEdifactMessage = false;
-
-            while ((line = reader.readLine()) != null) {
-                // ENHANCED FIX: Clean carriage returns that may be appended to lines
-                // This handles scenarios where "\r" is added at end of log lines
-                line = line.replaceAll("[\\r]", "");
-
-                if (line.contains("$STX$UNA") || line.contains("UNA:") ||
-                        line.contains("Failed to parse API message")) {
-                    if (!buffer.isEmpty()) {
-                        List<EdifactMessage> chunkMessages = edifactParser.parseLogContent(buffer.toString(), flightNumber, debugMode, debugLogger);
-                        messages.addAll(chunkMessages);
-                        buffer.setLength(0);
-                    }
-                    inEdifactMessage = true;
-                }
+        try {
+            messages = scanner.scanRangeForFlights(logFile, chunk.getStart(), chunk.getEnd(), flightNumbers, debugMode, debugLogger);
+            storeRawContents(messages);
 
-                if (inEdifactMessage) {
-                    buffer.append(line).append("\n");
-
-                    if (line.trim().isEmpty() ||
-                            (line.startsWith("INFO ") && !buffer.toString().trim().isEmpty()) ||
-                            (line.startsWith("WARN ") && !line.contains("Failed to parse API message") && !buffer.toString().trim().isEmpty()) ||
-                            (line.startsWith("ERROR ") && !buffer.toString().trim().isEmpty())) {
-                        if (!buffer.isEmpty()) {
-                            List<EdifactMessage> chunkMessages = edifactParser.parseLogContent(buffer.toString(), flightNumber, debugMode, debugLogger);
-                            messages.addAll(chunkMessages);
-                            buffer.setLength(0);
-                        }
-                        inEdifactMessage = false;
-                    }
-                }
+            if (debugLogger != null) {
+                debugLogger.accept("Finished " + label + " - " + messages.size() +
+                        " message(s) in " + (System.currentTimeMillis() - startTime) + " ms");
             }
 
-            if (!buffer.isEmpty()) {
-                List<EdifactMessage> chunkMessages = edifactParser.parseLogContent(buffer.toString(), flightNumber, debugMode, debugLogger);
-                messages.addAll(chunkMessages);
-            }
+        } catch (CancellationException e) {
+            throw e;
+        } catch (IOException e) {
+            System.err.println("Error reading log file " + logFile + " " + chunk + ": " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Unexpected error processing " + logFile + " " + chunk + ": " + e.getMessage());
+            e.printStackTrace();
         }
 
         return messages;
@@ -418,16 +1016,12 @@ public class MessageParserService {
 
     /**
      * Save extracted messages to files
+     * Files are written on the I/O threads of a MessageFileWriter and synced once at the end; the
+     * stats of the save are available from getLastSaveStats afterwards.
      */
     public boolean saveExtractedMessages(List<EdifactMessage> messages, String outputDirectory) {
-        try {
-            Path outputDir = Paths.get(outputDirectory);
-            Files.createDirectories(outputDir);
-
-            Path inputDir = outputDir.resolve("input");
-            Path outputDir2 = outputDir.resolve("output");
-            Files.createDirectories(inputDir);
-            Files.createDirectories(outputDir2);
+        try (MessageFileWriter writer = new MessageFileWriter()) {
+            Path[] directories = createOutputDirectories(outputDirectory);
 
             List<EdifactMessage> inputMessages = new ArrayList<>();
             List<EdifactMessage> outputMessages = new ArrayList<>();
@@ -440,57 +1034,113 @@ public class MessageParserService {
                 }
             }
 
-            int savedInputs = saveMessagesToDirectory(inputMessages, inputDir, "input");
-            int savedOutputs = saveMessagesToDirectory(outputMessages, outputDir2, "output");
+            saveMessagesToDirectory(inputMessages, directories[0], "input", writer);
+            saveMessagesToDirectory(outputMessages, directories[1], "output", writer);
 
+            MessageFileWriter.Stats stats = writer.finish();
+            lastSaveStats = stats;
+            for (String error : writer.getErrors()) {
+                System.err.println("Error saving message file " + error);
+            }
 
-            return (savedInputs + savedOutputs) > 0;
+            return stats.getFilesWritten() > 0;
 
         } catch (IOException e) {
             System.err.println("Error saving extracted messages: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Saving extracted messages was interrupted");
+            return false;
         }
     }
 
     /**
-     * Save messages to a specific directory with proper naming
+     * Create a listener that saves messages while they are extracted
+     * Pass it to extractMessages (e.g. with ExtractionListener.andThen) and call writer.finish() once
+     * the extraction returned. Files are named and placed like saveExtractedMessages does.
      */
-    private int saveMessagesToDirectory(List<EdifactMessage> messages, Path directory, String type) throws IOException {
-        int savedCount = 0;
+    public ExtractionListener<EdifactMessage> saveWhileExtracting(String outputDirectory, MessageFileWriter writer) throws IOException {
+        Path[] directories = createOutputDirectories(outputDirectory);
+        return new ExtractionListener<>() {
+            @Override
+            public void onMessage(EdifactMessage msg) {
+                boolean output = "OUTPUT".equals(msg.getMessageType());
+                try {
+                    saveMessage(msg, output ? directories[1] : directories[0], output ? "output" : "input", writer);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Saving extracted messages was interrupted");
+                }
+            }
+        };
+    }
 
+    /**
+     * Stats of the last saveExtractedMessages call, or null if nothing was saved yet
+     */
+    public MessageFileWriter.Stats getLastSaveStats() {
+        return lastSaveStats;
+    }
+
+    /**
+     * Create the output directory with its input and output subdirectories
+     * @return The input and the output subdirectory
+     */
+    private Path[] createOutputDirectories(String outputDirectory) throws IOException {
+        Path outputDir = Paths.get(outputDirectory);
+        Files.createDirectories(outputDir);
+
+        Path inputDir = outputDir.resolve("input");
+        Path outputDir2 = outputDir.resolve("output");
+        Files.createDirectories(inputDir);
+        Files.createDirectories(outputDir2);
+        return new Path[]{inputDir, outputDir2};
+    }
+
+    /**
+     * Queue the messages of a directory for writing, grouped by flight and in part order
+     */
+    private void saveMessagesToDirectory(List<EdifactMessage> messages, Path directory, String type,
+                                         MessageFileWriter writer) throws InterruptedException {
         Map<String, List<EdifactMessage>> groupedMessages = groupMessagesByFlight(messages);
 
         for (Map.Entry<String, List<EdifactMessage>> entry : groupedMessages.entrySet()) {
-            String flightKey = entry.getKey();
             List<EdifactMessage> flightMessages = entry.getValue();
 
             flightMessages.sort(Comparator.comparingInt(EdifactMessage::getPartNumber));
 
             for (EdifactMessage msg : flightMessages) {
-                try {
-                    String messageContent = msg.getRawContent();
-                    if (messageContent == null || messageContent.trim().isEmpty()) {
-                        messageContent = reconstructMessageContent(msg);
-                    }
+                saveMessage(msg, directory, type, writer);
+            }
+        }
+    }
 
-                    if ("output".equals(type)) {
-                        messageContent = applyFlightNumberPadding(messageContent);
-                    }
+    /**
+     * Queue one message for writing with proper naming
+     */
+    private void saveMessage(EdifactMessage msg, Path directory, String type, MessageFileWriter writer) throws InterruptedException {
+        String messageContent;
+        Path outputFile;
+        try {
+            messageContent = msg.getRawContent();
+            if (messageContent == null || messageContent.trim().isEmpty()) {
+                messageContent = reconstructMessageContent(msg);
+            }
 
-                    String fileName = generateFileName(msg, type);
-                    Path outputFile = directory.resolve(fileName);
+            if ("output".equals(type)) {
+                messageContent = applyFlightNumberPadding(messageContent);
+            }
 
-                    Files.writeString(outputFile, messageContent);
-                    savedCount++;
+            String fileName = generateFileName(msg, type);
+            outputFile = directory.resolve(fileName);
 
-                } catch (Exception e) {
-                    System.err.println("Error saving message part " + msg.getPartNumber() + ": " + e.getMessage());
-                }
-            }
+        } catch (Exception e) {
+            System.err.println("Error saving message part " + msg.getPartNumber() + ": " + e.getMessage());
+            return;
         }
-
-        return savedCount;
+        writer.write(outputFile, messageContent);
     }
 
     /**
@@ -654,29 +1304,22 @@ public class MessageParserService {
     }
 
     /**
-     * Remove duplicate messages but preserve multipart message parts
-     * For multipart messages, each part should be unique based on messageId + partNumber
+     * Remove duplicate messages, keeping the first of each
+     * Messages are the same when their bodies (UNH..UNT) have the same content fingerprint, so a message
+     * logged by several files collapses even without a message ID, while the parts of a multipart
+     * message stay apart because their bodies differ.
      */
     private List<EdifactMessage> removeDuplicateMessages(List<EdifactMessage> messages) {
-        Map<String, EdifactMessage> uniqueMessages = new LinkedHashMap<>();
+        FingerprintIndex seen = new FingerprintIndex(messages.size());
+        List<EdifactMessage> uniqueMessages = new ArrayList<>();
 
         for (EdifactMessage msg : messages) {
-            // Create a unique key that includes both messageId and partNumber
-            // This ensures multipart messages (same messageId, different parts) are preserved
-            String baseKey = msg.getMessageId();
-            if (baseKey == null) {
-                baseKey = String.format("%s_%d",
-                    msg.getFlightNumber() != null ? msg.getFlightNumber() : "UNKNOWN",
-                    System.nanoTime());
+            if (seen.add(msg.getContentFingerprint())) {
+                uniqueMessages.add(msg);
             }
-            
-            // Add part number to make each part unique
-            String uniqueKey = baseKey + "_PART_" + msg.getPartNumber();
-            
-            uniqueMessages.putIfAbsent(uniqueKey, msg);
         }
 
-        return new ArrayList<>(uniqueMessages.values());
+        return uniqueMessages;
     }
 
     /**
@@ -735,11 +1378,17 @@ public class MessageParserService {
         private List<String> warnings = new ArrayList<>();
         private List<String> errors = new ArrayList<>();
         private List<String> info = new ArrayList<>();
+        private long prefilterParsedCount = 0;
+        private long prefilterSkippedCount = 0;
+        private boolean cancelled = false;
 
         // Getters and setters
         public boolean isSuccess() { return success; }
         public void setSuccess(boolean success) { this.success = success; }
 
+        public boolean isCancelled() { return cancelled; }
+        public void setCancelled(boolean cancelled) { this.cancelled = cancelled; }
+
         public String getFlightNumber() { return flightNumber; }
         public void setFlightNumber(String flightNumber) { this.flightNumber = flightNumber; }
 
@@ -764,6 +1413,21 @@ public class MessageParserService {
         public List<String> getInfo() { return info; }
         public void addInfo(String info) { this.info.add(info); }
 
+        public long getPrefilterParsedCount() { return prefilterParsedCount; }
+        public long getPrefilterSkippedCount() { return prefilterSkippedCount; }
+        public void setPrefilterStats(long parsedCount, long skippedCount) {
+            this.prefilterParsedCount = parsedCount;
+            this.prefilterSkippedCount = skippedCount;
+        }
+
+        /**
+         * Share of candidate messages the flight prefilter skipped without a full parse (0.0 - 1.0)
+         */
+        public double getPrefilterSkipRatio() {
+            long total = prefilterParsedCount + prefilterSkippedCount;
+            return total == 0 ? 0.0 : (double) prefilterSkippedCount / total;
+        }
+
         public int getMessageCount() { return extractedMessages.size(); }
 
         public int getPartCount() {
@@ -0,0 +1,532 @@
+package com.l3.logparser.config;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Compiled form of the enabled message start patterns
+ * All "contains" literals of all patterns are merged into one Aho-Corasick automaton, so a line
+ * or log entry is scanned once no matter how many patterns and conditions are configured.
+ * The patterns are then evaluated in configuration order against the set of literals found,
+ * giving the same result (and the same matched pattern name) as checking them one by one.
+ * The same automaton runs over UTF-8 bytes as a prefilter (see mayMatch), so lines that cannot start
+ * a message are rejected before they are decoded.
+ *
+ * Instances are immutable and can be shared between threads. Each instance carries the
+ * fingerprint of the pattern list it was compiled from, so callers can cheaply detect that
+ * the configuration was changed (including in-place edits of a pattern) and recompile.
+ */
+public final class StartPatternMatcher {
+
+    private final long fingerprint;
+    private final CompiledPattern[] patterns;
+    private final LiteralAutomaton automaton;
+    // PNR patterns compare "startsWith" against the trimmed entry
+    private final boolean trimForStartsWith;
+
+    private StartPatternMatcher(long fingerprint, List<CompiledPattern> patterns, List<String> literals, boolean trimForStartsWith) {
+        this.fingerprint = fingerprint;
+        this.patterns = patterns.toArray(new CompiledPattern[0]);
+        this.automaton = new LiteralAutomaton(literals);
+        this.trimForStartsWith = trimForStartsWith;
+    }
+
+    /**
+     * Compile API start patterns
+     * A "multiple" pattern needs all its conditions; an unknown condition type never matches.
+     */
+    public static StartPatternMatcher compileApi(List<ApiPatternConfig.MessagePattern> messagePatterns) {
+        PatternBuilder builder = new PatternBuilder();
+        if (messagePatterns != null) {
+            for (ApiPatternConfig.MessagePattern pattern : messagePatterns) {
+                if (pattern == null || !pattern.isEnabled()) {
+                    continue;
+                }
+                if ("multiple".equals(pattern.getType())) {
+                    List<String[]> conditions = new ArrayList<>();
+                    if (pattern.getConditions() != null) {
+                        for (ApiPatternConfig.MessagePattern.Condition condition : pattern.getConditions()) {
+                            conditions.add(new String[]{condition.getType(), condition.getValue()});
+                        }
+                    }
+                    builder.addMultiple(pattern.getName(), conditions, false);
+                } else {
+                    builder.addSimple(pattern.getName(), pattern.getType(), pattern.getValue());
+                }
+            }
+        }
+        return new StartPatternMatcher(fingerprintApi(messagePatterns), builder.patterns, builder.literals, false);
+    }
+
+    /**
+     * Compile PNR start patterns
+     * "startsWith" is checked against the trimmed entry, a "multiple" pattern without conditions
+     * never matches and conditions of unknown type are ignored.
+     */
+    public static StartPatternMatcher compilePnr(List<PnrPatternConfig.MessagePattern> messagePatterns) {
+        PatternBuilder builder = new PatternBuilder();
+        if (messagePatterns != null) {
+            for (PnrPatternConfig.MessagePattern pattern : messagePatterns) {
+                if (pattern == null || !pattern.isEnabled()) {
+                    continue;
+                }
+                if ("multiple".equals(pattern.getType())) {
+                    List<String[]> conditions = new ArrayList<>();
+                    if (pattern.getConditions() != null) {
+                        for (PnrPatternConfig.MessagePattern.Condition condition : pattern.getConditions()) {
+                            conditions.add(new String[]{condition.getType(), condition.getValue()});
+                        }
+                    }
+                    if (conditions.isEmpty()) {
+                        builder.addNever(pattern.getName());
+                    } else {
+                        builder.addMultiple(pattern.getName(), conditions, true);
+                    }
+                } else {
+                    builder.addSimple(pattern.getName(), pattern.getType(), pattern.getValue());
+                }
+            }
+        }
+        return new StartPatternMatcher(fingerprintPnr(messagePatterns), builder.patterns, builder.literals, true);
+    }
+
+    /**
+     * Fingerprint of an API pattern list - changes whenever anything relevant for matching changes
+     */
+    public static long fingerprintApi(List<ApiPatternConfig.MessagePattern> messagePatterns) {
+        long hash = 17;
+        if (messagePatterns == null) {
+            return hash;
+        }
+        for (ApiPatternConfig.MessagePattern pattern : messagePatterns) {
+            if (pattern == null) {
+                hash = mix(hash, 0);
+                continue;
+            }
+            hash = mixPattern(hash, pattern.getName(), pattern.getType(), pattern.getValue(), pattern.isEnabled());
+            if (pattern.getConditions() != null) {
+                for (ApiPatternConfig.MessagePattern.Condition condition : pattern.getConditions()) {
+                    hash = mix(mix(hash, Objects.hashCode(condition.getType())), Objects.hashCode(condition.getValue()));
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Fingerprint of a PNR pattern list - changes whenever anything relevant for matching changes
+     */
+    public static long fingerprintPnr(List<PnrPatternConfig.MessagePattern> messagePatterns) {
+        long hash = 31;
+        if (messagePatterns == null) {
+            return hash;
+        }
+        for (PnrPatternConfig.MessagePattern pattern : messagePatterns) {
+            if (pattern == null) {
+                hash = mix(hash, 0);
+                continue;
+            }
+            hash = mixPattern(hash, pattern.getName(), pattern.getType(), pattern.getValue(), pattern.isEnabled());
+            if (pattern.getConditions() != null) {
+                for (PnrPatternConfig.MessagePattern.Condition condition : pattern.getConditions()) {
+                    hash = mix(mix(hash, Objects.hashCode(condition.getType())), Objects.hashCode(condition.getValue()));
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static long mixPattern(long hash, String name, String type, String value, boolean enabled) {
+        hash = mix(hash, Objects.hashCode(name));
+        hash = mix(hash, Objects.hashCode(type));
+        hash = mix(hash, Objects.hashCode(value));
+        return mix(hash, enabled ? 1 : 2);
+    }
+
+    private static long mix(long hash, int value) {
+        hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Fingerprint of the pattern list this matcher was compiled from
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Find the first pattern (in configuration order) matching the text
+     * @return The pattern name, or null if no enabled pattern matches
+     */
+    public String firstMatch(CharSequence text) {
+        if (text == null || patterns.length == 0) {
+            return null;
+        }
+
+        long[] found = automaton.scan(text);
+
+        int trimStart = 0;
+        int trimEnd = text.length();
+        if (trimForStartsWith) {
+            while (trimStart < trimEnd && text.charAt(trimStart) <= ' ') {
+                trimStart++;
+            }
+            while (trimEnd > trimStart && text.charAt(trimEnd - 1) <= ' ') {
+                trimEnd--;
+            }
+        }
+
+        for (CompiledPattern pattern : patterns) {
+            if (pattern.matches(text, found, trimStart, trimEnd)) {
+                return pattern.name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check if any enabled pattern matches the text
+     */
+    public boolean matchesAny(CharSequence text) {
+        return firstMatch(text) != null;
+    }
+
+    /**
+     * Prefilter for text still encoded as UTF-8: false only if no enabled pattern can match the decoded text
+     * The bytes are scanned once for all literals. "startsWith" values only have to occur somewhere, and of
+     * a literal with non-ASCII characters only its longest ASCII part is looked for, so a true result still
+     * needs firstMatch.
+     */
+    public boolean mayMatch(ByteBuffer bytes, int from, int to) {
+        if (patterns.length == 0) {
+            return false;
+        }
+        long[] found = automaton.scan(bytes, from, to);
+        for (CompiledPattern pattern : patterns) {
+            if (pattern.mayMatch(found)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One enabled pattern: all literals must be present and the text must start with all prefixes
+     */
+    private static final class CompiledPattern {
+        private final String name;
+        private final boolean never;
+        private final int[] literalIds;
+        private final String[] prefixes;
+        private final int[] byteLiteralIds; // ASCII literals every match contains, for the byte prefilter
+
+        CompiledPattern(String name, boolean never, int[] literalIds, String[] prefixes, int[] byteLiteralIds) {
+            this.name = name;
+            this.never = never;
+            this.literalIds = literalIds;
+            this.prefixes = prefixes;
+            this.byteLiteralIds = byteLiteralIds;
+        }
+
+        boolean mayMatch(long[] found) {
+            return !never && allFound(byteLiteralIds, found);
+        }
+
+        private static boolean allFound(int[] ids, long[] found) {
+            for (int id : ids) {
+                if ((found[id >>> 6] & (1L << id)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean matches(CharSequence text, long[] found, int trimStart, int trimEnd) {
+            if (never || !allFound(literalIds, found)) {
+                return false;
+            }
+            for (String prefix : prefixes) {
+                if (trimStart + prefix.length() > trimEnd || !startsWith(text, prefix, trimStart)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean startsWith(CharSequence text, String prefix, int offset) {
+            for (int i = 0; i < prefix.length(); i++) {
+                if (text.charAt(offset + i) != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Collects compiled patterns and assigns ids to the distinct non-empty literals ("contains" values and prefixes)
+     */
+    private static final class PatternBuilder {
+        private final List<CompiledPattern> patterns = new ArrayList<>();
+        private final List<String> literals = new ArrayList<>();
+        private final Map<String, Integer> literalIds = new HashMap<>();
+
+        void addSimple(String name, String type, String value) {
+            if ("contains".equals(type) && value != null) {
+                add(name, false, List.of(value), List.of());
+            } else if ("startsWith".equals(type) && value != null) {
+                add(name, false, List.of(), List.of(value));
+            } else {
+                addNever(name);
+            }
+        }
+
+        void addMultiple(String name, List<String[]> conditions, boolean ignoreUnknownConditions) {
+            List<String> contained = new ArrayList<>();
+            List<String> prefixes = new ArrayList<>();
+            for (String[] condition : conditions) {
+                String type = condition[0];
+                String value = condition[1];
+                if ("contains".equals(type) && value != null) {
+                    contained.add(value);
+                } else if ("startsWith".equals(type) && value != null) {
+                    prefixes.add(value);
+                } else if (!ignoreUnknownConditions) {
+                    addNever(name);
+                    return;
+                }
+            }
+            add(name, false, contained, prefixes);
+        }
+
+        void addNever(String name) {
+            patterns.add(new CompiledPattern(name, true, new int[0], new String[0], new int[0]));
+        }
+
+        private void add(String name, boolean never, List<String> contained, List<String> prefixes) {
+            List<Integer> ids = new ArrayList<>();
+            List<Integer> byteIds = new ArrayList<>();
+            for (String value : contained) {
+                for (int id : literalsOf(value)) {
+                    ids.add(id);
+                }
+            }
+            for (String value : contained) {
+                for (int id : literalsOf(longestAsciiPart(value))) {
+                    byteIds.add(id);
+                }
+            }
+            for (String value : prefixes) {
+                for (int id : literalsOf(longestAsciiPart(value))) {
+                    byteIds.add(id);
+                }
+            }
+            patterns.add(new CompiledPattern(name, never, ids.stream().mapToInt(Integer::intValue).toArray(),
+                    prefixes.toArray(new String[0]), byteIds.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        /**
+         * Longest run of ASCII characters in a value (the value itself if it is ASCII only)
+         */
+        private static String longestAsciiPart(String value) {
+            int bestStart = 0;
+            int bestLength = 0;
+            int start = 0;
+            for (int i = 0; i <= value.length(); i++) {
+                if (i == value.length() || value.charAt(i) >= 128) {
+                    if (i - start > bestLength) {
+                        bestStart = start;
+                        bestLength = i - start;
+                    }
+                    start = i + 1;
+                }
+            }
+            return value.substring(bestStart, bestStart + bestLength);
+        }
+
+        private int[] literalsOf(String value) {
+            if (value.isEmpty()) {
+                return new int[0]; // Every text contains the empty string
+            }
+            Integer id = literalIds.get(value);
+            if (id == null) {
+                id = literals.size();
+                literals.add(value);
+                literalIds.put(value, id);
+            }
+            return new int[]{id};
+        }
+    }
+
+    /**
+     * Aho-Corasick automaton over the distinct literals, compiled to a dense transition table
+     * Characters that do not occur in any literal share one column and always lead back to the root.
+     */
+    private static final class LiteralAutomaton {
+        private final int literalCount;
+        private final int width;
+        private final int[] asciiClasses = new int[128];
+        private final Map<Character, Integer> otherClasses = new HashMap<>();
+        private final int[] transitions;
+        private final int[][] outputs;
+        private final int asciiLiteralCount; // Literals a byte scan can find
+
+        LiteralAutomaton(List<String> literals) {
+            this.literalCount = literals.size();
+            this.asciiLiteralCount = (int) literals.stream().filter(literal -> literal.chars().allMatch(c -> c < 128)).count();
+
+            // Character classes: 0 for characters not used by any literal
+            int classCount = 1;
+            for (String literal : literals) {
+                for (int i = 0; i < literal.length(); i++) {
+                    char c = literal.charAt(i);
+                    if (classOf(c) == 0) {
+                        if (c < 128) {
+                            asciiClasses[c] = classCount++;
+                        } else {
+                            otherClasses.put(c, classCount++);
+                        }
+                    }
+                }
+            }
+            this.width = classCount;
+
+            // Trie
+            List<int[]> gotoRows = new ArrayList<>();
+            List<List<Integer>> outputLists = new ArrayList<>();
+            gotoRows.add(newRow());
+            outputLists.add(new ArrayList<>());
+            for (int id = 0; id < literals.size(); id++) {
+                String literal = literals.get(id);
+                int state = 0;
+                for (int i = 0; i < literal.length(); i++) {
+                    int cls = classOf(literal.charAt(i));
+                    int next = gotoRows.get(state)[cls];
+                    if (next < 0) {
+                        next = gotoRows.size();
+                        gotoRows.add(newRow());
+                        outputLists.add(new ArrayList<>());
+                        gotoRows.get(state)[cls] = next;
+                    }
+                    state = next;
+                }
+                outputLists.get(state).add(id);
+            }
+
+            // Failure links, breadth first, folded into a complete transition table
+            int stateCount = gotoRows.size();
+            int[] table = new int[stateCount * width];
+            int[] failure = new int[stateCount];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int cls = 0; cls < width; cls++) {
+                int next = gotoRows.get(0)[cls];
+                if (next > 0) {
+                    failure[next] = 0;
+                    table[cls] = next;
+                    queue.add(next);
+                } else {
+                    table[cls] = 0;
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputLists.get(state).addAll(outputLists.get(failure[state]));
+                for (int cls = 0; cls < width; cls++) {
+                    int next = gotoRows.get(state)[cls];
+                    if (next > 0) {
+                        failure[next] = table[failure[state] * width + cls];
+                        table[state * width + cls] = next;
+                        queue.add(next);
+                    } else {
+                        table[state * width + cls] = table[failure[state] * width + cls];
+                    }
+                }
+            }
+            this.transitions = table;
+
+            this.outputs = new int[stateCount][];
+            for (int state = 0; state < stateCount; state++) {
+                List<Integer> output = outputLists.get(state);
+                if (!output.isEmpty()) {
+                    outputs[state] = output.stream().distinct().mapToInt(Integer::intValue).toArray();
+                }
+            }
+        }
+
+        private int[] newRow() {
+            int[] row = new int[width];
+            Arrays.fill(row, -1);
+            return row;
+        }
+
+        private int classOf(char c) {
+            if (c < 128) {
+                return asciiClasses[c];
+            }
+            Integer cls = otherClasses.get(c);
+            return cls != null ? cls : 0;
+        }
+
+        /**
+         * Scan the text once and return a bit set of the literals it contains
+         */
+        long[] scan(CharSequence text) {
+            long[] found = new long[(literalCount + 63) >>> 6];
+            if (literalCount == 0) {
+                return found;
+            }
+
+            int remaining = literalCount;
+            int state = 0;
+            for (int i = 0, length = text.length(); i < length; i++) {
+                state = transitions[state * width + classOf(text.charAt(i))];
+                int[] output = outputs[state];
+                if (output != null) {
+                    for (int id : output) {
+                        long bit = 1L << id;
+                        if ((found[id >>> 6] & bit) == 0) {
+                            found[id >>> 6] |= bit;
+                            if (--remaining == 0) {
+                                return found; // Every literal seen - nothing more to learn
+                            }
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Scan UTF-8 bytes once and return a bit set of the ASCII literals they contain
+         * ASCII characters are single bytes in UTF-8 and never part of another character, so these are found
+         * exactly; bytes of other characters lead back to the root.
+         */
+        long[] scan(ByteBuffer bytes, int from, int to) {
+            long[] found = new long[(literalCount + 63) >>> 6];
+            if (asciiLiteralCount == 0) {
+                return found;
+            }
+
+            int remaining = asciiLiteralCount;
+            int state = 0;
+            for (int i = from; i < to; i++) {
+                byte b = bytes.get(i);
+                state = transitions[state * width + (b >= 0 ? asciiClasses[b] : 0)];
+                int[] output = outputs[state];
+                if (output != null) {
+                    for (int id : output) {
+                        long bit = 1L << id;
+                        if ((found[id >>> 6] & bit) == 0) {
+                            found[id >>> 6] |= bit;
+                            if (--remaining == 0) {
+                                return found;
+                            }
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -7,10 +7,16 @@ import com.l3.logparser.pnr.service.PnrExtractionService;
 import com.l3.logparser.pnr.model.PnrMessage;
 import com.l3.logparser.pnr.model.PnrFlightDetails;
 import com.l3.logparser.enums.DataType;
+import com.l3.logparser.model.ExtractionListener;
+import com.l3.logparser.model.ExtractionMonitor;
+import com.l3.logparser.model.ParseTrace;
+import com.l3.logparser.model.TraceDrainer;
 import com.l3.logparser.config.AdvancedParserConfig;
 import com.l3.common.util.VersionUtil;
 import com.l3.common.util.ErrorHandler;
 import com.l3.common.util.ErrorCodes;
+import com.l3.common.util.MessageFileWriter;
+import com.l3.common.util.RawContentStore;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -38,6 +44,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.function.Function;
 
 
 /**
@@ -85,6 +92,16 @@ public class MessageParserController implements Initializable {
     private boolean debugMode = false;
     private boolean multiNodeMode = false;
 
+    // Monitor of the running extraction; while it is set the process button cancels it
+    private ExtractionMonitor runningMonitor;
+    private String processButtonText;
+
+    // Drains the parser debug events of a debug-mode extraction into the log area
+    private TraceDrainer traceDrainer;
+
+    // Holds the message bodies of the displayed results (null keeps them in memory)
+    private RawContentStore rawContentStore;
+
     // Log message batching to prevent UI thread overload
     private final List<String> pendingLogMessages = new ArrayList<>();
     private long lastLogUpdateTime = 0;
@@ -334,6 +351,13 @@ public class MessageParserController implements Initializable {
 
     @FXML
     private void onProcessLogs() {
+        if (runningMonitor != null) {
+            runningMonitor.cancel();
+            processButton.setDisable(true);
+            statusLabel.setText("Cancelling extraction...");
+            return;
+        }
+
         String logDirectory = logDirectoryField.getText().trim();
         String flightNumber = cleanFlightNumber(flightNumberField.getText().trim());
         LocalDate selectedDate = departureDatePicker.getValue();
@@ -386,6 +410,37 @@ public class MessageParserController implements Initializable {
         // Clear previous results
         clearResults();
 
+        // Progress is shown on the progress bar and status label; the monitor also lets the user cancel
+        ExtractionMonitor monitor = new ExtractionMonitor(progress -> Platform.runLater(() -> {
+            if (runningMonitor != null && !runningMonitor.isCancelled()) {
+                progressBar.setProgress(progress.getFraction());
+                statusLabel.setText("Extracting messages... " + progress);
+            }
+        }));
+        messageParserService.setExtractionMonitor(monitor);
+        pnrExtractionService.setExtractionMonitor(monitor);
+
+        // In debug mode the parsers record their events into a trace that is formatted off the parsing threads
+        ParseTrace parseTrace = null;
+        if (debugMode) {
+            parseTrace = new ParseTrace();
+            traceDrainer = new TraceDrainer(parseTrace,
+                    event -> "[" + event.getTime().format(DateTimeFormatter.ofPattern("HH:mm:ss")) + "] " + event.format(),
+                    batch -> Platform.runLater(() -> logArea.appendText(batch)), LOG_UPDATE_INTERVAL_MS);
+        }
+        messageParserService.setParseTrace(parseTrace);
+        pnrExtractionService.setParseTrace(parseTrace);
+
+        // Message bodies go to a file of this extraction and are loaded when a message is shown or saved;
+        // the file is deleted once the results are cleared (clearResults above closed the previous one)
+        try {
+            rawContentStore = RawContentStore.createTemp();
+        } catch (IOException e) {
+            addLogMessage("Message contents are kept in memory: " + e.getMessage());
+        }
+        messageParserService.setRawContentStore(rawContentStore);
+        pnrExtractionService.setRawContentStore(rawContentStore);
+
         // Create and run extraction task
         final String finalLogDirectory = actualLogDirectory;
         Task<MessageParserService.ExtractionResult> task = new Task<MessageParserService.ExtractionResult>() {
@@ -410,7 +465,8 @@ public class MessageParserController implements Initializable {
 
                     // Use PNR service for proper filtering and analysis
                     PnrExtractionService.PnrExtractionResult pnrResult = pnrExtractionService.extractPnrMessages(
-                        finalLogDirectory, flightNumber, formattedDate, departureAirport, arrivalAirport);
+                        finalLogDirectory, flightNumber, formattedDate, departureAirport, arrivalAirport,
+                        new LiveResultsListener<>(selectedDataType, pnr -> convertPnrToEdifactMessages(List.of(pnr)).get(0)));
 
                     // Flush any remaining batched log messages before completing
                     flushPendingLogMessages();
@@ -420,6 +476,7 @@ public class MessageParserController implements Initializable {
                         new MessageParserService.ExtractionResult();
                     genericResult.setRequestedDataType(selectedDataType);
                     genericResult.setSuccess(pnrResult.isSuccess());
+                    genericResult.setCancelled(pnrResult.isCancelled());
 
                     // Set flight number and log directory from PNR result
                     genericResult.setFlightNumber(pnrResult.getFlightNumber());
@@ -441,17 +498,17 @@ public class MessageParserController implements Initializable {
                     // Use generic service for other data types
                     return messageParserService.extractMessages(
                         finalLogDirectory, flightNumber, formattedDate, departureAirport, arrivalAirport, selectedDataType,
-                        debugMode, (msg) -> Platform.runLater(() -> addLogMessage(msg)));
+                        debugMode, (msg) -> Platform.runLater(() -> addLogMessage(msg)),
+                        new LiveResultsListener<>(selectedDataType, message -> message));
                 }
             }
 
             @Override
             protected void succeeded() {
                 Platform.runLater(() -> {
+                    finishExtraction();
                     lastResult = getValue();
                     displayResults(lastResult);
-                    progressBar.setVisible(false);
-                    processButton.setDisable(false);
                 });
             }
 
@@ -477,16 +534,18 @@ public class MessageParserController implements Initializable {
                         ErrorHandler.showError(errorCode, "Message extraction failed: " + errorMessage);
                     }
 
-                    progressBar.setVisible(false);
-                    processButton.setDisable(false);
+                    finishExtraction();
                     statusLabel.setText("Extraction failed");
                 });
             }
         };
 
-        // Show progress and disable button
+        // Show progress and turn the process button into a cancel button
+        runningMonitor = monitor;
+        processButtonText = processButton.getText();
+        progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
         progressBar.setVisible(true);
-        processButton.setDisable(true);
+        processButton.setText("⏹ Cancel");
         statusLabel.setText("Extracting messages...");
 
         // Run task in background thread
@@ -612,6 +671,11 @@ public class MessageParserController implements Initializable {
 
     @FXML
     private void onClearAll() {
+        // The results of a running extraction would refer to the store that is closed below
+        if (runningMonitor != null) {
+            runningMonitor.cancel();
+        }
+
         // Clear all input fields
         logDirectoryField.clear();
         flightNumberField.clear();
@@ -641,21 +705,24 @@ public class MessageParserController implements Initializable {
         }
 
         boolean success;
+        MessageFileWriter.Stats saveStats;
         DataType dataType = lastResult != null ? lastResult.getRequestedDataType() : null;
 
         if (dataType == DataType.PNR) {
             // Use PNR service for proper directory separation
             List<PnrMessage> pnrMessages = convertToPnrMessages(lastResult.getExtractedMessages());
             success = pnrExtractionService.saveExtractedMessages(pnrMessages, outputDirectory);
+            saveStats = pnrExtractionService.getLastSaveStats();
         } else {
             // Use generic service for other message types
             success = messageParserService.saveExtractedMessages(
                 lastResult.getExtractedMessages(), outputDirectory);
+            saveStats = messageParserService.getLastSaveStats();
         }
 
         if (success) {
             ErrorHandler.showInfo("Save Successful", "Extracted messages saved successfully to:\n" + outputDirectory);
-            addLogMessage("Messages saved to: " + outputDirectory);
+            addLogMessage("Messages saved to: " + outputDirectory + (saveStats != null ? " (" + saveStats + ")" : ""));
         } else {
             ErrorHandler.showError(ErrorCodes.LP005, "Failed to save extracted messages to the specified directory. Please check that the output directory is writable and has sufficient disk space.");
         }
@@ -676,7 +743,11 @@ public class MessageParserController implements Initializable {
             pnrMessage.setPartIndicator(edifact.getPartIndicator());
             pnrMessage.setFlightNumber(edifact.getFlightNumber());
             pnrMessage.setMessageId(edifact.getMessageId());
-            pnrMessage.setRawContent(edifact.getRawContent());
+            if (edifact.getRawContentRef() != null) {
+                pnrMessage.setRawContentRef(edifact.getRawContentRef());
+            } else {
+                pnrMessage.setRawContent(edifact.getRawContent());
+            }
             // Note: EdifactMessage doesn't have timestamp/traceId fields
             // These would need to be set from the original log parsing context
             pnrMessage.setLogTimestamp(null);
@@ -708,7 +779,11 @@ public class MessageParserController implements Initializable {
             edifact.setPartIndicator(pnr.getPartIndicator());
             edifact.setFlightNumber(pnr.getFlightNumber());
             edifact.setMessageId(pnr.getMessageId());
-            edifact.setRawContent(pnr.getRawContent());
+            if (pnr.getRawContentRef() != null) {
+                edifact.setRawContentRef(pnr.getRawContentRef());
+            } else {
+                edifact.setRawContent(pnr.getRawContent());
+            }
             edifact.setMessageType(pnr.getMessageType());
             edifact.setLastPart(pnr.isLastPart());
 
@@ -740,6 +815,17 @@ public class MessageParserController implements Initializable {
         summaryLabel.setText("");
         saveButton.setDisable(true);
         lastResult = null;
+        closeRawContentStore();
+    }
+
+    /**
+     * Delete the file holding the message bodies of the cleared results
+     */
+    private void closeRawContentStore() {
+        if (rawContentStore != null) {
+            rawContentStore.close();
+            rawContentStore = null;
+        }
     }
 
     private void displayResults(MessageParserService.ExtractionResult result) {
@@ -790,6 +876,11 @@ public class MessageParserController implements Initializable {
             return "OUTPUT".equals(direction);
         }).count();
         addLogMessage("Input messages: " + inputCount + ", Output messages: " + outputCount);
+        // Only API extractions prefilter messages by flight
+        if (result.getPrefilterParsedCount() + result.getPrefilterSkippedCount() > 0) {
+            addLogMessage(String.format("Flight prefilter: %d parsed, %d skipped (%.1f%% skipped)",
+                result.getPrefilterParsedCount(), result.getPrefilterSkippedCount(), result.getPrefilterSkipRatio() * 100));
+        }
 
         for (String file : result.getProcessedFiles()) {
             addLogMessage("Processed: " + file);
@@ -803,7 +894,9 @@ public class MessageParserController implements Initializable {
             addLogMessage("ERROR: " + error);
         }
 
-        if (result.isSuccess() && !result.getExtractedMessages().isEmpty()) {
+        if (result.isCancelled()) {
+            statusLabel.setText("Extraction cancelled");
+        } else if (result.isSuccess() && !result.getExtractedMessages().isEmpty()) {
             statusLabel.setText("Extraction completed successfully");
             saveButton.setDisable(false);
         } else {
@@ -811,6 +904,20 @@ public class MessageParserController implements Initializable {
         }
     }
 
+    /**
+     * Restore the process button and hide the progress bar after an extraction ended
+     */
+    private void finishExtraction() {
+        runningMonitor = null;
+        if (traceDrainer != null) {
+            traceDrainer.close();
+            traceDrainer = null;
+        }
+        progressBar.setVisible(false);
+        processButton.setText(processButtonText);
+        processButton.setDisable(false);
+    }
+
     private void addLogMessage(String message) {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
         String formattedMessage = String.format("[%s] %s%n", timestamp, message);
@@ -926,6 +1033,47 @@ public class MessageParserController implements Initializable {
         return (Stage) logDirectoryField.getScene().getWindow();
     }
 
+    /**
+     * Cancel a running extraction and release the parser threads (call when the window closes)
+     */
+    public void cleanup() {
+        if (runningMonitor != null) {
+            runningMonitor.cancel();
+        }
+        if (pnrExtractionService != null) {
+            pnrExtractionService.close();
+        }
+        closeRawContentStore();
+    }
+
+    /**
+     * Fills the results table while an extraction is running
+     * Rows are collected on the extraction thread and appended once per completed file, so the FX
+     * thread is not flooded. displayResults replaces them with the final sorted list at the end.
+     */
+    private class LiveResultsListener<T> implements ExtractionListener<T> {
+        private final String dataTypeDisplay;
+        private final Function<T, EdifactMessage> converter;
+        private final List<MessageTableRow> pendingRows = new ArrayList<>();
+
+        LiveResultsListener(DataType dataType, Function<T, EdifactMessage> converter) {
+            this.dataTypeDisplay = dataType.getDisplayName();
+            this.converter = converter;
+        }
+
+        @Override
+        public void onMessage(T message) {
+            pendingRows.add(new MessageTableRow(converter.apply(message), dataTypeDisplay));
+        }
+
+        @Override
+        public void onFileCompleted(Path file, int reportedCount) {
+            List<MessageTableRow> rows = new ArrayList<>(pendingRows);
+            pendingRows.clear();
+            Platform.runLater(() -> resultsTable.getItems().addAll(rows));
+        }
+    }
+
     /**
      * Table row wrapper for EdifactMessage
      */
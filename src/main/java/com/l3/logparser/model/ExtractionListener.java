@@ -0,0 +1,57 @@
+package com.l3.logparser.model;
+
+import java.nio.file.Path;
+
+/**
+ * Receives extraction results while the log files are still being scanned
+ *
+ * Messages are reported once they pass the flight criteria and are not a duplicate of an earlier
+ * message, in the order the final result lists them. Events are delivered on the extraction thread,
+ * one at a time. The extraction result returned at the end still holds the complete list.
+ *
+ * @param <T> Message type (EdifactMessage or PnrMessage)
+ */
+public interface ExtractionListener<T> {
+
+    /**
+     * A message passed all filters
+     */
+    default void onMessage(T message) {}
+
+    /**
+     * A later duplicate replaces a message reported earlier (PNR keeps the most complete copy)
+     */
+    default void onMessageReplaced(T previous, T replacement) {}
+
+    /**
+     * All messages of a log file have been reported
+     * @param messageCount Number of messages reported for this file (new ones and replacements)
+     */
+    default void onFileCompleted(Path file, int messageCount) {}
+
+    /**
+     * Listener that passes every event to this listener and then to another one
+     */
+    default ExtractionListener<T> andThen(ExtractionListener<T> other) {
+        ExtractionListener<T> first = this;
+        return new ExtractionListener<>() {
+            @Override
+            public void onMessage(T message) {
+                first.onMessage(message);
+                other.onMessage(message);
+            }
+
+            @Override
+            public void onMessageReplaced(T previous, T replacement) {
+                first.onMessageReplaced(previous, replacement);
+                other.onMessageReplaced(previous, replacement);
+            }
+
+            @Override
+            public void onFileCompleted(Path file, int messageCount) {
+                first.onFileCompleted(file, messageCount);
+                other.onFileCompleted(file, messageCount);
+            }
+        };
+    }
+}
@@ -0,0 +1,180 @@
+package com.l3.logparser.model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Cancellation token and progress counters of one extraction run
+ *
+ * The services hand the monitor to their parsers and scanners, which check it at least once per
+ * log entry and throw a CancellationException once cancel() was called; the exception unwinds the
+ * worker threads and closes their files. Counters are updated from all worker threads; the progress
+ * listener receives a snapshot at most every REPORT_INTERVAL_MILLIS, on whichever thread
+ * advanced the counters, so it must be thread-safe and return quickly.
+ */
+public class ExtractionMonitor {
+
+    private static final long REPORT_INTERVAL_MILLIS = 250;
+
+    private final Consumer<ExtractionProgress> progressListener;
+    private volatile boolean cancelled = false;
+
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder messagesFound = new LongAdder();
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private volatile long totalBytes = 0;
+    private volatile int totalFiles = 0;
+    private volatile long startNanos = System.nanoTime();
+
+    // Throttling of the progress listener and the window the current throughput is measured over
+    private final AtomicLong nextReportNanos = new AtomicLong();
+    private long windowStartNanos;
+    private long windowStartBytes;
+
+    public ExtractionMonitor() {
+        this(null);
+    }
+
+    /**
+     * @param progressListener Receives progress snapshots while the extraction runs (optional)
+     */
+    public ExtractionMonitor(Consumer<ExtractionProgress> progressListener) {
+        this.progressListener = progressListener;
+        this.windowStartNanos = startNanos;
+    }
+
+    /**
+     * Request the extraction to stop; running parsers give up at their next log entry
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throw a CancellationException if the extraction was cancelled
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Extraction cancelled");
+        }
+    }
+
+    /**
+     * Check if an exception (or one of its causes) is the result of a cancellation
+     */
+    public static boolean isCancellation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rethrow a cancellation wrapped in another exception (e.g. a CompletionException from a worker),
+     * so catch blocks that log and continue do not swallow it
+     */
+    public static void rethrowIfCancelled(Throwable e) {
+        if (isCancellation(e)) {
+            throw e instanceof CancellationException ? (CancellationException) e : new CancellationException("Extraction cancelled");
+        }
+    }
+
+    /**
+     * Reset the counters at the start of a run, once the log files are known
+     * A cancellation requested before the start stays in effect.
+     */
+    public synchronized void start(int totalFiles, long totalBytes) {
+        this.totalFiles = totalFiles;
+        this.totalBytes = totalBytes;
+        bytesRead.reset();
+        messagesFound.reset();
+        filesDone.set(0);
+        startNanos = System.nanoTime();
+        windowStartNanos = startNanos;
+        windowStartBytes = 0;
+        nextReportNanos.set(startNanos);
+        report();
+    }
+
+    public void addBytesRead(long bytes) {
+        if (bytes > 0) {
+            bytesRead.add(bytes);
+            reportIfDue();
+        }
+    }
+
+    public void addMessagesFound(int count) {
+        if (count > 0) {
+            messagesFound.add(count);
+            reportIfDue();
+        }
+    }
+
+    public void fileCompleted() {
+        filesDone.incrementAndGet();
+        reportIfDue();
+    }
+
+    /**
+     * Report the final state of the run, regardless of the report interval
+     */
+    public void finish() {
+        report();
+    }
+
+    /**
+     * Current progress; the throughput is measured since the last report to the listener
+     */
+    public synchronized ExtractionProgress snapshot() {
+        return createSnapshot(false);
+    }
+
+    private void reportIfDue() {
+        if (progressListener == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long next = nextReportNanos.get();
+        if (now - next >= 0 && nextReportNanos.compareAndSet(next, now + REPORT_INTERVAL_MILLIS * 1_000_000)) {
+            report();
+        }
+    }
+
+    private void report() {
+        if (progressListener == null) {
+            return;
+        }
+        ExtractionProgress progress;
+        synchronized (this) {
+            progress = createSnapshot(true);
+        }
+        progressListener.accept(progress);
+    }
+
+    private ExtractionProgress createSnapshot(boolean startNewWindow) {
+        long now = System.nanoTime();
+        long total = totalBytes;
+        long bytes = total > 0 ? Math.min(bytesRead.sum(), total) : bytesRead.sum();
+
+        long windowNanos = now - windowStartNanos;
+        double throughput = windowNanos > 0
+                ? (bytes - windowStartBytes) / (1024.0 * 1024.0) / (windowNanos / 1_000_000_000.0)
+                : 0.0;
+        if (startNewWindow) {
+            windowStartNanos = now;
+            windowStartBytes = bytes;
+        }
+
+        return new ExtractionProgress(bytes, total, filesDone.get(), totalFiles, messagesFound.sum(),
+                Math.max(0.0, throughput), (now - startNanos) / 1_000_000);
+    }
+}
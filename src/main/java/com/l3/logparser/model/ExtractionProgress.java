@@ -0,0 +1,68 @@
+package com.l3.logparser.model;
+
+/**
+ * Snapshot of the progress of one extraction run (see ExtractionMonitor)
+ */
+public class ExtractionProgress {
+    private final long bytesRead;
+    private final long totalBytes;
+    private final int filesDone;
+    private final int totalFiles;
+    private final long messagesFound;
+    private final double throughputMBps;
+    private final long elapsedMillis;
+
+    public ExtractionProgress(long bytesRead, long totalBytes, int filesDone, int totalFiles,
+                              long messagesFound, double throughputMBps, long elapsedMillis) {
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.filesDone = filesDone;
+        this.totalFiles = totalFiles;
+        this.messagesFound = messagesFound;
+        this.throughputMBps = throughputMBps;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Bytes of the log files dealt with so far (read, or skipped through the flight index)
+     */
+    public long getBytesRead() { return bytesRead; }
+
+    /**
+     * Size of all log files of the run
+     */
+    public long getTotalBytes() { return totalBytes; }
+
+    public int getFilesDone() { return filesDone; }
+
+    public int getTotalFiles() { return totalFiles; }
+
+    /**
+     * Messages parsed so far that passed the flight filter (before deduplication)
+     */
+    public long getMessagesFound() { return messagesFound; }
+
+    /**
+     * Read throughput since the previous snapshot, in MB/s
+     */
+    public double getThroughputMBps() { return throughputMBps; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    /**
+     * Completed share of the run (0.0 - 1.0), by bytes or by files when the size is unknown
+     */
+    public double getFraction() {
+        if (totalBytes > 0) {
+            return Math.min(1.0, (double) bytesRead / totalBytes);
+        }
+        return totalFiles > 0 ? (double) filesDone / totalFiles : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d files, %.1f/%.1f MB, %d message(s), %.1f MB/s",
+                filesDone, totalFiles, bytesRead / (1024.0 * 1024.0), totalBytes / (1024.0 * 1024.0),
+                messagesFound, throughputMBps);
+    }
+}
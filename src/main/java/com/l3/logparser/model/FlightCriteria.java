@@ -0,0 +1,53 @@
+package com.l3.logparser.model;
+
+/**
+ * One flight of a batch extraction
+ * Holds the same criteria the single-flight extraction methods take; empty values mean "no filter".
+ */
+public class FlightCriteria {
+    private final String flightNumber;
+    private final String departureDate;
+    private final String departureAirport;
+    private final String arrivalAirport;
+
+    public FlightCriteria(String flightNumber) {
+        this(flightNumber, null, null, null);
+    }
+
+    public FlightCriteria(String flightNumber, String departureDate, String departureAirport, String arrivalAirport) {
+        this.flightNumber = flightNumber;
+        this.departureDate = departureDate;
+        this.departureAirport = departureAirport;
+        this.arrivalAirport = arrivalAirport;
+    }
+
+    public String getFlightNumber() { return flightNumber; }
+
+    public String getDepartureDate() { return departureDate; }
+
+    public String getDepartureAirport() { return departureAirport; }
+
+    public String getArrivalAirport() { return arrivalAirport; }
+
+    /**
+     * Check if a flight number is given (without one every message of the logs matches)
+     */
+    public boolean hasFlightNumber() {
+        return flightNumber != null && !flightNumber.trim().isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(flightNumber != null ? flightNumber : "*");
+        if (departureDate != null && !departureDate.isEmpty()) {
+            sb.append(" ").append(departureDate);
+        }
+        if (departureAirport != null && !departureAirport.isEmpty()) {
+            sb.append(" ").append(departureAirport);
+        }
+        if (arrivalAirport != null && !arrivalAirport.isEmpty()) {
+            sb.append("-").append(arrivalAirport);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.l3.logparser.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free buffer of parser debug events
+ *
+ * Parsing threads record events into preallocated slots without locking, allocating or formatting
+ * anything; a single drainer (see TraceDrainer) takes them out and formats them on its own thread.
+ * Each slot carries a sequence number that tells producers when it is free and the drainer when it
+ * is filled, so a slot is never read while it is written. When the drainer falls behind and the
+ * buffer is full, new events are dropped and counted instead of slowing the parsers down.
+ */
+public class ParseTrace {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final class Slot {
+        // Sequence the slot is free for (== claimed sequence) or filled with (== claimed sequence + 1)
+        volatile long sequence;
+        TraceEvent.Type type;
+        int messageIndex;
+        long value;
+        long secondValue;
+        Object detail;
+        long timeMillis;
+        String threadName;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong nextWrite = new AtomicLong();
+    private long nextRead = 0; // Only used by the drainer, under the drain lock
+    private final LongAdder dropped = new LongAdder();
+
+    public ParseTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Number of events the buffer holds; rounded up to a power of two
+     */
+    public ParseTrace(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, Math.min(capacity, 1 << 30)) - 1) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+        mask = size - 1;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public void record(TraceEvent.Type type) {
+        record(type, 0, 0, 0, null);
+    }
+
+    public void record(TraceEvent.Type type, int messageIndex, long value) {
+        record(type, messageIndex, value, 0, null);
+    }
+
+    /**
+     * Record an event; never blocks
+     * @param detail Immutable detail object or a Supplier evaluated when the event is formatted (optional)
+     */
+    public void record(TraceEvent.Type type, int messageIndex, long value, long secondValue, Object detail) {
+        Slot slot;
+        long position;
+        while (true) {
+            position = nextWrite.get();
+            slot = slots[(int) position & mask];
+            long difference = slot.sequence - position;
+            if (difference == 0) {
+                if (nextWrite.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                dropped.increment(); // Full - the drainer has not freed this slot yet
+                return;
+            }
+            // Otherwise another thread claimed the position first - retry with the next one
+        }
+
+        slot.type = type;
+        slot.messageIndex = messageIndex;
+        slot.value = value;
+        slot.secondValue = secondValue;
+        slot.detail = detail;
+        slot.timeMillis = System.currentTimeMillis();
+        slot.threadName = Thread.currentThread().getName();
+        slot.sequence = position + 1; // Publishes the fields to the drainer
+    }
+
+    /**
+     * Take up to maxEvents recorded events out of the buffer, oldest first
+     * Events of one thread keep their order; events still being written stay for the next drain.
+     * @return Number of events passed to the sink
+     */
+    public synchronized int drain(Consumer<TraceEvent> sink, int maxEvents) {
+        int count = 0;
+        while (count < maxEvents) {
+            Slot slot = slots[(int) nextRead & mask];
+            if (slot.sequence != nextRead + 1) {
+                break;
+            }
+            TraceEvent event = new TraceEvent(slot.type, slot.messageIndex, slot.value, slot.secondValue,
+                    slot.detail, slot.timeMillis, slot.threadName);
+            slot.detail = null;
+            slot.sequence = nextRead + slots.length; // Free for the producer one lap ahead
+            nextRead++;
+            sink.accept(event);
+            count++;
+        }
+        return count;
+    }
+
+    public int drain(Consumer<TraceEvent> sink) {
+        return drain(sink, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Number of events dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
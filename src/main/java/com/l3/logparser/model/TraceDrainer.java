@@ -0,0 +1,127 @@
+package com.l3.logparser.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Drains a ParseTrace on a background thread and passes the formatted events on in batches
+ *
+ * Every interval the events recorded so far are formatted (one line each) and handed to the sink
+ * as one text block, e.g. to append to a log view or write to a file. Dropped events are reported
+ * as a line of their own. Closing the drainer stops the thread after a last drain.
+ */
+public final class TraceDrainer implements AutoCloseable {
+
+    private static final int MAX_EVENTS_PER_BATCH = 10_000;
+
+    private final ParseTrace trace;
+    private final Function<TraceEvent, String> lineFormatter;
+    private final Consumer<String> batchSink;
+    private final ScheduledExecutorService scheduler;
+    private final AutoCloseable resource;
+    private long droppedReported = 0;
+
+    /**
+     * @param lineFormatter Text of one event, without line break
+     * @param batchSink Receives the lines of each drain as one text block (each line ends with a line break)
+     * @param intervalMillis Time between two drains
+     */
+    public TraceDrainer(ParseTrace trace, Function<TraceEvent, String> lineFormatter, Consumer<String> batchSink, long intervalMillis) {
+        this(trace, lineFormatter, batchSink, intervalMillis, null);
+    }
+
+    private TraceDrainer(ParseTrace trace, Function<TraceEvent, String> lineFormatter, Consumer<String> batchSink,
+                         long intervalMillis, AutoCloseable resource) {
+        this.trace = trace;
+        this.lineFormatter = lineFormatter;
+        this.batchSink = batchSink;
+        this.resource = resource;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trace-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::drainSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drain a trace into a file, one line per event with time and thread (see TraceEvent.formatLine)
+     */
+    public static TraceDrainer toFile(ParseTrace trace, Path file, long intervalMillis) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        return new TraceDrainer(trace, TraceEvent::formatLine, batch -> {
+            try {
+                writer.write(batch);
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, intervalMillis, writer);
+    }
+
+    /**
+     * Drain and pass on everything recorded so far
+     * @return Number of events drained
+     */
+    public synchronized int drain() {
+        int total = 0;
+        StringBuilder batch = new StringBuilder();
+        while (true) {
+            int count = trace.drain(event -> batch.append(lineFormatter.apply(event)).append('\n'), MAX_EVENTS_PER_BATCH);
+            total += count;
+            if (batch.length() > 0) {
+                batchSink.accept(batch.toString());
+                batch.setLength(0);
+            }
+            if (count < MAX_EVENTS_PER_BATCH) {
+                break;
+            }
+        }
+
+        long dropped = trace.getDroppedCount();
+        if (dropped > droppedReported) {
+            batchSink.accept("... " + (dropped - droppedReported) + " trace event(s) dropped (trace buffer full)\n");
+            droppedReported = dropped;
+        }
+        return total;
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // Keep the drainer alive, a failing sink must not stop the schedule
+            System.err.println("Error draining parse trace: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop the background thread and pass on the remaining events
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainSafely();
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("Error closing parse trace sink: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.l3.logparser.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * One debug event of a parser, as drained from a ParseTrace
+ *
+ * Parsers record events as a type, the index of the message within the parsed content, two numbers
+ * and an optional detail; the text is only built when the event is formatted. The detail is either an
+ * immutable object (String, separators, ...) or a Supplier that is called at formatting time, so it
+ * must not depend on state the parser changes afterwards.
+ */
+public final class TraceEvent {
+
+    private static final DateTimeFormatter LINE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss,SSS");
+
+    /**
+     * Event types with the template their text is formatted from
+     * Template arguments: 1 message index, 2 first number, 3 second number, 4 detail,
+     * 5 first number as segment tag (see packTag), 6 second number as boolean (non-zero),
+     * 7 and 8 the numbers as characters.
+     */
+    public enum Type {
+        // ApiParser
+        RAW_MESSAGES_FOUND("Stage 1 complete: Found %2$d raw message boundaries"),
+        RAW_MESSAGE_NEXT_START("Extracted raw message %2$d (ended by new start pattern)"),
+        RAW_MESSAGE_UNZ("Extracted raw message %2$d (ended by UNZ)"),
+        RAW_MESSAGE_EOF("Extracted final raw message %2$d (EOF)"),
+        UNA_SEPARATORS("Parsed UNA separators early: element='%7$c' terminator='%8$c'"),
+        MESSAGE_START("[Line %2$d] Started new message with pattern: %4$s"),
+        MESSAGE_PROCESSING("Stage 2: Processing message %1$d of %2$d"),
+        PARSE_COMPLETE("Parsing complete. Total valid messages: %2$d"),
+        UNA_PARSED("Parsed UNA header - separators extracted"),
+        UNA_MISSING("No UNA header found - using default separators"),
+        PREFILTER_SKIPPED("Flight prefilter: target flight number not in message - skipped"),
+        SEGMENTS_SPLIT("Split into %2$d segments"),
+        SEGMENT_PROCESSED("Processed %5$s segment"),
+        SEGMENT_SKIPPED("Skipped segment type: %5$s"),
+        SEGMENT_ERROR("Error processing segment: %4$s"),
+        MESSAGE_ERROR("Error parsing raw message: %4$s"),
+
+        // PnrEdifactParser
+        PNR_ENTRY("    Entry #%1$d: Length=%2$d chars, Contains PNR=%6$b"),
+        PNR_ENTRIES_PARSED("  Parsed %2$d log entries, %3$d message(s) extracted"),
+        PNR_MESSAGE_EXTRACTED("      → Message extracted successfully"),
+        PNR_MESSAGE_REJECTED("      → Message parsing returned null (filtered out or parsing failed)"),
+        PNR_NO_EDIFACT("        → extractEdifactContent returned null/empty"),
+        PNR_EDIFACT_CONTENT("        → Extracted EDIFACT content: %4$s..."),
+        PNR_NO_MESSAGE("        → parseEdifactMessage returned null"),
+        PNR_FLIGHT_FILTER("        → Flight filter: %4$s, matches=%6$b"),
+        PNR_ENTRY_ERROR("        → Exception during parsing: %4$s"),
+        PNR_SEPARATORS("    Separators detected: %4$s");
+
+        private final String template;
+
+        Type(String template) {
+            this.template = template;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+    }
+
+    private final Type type;
+    private final int messageIndex;
+    private final long value;
+    private final long secondValue;
+    private final Object detail;
+    private final long timeMillis;
+    private final String threadName;
+
+    public TraceEvent(Type type, int messageIndex, long value, long secondValue, Object detail, long timeMillis, String threadName) {
+        this.type = type;
+        this.messageIndex = messageIndex;
+        this.value = value;
+        this.secondValue = secondValue;
+        this.detail = detail;
+        this.timeMillis = timeMillis;
+        this.threadName = threadName;
+    }
+
+    public Type getType() { return type; }
+
+    /**
+     * Index of the message (or log entry) within the content being parsed, 0 if not message-specific
+     */
+    public int getMessageIndex() { return messageIndex; }
+
+    public long getValue() { return value; }
+
+    public long getSecondValue() { return secondValue; }
+
+    /**
+     * The detail of the event, with a Supplier resolved
+     */
+    public Object getDetail() {
+        return resolve(detail);
+    }
+
+    public long getTimeMillis() { return timeMillis; }
+
+    /**
+     * Local time the event was recorded at
+     */
+    public LocalDateTime getTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), ZoneId.systemDefault());
+    }
+
+    public String getThreadName() { return threadName; }
+
+    /**
+     * Text of the event (the template of its type filled in)
+     */
+    public String format() {
+        return format(type, messageIndex, value, secondValue, detail);
+    }
+
+    /**
+     * Text of the event as a log line with time and thread
+     */
+    public String formatLine() {
+        return LINE_TIME_FORMAT.format(getTime()) + " [" + threadName + "] " + format();
+    }
+
+    /**
+     * Format an event without recording it (used when no trace is set and the text goes straight to a debug logger)
+     */
+    public static String format(Type type, int messageIndex, long value, long secondValue, Object detail) {
+        return String.format(Locale.ROOT, type.getTemplate(), messageIndex, value, secondValue, resolve(detail),
+                unpackTag(value), secondValue != 0, (char) value, (char) secondValue);
+    }
+
+    /**
+     * Pack up to the first three characters of text[start, end) into a number (for segment tags)
+     */
+    public static long packTag(CharSequence text, int start, int end) {
+        int length = Math.min(3, Math.max(0, end - start));
+        long packed = length;
+        for (int i = 0; i < length; i++) {
+            packed |= (long) text.charAt(start + i) << (8 + 16 * i);
+        }
+        return packed;
+    }
+
+    /**
+     * Text of a number created by packTag
+     */
+    public static String unpackTag(long packed) {
+        int length = (int) (packed & 0xff);
+        if (length > 3) {
+            return "";
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (packed >>> (8 + 16 * i));
+        }
+        return new String(chars);
+    }
+
+    private static Object resolve(Object detail) {
+        return detail instanceof Supplier ? ((Supplier<?>) detail).get() : detail;
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
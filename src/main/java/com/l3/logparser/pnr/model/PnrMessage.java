@@ -1,7 +1,11 @@
 package com.l3.logparser.pnr.model;
 
+import com.l3.common.util.ContentFingerprint;
+import com.l3.common.util.RawContentStore;
 import com.l3.logparser.enums.MessageType;
 
+import java.io.IOException;
+
 /**
  * Model representing a PNR EDIFACT message part extracted from logs
  * Extends the base EdifactMessage functionality with PNR-specific features
@@ -18,6 +22,8 @@ public class PnrMessage {
     private PnrFlightDetails flightDetails;
     private String messageType; // PNRGOV
     private String rawContent;
+    private RawContentStore.Ref rawContentRef; // Set instead of rawContent once the content is stored
+    private ContentFingerprint contentFingerprint; // Of the normalised body, for deduplication
     private PnrSeparators separators; // UNA separators
     private MessageType direction; // INPUT/OUTPUT
     private String logTimestamp;
@@ -56,8 +62,68 @@ public class PnrMessage {
     public String getMessageType() { return messageType; }
     public void setMessageType(String messageType) { this.messageType = messageType; }
 
-    public String getRawContent() { return rawContent; }
-    public void setRawContent(String rawContent) { this.rawContent = rawContent; }
+    /**
+     * Raw content of the message, loaded from its store if it was moved there (see storeRawContent)
+     */
+    public String getRawContent() {
+        return rawContentRef != null ? rawContentRef.load() : rawContent;
+    }
+    public void setRawContent(String rawContent) {
+        this.rawContent = rawContent;
+        this.rawContentRef = null;
+        this.contentFingerprint = null;
+    }
+
+    /**
+     * Length of the raw content in characters without loading it (0 without content)
+     */
+    public int getRawContentLength() {
+        if (rawContentRef != null) {
+            return rawContentRef.length();
+        }
+        return rawContent != null ? rawContent.length() : 0;
+    }
+
+    /**
+     * Move the raw content into a store, keeping only a reference to it
+     * Content the store cannot hold exactly stays in memory.
+     */
+    public void storeRawContent(RawContentStore store) throws IOException {
+        if (rawContent == null || rawContentRef != null) {
+            return;
+        }
+        getContentFingerprint();
+        RawContentStore.Ref ref = store.store(rawContent);
+        if (ref != null) {
+            rawContentRef = ref;
+            rawContent = null;
+        }
+    }
+
+    public RawContentStore.Ref getRawContentRef() { return rawContentRef; }
+
+    /**
+     * Refer to content stored by another message (null keeps the current content)
+     */
+    public void setRawContentRef(RawContentStore.Ref rawContentRef) {
+        if (rawContentRef != null) {
+            this.rawContentRef = rawContentRef;
+            this.rawContent = null;
+            this.contentFingerprint = null;
+        }
+    }
+
+    /**
+     * Fingerprint of the message body (see ContentFingerprint)
+     * Set by the parser while it tokenises the message; computed from the raw content otherwise.
+     */
+    public ContentFingerprint getContentFingerprint() {
+        if (contentFingerprint == null) {
+            contentFingerprint = ContentFingerprint.ofEdifact(getRawContent());
+        }
+        return contentFingerprint;
+    }
+    public void setContentFingerprint(ContentFingerprint contentFingerprint) { this.contentFingerprint = contentFingerprint; }
 
     public PnrSeparators getSeparators() { return separators; }
     public void setSeparators(PnrSeparators separators) { this.separators = separators; }
@@ -6,6 +6,7 @@ import java.util.stream.Collectors;
 /**
  * Model representing a group of related multipart PNR messages
  * Groups messages by message reference number and flight details
+ * Received part numbers are tracked as parts are added, so completeness checks do not rescan the parts.
  */
 public class PnrMultipartGroup {
     private String groupId;
@@ -16,6 +17,8 @@ public class PnrMultipartGroup {
     private boolean isComplete;
     private int expectedParts;
     private String direction; // INPUT/OUTPUT
+    private final BitSet receivedParts = new BitSet(); // Part numbers >= 1 present in the group
+    private int highestPart = Integer.MIN_VALUE;
 
     public PnrMultipartGroup() {
         this.parts = new ArrayList<>();
@@ -42,21 +45,57 @@ public class PnrMultipartGroup {
             }
             
             // Update completeness check
-            updateCompleteness();
+            trackPart(message);
         }
     }
 
+    /**
+     * Replace a part by another copy of it (e.g. a more complete duplicate)
+     * @return false if the previous message is not a part of this group
+     */
+    public boolean replacePart(PnrMessage previous, PnrMessage replacement) {
+        int index = parts.indexOf(previous);
+        if (index < 0 || replacement == null) {
+            return false;
+        }
+        parts.set(index, replacement);
+        if (previous.getPartNumber() == replacement.getPartNumber() && previous.isLastPart() == replacement.isLastPart()) {
+            return true;
+        }
+        updateCompleteness();
+        return true;
+    }
+
     /**
      * Check if this group is complete (has final part)
      */
     private void updateCompleteness() {
-        isComplete = parts.stream().anyMatch(PnrMessage::isLastPart);
+        isComplete = false;
+        receivedParts.clear();
+        highestPart = Integer.MIN_VALUE;
+        for (PnrMessage part : parts) {
+            trackPart(part);
+        }
         
         // Find the highest part number to estimate expected parts
-        expectedParts = parts.stream()
-                .mapToInt(PnrMessage::getPartNumber)
-                .max()
-                .orElse(1);
+        expectedParts = parts.isEmpty() ? 1 : highestPart;
+    }
+
+    /**
+     * Update completeness and the highest part number with one more part
+     */
+    private void trackPart(PnrMessage part) {
+        if (part.isLastPart()) {
+            isComplete = true;
+        }
+        int partNumber = part.getPartNumber();
+        if (partNumber >= 1) {
+            receivedParts.set(partNumber);
+        }
+        if (partNumber > highestPart) {
+            highestPart = partNumber;
+        }
+        expectedParts = highestPart;
     }
 
     /**
@@ -83,19 +122,14 @@ public class PnrMultipartGroup {
     public boolean hasAllParts() {
         if (parts.isEmpty()) return false;
         
-        Set<Integer> partNumbers = parts.stream()
-                .map(PnrMessage::getPartNumber)
-                .collect(Collectors.toSet());
-        
-        int maxPart = Collections.max(partNumbers);
-        
-        for (int i = 1; i <= maxPart; i++) {
-            if (!partNumbers.contains(i)) {
-                return false;
-            }
-        }
-        
-        return true;
+        return receivedParts.nextClearBit(1) > highestPart;
+    }
+
+    /**
+     * Check if the group is assembled: it has its final part and all parts below the highest part number
+     */
+    public boolean isAssembled() {
+        return isComplete && hasAllParts();
     }
 
     /**
@@ -105,16 +139,8 @@ public class PnrMultipartGroup {
         List<Integer> missing = new ArrayList<>();
         
         if (!parts.isEmpty()) {
-            Set<Integer> partNumbers = parts.stream()
-                    .map(PnrMessage::getPartNumber)
-                    .collect(Collectors.toSet());
-            
-            int maxPart = Collections.max(partNumbers);
-            
-            for (int i = 1; i <= maxPart; i++) {
-                if (!partNumbers.contains(i)) {
-                    missing.add(i);
-                }
+            for (int i = receivedParts.nextClearBit(1); i <= highestPart; i = receivedParts.nextClearBit(i + 1)) {
+                missing.add(i);
             }
         }
         
@@ -134,7 +160,10 @@ public class PnrMultipartGroup {
     public PnrFlightDetails getFlightDetails() { return flightDetails; }
     public void setFlightDetails(PnrFlightDetails flightDetails) { this.flightDetails = flightDetails; }
 
-    public List<PnrMessage> getParts() { return new ArrayList<>(parts); }
+    /**
+     * Parts in the order they were added (read-only view)
+     */
+    public List<PnrMessage> getParts() { return Collections.unmodifiableList(parts); }
     public void setParts(List<PnrMessage> parts) { 
         this.parts = new ArrayList<>(parts != null ? parts : new ArrayList<>());
         updateCompleteness();
@@ -11,6 +11,7 @@ import java.util.regex.Pattern;
  * ? is release indicator
  * * is reserved separator
  * ' is terminator separator
+ * Instances are shared between messages and threads (see PnrEdifactParser's separator cache), so they are read-only
  */
 public class PnrSeparators {
     private char subElementSeparator = ':';
@@ -148,30 +149,40 @@ public class PnrSeparators {
         return separators;
     }*/
 
-    // Getters and Setters
+    /**
+     * Copy with the raw UNA segment of another message
+     * Separators are shared by all messages with the same UNA header, while the raw segment is the text of
+     * one message (the header and whatever follows it on its line).
+     */
+    public PnrSeparators withRawUnaSegment(String rawUnaSegment) {
+        PnrSeparators copy = new PnrSeparators();
+        copy.subElementSeparator = subElementSeparator;
+        copy.elementSeparator = elementSeparator;
+        copy.decimalSeparator = decimalSeparator;
+        copy.releaseIndicator = releaseIndicator;
+        copy.reservedSeparator = reservedSeparator;
+        copy.terminatorSeparator = terminatorSeparator;
+        copy.isUnaPresent = isUnaPresent;
+        copy.rawUnaSegment = rawUnaSegment;
+        return copy;
+    }
+
+    // Getters
     public char getSubElementSeparator() { return subElementSeparator; }
-    public void setSubElementSeparator(char subElementSeparator) { this.subElementSeparator = subElementSeparator; }
 
     public char getElementSeparator() { return elementSeparator; }
-    public void setElementSeparator(char elementSeparator) { this.elementSeparator = elementSeparator; }
 
     public char getDecimalSeparator() { return decimalSeparator; }
-    public void setDecimalSeparator(char decimalSeparator) { this.decimalSeparator = decimalSeparator; }
 
     public char getReleaseIndicator() { return releaseIndicator; }
-    public void setReleaseIndicator(char releaseIndicator) { this.releaseIndicator = releaseIndicator; }
 
     public char getReservedSeparator() { return reservedSeparator; }
-    public void setReservedSeparator(char reservedSeparator) { this.reservedSeparator = reservedSeparator; }
 
     public char getTerminatorSeparator() { return terminatorSeparator; }
-    public void setTerminatorSeparator(char terminatorSeparator) { this.terminatorSeparator = terminatorSeparator; }
 
     public boolean isUnaPresent() { return isUnaPresent; }
-    public void setUnaPresent(boolean unaPresent) { isUnaPresent = unaPresent; }
 
     public String getRawUnaSegment() { return rawUnaSegment; }
-    public void setRawUnaSegment(String rawUnaSegment) { this.rawUnaSegment = rawUnaSegment; }
 
     /**
      * Split a segment into elements using the detected element separator
@@ -0,0 +1,289 @@
+package com.l3.logparser.pnr.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Cuts PNR log content into log entries without regular expressions
+ * An entry starts at the beginning of the content and at every line whose beginning matches
+ * PnrEdifactParser.LOG_ENTRY_START: a log level followed by whitespace and "[" or a standalone ISO
+ * timestamp. Lines end like they do for ^ in MULTILINE regex mode: at "\n", "\r\n", "\r", "\u0085",
+ * "\u2028" or "\u2029". Entries are reported as offset ranges of the current text (the content itself,
+ * or a reusable buffer when reading from a stream), which stay valid until the next call of next().
+ *
+ * Reading from a stream keeps one buffer that only grows when a single entry does not fit, so
+ * memory does not depend on the size of the file.
+ */
+public final class LogEntryFramer {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    // Longest line prefix needed to decide on a timestamp start: yyyy-MM-ddTHH:mm:ss
+    private static final int TIMESTAMP_LENGTH = 19;
+
+    private static final int NO = 0;
+    private static final int YES = 1;
+    private static final int NEED_MORE = 2;
+
+    private final Reader reader;
+    private char[] buffer;
+    private CharSequence text;
+    private int limit;          // Characters of text available
+    private boolean endOfInput;
+
+    private int entryStart;
+    private int entryEnd;
+    private int nextStart;      // Start of the entry after the current one
+    private int searchFrom;     // Line breaks before this offset are known not to end the pending entry
+    private int entryCount;
+
+    /**
+     * Frame content held in memory; entries are ranges of the content itself
+     */
+    public LogEntryFramer(CharSequence content) {
+        this.reader = null;
+        this.text = content;
+        this.limit = content.length();
+        this.endOfInput = true;
+    }
+
+    /**
+     * Frame a character stream through a reusable buffer; the reader is not closed
+     */
+    public LogEntryFramer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    LogEntryFramer(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(TIMESTAMP_LENGTH + 1, bufferSize)];
+        this.text = CharBuffer.wrap(buffer);
+    }
+
+    /**
+     * Advance to the next log entry
+     * @return false once all content has been framed
+     */
+    public boolean next() throws IOException {
+        int start = nextStart;
+        if (searchFrom < start) {
+            searchFrom = start;
+        }
+        while (true) {
+            if (start >= limit && !endOfInput) {
+                start = fill(start);
+                continue;
+            }
+            if (start >= limit) {
+                return false;
+            }
+
+            int boundary = findBoundary(start);
+            if (boundary >= 0) {
+                return emit(start, boundary);
+            }
+            if (endOfInput) {
+                return emit(start, limit);
+            }
+            start = fill(start);
+        }
+    }
+
+    /**
+     * Text the entry offsets refer to; only valid until the next call of next()
+     */
+    public CharSequence text() {
+        return text;
+    }
+
+    public int start() {
+        return entryStart;
+    }
+
+    public int end() {
+        return entryEnd;
+    }
+
+    public int length() {
+        return entryEnd - entryStart;
+    }
+
+    /**
+     * View of the current entry without copying; only valid until the next call of next()
+     */
+    public CharSequence entry() {
+        if (reader != null) {
+            return CharBuffer.wrap(buffer, entryStart, entryEnd - entryStart);
+        }
+        return CharBuffer.wrap(text, entryStart, entryEnd);
+    }
+
+    /**
+     * Copy of the current entry
+     */
+    public String entryString() {
+        if (reader != null) {
+            return new String(buffer, entryStart, entryEnd - entryStart);
+        }
+        return text.subSequence(entryStart, entryEnd).toString();
+    }
+
+    /**
+     * Append the current entry to a builder
+     */
+    public void appendEntryTo(StringBuilder target) {
+        if (reader != null) {
+            target.append(buffer, entryStart, entryEnd - entryStart);
+        } else {
+            target.append(text, entryStart, entryEnd);
+        }
+    }
+
+    /**
+     * Number of entries framed so far
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    private boolean emit(int start, int end) {
+        entryStart = start;
+        entryEnd = end;
+        nextStart = end;
+        searchFrom = end;
+        entryCount++;
+        return true;
+    }
+
+    /**
+     * Find the first line after the pending entry's first character that starts a new entry
+     * @return The offset of that line, or -1 if none is known yet (searchFrom is left where the search has to resume)
+     */
+    private int findBoundary(int start) {
+        for (int i = Math.max(searchFrom, start); i < limit; i++) {
+            if (!isLineBreak(text.charAt(i))) {
+                continue;
+            }
+            // The line after the "\r" of "\r\n" starts with "\n", so it is never taken for an entry start
+            int lineStart = i + 1;
+            int result = entryStartAt(text, lineStart, limit, endOfInput);
+            if (result == YES) {
+                return lineStart;
+            }
+            if (result == NEED_MORE) {
+                searchFrom = i;
+                return -1;
+            }
+        }
+        searchFrom = limit;
+        return -1;
+    }
+
+    /**
+     * Read more of the stream, first moving the pending entry to the front of the buffer
+     * (or growing the buffer if the entry already fills it)
+     * @return The new offset of the pending entry
+     */
+    private int fill(int start) throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            searchFrom -= start;
+            nextStart -= start;
+            start = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            text = CharBuffer.wrap(buffer);
+        }
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+        return start;
+    }
+
+    /**
+     * Check if a line beginning matches PnrEdifactParser.LOG_ENTRY_START
+     * @param limit End of the available text
+     */
+    public static boolean isEntryStart(CharSequence text, int lineStart, int limit) {
+        return entryStartAt(text, lineStart, limit, true) == YES;
+    }
+
+    /**
+     * Tri-state form of isEntryStart for text that may still grow
+     * @param complete True if no text follows limit (an undecided prefix then is not a match)
+     */
+    private static int entryStartAt(CharSequence text, int lineStart, int limit, boolean complete) {
+        if (lineStart >= limit) {
+            return complete ? NO : NEED_MORE;
+        }
+        char first = text.charAt(lineStart);
+        if (first >= '0' && first <= '9') {
+            return timestampAt(text, lineStart, limit, complete);
+        }
+        String level;
+        switch (first) {
+            case 'I': level = "INFO"; break;
+            case 'D': level = "DEBUG"; break;
+            case 'W': level = "WARN"; break;
+            case 'E': level = "ERROR"; break;
+            default: return NO;
+        }
+
+        int i = lineStart;
+        for (int j = 0; j < level.length(); j++, i++) {
+            if (i >= limit) {
+                return complete ? NO : NEED_MORE;
+            }
+            if (text.charAt(i) != level.charAt(j)) {
+                return NO;
+            }
+        }
+        // \s+\[
+        int whitespaceStart = i;
+        while (i < limit && isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        if (i >= limit) {
+            return complete ? NO : NEED_MORE;
+        }
+        return i > whitespaceStart && text.charAt(i) == '[' ? YES : NO;
+    }
+
+    // \d{4}-\d{2}-\d{2}T\d{2}:\d{2}:\d{2}
+    private static int timestampAt(CharSequence text, int lineStart, int limit, boolean complete) {
+        for (int j = 0; j < TIMESTAMP_LENGTH; j++) {
+            int i = lineStart + j;
+            if (i >= limit) {
+                return complete ? NO : NEED_MORE;
+            }
+            char c = text.charAt(i);
+            boolean matches = switch (j) {
+                case 4, 7 -> c == '-';
+                case 10 -> c == 'T';
+                case 13, 16 -> c == ':';
+                default -> c >= '0' && c <= '9';
+            };
+            if (!matches) {
+                return NO;
+            }
+        }
+        return YES;
+    }
+
+    // Line terminators of java.util.regex outside UNIX_LINES mode ("\r\n" is handled as "\r" then "\n")
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    // Same characters as \s in java.util.regex
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
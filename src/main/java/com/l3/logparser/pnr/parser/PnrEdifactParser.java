@@ -1,44 +1,93 @@
 package com.l3.logparser.pnr.parser;
 
+import com.l3.common.util.ContentFingerprint;
+import com.l3.common.util.SeparatorCache;
 import com.l3.logparser.pnr.model.*;
 import com.l3.logparser.enums.MessageType;
 import com.l3.logparser.config.AdvancedParserConfig;
 import com.l3.logparser.config.PnrPatternConfig;
+import com.l3.logparser.config.StartPatternMatcher;
+import com.l3.logparser.model.ExtractionMonitor;
+import com.l3.logparser.model.ParseTrace;
+import com.l3.logparser.model.TraceEvent;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
 /**
  * Parser for PNR EDIFACT messages
  * Handles UNA separator detection, UNB validation, UNH part parsing, and TVL flight details extraction
+ * With a parallelism above 1 the parser owns a thread pool; close it when the parser is no longer used.
  */
-public class PnrEdifactParser {
+public class PnrEdifactParser implements AutoCloseable {
     
     private static final Pattern LOG_TIMESTAMP_PATTERN = Pattern.compile(
         "\\[(\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2},\\d{3})\\]"
     );
     
+    // Typical separators a UNA segment includes: : + . ? * ' ~ ! | -
+    private static final String TYPICAL_SEPARATORS = "+:'.*?|~!-";
+
     private static final Pattern TRACE_ID_PATTERN = Pattern.compile(
         "\\[trace\\.id:([^\\]]+)\\]"
     );
 
+    // Start of a new log entry: log level followed by "[" or a standalone ISO timestamp
+    private static final String LOG_ENTRY_START_REGEX =
+        "(?:INFO|DEBUG|WARN|ERROR)\\s+\\[|\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}";
+
+    /**
+     * Pattern for the beginning of a line that starts a new log entry
+     * Log content is split in front of every such line; LogEntryFramer recognises the same lines without the regex.
+     */
+    public static final Pattern LOG_ENTRY_START = Pattern.compile(LOG_ENTRY_START_REGEX);
+
     // Progress callback for real-time logging
-    private Consumer<String> progressCallback;
+    private volatile Consumer<String> progressCallback;
 
     // Debug mode flag for detailed logging
-    private boolean debugMode = false;
+    private volatile boolean debugMode = false;
+
+    // Track if we've logged separator details for the current file (to avoid spam); shared by all entry workers
+    private final AtomicBoolean separatorDetailsLogged = new AtomicBoolean();
 
-    // Track if we've logged separator details for current batch (to avoid spam)
-    private boolean separatorDetailsLogged = false;
+    // Threads parsing the entries of one parse call; 1 parses on the calling thread
+    private volatile int parallelism = 1;
+    private ForkJoinPool entryPool; // Created on first use, guarded by this
 
     // Advanced parser configuration
     private AdvancedParserConfig advancedConfig;
 
+    // PNR start patterns compiled into a single automaton; recompiled when the pattern configuration changes
+    private volatile StartPatternMatcher startPatternMatcher;
+
+    // Separators of the UNA variants seen so far, shared by all parsers
+    private static final SeparatorCache<PnrSeparators> SEPARATOR_CACHE = new SeparatorCache<>(64);
+    // Lookups of this parser in the separator cache
+    private final LongAdder separatorCacheHits = new LongAdder();
+    private final LongAdder separatorCacheMisses = new LongAdder();
+
+    // Cancellation and progress of the running extraction (optional)
+    private volatile ExtractionMonitor extractionMonitor;
+
+    // Receives the per-entry debug events in debug mode instead of the progress callback (optional)
+    private volatile ParseTrace parseTrace;
+
     public PnrEdifactParser() {
         // Initialize with default configuration
         this.advancedConfig = new AdvancedParserConfig();
+        this.startPatternMatcher = startPatternMatcher();
     }
 
     /**
@@ -57,6 +106,7 @@ public class PnrEdifactParser {
                 config.reload();
             }
         }
+        this.startPatternMatcher = startPatternMatcher();
     }
 
     /**
@@ -72,6 +122,58 @@ public class PnrEdifactParser {
         }
     }
 
+    /**
+     * Set the monitor of the running extraction; parsing stops with a CancellationException once it is cancelled
+     */
+    public void setExtractionMonitor(ExtractionMonitor extractionMonitor) {
+        this.extractionMonitor = extractionMonitor;
+    }
+
+    public ExtractionMonitor getExtractionMonitor() {
+        return extractionMonitor;
+    }
+
+    /**
+     * Set the trace that receives the per-entry debug events of debug mode
+     * Events are recorded without formatting; without a trace they are formatted and passed to the progress callback.
+     */
+    public void setParseTrace(ParseTrace parseTrace) {
+        this.parseTrace = parseTrace;
+    }
+
+    public ParseTrace getParseTrace() {
+        return parseTrace;
+    }
+
+    /**
+     * Number of messages whose UNA separators were found in the separator cache
+     */
+    public long getSeparatorCacheHitCount() {
+        return separatorCacheHits.sum();
+    }
+
+    /**
+     * Number of messages whose UNA separators had to be parsed
+     */
+    public long getSeparatorCacheMissCount() {
+        return separatorCacheMisses.sum();
+    }
+
+    /**
+     * Statistics of the separator cache shared by all parsers
+     */
+    public static SeparatorCache.Stats getSeparatorCacheStats() {
+        return SEPARATOR_CACHE.getStats();
+    }
+
+    /**
+     * Reset the separator cache statistics
+     */
+    public void resetSeparatorCacheStats() {
+        separatorCacheHits.reset();
+        separatorCacheMisses.reset();
+    }
+
     /**
      * Enable or disable debug mode for detailed logging
      */
@@ -91,7 +193,43 @@ public class PnrEdifactParser {
      * Reset separator logging flag (call this when starting to process a new file)
      */
     public void resetSeparatorLogging() {
-        this.separatorDetailsLogged = false;
+        this.separatorDetailsLogged.set(false);
+    }
+
+    /**
+     * Set the number of threads parsing log entries (1, the default, parses on the calling thread)
+     * Entries are still framed on the calling thread; they are parsed in batches on a work-stealing pool
+     * and the messages are returned in file order, the same as when parsing on one thread.
+     */
+    public synchronized void setParallelism(int parallelism) {
+        int threads = Math.max(1, parallelism);
+        if (threads != this.parallelism && entryPool != null) {
+            entryPool.shutdown(); // Running parses keep their pool until they are done
+            entryPool = null;
+        }
+        this.parallelism = threads;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private synchronized ForkJoinPool entryPool() {
+        if (entryPool == null) {
+            entryPool = new ForkJoinPool(parallelism);
+        }
+        return entryPool;
+    }
+
+    /**
+     * Shut down the entry pool; running parses finish first, a later parse creates a new pool
+     */
+    @Override
+    public synchronized void close() {
+        if (entryPool != null) {
+            entryPool.shutdown();
+            entryPool = null;
+        }
     }
 
     /**
@@ -122,57 +260,256 @@ public class PnrEdifactParser {
      * @return List of parsed PNR messages
      */
     public List<PnrMessage> parseLogContent(String logContent, String targetFlightNumber, MessageType messageType) {
-        List<PnrMessage> messages = new ArrayList<>();
-        
+        return parseLogContentForFlights(logContent, Collections.singletonList(targetFlightNumber), messageType);
+    }
+
+    /**
+     * Parse PNR messages from log content for several flights at once
+     * A message is kept if it matches any of the target flight numbers; an empty target (or none at all) keeps everything.
+     * @param targetFlightNumbers Flight numbers to filter for
+     * @param messageType Explicit message type (INPUT/OUTPUT) based on file type
+     * @return List of parsed PNR messages
+     */
+    public List<PnrMessage> parseLogContentForFlights(String logContent, Collection<String> targetFlightNumbers, MessageType messageType) {
         if (logContent == null || logContent.trim().isEmpty()) {
-            return messages;
+            return new ArrayList<>();
         }
-        
-        // Split on actual log entry boundaries, not on dates within EDIFACT content
-        // Look for patterns that indicate the start of a new log entry:
-        // - Log level followed by timestamp: INFO [2025-10-15T...
-        // - Standalone timestamp at start: 2025-10-15T06:50:51,113
-        // - Log levels at start: INFO, DEBUG, WARN, ERROR (but not embedded in content)
-        String[] logEntries = logContent.split("(?m)(?=^(?:INFO|DEBUG|WARN|ERROR)\\s+\\[|^\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2})");
-        
-        if (debugMode) {
-            logProgress("  Split log content into " + logEntries.length + " log entries");
+        try {
+            return parseEntries(new LogEntryFramer(logContent), targetFlightNumbers, messageType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Content in memory is never read
         }
-        
-        int entryNum = 0;
-        for (String logEntry : logEntries) {
-            entryNum++;
-            boolean containsPnr = containsPnrMessage(logEntry);
-            
-            if (debugMode) {
-                logProgress("    Entry #" + entryNum + ": Length=" + logEntry.length() + 
-                           " chars, Contains PNR=" + containsPnr);
-            }
-            
-            if (containsPnr) {
-                PnrMessage message = parseLogEntry(logEntry, targetFlightNumber, messageType);
-                if (message != null) {
-                    messages.add(message);
-                    if (debugMode) {
-                        logProgress("      → Message extracted successfully");
-                    }
-                } else {
-                    if (debugMode) {
-                        logProgress("      → Message parsing returned null (filtered out or parsing failed)");
+    }
+
+    /**
+     * Parse PNR messages from a character stream for several flights at once, like parseLogContentForFlights
+     * The stream is framed through a reusable buffer, so memory does not grow with its length. The reader is not closed.
+     * @param targetFlightNumbers Flight numbers to filter for
+     * @param messageType Explicit message type (INPUT/OUTPUT) based on file type
+     * @return List of parsed PNR messages
+     */
+    public List<PnrMessage> parseLogStreamForFlights(Reader reader, Collection<String> targetFlightNumbers, MessageType messageType) throws IOException {
+        return parseEntries(new LogEntryFramer(reader), targetFlightNumbers, messageType);
+    }
+
+    private List<PnrMessage> parseEntries(LogEntryFramer framer, Collection<String> targetFlightNumbers, MessageType messageType) throws IOException {
+        // Entries start at lines that begin with a log level followed by "[" (INFO [2025-10-15T...)
+        // or with a standalone timestamp (2025-10-15T06:50:51,113), not at dates within EDIFACT content.
+        ParseSettings settings = new ParseSettings(this, targetFlightNumbers, messageType);
+        List<PnrMessage> messages = settings.parallelism > 1
+                ? parseEntriesInParallel(framer, settings)
+                : parseEntriesInline(framer, settings);
+
+        if (settings.debugMode && settings.trace != null) {
+            settings.trace.record(TraceEvent.Type.PNR_ENTRIES_PARSED, 0, framer.getEntryCount(), messages.size(), null);
+        } else if (settings.debugMode) {
+            settings.log("  Split log content into " + framer.getEntryCount() + " log entries");
+        }
+
+        if (settings.monitor != null) {
+            settings.monitor.addMessagesFound(messages.size());
+        }
+        return messages;
+    }
+
+    /**
+     * Parse the entries on the calling thread; only entries holding a PNR message are copied out of the framer's text
+     */
+    private List<PnrMessage> parseEntriesInline(LogEntryFramer framer, ParseSettings settings) throws IOException {
+        List<PnrMessage> messages = new ArrayList<>();
+        EntryContext context = new EntryContext(settings);
+        while (framer.next()) {
+            parseEntry(context, framer.entry(), framer.getEntryCount(), messages);
+        }
+        context.flushStats();
+        return messages;
+    }
+
+    /**
+     * Copy framed entries into batches and parse the batches on the entry pool
+     * At most a few batches per thread are in flight, so memory stays bounded; results are joined in file order.
+     */
+    private List<PnrMessage> parseEntriesInParallel(LogEntryFramer framer, ParseSettings settings) throws IOException {
+        ForkJoinPool pool = entryPool();
+        int maxPending = settings.parallelism * 4;
+        List<PnrMessage> messages = new ArrayList<>();
+        ArrayDeque<ForkJoinTask<List<PnrMessage>>> pending = new ArrayDeque<>();
+        EntryBatch batch = new EntryBatch(1);
+        try {
+            while (framer.next()) {
+                if (settings.monitor != null) {
+                    settings.monitor.checkCancelled();
+                }
+                batch.add(framer);
+                if (batch.isFull()) {
+                    EntryBatch full = batch;
+                    pending.add(pool.submit(() -> parseBatch(full, settings)));
+                    batch = new EntryBatch(framer.getEntryCount() + 1);
+                    while (pending.size() > maxPending) {
+                        messages.addAll(pending.poll().join());
                     }
                 }
             }
+            if (!batch.isEmpty()) {
+                EntryBatch last = batch;
+                pending.add(pool.submit(() -> parseBatch(last, settings)));
+            }
+            while (!pending.isEmpty()) {
+                messages.addAll(pending.poll().join());
+            }
+        } finally {
+            for (ForkJoinTask<List<PnrMessage>> task : pending) {
+                task.cancel(false); // Only left after a failure or cancellation
+            }
         }
-        
         return messages;
     }
 
+    private List<PnrMessage> parseBatch(EntryBatch batch, ParseSettings settings) {
+        EntryContext context = new EntryContext(settings);
+        List<PnrMessage> messages = new ArrayList<>();
+        String text = batch.text.toString();
+        int start = 0;
+        for (int i = 0; i < batch.count; i++) {
+            int end = batch.ends[i];
+            parseEntry(context, CharBuffer.wrap(text, start, end), batch.firstEntryNum + i, messages);
+            start = end;
+        }
+        context.flushStats();
+        return messages;
+    }
+
+    /**
+     * Parse one framed entry and add its message (if any) to the list
+     */
+    private void parseEntry(EntryContext context, CharSequence entry, int entryNum, List<PnrMessage> messages) {
+        ParseSettings settings = context.settings;
+        if (settings.monitor != null) {
+            settings.monitor.checkCancelled();
+        }
+        boolean containsPnr = containsPnrMessage(entry, settings.startPatterns);
+
+        if (settings.debugMode) {
+            settings.trace(TraceEvent.Type.PNR_ENTRY, entryNum, entry.length(), containsPnr ? 1 : 0, null);
+        }
+
+        if (containsPnr) {
+            PnrMessage message = parseLogEntry(context, entry.toString(), entryNum);
+            if (message != null) {
+                messages.add(message);
+                if (settings.debugMode) {
+                    settings.trace(TraceEvent.Type.PNR_MESSAGE_EXTRACTED, entryNum, 0, 0, null);
+                }
+            } else {
+                if (settings.debugMode) {
+                    settings.trace(TraceEvent.Type.PNR_MESSAGE_REJECTED, entryNum, 0, 0, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot of the parser configuration taken when a parse call starts
+     * Shared by all workers of the call, so setters called meanwhile do not affect it.
+     */
+    private static final class ParseSettings {
+        final boolean debugMode;
+        final Consumer<String> progressCallback;
+        final ParseTrace trace;
+        final ExtractionMonitor monitor;
+        final StartPatternMatcher startPatterns;
+        final int parallelism;
+        final Collection<String> targetFlightNumbers;
+        final MessageType messageType;
+
+        ParseSettings(PnrEdifactParser parser, Collection<String> targetFlightNumbers, MessageType messageType) {
+            this.debugMode = parser.debugMode;
+            this.progressCallback = parser.progressCallback;
+            this.trace = parser.parseTrace;
+            this.monitor = parser.extractionMonitor;
+            this.startPatterns = parser.startPatternMatcher();
+            this.parallelism = parser.parallelism;
+            this.targetFlightNumbers = targetFlightNumbers;
+            this.messageType = messageType;
+        }
+
+        void log(String message) {
+            if (progressCallback != null) {
+                progressCallback.accept(message);
+            }
+        }
+
+        /**
+         * Pass a debug event to the parse trace, or format it for the progress callback if no trace is set
+         */
+        void trace(TraceEvent.Type type, int entryNum, long value, long secondValue, Object detail) {
+            if (trace != null) {
+                trace.record(type, entryNum, value, secondValue, detail);
+            } else {
+                log(TraceEvent.format(type, entryNum, value, secondValue, detail));
+            }
+        }
+    }
+
+    /**
+     * State of one worker while it parses entries: the shared settings and its own separator cache counts,
+     * added to the parser statistics once the worker is done
+     */
+    private final class EntryContext {
+        final ParseSettings settings;
+        long separatorHits;
+        long separatorMisses;
+
+        EntryContext(ParseSettings settings) {
+            this.settings = settings;
+        }
+
+        void flushStats() {
+            separatorCacheHits.add(separatorHits);
+            separatorCacheMisses.add(separatorMisses);
+        }
+    }
+
+    /**
+     * Consecutive framed entries copied out of the framer's buffer for a worker
+     */
+    private static final class EntryBatch {
+        private static final int MAX_CHARS = 256 * 1024;
+        private static final int MAX_ENTRIES = 1024;
+
+        final int firstEntryNum;
+        final StringBuilder text = new StringBuilder();
+        int[] ends = new int[64];
+        int count;
+
+        EntryBatch(int firstEntryNum) {
+            this.firstEntryNum = firstEntryNum;
+        }
+
+        void add(LogEntryFramer framer) {
+            framer.appendEntryTo(text);
+            if (count == ends.length) {
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            ends[count++] = text.length();
+        }
+
+        boolean isFull() {
+            return count >= MAX_ENTRIES || text.length() >= MAX_CHARS;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+    }
+
     /**
      * Check if log entry contains a PNR message (input or output)
-     * Uses configurable patterns from AdvancedParserConfig
+     * Uses configurable patterns from AdvancedParserConfig, compiled into one automaton
      */
-    private boolean containsPnrMessage(String logEntry) {
-        if (advancedConfig == null || advancedConfig.getPnrConfig() == null) {
+    private boolean containsPnrMessage(CharSequence entry, StartPatternMatcher startPatterns) {
+        if (startPatterns == null) {
+            String logEntry = entry.toString();
             // Fallback to hardcoded patterns if config is not available
             return logEntry.contains("UNA:") || 
                    (logEntry.contains("UNB+") && logEntry.contains("PNRGOV")) ||
@@ -183,117 +520,117 @@ public class PnrEdifactParser {
                    (logEntry.contains("TO.NO.PNR.OUT") && logEntry.contains("UNB+"));
         }
 
-        // Use patterns from advanced configuration
-        List<PnrPatternConfig.MessagePattern> patterns = advancedConfig.getPnrConfig().getMessageStartPatterns();
-        
-        for (PnrPatternConfig.MessagePattern pattern : patterns) {
-            if (!pattern.isEnabled()) {
-                continue; // Skip disabled patterns
-            }
+        return startPatterns.matchesAny(entry);
+    }
 
-            if (matchesPattern(logEntry, pattern)) {
-                return true;
-            }
+    /**
+     * Get the compiled PNR start patterns, recompiling them if the pattern configuration was changed
+     * Returns null when no PNR configuration is available (hardcoded patterns are used then).
+     */
+    private StartPatternMatcher startPatternMatcher() {
+        AdvancedParserConfig config = advancedConfig;
+        if (config == null || config.getPnrConfig() == null) {
+            return null;
         }
 
-        return false;
+        List<PnrPatternConfig.MessagePattern> patterns = config.getPnrConfig().getMessageStartPatterns();
+        StartPatternMatcher matcher = startPatternMatcher;
+        if (matcher == null || matcher.getFingerprint() != StartPatternMatcher.fingerprintPnr(patterns)) {
+            matcher = StartPatternMatcher.compilePnr(patterns);
+            startPatternMatcher = matcher;
+        }
+        return matcher;
     }
 
     /**
-     * Check if log entry matches a specific pattern
+     * Fingerprint of the configuration parts that decide which entries are messages
+     * Parse results cached under another fingerprint (see PnrResultCache) are parsed again.
      */
-    private boolean matchesPattern(String logEntry, PnrPatternConfig.MessagePattern pattern) {
-        String type = pattern.getType();
-
-        if ("contains".equals(type)) {
-            return logEntry.contains(pattern.getValue());
-        } else if ("startsWith".equals(type)) {
-            return logEntry.trim().startsWith(pattern.getValue());
-        } else if ("multiple".equals(type)) {
-            // For multiple conditions, all conditions must match
-            List<PnrPatternConfig.MessagePattern.Condition> conditions = pattern.getConditions();
-            if (conditions == null || conditions.isEmpty()) {
-                return false;
-            }
-
-            for (PnrPatternConfig.MessagePattern.Condition condition : conditions) {
-                if ("contains".equals(condition.getType())) {
-                    if (!logEntry.contains(condition.getValue())) {
-                        return false;
-                    }
-                } else if ("startsWith".equals(condition.getType())) {
-                    if (!logEntry.trim().startsWith(condition.getValue())) {
-                        return false;
-                    }
-                }
-            }
-
-            return true; // All conditions matched
+    public long resultCacheFingerprint() {
+        AdvancedParserConfig config = advancedConfig;
+        if (config == null || config.getPnrConfig() == null) {
+            return 0;
         }
-
-        return false;
+        return StartPatternMatcher.fingerprintPnr(config.getPnrConfig().getMessageStartPatterns());
     }
 
     /**
      * Parse a single log entry containing a PNR message
      */
-    private PnrMessage parseLogEntry(String logEntry, String targetFlightNumber, MessageType explicitMessageType) {
+    private PnrMessage parseLogEntry(EntryContext context, String logEntry, int entryNum) {
+        ParseSettings settings = context.settings;
+        Collection<String> targetFlightNumbers = settings.targetFlightNumbers;
+        MessageType explicitMessageType = settings.messageType;
         try {
-            // Extract timestamp
-            String timestamp = extractTimestamp(logEntry);
-            
-            // Extract trace ID
-            String traceId = extractTraceId(logEntry);
-            
-            // Determine message direction - use explicit type if provided, otherwise auto-detect
-            MessageType direction = explicitMessageType != null ? explicitMessageType : determineMessageDirection(logEntry);
-            
             // Extract the EDIFACT message content
             String edifactContent = extractEdifactContent(logEntry);
             if (edifactContent == null || edifactContent.trim().isEmpty()) {
-                if (debugMode) {
-                    logProgress("        → extractEdifactContent returned null/empty");
+                if (settings.debugMode) {
+                    settings.trace(TraceEvent.Type.PNR_NO_EDIFACT, entryNum, 0, 0, null);
                 }
                 return null;
             }
             
-            if (debugMode) {
-                logProgress("        → Extracted EDIFACT content: " + edifactContent.substring(0, Math.min(100, edifactContent.length())) + "...");
+            if (settings.debugMode) {
+                settings.trace(TraceEvent.Type.PNR_EDIFACT_CONTENT, entryNum, 0, 0,
+                        (Supplier<String>) () -> edifactContent.substring(0, Math.min(100, edifactContent.length())));
             }
             
             // Parse the EDIFACT message
-            PnrMessage message = parseEdifactMessage(edifactContent);
+            PnrMessage message = parseEdifactMessage(context, edifactContent);
             if (message == null) {
-                if (debugMode) {
-                    logProgress("        → parseEdifactMessage returned null");
+                if (settings.debugMode) {
+                    settings.trace(TraceEvent.Type.PNR_NO_MESSAGE, entryNum, 0, 0, null);
                 }
                 return null;
             }
             
+            // Filter by flight number as soon as UNH/TVL are known, before the rest of the entry is parsed
+            // (isFlightMatch also accepts a flight that is part of the target, even an empty one, so no
+            // raw-text check could reject an entry earlier without changing the results)
+            if (hasFlightFilter(targetFlightNumbers)) {
+                boolean flightMatches = false;
+                for (String targetFlightNumber : targetFlightNumbers) {
+                    if (isFlightMatch(message, targetFlightNumber)) {
+                        flightMatches = true;
+                        break;
+                    }
+                }
+                if (settings.debugMode) {
+                    String messageFlight = message.getFlightNumber();
+                    settings.trace(TraceEvent.Type.PNR_FLIGHT_FILTER, entryNum, 0, flightMatches ? 1 : 0,
+                            (Supplier<String>) () -> "target=" + String.join(",", targetFlightNumbers) + ", message=" + messageFlight);
+                }
+                if (!flightMatches) {
+                    return null;
+                }
+            }
+            
+            // Extract timestamp
+            String timestamp = extractTimestamp(logEntry);
+            
+            // Extract trace ID
+            String traceId = extractTraceId(logEntry);
+            
+            // Determine message direction - use explicit type if provided, otherwise auto-detect
+            MessageType direction = explicitMessageType != null ? explicitMessageType : determineMessageDirection(logEntry);
+            
             // Set additional properties
             message.setLogTimestamp(timestamp);
             message.setLogTraceId(traceId);
             message.setDirection(direction);
             message.setRawContent(edifactContent);
-            
-            // Filter by flight number if specified
-            if (targetFlightNumber != null && !targetFlightNumber.trim().isEmpty()) {
-                boolean flightMatches = isFlightMatch(message, targetFlightNumber);
-                if (debugMode) {
-                    logProgress("        → Flight filter: target=" + targetFlightNumber + 
-                               ", message=" + message.getFlightNumber() + 
-                               ", matches=" + flightMatches);
-                }
-                if (!flightMatches) {
-                    return null;
-                }
+            PnrSeparators separators = message.getSeparators();
+            if (separators != null) {
+                message.setContentFingerprint(ContentFingerprint.ofEdifact(edifactContent,
+                        separators.getTerminatorSeparator(), separators.getReleaseIndicator()));
             }
             
             return message;
             
         } catch (Exception e) {
-            if (debugMode) {
-                logProgress("        → Exception during parsing: " + e.getMessage());
+            if (settings.debugMode) {
+                settings.trace(TraceEvent.Type.PNR_ENTRY_ERROR, entryNum, 0, 0, String.valueOf(e.getMessage()));
             }
             System.err.println("Error parsing log entry: " + e.getMessage());
             return null;
@@ -303,20 +640,21 @@ public class PnrEdifactParser {
     /**
      * Parse EDIFACT message content
      */
-    private PnrMessage parseEdifactMessage(String edifactContent) {
+    private PnrMessage parseEdifactMessage(EntryContext context, String edifactContent) {
+        ParseSettings settings = context.settings;
         PnrMessage message = new PnrMessage();
         
         // Detect separators from UNA segment for this specific message
         // Each message is processed independently - if it has UNA, use those separators
         // If it doesn't have UNA, use default separators
-        boolean shouldLogSeparators = debugMode && !separatorDetailsLogged;
-        PnrSeparators separators = detectSeparators(edifactContent, shouldLogSeparators);
+        // Only the first message of a file logs its separators (to avoid spam), whichever worker parses it
+        boolean shouldLogSeparators = settings.debugMode && !separatorDetailsLogged.get()
+                && separatorDetailsLogged.compareAndSet(false, true);
+        PnrSeparators separators = detectSeparators(context, edifactContent, shouldLogSeparators);
 
-        // Mark that we've logged separators for this file (to avoid spam)
         if (shouldLogSeparators && separators != null) {
-            separatorDetailsLogged = true;
             // Log the detected separators
-            logProgress("    Separators detected: " + separators.toString());
+            settings.trace(TraceEvent.Type.PNR_SEPARATORS, 0, 0, 0, separators.toString());
         }
 
         message.setSeparators(separators);
@@ -337,21 +675,39 @@ public class PnrEdifactParser {
      * Detect EDIFACT separators from UNA or UNB segment
      * @param enableLogging If true, log the separator detection details (should only be enabled once per file)
      */
-    private PnrSeparators detectSeparators(String edifactContent, boolean enableLogging) {
+    private PnrSeparators detectSeparators(EntryContext context, String edifactContent, boolean enableLogging) {
         // Try to find UNA segment first
         // UNA must be at the start of content or preceded only by whitespace/newlines
         // This prevents false matches with words like "UNABLE", "TUNA", etc.
         int unaIndex = findUnaSegmentStart(edifactContent);
         if (unaIndex >= 0) {
+            if (enableLogging) {
+                logProgress("  Found UNA segment, extracting separators");
+            }
             int unaEnd = edifactContent.indexOf('\n', unaIndex);
             if (unaEnd == -1) unaEnd = edifactContent.indexOf(' ', unaIndex + 9);
             if (unaEnd == -1) unaEnd = Math.min(unaIndex + 15, edifactContent.length());
-            
-            String unaSegment = edifactContent.substring(unaIndex, unaEnd).trim();
-            if (enableLogging) {
-                logProgress("  Found UNA segment, extracting separators");
+
+            // The separators only depend on the nine header characters, unless a line break or
+            // trailing whitespace cuts the segment short; such headers are parsed every time
+            if (!isCacheableUnaHeader(edifactContent, unaIndex)) {
+                context.separatorMisses++;
+                return PnrSeparators.fromUnaSegment(edifactContent.substring(unaIndex, unaEnd).trim());
+            }
+            PnrSeparators separators = SEPARATOR_CACHE.get(edifactContent, unaIndex);
+            if (separators != null) {
+                context.separatorHits++;
+            } else {
+                context.separatorMisses++;
+                separators = SEPARATOR_CACHE.put(edifactContent, unaIndex, PnrSeparators.fromUnaSegment(
+                        edifactContent.substring(unaIndex, unaIndex + SeparatorCache.HEADER_LENGTH)));
+            }
+            // Cached separators hold the header as their raw UNA segment; a message with more text
+            // on the header's line gets a copy with its own segment
+            int segmentEnd = trimmedEnd(edifactContent, unaIndex + SeparatorCache.HEADER_LENGTH, unaEnd);
+            if (segmentEnd > unaIndex + SeparatorCache.HEADER_LENGTH) {
+                return separators.withRawUnaSegment(edifactContent.substring(unaIndex, segmentEnd));
             }
-            PnrSeparators separators = PnrSeparators.fromUnaSegment(unaSegment);
             return separators;
         }
         
@@ -406,10 +762,24 @@ public class PnrEdifactParser {
     }
 
     /**
-     * Detect separators with logging enabled (for backward compatibility)
+     * Check that the UNA segment found at unaIndex is not cut short within its nine characters:
+     * no line break inside, and a last character that trimming cannot remove
      */
-    private PnrSeparators detectSeparators(String edifactContent) {
-        return detectSeparators(edifactContent, false); // Default to no logging per message
+    private static boolean isCacheableUnaHeader(String content, int unaIndex) {
+        for (int i = unaIndex + 3; i < unaIndex + SeparatorCache.HEADER_LENGTH; i++) {
+            if (content.charAt(i) == '\n') {
+                return false;
+            }
+        }
+        return content.charAt(unaIndex + SeparatorCache.HEADER_LENGTH - 1) > ' ';
+    }
+
+    // End of content[from, to) without trailing whitespace, like String.trim
+    private static int trimmedEnd(String content, int from, int to) {
+        while (to > from && content.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
     }
 
     /**
@@ -483,15 +853,17 @@ public class PnrEdifactParser {
             return false;
         }
         
-        // Extract the 6 potential separator characters after "UNA"
-        String potentialSeparators = content.substring(unaIndex + 3, unaIndex + 9);
-        
-        // Check 1: Not all characters should be letters ("UNABLE" would fail this)
+        // Check 1 on the 6 potential separator characters after "UNA": not all should be letters ("UNABLE" would fail this)
         int letterCount = 0;
-        for (char c : potentialSeparators.toCharArray()) {
+        boolean hasTypicalSeparators = false;
+        for (int i = unaIndex + 3; i < unaIndex + 9; i++) {
+            char c = content.charAt(i);
             if (Character.isLetter(c)) {
                 letterCount++;
             }
+            if (TYPICAL_SEPARATORS.indexOf(c) >= 0) {
+                hasTypicalSeparators = true;
+            }
         }
         // If more than 3 characters are letters, it's likely a word, not separators
         if (letterCount > 3) {
@@ -500,19 +872,15 @@ public class PnrEdifactParser {
         
         // Check 2: After UNA + 6 separators, we should typically see "UNB"
         // Look ahead to see if there's a valid EDIFACT segment tag
-        if (unaIndex + 12 <= content.length()) {
-            String nextThreeChars = content.substring(unaIndex + 9, unaIndex + 12);
+        if (unaIndex + 12 <= content.length() && content.startsWith("UN", unaIndex + 9)) {
             // Common EDIFACT segment tags after UNA
-            if (nextThreeChars.equals("UNB") || nextThreeChars.equals("UNH") || 
-                nextThreeChars.equals("UNG") || nextThreeChars.equals("UNZ")) {
+            char tag = content.charAt(unaIndex + 11);
+            if (tag == 'B' || tag == 'H' || tag == 'G' || tag == 'Z') {
                 return true;
             }
         }
         
-        // Check 3: The 6 characters should include typical separator characters
-        // Typical separators include: : + . ? * ' ~ ! | -
-        boolean hasTypicalSeparators = potentialSeparators.matches(".*[+:'.*?|~!-].*");
-        
+        // Check 3: The 6 characters should include typical separator characters (counted above)
         return hasTypicalSeparators;
     }
 
@@ -773,11 +1141,17 @@ public class PnrEdifactParser {
         // Find the end of the EDIFACT message
         int endIndex = logEntry.length();
         
-        // Look for UNZ segment which typically ends PNR messages
-        int unzIndex = logEntry.indexOf("UNZ+", startIndex);
+        // Look for UNZ segment which typically ends PNR messages (with the separators of the UNA header, if any)
+        char elementSeparator = '+';
+        char segmentTerminator = '\'';
+        if (logEntry.startsWith("UNA", startIndex) && startIndex + 8 < logEntry.length()) {
+            elementSeparator = logEntry.charAt(startIndex + 4);
+            segmentTerminator = logEntry.charAt(startIndex + 8);
+        }
+        int unzIndex = logEntry.indexOf("UNZ" + elementSeparator, startIndex);
         if (unzIndex > 0) {
             // Find the terminator after UNZ
-            int terminatorIndex = logEntry.indexOf('\'', unzIndex);
+            int terminatorIndex = logEntry.indexOf(segmentTerminator, unzIndex);
             if (terminatorIndex > 0) {
                 endIndex = terminatorIndex + 1;
             }
@@ -818,9 +1192,25 @@ public class PnrEdifactParser {
     }
 
     /**
-     * Check if the parsed message matches the target flight number
+     * Check if the flight filter applies: only when every target has a flight number
+     */
+    private boolean hasFlightFilter(Collection<String> targetFlightNumbers) {
+        if (targetFlightNumbers == null || targetFlightNumbers.isEmpty()) {
+            return false;
+        }
+        for (String targetFlightNumber : targetFlightNumbers) {
+            if (targetFlightNumber == null || targetFlightNumber.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the parsed message matches the target flight number, the way parseLogContent filters it
+     * An empty target matches every message.
      */
-    private boolean isFlightMatch(PnrMessage message, String targetFlightNumber) {
+    public boolean isFlightMatch(PnrMessage message, String targetFlightNumber) {
         if (targetFlightNumber == null || targetFlightNumber.trim().isEmpty()) {
             return true;
         }
@@ -0,0 +1,132 @@
+package com.l3.logparser.pnr.service;
+
+import com.l3.logparser.pnr.model.PnrMessage;
+import com.l3.logparser.pnr.model.PnrMultipartGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Assembles multipart PNR messages into groups while the log files are scanned
+ * Parts are grouped by group ID (message reference number and flight). A group is reported as soon as it
+ * is assembled - it has its final part ("F" indicator) and every part below the highest part number - and
+ * then released: only its ID and part count are kept, so a late part (e.g. a resend) is counted with its
+ * group instead of opening a new one. The groups held are the ones still waiting for parts.
+ */
+public final class MultipartGroupAssembler {
+
+    private final Consumer<PnrMultipartGroup> onAssembled;
+    private final Map<String, PnrMultipartGroup> openGroups = new LinkedHashMap<>(); // In the order of their first part
+    private final Map<String, Integer> assembledPartCounts = new HashMap<>(); // Released groups
+    private int peakOpenGroups;
+
+    public MultipartGroupAssembler() {
+        this(null);
+    }
+
+    /**
+     * @param onAssembled Receives each group once it is assembled, before it is released (optional)
+     */
+    public MultipartGroupAssembler(Consumer<PnrMultipartGroup> onAssembled) {
+        this.onAssembled = onAssembled;
+    }
+
+    /**
+     * Add a part to its group, creating the group for its first part
+     */
+    public void add(PnrMessage message) {
+        String groupId = message.getGroupId();
+        Integer assembledParts = assembledPartCounts.get(groupId);
+        if (assembledParts != null) {
+            assembledPartCounts.put(groupId, assembledParts + 1);
+            return;
+        }
+
+        PnrMultipartGroup group = openGroups.get(groupId);
+        if (group == null) {
+            group = new PnrMultipartGroup(groupId, message.getMessageReferenceNumber(), message.getFlightNumber());
+            openGroups.put(groupId, group);
+            peakOpenGroups = Math.max(peakOpenGroups, openGroups.size());
+        }
+        group.addPart(message);
+        releaseIfAssembled(group);
+    }
+
+    /**
+     * Replace a part added earlier by a more complete duplicate
+     * A duplicate has the same UNH segment, so it does not change the part number of an assembled group.
+     * @return false if the previous message was not added
+     */
+    public boolean replace(PnrMessage previous, PnrMessage replacement) {
+        String groupId = previous.getGroupId();
+        if (assembledPartCounts.containsKey(groupId)) {
+            return true;
+        }
+        PnrMultipartGroup group = openGroups.get(groupId);
+        if (group == null || !group.replacePart(previous, replacement)) {
+            return false;
+        }
+        releaseIfAssembled(group);
+        return true;
+    }
+
+    private void releaseIfAssembled(PnrMultipartGroup group) {
+        if (!group.isAssembled()) {
+            return;
+        }
+        if (onAssembled != null) {
+            onAssembled.accept(group);
+        }
+        openGroups.remove(group.getGroupId());
+        assembledPartCounts.put(group.getGroupId(), group.getActualPartCount());
+    }
+
+    /**
+     * Groups still waiting for parts, in the order of their first part
+     */
+    public List<PnrMultipartGroup> getOpenGroups() {
+        return new ArrayList<>(openGroups.values());
+    }
+
+    /**
+     * IDs of the groups that were assembled and released
+     */
+    public Set<String> getAssembledGroupIds() {
+        return Collections.unmodifiableSet(assembledPartCounts.keySet());
+    }
+
+    /**
+     * Number of parts of an assembled group, late parts included (0 if the group is not assembled)
+     */
+    public int getAssembledPartCount(String groupId) {
+        return assembledPartCounts.getOrDefault(groupId, 0);
+    }
+
+    /**
+     * Number of groups still waiting for parts
+     */
+    public int getOpenGroupCount() {
+        return openGroups.size();
+    }
+
+    /**
+     * Largest number of groups that were waiting for parts at the same time
+     */
+    public int getPeakOpenGroupCount() {
+        return peakOpenGroups;
+    }
+
+    public int getAssembledGroupCount() {
+        return assembledPartCounts.size();
+    }
+
+    public int getGroupCount() {
+        return openGroups.size() + assembledPartCounts.size();
+    }
+}
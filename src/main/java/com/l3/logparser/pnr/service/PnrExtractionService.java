@@ -1,13 +1,26 @@
 package com.l3.logparser.pnr.service;
 
+import com.l3.common.util.ContentFingerprint;
+import com.l3.common.util.FingerprintIndex;
+import com.l3.common.util.GzipLogFiles;
+import com.l3.common.util.LogTimeWindow;
+import com.l3.common.util.MessageFileWriter;
+import com.l3.common.util.RawContentStore;
 import com.l3.logparser.pnr.model.*;
 import com.l3.logparser.pnr.parser.PnrEdifactParser;
 import com.l3.logparser.enums.MessageType;
 import com.l3.logparser.config.AdvancedParserConfig;
+import com.l3.logparser.model.ExtractionListener;
+import com.l3.logparser.model.ExtractionMonitor;
+import com.l3.logparser.model.FlightCriteria;
+import com.l3.logparser.model.ParseTrace;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -16,7 +29,7 @@ import java.util.stream.Collectors;
  * Handles MessageMHPNRGOV.log* files (input) and MessageForwarder.log* files (output)
  * Coordinates multipart message assembly for input messages
  */
-public class PnrExtractionService {
+public class PnrExtractionService implements AutoCloseable {
 
     private final PnrEdifactParser parser;
     private static final List<String> PNR_INPUT_LOG_PATTERNS = Arrays.asList(
@@ -32,8 +45,28 @@ public class PnrExtractionService {
     // Debug mode flag
     private boolean debugMode = false;
 
+    // Number of threads parsing the log entries of one file
+    private int maxParallelChunks = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    // Cancellation token and progress counters of the next extraction (optional)
+    private ExtractionMonitor extractionMonitor;
+    private LogTimeWindow timeWindow;
+
+    // Store the raw contents of extracted messages are moved to (null keeps them in memory)
+    private RawContentStore rawContentStore;
+
+    // Persistent cache of the messages parsed from each file, used when no time window is set
+    private boolean resultCacheEnabled = true;
+    private PnrResultCache resultCache = new PnrResultCache(
+            Paths.get(System.getProperty("user.home"), ".l3engine", "pnr-result-cache"));
+    private int resultCacheHits;
+
+    // Files and bytes written by the last save
+    private volatile MessageFileWriter.Stats lastSaveStats;
+
     public PnrExtractionService() {
         this.parser = new PnrEdifactParser();
+        this.parser.setParallelism(maxParallelChunks);
     }
 
     /**
@@ -72,6 +105,102 @@ public class PnrExtractionService {
         this.parser.setDebugMode(debugMode);
     }
 
+    /**
+     * Set the number of threads parsing the log entries of one file (1 parses on the extraction thread)
+     */
+    public void setMaxParallelChunks(int maxParallelChunks) {
+        this.maxParallelChunks = Math.max(1, maxParallelChunks);
+        this.parser.setParallelism(this.maxParallelChunks);
+    }
+
+    public int getMaxParallelChunks() {
+        return maxParallelChunks;
+    }
+
+    /**
+     * Release the threads of the parser; the service can still be used afterwards
+     */
+    @Override
+    public void close() {
+        parser.close();
+    }
+
+    /**
+     * Set the monitor used to cancel extractions and follow their progress
+     * Cancelling stops the parser at its next log entry; the extraction then returns a result
+     * marked as cancelled. Use a new monitor for each extraction.
+     */
+    public void setExtractionMonitor(ExtractionMonitor extractionMonitor) {
+        this.extractionMonitor = extractionMonitor;
+        this.parser.setExtractionMonitor(extractionMonitor);
+    }
+
+    public ExtractionMonitor getExtractionMonitor() {
+        return extractionMonitor;
+    }
+
+    /**
+     * Set the trace that receives the parser's debug events in debug mode (null to pass them to the debug logger)
+     * Drain it with a TraceDrainer; the parsing threads only record the events.
+     */
+    public void setParseTrace(ParseTrace parseTrace) {
+        parser.setParseTrace(parseTrace);
+    }
+
+    public ParseTrace getParseTrace() {
+        return parser.getParseTrace();
+    }
+
+    /**
+     * Restrict extractions to the log entries of a time window (e.g. the hours around departure)
+     * Files are read only in the byte range of the window, and rotated files completely outside it are skipped.
+     * @param timeWindow The window, or null to read the complete files
+     */
+    public void setTimeWindow(LogTimeWindow timeWindow) {
+        this.timeWindow = timeWindow;
+    }
+
+    public LogTimeWindow getTimeWindow() {
+        return timeWindow;
+    }
+
+    /**
+     * Keep the raw contents of extracted messages in a store instead of in memory
+     * The content of each file's messages is moved to the store once the file is parsed; it is loaded
+     * again when a message is saved, previewed or compared. Use a new store for each extraction whose
+     * results are kept, the store file lives as long as the messages referring to it.
+     * @param rawContentStore The store, or null to keep the contents in memory
+     */
+    public void setRawContentStore(RawContentStore rawContentStore) {
+        this.rawContentStore = rawContentStore;
+    }
+
+    public RawContentStore getRawContentStore() {
+        return rawContentStore;
+    }
+
+    /**
+     * Enable or disable the persistent result cache (see PnrResultCache)
+     */
+    public void setResultCacheEnabled(boolean resultCacheEnabled) {
+        this.resultCacheEnabled = resultCacheEnabled;
+    }
+
+    public boolean isResultCacheEnabled() {
+        return resultCacheEnabled;
+    }
+
+    /**
+     * Set the directory the result cache is stored in (default ~/.l3engine/pnr-result-cache)
+     */
+    public void setResultCacheDirectory(Path resultCacheDirectory) {
+        this.resultCache = new PnrResultCache(resultCacheDirectory);
+    }
+
+    public Path getResultCacheDirectory() {
+        return resultCache.getDirectory();
+    }
+
     /**
      * Log progress message
      */
@@ -96,6 +225,22 @@ public class PnrExtractionService {
                                                  String departureDate,
                                                  String departureAirport,
                                                  String arrivalAirport) {
+        return extractPnrMessages(logDirectoryPath, flightNumber, departureDate, departureAirport, arrivalAirport, null);
+    }
+
+    /**
+     * Extract PNR messages for a specific flight and report them while the files are scanned
+     * Each message is passed to the listener right after its file has been parsed, if it matches the
+     * criteria and is not a duplicate; a larger duplicate found later is reported as a replacement.
+     * @param listener Receives messages and file completion events (optional)
+     * @return PnrExtractionResult containing found messages and processing info
+     */
+    public PnrExtractionResult extractPnrMessages(String logDirectoryPath,
+                                                 String flightNumber,
+                                                 String departureDate,
+                                                 String departureAirport,
+                                                 String arrivalAirport,
+                                                 ExtractionListener<PnrMessage> listener) {
 
         PnrExtractionResult result = new PnrExtractionResult();
         result.setFlightNumber(flightNumber);
@@ -125,115 +270,363 @@ public class PnrExtractionService {
                 return result;
             }
 
-            logProgress("");
-            logProgress("Phase 1: Discovering log files...");
+            FlightCriteria flight = new FlightCriteria(flightNumber, departureDate, departureAirport, arrivalAirport);
+            FlightCollector collector = new FlightCollector(flight);
+            BiConsumer<Path, List<PnrMessage>> fileHandler = collector::addFile;
+            scanLogFiles(logDir, Collections.singletonList(flightNumber), result,
+                    listener != null ? fileHandler.andThen(streamTo(flight, listener)) : fileHandler);
+            completeResult(result, collector);
 
-            // Find and process PNR log files (both input and output)
-            List<PnrMessage> allMessages = new ArrayList<>();
-            int totalFilesProcessed = 0;
+        } catch (Exception e) {
+            if (ExtractionMonitor.isCancellation(e)) {
+                result.setCancelled(true);
+                result.addError("Extraction cancelled");
+                logProgress("Extraction cancelled");
+                return result;
+            }
+            String error = "Error processing PNR log directory: " + e.getMessage();
+            result.addError(error);
+            logProgress("ERROR: " + error);
+            e.printStackTrace();
+        }
 
-            // Process input log files (MessageMHPNRGOV.log*)
-            logProgress("Searching for INPUT log files (patterns: " + PNR_INPUT_LOG_PATTERNS + ")");
-            for (String pattern : PNR_INPUT_LOG_PATTERNS) {
-                List<Path> logFiles = findLogFiles(logDir, pattern);
-                logProgress("  Found " + logFiles.size() + " file(s) matching pattern: " + pattern);
+        return result;
+    }
 
-                for (Path logFile : logFiles) {
-                    totalFilesProcessed++;
-                    logProgress("");
-                    logProgress("Processing INPUT file [" + totalFilesProcessed + "]: " + logFile.getFileName());
-                    logProgress("  File size: " + formatFileSize(Files.size(logFile)));
+    /**
+     * Extract PNR messages for several flights with one pass over the log files
+     * The files are read and parsed once for all flight numbers together; every message is then routed
+     * to the flights it belongs to, and each flight gets its own deduplication, multipart grouping and
+     * completeness analysis. Each result equals what extractPnrMessages returns for that flight alone.
+     * @param flights Criteria of the flights to extract
+     * @return One PnrExtractionResult per flight, in the order of the criteria
+     */
+    public List<PnrExtractionResult> extractPnrMessagesBatch(String logDirectoryPath, List<FlightCriteria> flights) {
+        List<PnrExtractionResult> results = new ArrayList<>();
+        for (FlightCriteria flight : flights) {
+            PnrExtractionResult result = new PnrExtractionResult();
+            result.setFlightNumber(flight.getFlightNumber());
+            result.setLogDirectoryPath(logDirectoryPath);
+            results.add(result);
+        }
+        if (flights.isEmpty()) {
+            return results;
+        }
 
-                    List<PnrMessage> fileMessages = processLogFile(logFile, flightNumber, MessageType.INPUT);
-                    allMessages.addAll(fileMessages);
-                    result.addProcessedFile(logFile.toString() + " (INPUT)");
+        logProgress("=".repeat(80));
+        logProgress("Starting PNR batch extraction for " + flights.size() + " flight(s)");
+        for (FlightCriteria flight : flights) {
+            logProgress("Target Flight: " + flight);
+        }
+        logProgress("Log Directory: " + logDirectoryPath);
+        logProgress("=".repeat(80));
 
-                    logProgress("  Extracted " + fileMessages.size() + " message(s) from this file");
+        try {
+            Path logDir = Paths.get(logDirectoryPath);
+            if (!Files.exists(logDir) || !Files.isDirectory(logDir)) {
+                String error = "Log directory does not exist: " + logDirectoryPath;
+                results.forEach(result -> result.addError(error));
+                logProgress("ERROR: " + error);
+                return results;
+            }
+
+            // One scan for all flights; the messages of each file are routed to their flights once it is parsed
+            PnrExtractionResult scanResult = new PnrExtractionResult();
+            List<String> flightNumbers = flights.stream().map(FlightCriteria::getFlightNumber).collect(Collectors.toList());
+            List<FlightCollector> collectors = new ArrayList<>();
+            for (FlightCriteria flight : flights) {
+                collectors.add(new FlightCollector(flight));
+            }
+            scanLogFiles(logDir, flightNumbers, scanResult, (logFile, fileMessages) -> {
+                for (FlightCollector collector : collectors) {
+                    for (PnrMessage message : fileMessages) {
+                        if (parser.isFlightMatch(message, collector.flight.getFlightNumber())) {
+                            collector.add(message);
+                        }
+                    }
                 }
+            });
+
+            for (int i = 0; i < flights.size(); i++) {
+                FlightCriteria flight = flights.get(i);
+                PnrExtractionResult result = results.get(i);
+                scanResult.getProcessedFiles().forEach(result::addProcessedFile);
+                result.setSeparatorCacheStats(scanResult.getSeparatorCacheHits(), scanResult.getSeparatorCacheMisses());
+
+                FlightCollector collector = collectors.get(i);
+                logProgress("");
+                logProgress("Flight " + flight + ": " + collector.messageCount + " message(s) found");
+                completeResult(result, collector);
             }
 
-            // Process output log files (MessageForwarder.log*)
-            logProgress("");
-            logProgress("Searching for OUTPUT log files (patterns: " + PNR_OUTPUT_LOG_PATTERNS + ")");
-            for (String pattern : PNR_OUTPUT_LOG_PATTERNS) {
-                List<Path> logFiles = findLogFiles(logDir, pattern);
-                logProgress("  Found " + logFiles.size() + " file(s) matching pattern: " + pattern);
+        } catch (Exception e) {
+            if (ExtractionMonitor.isCancellation(e)) {
+                results.forEach(result -> {
+                    result.setCancelled(true);
+                    result.addError("Extraction cancelled");
+                });
+                logProgress("Extraction cancelled");
+                return results;
+            }
+            String error = "Error processing PNR log directory: " + e.getMessage();
+            results.forEach(result -> result.addError(error));
+            logProgress("ERROR: " + error);
+            e.printStackTrace();
+        }
 
-                for (Path logFile : logFiles) {
-                    totalFilesProcessed++;
-                    logProgress("");
-                    logProgress("Processing OUTPUT file [" + totalFilesProcessed + "]: " + logFile.getFileName());
-                    logProgress("  File size: " + formatFileSize(Files.size(logFile)));
+        return results;
+    }
 
-                    List<PnrMessage> fileMessages = processLogFile(logFile, flightNumber, MessageType.OUTPUT);
-                    allMessages.addAll(fileMessages);
-                    result.addProcessedFile(logFile.toString() + " (OUTPUT)");
+    /**
+     * Phase 1: read and parse the input and output log files for the given flight numbers
+     * Processed files and separator cache statistics are recorded in the result.
+     * The extraction monitor (if set) is started with the size of all files and counts completed files.
+     * @param fileHandler Receives the messages of each file right after it was parsed; they are not kept otherwise
+     */
+    private void scanLogFiles(Path logDir, List<String> flightNumbers, PnrExtractionResult result,
+                              BiConsumer<Path, List<PnrMessage>> fileHandler) throws IOException {
+        logProgress("");
+        logProgress("Phase 1: Discovering log files...");
+
+        // Find and process PNR log files (both input and output)
+        int totalMessages = 0;
+        int totalFilesProcessed = 0;
+        parser.resetSeparatorCacheStats();
+        resultCacheHits = 0;
+
+        // Files are looked up first, so the monitor knows the total size before the first one is read
+        Map<String, List<Path>> inputFiles = new LinkedHashMap<>();
+        Map<String, List<Path>> outputFiles = new LinkedHashMap<>();
+        for (String pattern : PNR_INPUT_LOG_PATTERNS) {
+            inputFiles.put(pattern, findLogFiles(logDir, pattern));
+        }
+        for (String pattern : PNR_OUTPUT_LOG_PATTERNS) {
+            outputFiles.put(pattern, findLogFiles(logDir, pattern));
+        }
+        ExtractionMonitor monitor = extractionMonitor;
+        if (monitor != null) {
+            List<Path> allFiles = new ArrayList<>();
+            inputFiles.values().forEach(allFiles::addAll);
+            outputFiles.values().forEach(allFiles::addAll);
+            long totalBytes = 0;
+            for (Path logFile : allFiles) {
+                totalBytes += Files.size(logFile);
+            }
+            monitor.start(allFiles.size(), totalBytes);
+        }
 
-                    logProgress("  Extracted " + fileMessages.size() + " message(s) from this file");
+        // Process input log files (MessageMHPNRGOV.log*)
+        logProgress("Searching for INPUT log files (patterns: " + PNR_INPUT_LOG_PATTERNS + ")");
+        for (String pattern : PNR_INPUT_LOG_PATTERNS) {
+            List<Path> logFiles = inputFiles.get(pattern);
+            logProgress("  Found " + logFiles.size() + " file(s) matching pattern: " + pattern);
+
+            for (Path logFile : logFiles) {
+                totalFilesProcessed++;
+                logProgress("");
+                logProgress("Processing INPUT file [" + totalFilesProcessed + "]: " + logFile.getFileName());
+                logProgress("  File size: " + formatFileSize(Files.size(logFile)));
+
+                List<PnrMessage> fileMessages = processLogFile(logFile, flightNumbers, MessageType.INPUT);
+                totalMessages += fileMessages.size();
+                result.addProcessedFile(logFile.toString() + " (INPUT)");
+                fileHandler.accept(logFile, fileMessages);
+                if (monitor != null) {
+                    monitor.fileCompleted();
                 }
+
+                logProgress("  Extracted " + fileMessages.size() + " message(s) from this file");
             }
+        }
 
-            logProgress("");
-            logProgress("=".repeat(80));
-            logProgress("Phase 2: Processing extracted messages");
-            logProgress("Total files processed: " + totalFilesProcessed);
-            logProgress("Total messages found: " + allMessages.size());
+        // Process output log files (MessageForwarder.log*)
+        logProgress("");
+        logProgress("Searching for OUTPUT log files (patterns: " + PNR_OUTPUT_LOG_PATTERNS + ")");
+        for (String pattern : PNR_OUTPUT_LOG_PATTERNS) {
+            List<Path> logFiles = outputFiles.get(pattern);
+            logProgress("  Found " + logFiles.size() + " file(s) matching pattern: " + pattern);
+
+            for (Path logFile : logFiles) {
+                totalFilesProcessed++;
+                logProgress("");
+                logProgress("Processing OUTPUT file [" + totalFilesProcessed + "]: " + logFile.getFileName());
+                logProgress("  File size: " + formatFileSize(Files.size(logFile)));
+
+                List<PnrMessage> fileMessages = processLogFile(logFile, flightNumbers, MessageType.OUTPUT);
+                totalMessages += fileMessages.size();
+                result.addProcessedFile(logFile.toString() + " (OUTPUT)");
+                fileHandler.accept(logFile, fileMessages);
+                if (monitor != null) {
+                    monitor.fileCompleted();
+                }
 
-            // Remove duplicate messages (same message ID from multiple files)
-            logProgress("");
-            logProgress("Removing duplicate messages...");
-            List<PnrMessage> deduplicatedMessages = removeDuplicateMessages(allMessages);
-            int duplicatesRemoved = allMessages.size() - deduplicatedMessages.size();
-            if (duplicatesRemoved > 0) {
-                logProgress("  Removed " + duplicatesRemoved + " duplicate message(s)");
-            } else {
-                logProgress("  No duplicates found");
-            }
-            logProgress("  Unique messages: " + deduplicatedMessages.size());
-
-            // Group multipart messages
-            logProgress("");
-            logProgress("Grouping multipart messages...");
-            List<PnrMultipartGroup> groups = groupMultipartMessages(deduplicatedMessages);
-            logProgress("  Created " + groups.size() + " message group(s)");
-
-            // Analyze completeness (only for groups matching target flight criteria)
-            logProgress("");
-            logProgress("Analyzing message completeness...");
-            analyzeCompleteness(groups, result, flightNumber, departureDate, departureAirport, arrivalAirport);
-            logProgress("  Complete groups: " + result.getCompleteGroups());
-            logProgress("  Incomplete groups: " + result.getIncompleteGroups());
-
-            // Filter messages based on additional criteria
-            logProgress("");
-            logProgress("Applying flight criteria filters...");
-            List<PnrMessage> filteredMessages = filterMessages(deduplicatedMessages,
-                    flightNumber, departureDate, departureAirport, arrivalAirport);
-            logProgress("  Messages matching criteria: " + filteredMessages.size());
-
-            result.setExtractedMessages(filteredMessages);
-            result.setMultipartGroups(groups);
-            result.setSuccess(true);
-
-            logProgress("");
-            logProgress("=".repeat(80));
-            if (filteredMessages.isEmpty()) {
-                logProgress("WARNING: No PNR messages found matching the specified criteria");
-                result.addWarning("No PNR messages found matching the specified criteria");
-            } else {
-                logProgress("SUCCESS: Extraction completed successfully");
-                logProgress("Final result: " + filteredMessages.size() + " message(s) ready for analysis");
+                logProgress("  Extracted " + fileMessages.size() + " message(s) from this file");
             }
-            logProgress("=".repeat(80));
+        }
 
-        } catch (Exception e) {
-            String error = "Error processing PNR log directory: " + e.getMessage();
-            result.addError(error);
-            logProgress("ERROR: " + error);
-            e.printStackTrace();
+        if (monitor != null) {
+            monitor.finish();
         }
+        logProgress("");
+        logProgress("Total files processed: " + totalFilesProcessed);
+        logProgress("Total messages found: " + totalMessages);
+        result.setSeparatorCacheStats(parser.getSeparatorCacheHitCount(), parser.getSeparatorCacheMissCount());
+        logProgress(String.format("Separator cache: %d hit(s), %d miss(es) (%.1f%% hit rate)",
+                result.getSeparatorCacheHits(), result.getSeparatorCacheMisses(), result.getSeparatorCacheHitRate() * 100));
+        if (resultCacheHits > 0) {
+            logProgress("Result cache: " + resultCacheHits + " of " + totalFilesProcessed + " file(s) reused without parsing");
+        }
+    }
 
-        return result;
+    /**
+     * Create a file handler that reports the messages of each parsed file to a listener
+     * Uses the same criteria and deduplication key as the final result; a duplicate with more
+     * content replaces the reported message, like FlightCollector does.
+     */
+    private BiConsumer<Path, List<PnrMessage>> streamTo(FlightCriteria flight, ExtractionListener<PnrMessage> listener) {
+        FingerprintIndex positions = new FingerprintIndex();
+        List<PnrMessage> reported = new ArrayList<>();
+        return (logFile, fileMessages) -> {
+            int count = 0;
+            for (PnrMessage message : fileMessages) {
+                if (!matchesFlightCriteria(message, flight.getFlightNumber(), flight.getDepartureDate(),
+                        flight.getDepartureAirport(), flight.getArrivalAirport())) {
+                    continue;
+                }
+                int position = positions.putIfAbsent(createMessageKey(message), reported.size());
+                if (position < 0) {
+                    reported.add(message);
+                    listener.onMessage(message);
+                    count++;
+                } else if (contentLength(message) > contentLength(reported.get(position))) {
+                    PnrMessage previous = reported.set(position, message);
+                    listener.onMessageReplaced(previous, message);
+                    count++;
+                }
+            }
+            listener.onFileCompleted(logFile, count);
+        };
+    }
+
+    private static int contentLength(PnrMessage message) {
+        return message.getRawContentLength();
+    }
+
+    /**
+     * Deduplicates the messages of one flight and assembles their multipart groups while the files are scanned
+     * Messages are the same when their bodies (UNH..UNT) have the same content fingerprint and they have
+     * the same direction. When duplicates are found, the larger/more complete message is kept.
+     * Duplicates are dropped as they are found and assembled groups are released, so only the unique
+     * messages and the groups still waiting for parts are held.
+     */
+    private final class FlightCollector {
+        private final FlightCriteria flight;
+        private final FingerprintIndex positions = new FingerprintIndex();
+        private final List<PnrMessage> uniqueMessages = new ArrayList<>();
+        private final Set<String> matchedGroupIds = new HashSet<>(); // Groups with a part matching the flight criteria
+        private final MultipartGroupAssembler assembler;
+        private int messageCount;
+
+        FlightCollector(FlightCriteria flight) {
+            this.flight = flight;
+            this.assembler = new MultipartGroupAssembler(debugMode
+                    ? group -> logProgress("    [DEBUG] Multipart group " + group.getGroupId() + " assembled with " +
+                            group.getActualPartCount() + " part(s)")
+                    : null);
+        }
+
+        void addFile(Path logFile, List<PnrMessage> fileMessages) {
+            for (PnrMessage message : fileMessages) {
+                add(message);
+            }
+        }
+
+        void add(PnrMessage message) {
+            messageCount++;
+            ContentFingerprint key = createMessageKey(message);
+            int position = positions.putIfAbsent(key, uniqueMessages.size());
+            if (position < 0) {
+                uniqueMessages.add(message);
+                assembler.add(message);
+                if (matchesFlightCriteria(message, flight.getFlightNumber(), flight.getDepartureDate(),
+                        flight.getDepartureAirport(), flight.getArrivalAirport())) {
+                    matchedGroupIds.add(message.getGroupId());
+                }
+                return;
+            }
+
+            // Duplicate - compare by raw content length, prefer longer messages (more complete data)
+            PnrMessage existing = uniqueMessages.get(position);
+            int existingLength = contentLength(existing);
+            int newLength = contentLength(message);
+            if (newLength > existingLength) {
+                // New message is larger/more complete, replace the existing one
+                uniqueMessages.set(position, message);
+                assembler.replace(existing, message);
+                if (debugMode) {
+                    logProgress("    [DEBUG] Replacing duplicate with larger message: " + key +
+                              " (old: " + existingLength + " bytes, new: " + newLength + " bytes)");
+                }
+            }
+        }
+    }
+
+    /**
+     * Phase 2: report the deduplicated and grouped messages of one flight, filter them and store them in its result
+     */
+    private void completeResult(PnrExtractionResult result, FlightCollector collector) {
+        FlightCriteria flight = collector.flight;
+        logProgress("");
+        logProgress("=".repeat(80));
+        logProgress("Phase 2: Processing extracted messages");
+
+        // Duplicates were removed and multipart messages grouped while the files were scanned
+        logProgress("");
+        logProgress("Removing duplicate messages...");
+        List<PnrMessage> deduplicatedMessages = collector.uniqueMessages;
+        int duplicatesRemoved = collector.messageCount - deduplicatedMessages.size();
+        if (duplicatesRemoved > 0) {
+            logProgress("  Removed " + duplicatesRemoved + " duplicate message(s)");
+        } else {
+            logProgress("  No duplicates found");
+        }
+        logProgress("  Unique messages: " + deduplicatedMessages.size());
+
+        // Group multipart messages
+        logProgress("");
+        logProgress("Grouping multipart messages...");
+        MultipartGroupAssembler assembler = collector.assembler;
+        logProgress("  Created " + assembler.getGroupCount() + " message group(s), " + assembler.getAssembledGroupCount() +
+                " assembled (at most " + assembler.getPeakOpenGroupCount() + " waiting for parts at a time)");
+
+        // Analyze completeness (only for groups matching target flight criteria)
+        logProgress("");
+        logProgress("Analyzing message completeness...");
+        analyzeCompleteness(collector, result);
+        logProgress("  Complete groups: " + result.getCompleteGroups());
+        logProgress("  Incomplete groups: " + result.getIncompleteGroups());
+
+        // Filter messages based on additional criteria
+        logProgress("");
+        logProgress("Applying flight criteria filters...");
+        List<PnrMessage> filteredMessages = filterMessages(deduplicatedMessages, flight.getFlightNumber(),
+                flight.getDepartureDate(), flight.getDepartureAirport(), flight.getArrivalAirport());
+        logProgress("  Messages matching criteria: " + filteredMessages.size());
+
+        result.setExtractedMessages(filteredMessages);
+        result.setMultipartGroupCount(assembler.getGroupCount());
+        result.setSuccess(true);
+
+        logProgress("");
+        logProgress("=".repeat(80));
+        if (filteredMessages.isEmpty()) {
+            logProgress("WARNING: No PNR messages found matching the specified criteria");
+            result.addWarning("No PNR messages found matching the specified criteria");
+        } else {
+            logProgress("SUCCESS: Extraction completed successfully");
+            logProgress("Final result: " + filteredMessages.size() + " message(s) ready for analysis");
+        }
+        logProgress("=".repeat(80));
     }
 
     /**
@@ -266,38 +659,79 @@ public class PnrExtractionService {
     /**
      * Process a single PNR log file
      */
-    private List<PnrMessage> processLogFile(Path logFile, String flightNumber, MessageType messageType) {
+    private List<PnrMessage> processLogFile(Path logFile, List<String> flightNumbers, MessageType messageType) {
         List<PnrMessage> messages = new ArrayList<>();
 
         try {
             long fileSize = Files.size(logFile);
+            long from = 0;
+            long to = fileSize;
+            if (timeWindow != null && !GzipLogFiles.isGzip(logFile)) {
+                long[] range = timeWindow.findRange(logFile);
+                from = range[0];
+                to = range[1];
+                addBytesRead(fileSize - (to - from));
+                if (from >= to) {
+                    logProgress("  No log entries in time window " + timeWindow + ", file skipped");
+                    return messages;
+                }
+                logProgress("  Time window " + timeWindow + ": reading " + formatFileSize(to - from) + " of " + formatFileSize(fileSize));
+            }
+
+            // Reuse the messages parsed from the unchanged file by an earlier extraction; they are only
+            // filtered by date and airport later, so only the flight filter is part of the key
+            PnrResultCache.Key cacheKey = null;
+            if (resultCacheEnabled && timeWindow == null) {
+                cacheKey = PnrResultCache.Key.of(logFile, messageType, flightNumbers, parser.resultCacheFingerprint());
+                List<PnrMessage> cached = resultCache.load(cacheKey);
+                if (cached != null) {
+                    logProgress("  Unchanged since an earlier extraction, " + cached.size() + " parsed message(s) taken from the result cache");
+                    resultCacheHits++;
+                    addBytesRead(fileSize);
+                    storeRawContents(cached);
+                    return cached;
+                }
+            }
 
             // Reset separator logging for this new file (enables detailed logging for first message)
             if (debugMode) {
                 parser.resetSeparatorLogging();
             }
 
-            if (fileSize > 50 * 1024 * 1024) { // If file is larger than 50MB
-                logProgress("  Large file detected (>" + formatFileSize(50 * 1024 * 1024) + "), processing in chunks...");
-                messages = processLargeLogFile(logFile, flightNumber, messageType);
+            if (GzipLogFiles.isGzip(logFile)) {
+                logProgress("  Compressed file detected, parsing while decompressing...");
+                try (InputStream in = timeWindow != null ? timeWindow.filter(GzipLogFiles.open(logFile)) : GzipLogFiles.open(logFile)) {
+                    messages = parser.parseLogStreamForFlights(new InputStreamReader(in, StandardCharsets.UTF_8), flightNumbers, messageType);
+                }
+                addBytesRead(fileSize);
             } else {
-                logProgress("  Reading file content...");
-                String content = Files.readString(logFile);
-
-                if (debugMode) {
+                if (timeWindow != null) {
+                    logProgress("  Parsing PNR messages in time window...");
+                } else if (debugMode) {
                     logProgress("  Parsing PNR messages with separator detection...");
                 } else {
                     logProgress("  Parsing PNR messages...");
                 }
+                messages = parseRange(logFile, from, to, flightNumbers, messageType);
+            }
 
-                messages = parser.parseLogContent(content, flightNumber, messageType);
+            // Cached while the contents are still in memory
+            if (cacheKey != null) {
+                try {
+                    resultCache.save(cacheKey, messages);
+                } catch (IOException e) {
+                    logProgress("  Warning: could not cache the parsed messages: " + e.getMessage());
+                }
             }
+            storeRawContents(messages);
 
         } catch (IOException e) {
             String error = "Error reading PNR log file " + logFile + ": " + e.getMessage();
             logProgress("  ERROR: " + error);
             System.err.println(error);
         } catch (Exception e) {
+            // A cancellation ends the whole extraction, not just this file
+            ExtractionMonitor.rethrowIfCancelled(e);
             String error = "Unexpected error processing PNR file " + logFile + ": " + e.getMessage();
             logProgress("  ERROR: " + error);
             e.printStackTrace();
@@ -307,169 +741,60 @@ public class PnrExtractionService {
     }
 
     /**
-     * Process large log files in chunks to avoid memory issues
+     * Move the raw contents of a file's messages to the raw content store (if set)
      */
-    private List<PnrMessage> processLargeLogFile(Path logFile, String flightNumber, MessageType messageType) {
-        List<PnrMessage> messages = new ArrayList<>();
-        StringBuilder currentEntry = new StringBuilder();
-        boolean inPnrMessage = false;
-        int linesProcessed = 0;
-        int entriesProcessed = 0;
-
-        try (BufferedReader reader = Files.newBufferedReader(logFile)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                linesProcessed++;
-
-                // Progress update every 10000 lines
-                if (linesProcessed % 10000 == 0) {
-                    logProgress("    Processed " + linesProcessed + " lines, found " + messages.size() + " messages so far...");
-                }
-
-                // Check if this line starts a new log entry
-                if (isNewLogEntry(line)) {
-                    // Process the previous entry if it was a PNR message
-                    if (inPnrMessage && currentEntry.length() > 0) {
-                        List<PnrMessage> entryMessages = parser.parseLogContent(
-                            currentEntry.toString(), flightNumber, messageType);
-                        messages.addAll(entryMessages);
-                        entriesProcessed++;
-                    }
-
-                    // Start new entry
-                    currentEntry.setLength(0);
-                    currentEntry.append(line).append("\n");
-                    inPnrMessage = line.contains("PNRGOV") || line.contains("UNA:");
-                } else {
-                    currentEntry.append(line).append("\n");
-                    if (!inPnrMessage && (line.contains("PNRGOV") || line.contains("UNA:"))) {
-                        inPnrMessage = true;
-                    }
-                }
-            }
-
-            // Process the last entry
-            if (inPnrMessage && currentEntry.length() > 0) {
-                List<PnrMessage> entryMessages = parser.parseLogContent(
-                    currentEntry.toString(), flightNumber, messageType);
-                messages.addAll(entryMessages);
-                entriesProcessed++;
+    private void storeRawContents(List<PnrMessage> messages) throws IOException {
+        if (rawContentStore != null) {
+            for (PnrMessage message : messages) {
+                message.storeRawContent(rawContentStore);
             }
-
-            logProgress("    Completed: " + linesProcessed + " lines processed, " + entriesProcessed + " log entries analyzed");
-
-        } catch (IOException e) {
-            String error = "Error reading large PNR log file " + logFile + ": " + e.getMessage();
-            logProgress("  ERROR: " + error);
-            System.err.println(error);
         }
-
-        return messages;
     }
 
     /**
-     * Check if a line starts a new log entry
+     * Stream the byte range [from, to) of a log file through the parser's entry framer
+     * Memory stays bounded by the largest log entry whatever the size of the range.
      */
-    private boolean isNewLogEntry(String line) {
-        return line.matches("^\\d{4}-\\d{2}-\\d{2}.*") || 
-               line.startsWith("INFO ") || 
-               line.startsWith("DEBUG ") || 
-               line.startsWith("WARN ") || 
-               line.startsWith("ERROR ");
+    private List<PnrMessage> parseRange(Path logFile, long from, long to, List<String> flightNumbers, MessageType messageType) throws IOException {
+        try (Reader reader = openRange(logFile, from)) {
+            return parser.parseLogStreamForFlights(reader, flightNumbers, messageType);
+        } finally {
+            addBytesRead(to - from);
+        }
     }
 
     /**
-     * Remove duplicate messages based on message ID and content
-     * When duplicates are found, prefer the larger/more complete message
+     * Open a reader over a log file from the given offset (a line start)
+     * With a time window the reader ends in front of the first entry after the window. Malformed
+     * UTF-8 is replaced, as when chunks and compressed files are decoded.
      */
-    private List<PnrMessage> removeDuplicateMessages(List<PnrMessage> messages) {
-        Map<String, PnrMessage> uniqueMessages = new LinkedHashMap<>();
-
-        for (PnrMessage message : messages) {
-            String key = createMessageKey(message);
-
-            // If this key already exists, keep the larger/more complete message
-            if (uniqueMessages.containsKey(key)) {
-                PnrMessage existing = uniqueMessages.get(key);
-
-                // Compare by raw content length - prefer longer messages (more complete data)
-                int existingLength = existing.getRawContent() != null ? existing.getRawContent().length() : 0;
-                int newLength = message.getRawContent() != null ? message.getRawContent().length() : 0;
-
-                if (newLength > existingLength) {
-                    // New message is larger/more complete, replace the existing one
-                    uniqueMessages.put(key, message);
-                    if (debugMode) {
-                        logProgress("    [DEBUG] Replacing duplicate with larger message: " + key +
-                                  " (old: " + existingLength + " bytes, new: " + newLength + " bytes)");
-                    }
-                }
-            } else {
-                uniqueMessages.put(key, message);
-            }
+    private Reader openRange(Path logFile, long from) throws IOException {
+        InputStream in = Files.newInputStream(logFile);
+        try {
+            in.skipNBytes(from);
+        } catch (IOException e) {
+            in.close();
+            throw e;
         }
-
-        return new ArrayList<>(uniqueMessages.values());
+        return new InputStreamReader(timeWindow != null ? timeWindow.filter(in) : in, StandardCharsets.UTF_8);
     }
 
     /**
-     * Create a unique key for message deduplication
-     * Include flight details to distinguish messages for same flight but different legs/destinations/dates
+     * Count bytes of the current file as read in the extraction monitor (if set)
      */
-    private String createMessageKey(PnrMessage message) {
-        StringBuilder key = new StringBuilder();
-
-        key.append(message.getMessageReferenceNumber()).append("_");
-        key.append(message.getPartNumber()).append("_");
-        key.append(message.getFlightNumber());
-
-        // Include direction
-        if (message.getDirection() != null) {
-            key.append("_").append(message.getDirection().toString());
-        } else {
-            key.append("_UNKNOWN");
-        }
-
-        // Include flight details to distinguish different legs/destinations/dates
-        PnrFlightDetails details = message.getFlightDetails();
-        if (details != null) {
-            // Include departure date to distinguish messages for same flight on different dates
-            if (details.getDepartureDate() != null) {
-                key.append("_").append(details.getDepartureDate());
-            }
-            // Include departure and arrival airports to distinguish different flight legs
-            if (details.getDepartureAirport() != null) {
-                key.append("_").append(details.getDepartureAirport());
-            }
-            if (details.getArrivalAirport() != null) {
-                key.append("_").append(details.getArrivalAirport());
-            }
+    private void addBytesRead(long bytes) {
+        if (extractionMonitor != null) {
+            extractionMonitor.addBytesRead(bytes);
         }
-
-        return key.toString();
     }
 
     /**
-     * Group multipart messages by message reference number and flight
+     * Create the deduplication key of a message: the fingerprint of its body combined with its direction
+     * Input and output copies of a message are kept apart, they are saved separately.
      */
-    private List<PnrMultipartGroup> groupMultipartMessages(List<PnrMessage> messages) {
-        Map<String, PnrMultipartGroup> groups = new HashMap<>();
-
-        for (PnrMessage message : messages) {
-            String groupKey = message.getGroupId();
-            
-            PnrMultipartGroup group = groups.get(groupKey);
-            if (group == null) {
-                group = new PnrMultipartGroup(groupKey, 
-                    message.getMessageReferenceNumber(), 
-                    message.getFlightNumber());
-                groups.put(groupKey, group);
-            }
-            
-            group.addPart(message);
-        }
-
-        return new ArrayList<>(groups.values());
+    private ContentFingerprint createMessageKey(PnrMessage message) {
+        MessageType direction = message.getDirection();
+        return message.getContentFingerprint().combine(direction != null ? direction.ordinal() + 1 : 0);
     }
 
     /**
@@ -477,13 +802,22 @@ public class PnrExtractionService {
      * Only analyzes groups that match the specified flight criteria
      * Note: Output messages are always single-part and don't need completeness analysis
      */
-    private void analyzeCompleteness(List<PnrMultipartGroup> groups, PnrExtractionResult result,
-                                   String flightNumber, String departureDate, 
-                                   String departureAirport, String arrivalAirport) {
+    private void analyzeCompleteness(FlightCollector collector, PnrExtractionResult result) {
+        String flightNumber = collector.flight.getFlightNumber();
+        String departureDate = collector.flight.getDepartureDate();
+        String departureAirport = collector.flight.getDepartureAirport();
+        String arrivalAirport = collector.flight.getArrivalAirport();
         int completeGroups = 0;
         int incompleteGroups = 0;
 
-        for (PnrMultipartGroup group : groups) {
+        // Assembled groups were released during the scan, only their IDs are left
+        for (String groupId : collector.assembler.getAssembledGroupIds()) {
+            if (collector.matchedGroupIds.contains(groupId)) {
+                completeGroups++;
+            }
+        }
+
+        for (PnrMultipartGroup group : collector.assembler.getOpenGroups()) {
             // Only analyze groups that match the target flight criteria
             if (!groupMatchesFlightCriteria(group, flightNumber, departureDate, departureAirport, arrivalAirport)) {
                 continue; // Skip groups that don't match the target flight
@@ -498,23 +832,20 @@ public class PnrExtractionService {
                 continue;
             }
             
-            if (group.isComplete() && group.hasAllParts()) {
-                completeGroups++;
-            } else {
-                incompleteGroups++;
-                List<Integer> missingParts = group.getMissingParts();
-                if (!missingParts.isEmpty()) {
-                    // Include departure date in warning for better identification
-                    String flightInfo = group.getFlightNumber();
-                    if (group.getParts() != null && !group.getParts().isEmpty()) {
-                        PnrMessage firstPart = group.getParts().iterator().next();
-                        if (firstPart.getFlightDetails() != null && firstPart.getFlightDetails().getDepartureDate() != null) {
-                            flightInfo += " (" + firstPart.getFlightDetails().getDepartureDate() + ")";
-                        }
+            // Still waiting for parts
+            incompleteGroups++;
+            List<Integer> missingParts = group.getMissingParts();
+            if (!missingParts.isEmpty()) {
+                // Include departure date in warning for better identification
+                String flightInfo = group.getFlightNumber();
+                if (group.getParts() != null && !group.getParts().isEmpty()) {
+                    PnrMessage firstPart = group.getParts().iterator().next();
+                    if (firstPart.getFlightDetails() != null && firstPart.getFlightDetails().getDepartureDate() != null) {
+                        flightInfo += " (" + firstPart.getFlightDetails().getDepartureDate() + ")";
                     }
-                    result.addWarning("Incomplete multipart message for flight " + 
-                        flightInfo + ". Missing parts: " + missingParts);
                 }
+                result.addWarning("Incomplete multipart message for flight " + 
+                    flightInfo + ". Missing parts: " + missingParts);
             }
         }
 
@@ -708,18 +1039,13 @@ public class PnrExtractionService {
 
     /**
      * Save extracted PNR messages to files
-     * Input messages go to "input" subdirectory, output messages go to "output" subdirectory
+     * Input messages go to "input" subdirectory, output messages go to "output" subdirectory.
+     * Files are written on the I/O threads of a MessageFileWriter and synced once at the end; the
+     * stats of the save are available from getLastSaveStats afterwards.
      */
     public boolean saveExtractedMessages(List<PnrMessage> messages, String outputDirectory) {
-        try {
-            Path outputDir = Paths.get(outputDirectory);
-            Files.createDirectories(outputDir);
-
-            // Create input and output subdirectories
-            Path inputDir = outputDir.resolve("input");
-            Path outputOutputDir = outputDir.resolve("output");
-            Files.createDirectories(inputDir);
-            Files.createDirectories(outputOutputDir);
+        try (MessageFileWriter writer = new MessageFileWriter()) {
+            Path[] directories = createOutputDirectories(outputDirectory);
 
             // Separate messages by direction
             List<PnrMessage> inputMessages = messages.stream()
@@ -731,45 +1057,116 @@ public class PnrExtractionService {
                 .collect(Collectors.toList());
 
             // Save input messages
-            if (!inputMessages.isEmpty()) {
-                saveMessagesByDirection(inputMessages, inputDir, "INPUT");
+            for (PnrMessage message : inputMessages) {
+                saveMessage(message, directories, writer);
             }
             
             // Save output messages
-            if (!outputMessages.isEmpty()) {
-                saveMessagesByDirection(outputMessages, outputOutputDir, "OUTPUT");
+            for (PnrMessage message : outputMessages) {
+                saveMessage(message, directories, writer);
             }
 
-            return true;
+            MessageFileWriter.Stats stats = writer.finish();
+            lastSaveStats = stats;
+            logProgress("Saved PNR messages to " + outputDirectory + ": " + stats);
+            for (String error : writer.getErrors()) {
+                System.err.println("Error saving PNR message file " + error);
+            }
+
+            return stats.getFilesFailed() == 0;
 
         } catch (IOException e) {
             System.err.println("Error saving PNR messages: " + e.getMessage());
             return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Saving PNR messages was interrupted");
+            return false;
         }
     }
-    
+
     /**
-     * Save messages by direction to the specified directory
+     * Create a listener that saves messages while they are extracted
+     * Pass it to extractPnrMessages (e.g. with ExtractionListener.andThen) and call writer.finish()
+     * once the extraction returned. A message replaced by a more complete duplicate is overwritten,
+     * so the directory ends up like saveExtractedMessages leaves it.
      */
-    private void saveMessagesByDirection(List<PnrMessage> messages, Path directory, String directionLabel) throws IOException {
-        // Save each message part as a separate file
-        for (PnrMessage message : messages) {
-            String flightNumber = message.getFlightNumber() != null ? message.getFlightNumber() : "UNKNOWN";
-            
-            // Create filename with part number for individual files
-            String filename = "PNR_" + flightNumber + "_Part" + message.getPartNumber() + 
-                            "_" + message.getPartIndicator() + "_" + directionLabel + ".txt";
-            Path outputFile = directory.resolve(filename);
+    public ExtractionListener<PnrMessage> saveWhileExtracting(String outputDirectory, MessageFileWriter writer) throws IOException {
+        Path[] directories = createOutputDirectories(outputDirectory);
+        return new ExtractionListener<>() {
+            @Override
+            public void onMessage(PnrMessage message) {
+                try {
+                    saveMessage(message, directories, writer);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Saving PNR messages was interrupted");
+                }
+            }
 
-            // Write individual message to file
-            try (BufferedWriter writer = Files.newBufferedWriter(outputFile)) {
-                writer.write(message.getRawContent());
-                writer.write("\n");
+            @Override
+            public void onMessageReplaced(PnrMessage previous, PnrMessage replacement) {
+                try {
+                    Path previousFile = messageFile(previous, directories);
+                    if (!previousFile.equals(messageFile(replacement, directories))) {
+                        writer.delete(previousFile);
+                    }
+                    saveMessage(replacement, directories, writer);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Saving PNR messages was interrupted");
+                }
             }
+        };
+    }
+
+    /**
+     * Stats of the last saveExtractedMessages call, or null if nothing was saved yet
+     */
+    public MessageFileWriter.Stats getLastSaveStats() {
+        return lastSaveStats;
+    }
+
+    /**
+     * Create the output directory with its input and output subdirectories
+     * @return The input and the output subdirectory
+     */
+    private Path[] createOutputDirectories(String outputDirectory) throws IOException {
+        Path outputDir = Paths.get(outputDirectory);
+        Files.createDirectories(outputDir);
+
+        // Create input and output subdirectories
+        Path inputDir = outputDir.resolve("input");
+        Path outputOutputDir = outputDir.resolve("output");
+        Files.createDirectories(inputDir);
+        Files.createDirectories(outputOutputDir);
+        return new Path[]{inputDir, outputOutputDir};
+    }
 
-            System.out.println("Saved " + directionLabel.toLowerCase() + " message part " + 
-                             message.getPartNumber() + " to: " + outputFile);
+    /**
+     * Queue one message part for writing as a separate file
+     */
+    private void saveMessage(PnrMessage message, Path[] directories, MessageFileWriter writer) throws InterruptedException {
+        String rawContent = message.getRawContent();
+        if (rawContent == null) {
+            System.err.println("Error saving PNR message part " + message.getPartNumber() + ": no content");
+            return;
         }
+        writer.write(messageFile(message, directories), rawContent + "\n");
+    }
+
+    /**
+     * File of a message part: in the directory of its direction, named after flight, part and direction
+     */
+    private Path messageFile(PnrMessage message, Path[] directories) {
+        boolean output = message.getDirection() == com.l3.logparser.enums.MessageType.OUTPUT;
+        String directionLabel = output ? "OUTPUT" : "INPUT";
+        String flightNumber = message.getFlightNumber() != null ? message.getFlightNumber() : "UNKNOWN";
+        
+        // Create filename with part number for individual files
+        String filename = "PNR_" + flightNumber + "_Part" + message.getPartNumber() + 
+                        "_" + message.getPartIndicator() + "_" + directionLabel + ".txt";
+        return directories[output ? 1 : 0].resolve(filename);
     }
 
     /**
@@ -812,13 +1209,16 @@ public class PnrExtractionService {
         private String flightNumber;
         private String logDirectoryPath;
         private List<PnrMessage> extractedMessages = new ArrayList<>();
-        private List<PnrMultipartGroup> multipartGroups = new ArrayList<>();
+        private int multipartGroupCount = 0;
         private List<String> processedFiles = new ArrayList<>();
         private List<String> errors = new ArrayList<>();
         private List<String> warnings = new ArrayList<>();
         private boolean success = false;
         private int completeGroups = 0;
         private int incompleteGroups = 0;
+        private long separatorCacheHits = 0;
+        private long separatorCacheMisses = 0;
+        private boolean cancelled = false;
 
         // Getters and Setters
         public String getFlightNumber() { return flightNumber; }
@@ -830,8 +1230,8 @@ public class PnrExtractionService {
         public List<PnrMessage> getExtractedMessages() { return extractedMessages; }
         public void setExtractedMessages(List<PnrMessage> extractedMessages) { this.extractedMessages = extractedMessages; }
 
-        public List<PnrMultipartGroup> getMultipartGroups() { return multipartGroups; }
-        public void setMultipartGroups(List<PnrMultipartGroup> multipartGroups) { this.multipartGroups = multipartGroups; }
+        public int getMultipartGroupCount() { return multipartGroupCount; }
+        public void setMultipartGroupCount(int multipartGroupCount) { this.multipartGroupCount = multipartGroupCount; }
 
         public List<String> getProcessedFiles() { return processedFiles; }
         public void addProcessedFile(String file) { this.processedFiles.add(file); }
@@ -845,10 +1245,28 @@ public class PnrExtractionService {
         public boolean isSuccess() { return success; }
         public void setSuccess(boolean success) { this.success = success; }
 
+        public boolean isCancelled() { return cancelled; }
+        public void setCancelled(boolean cancelled) { this.cancelled = cancelled; }
+
         public int getCompleteGroups() { return completeGroups; }
         public void setCompleteGroups(int completeGroups) { this.completeGroups = completeGroups; }
 
         public int getIncompleteGroups() { return incompleteGroups; }
         public void setIncompleteGroups(int incompleteGroups) { this.incompleteGroups = incompleteGroups; }
+
+        public long getSeparatorCacheHits() { return separatorCacheHits; }
+        public long getSeparatorCacheMisses() { return separatorCacheMisses; }
+        public void setSeparatorCacheStats(long hits, long misses) {
+            this.separatorCacheHits = hits;
+            this.separatorCacheMisses = misses;
+        }
+
+        /**
+         * Share of UNA headers whose separators came from the separator cache (0.0 - 1.0)
+         */
+        public double getSeparatorCacheHitRate() {
+            long total = separatorCacheHits + separatorCacheMisses;
+            return total == 0 ? 0.0 : (double) separatorCacheHits / total;
+        }
     }
 }
@@ -0,0 +1,368 @@
+package com.l3.logparser.pnr.service;
+
+import com.l3.common.util.CacheFiles;
+import com.l3.common.util.ContentFingerprint;
+import com.l3.common.util.SeparatorCache;
+import com.l3.logparser.enums.MessageType;
+import com.l3.logparser.pnr.model.PnrFlightDetails;
+import com.l3.logparser.pnr.model.PnrMessage;
+import com.l3.logparser.pnr.model.PnrSeparators;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent cache of the messages parsed from PNR log files, reused by later extractions
+ *
+ * For every log file, direction and flight filter the cache keeps what the parser returned - before
+ * deduplication and the date and airport criteria - so an extraction that only changes those criteria,
+ * or runs again over rotated files that did not change, skips parsing them. An entry belongs to one
+ * state of the file (size, modification time, first bytes) and one parser configuration (see Key);
+ * anything else is parsed again and replaces the entry.
+ *
+ * Entries are gzip-compressed, one file per key. Reading an entry marks it as used; after every save,
+ * entries unused for longer than the maximum age are removed, then the least recently used ones until
+ * the cache fits its size limit.
+ */
+public class PnrResultCache {
+
+    private static final int MAGIC = 0x4c33_5052; // "L3PR"
+    private static final int FORMAT_VERSION = 2; // 2: the raw UNA segment of each message, not only its header
+    private static final int HEAD_CHECK_SIZE = 4096;
+    private static final String SUFFIX = ".prc";
+
+    public static final long DEFAULT_MAX_BYTES = 512L * 1024 * 1024;
+    public static final long DEFAULT_MAX_AGE_MILLIS = 7L * 24 * 60 * 60 * 1000;
+
+    /**
+     * What a cached parse depends on: the log file state, the direction, the flight filter and the
+     * parser configuration (see PnrEdifactParser.resultCacheFingerprint)
+     */
+    public static final class Key {
+        private final String logFile;
+        private final long fileSize;
+        private final long lastModified;
+        private final int headLength;
+        private final long headChecksum;
+        private final long configFingerprint;
+        private final MessageType direction;
+        private final String flightToken;
+
+        private Key(String logFile, long fileSize, long lastModified, int headLength, long headChecksum,
+                    long configFingerprint, MessageType direction, String flightToken) {
+            this.logFile = logFile;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.headLength = headLength;
+            this.headChecksum = headChecksum;
+            this.configFingerprint = configFingerprint;
+            this.direction = direction;
+            this.flightToken = flightToken;
+        }
+
+        /**
+         * Key of parsing a log file as it is now
+         * Take the key before parsing, so a file that grows meanwhile is parsed again next time.
+         * @param flightNumbers Flight numbers passed to the parser
+         */
+        public static Key of(Path logFile, MessageType direction, Collection<String> flightNumbers,
+                             long configFingerprint) throws IOException {
+            long size = Files.size(logFile);
+            int headLength = (int) Math.min(size, HEAD_CHECK_SIZE);
+            return new Key(logFile.toAbsolutePath().normalize().toString(), size,
+                    Files.getLastModifiedTime(logFile).toMillis(), headLength, checksum(logFile, headLength),
+                    configFingerprint, direction, flightToken(flightNumbers));
+        }
+
+        /**
+         * Flight filter in the form the parser applies it: "*" when it does not filter (a missing or blank
+         * flight number), otherwise the trimmed, upper case flight numbers in sorted order
+         */
+        static String flightToken(Collection<String> flightNumbers) {
+            if (flightNumbers == null || flightNumbers.isEmpty()) {
+                return "*";
+            }
+            SortedSet<String> flights = new TreeSet<>();
+            for (String flightNumber : flightNumbers) {
+                if (flightNumber == null || flightNumber.trim().isEmpty()) {
+                    return "*";
+                }
+                flights.add(flightNumber.trim().toUpperCase());
+            }
+            return String.join(",", flights);
+        }
+
+        public String getLogFile() { return logFile; }
+
+        public String getFlightToken() { return flightToken; }
+
+        private boolean sameAs(Key other) {
+            return logFile.equals(other.logFile) && fileSize == other.fileSize && lastModified == other.lastModified &&
+                   headLength == other.headLength && headChecksum == other.headChecksum &&
+                   configFingerprint == other.configFingerprint && direction == other.direction &&
+                   flightToken.equals(other.flightToken);
+        }
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+
+    public PnrResultCache(Path directory) {
+        this(directory, DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    /**
+     * @param maxBytes Size the cache is reduced to after a save
+     * @param maxAgeMillis Time after which an unused entry is removed
+     */
+    public PnrResultCache(Path directory, long maxBytes, long maxAgeMillis) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Location of the entry of a key inside the cache directory
+     */
+    public Path fileFor(Key key) {
+        long hash = 1125899906842597L;
+        String id = key.logFile + '\n' + key.direction + '\n' + key.flightToken;
+        for (int i = 0; i < id.length(); i++) {
+            hash = 31 * hash + id.charAt(i);
+        }
+        return directory.resolve(Paths.get(key.logFile).getFileName() + "-" + Long.toHexString(hash) + SUFFIX);
+    }
+
+    /**
+     * Load the messages cached for a key
+     * @return New message objects equal to the ones saved, or null if there is no entry for exactly this key
+     *         or it cannot be read
+     */
+    public List<PnrMessage> load(Key key) {
+        Path file = fileFor(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        List<PnrMessage> messages;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            Key cached = new Key(in.readUTF(), in.readLong(), in.readLong(), in.readInt(), in.readLong(), in.readLong(),
+                    MessageType.valueOf(in.readUTF()), readString(in));
+            if (!cached.sameAs(key)) {
+                return null;
+            }
+
+            int count = in.readInt();
+            messages = new ArrayList<>(count);
+            Map<String, PnrSeparators> separators = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                messages.add(readMessage(in, separators));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: Could not read PNR result cache " + file + ": " + e.getMessage());
+            return null;
+        }
+
+        CacheFiles.markUsed(file);
+        return messages;
+    }
+
+    /**
+     * Cache the messages parsed for a key, replacing its previous entry atomically, then evict old entries
+     * Each save writes its own temporary file, so extractions running at the same time do not interfere.
+     * Message contents are written exactly; a content UTF-8 cannot represent (unpaired surrogates) fails the save.
+     */
+    public void save(Key key, List<PnrMessage> messages) throws IOException {
+        Path file = fileFor(key);
+        Path tempFile = CacheFiles.newTempFile(file);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(key.logFile);
+            out.writeLong(key.fileSize);
+            out.writeLong(key.lastModified);
+            out.writeInt(key.headLength);
+            out.writeLong(key.headChecksum);
+            out.writeLong(key.configFingerprint);
+            out.writeUTF(key.direction.name());
+            writeString(out, key.flightToken);
+
+            out.writeInt(messages.size());
+            for (PnrMessage message : messages) {
+                writeMessage(out, message);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        CacheFiles.replace(tempFile, file);
+        evict();
+    }
+
+    /**
+     * Remove entries unused for longer than the maximum age, then the least recently used ones until the
+     * cache fits its size limit
+     */
+    public void evict() throws IOException {
+        CacheFiles.evict(directory, SUFFIX, maxBytes, maxAgeMillis);
+    }
+
+    private static void writeMessage(DataOutputStream out, PnrMessage message) throws IOException {
+        writeNullable(out, message.getFullMessage());
+        writeNullable(out, message.getMessageId());
+        writeNullable(out, message.getMessageReferenceNumber());
+        writeNullable(out, message.getFlightNumber());
+        out.writeInt(message.getPartNumber());
+        out.writeBoolean(message.isLastPart());
+        writeNullable(out, message.getPartIndicator());
+        out.writeBoolean(message.isMultipart());
+
+        PnrFlightDetails details = message.getFlightDetails();
+        out.writeBoolean(details != null);
+        if (details != null) {
+            writeNullable(out, details.getFlightNumber());
+            writeNullable(out, details.getAirlineCode());
+            writeNullable(out, details.getDepartureAirport());
+            writeNullable(out, details.getArrivalAirport());
+            writeNullable(out, details.getDepartureDate());
+            writeNullable(out, details.getDepartureTime());
+            writeNullable(out, details.getArrivalDate());
+            writeNullable(out, details.getArrivalTime());
+            writeNullable(out, details.getRawTvlSegment());
+        }
+
+        writeNullable(out, message.getMessageType());
+        String rawContent = message.getRawContent();
+        writeNullable(out, rawContent);
+        if (rawContent != null) {
+            ContentFingerprint fingerprint = message.getContentFingerprint();
+            out.writeLong(fingerprint.getHigh());
+            out.writeLong(fingerprint.getLow());
+        }
+
+        PnrSeparators separators = message.getSeparators();
+        out.writeByte(separators == null ? 0 : separators.isUnaPresent() ? 2 : 1);
+        if (separators != null && separators.isUnaPresent()) {
+            writeString(out, separators.getRawUnaSegment());
+        }
+        writeNullable(out, message.getDirection() != null ? message.getDirection().name() : null);
+        writeNullable(out, message.getLogTimestamp());
+        writeNullable(out, message.getLogTraceId());
+    }
+
+    /**
+     * @param separators Separators already restored from the same UNA header, shared like the parser shares them
+     */
+    private static PnrMessage readMessage(DataInputStream in, Map<String, PnrSeparators> separators) throws IOException {
+        PnrMessage message = new PnrMessage();
+        message.setFullMessage(readNullable(in));
+        message.setMessageId(readNullable(in));
+        message.setMessageReferenceNumber(readNullable(in));
+        message.setFlightNumber(readNullable(in));
+        message.setPartNumber(in.readInt());
+        message.setLastPart(in.readBoolean());
+        message.setPartIndicator(readNullable(in));
+        message.setMultipart(in.readBoolean());
+
+        if (in.readBoolean()) {
+            PnrFlightDetails details = new PnrFlightDetails();
+            details.setFlightNumber(readNullable(in));
+            details.setAirlineCode(readNullable(in));
+            details.setDepartureAirport(readNullable(in));
+            details.setArrivalAirport(readNullable(in));
+            details.setDepartureDate(readNullable(in));
+            details.setDepartureTime(readNullable(in));
+            details.setArrivalDate(readNullable(in));
+            details.setArrivalTime(readNullable(in));
+            details.setRawTvlSegment(readNullable(in));
+            message.setFlightDetails(details);
+        }
+
+        message.setMessageType(readNullable(in));
+        String rawContent = readNullable(in);
+        message.setRawContent(rawContent);
+        if (rawContent != null) {
+            message.setContentFingerprint(new ContentFingerprint(in.readLong(), in.readLong()));
+        }
+
+        switch (in.readByte()) {
+            case 1 -> message.setSeparators(PnrSeparators.DEFAULT);
+            case 2 -> message.setSeparators(readSeparators(in, separators));
+            default -> { }
+        }
+        String direction = readNullable(in);
+        message.setDirection(direction != null ? MessageType.valueOf(direction) : null);
+        message.setLogTimestamp(readNullable(in));
+        message.setLogTraceId(readNullable(in));
+        return message;
+    }
+
+    /**
+     * Restore the separators of a UNA segment, shared by header; a longer segment gets a copy with its own text
+     */
+    private static PnrSeparators readSeparators(DataInputStream in, Map<String, PnrSeparators> separators) throws IOException {
+        String unaSegment = readString(in);
+        if (unaSegment.length() <= SeparatorCache.HEADER_LENGTH) {
+            return separators.computeIfAbsent(unaSegment, PnrSeparators::fromUnaSegment);
+        }
+        PnrSeparators shared = separators.computeIfAbsent(unaSegment.substring(0, SeparatorCache.HEADER_LENGTH),
+                PnrSeparators::fromUnaSegment);
+        return shared.withRawUnaSegment(unaSegment);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    // Length-prefixed UTF-8: writeUTF is limited to 64 KB, less than a large PNR message
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        ByteBuffer bytes = StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(value));
+        out.writeInt(bytes.remaining());
+        out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+    }
+
+    private static long checksum(Path file, int length) throws IOException {
+        CRC32 crc = new CRC32();
+        if (length > 0) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                    // Keep reading until the head is complete
+                }
+                buffer.flip();
+                crc.update(buffer);
+            }
+        }
+        return crc.getValue();
+    }
+}
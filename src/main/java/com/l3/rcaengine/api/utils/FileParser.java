@@ -1,5 +1,6 @@
 package com.l3.rcaengine.api.utils;
 
+import com.l3.common.util.SeparatorCache;
 import com.l3.rcaengine.api.model.Flight;
 import com.l3.rcaengine.api.model.Passenger;
 import com.l3.rcaengine.api.model.Separators;
@@ -27,6 +28,9 @@ public class FileParser {
     }
     // Patterns will be constructed per-file using separators
     private static final int MAX_UNA_LINES = 8;
+    private static final Separators DEFAULT_SEPARATORS = new Separators(':', '+', '.', '?',' ','\'');
+    // Separators of the complete UNA headers seen so far, shared by all parsers
+    private static final SeparatorCache<Separators> SEPARATOR_CACHE = new SeparatorCache<>(64);
 
     public ParseResult parseFolder(File folder) throws Exception {
 
@@ -334,32 +338,63 @@ public class FileParser {
 
     private Separators parseSeparators(String content) {
         // replicate PS Parse-Separators logic: look at first up-to-8 lines for UNA... else default
-        String[] lines = content.replace("\r", "\n").split("\n");
-        String firstLines = Arrays.stream(lines)
-                .limit(MAX_UNA_LINES)
-                .collect(Collectors.joining("\n"));
-
-        // find the UNA line if any (allow 1–6 chars after UNA)
-        Pattern unaPat = Pattern.compile("UNA(.{1,6})");
-        Matcher m = unaPat.matcher(firstLines);
-        if (m.find()) {
-            String chars = m.group(1);
+        // (scanned in place; CR and LF each end a line)
+        int end = 0;
+        int lines = 0;
+        while (end < content.length()) {
+            char c = content.charAt(end);
+            if ((c == '\r' || c == '\n') && ++lines == MAX_UNA_LINES) {
+                break;
+            }
+            end++;
+        }
+
+        // find the UNA line if any (allow 1–6 chars after UNA, like the regex UNA(.{1,6}))
+        int unaIndex = content.indexOf("UNA");
+        while (unaIndex >= 0 && unaIndex + 3 < end && isLineTerminator(content.charAt(unaIndex + 3))) {
+            unaIndex = content.indexOf("UNA", unaIndex + 1);
+        }
+        if (unaIndex >= 0 && unaIndex + 3 < end) {
+            int charsEnd = unaIndex + 4;
+            while (charsEnd < Math.min(unaIndex + 9, end) && !isLineTerminator(content.charAt(charsEnd))) {
+                charsEnd++;
+            }
+            if (charsEnd == unaIndex + 9) {
+                return SEPARATOR_CACHE.get(content, unaIndex, header -> toSeparators(header.substring(3)));
+            }
+
+            String chars = content.substring(unaIndex + 3, charsEnd);
             // pad to length 6 if fewer than 6 chars present
             while (chars.length() < 6) {
                 chars += "'"; // or your preferred default char
             }
-
-            char subElement = chars.charAt(0);
-            char element    = chars.charAt(1);
-            char decimal    = chars.charAt(2);
-            char release    = chars.charAt(3);
-            char segment    = chars.charAt(4);
-            char terminator = chars.charAt(5);
-            return new Separators(subElement, element, decimal, release, segment,terminator);
+            return toSeparators(chars);
         }
 
         // defaults
-        return new Separators(':', '+', '.', '?',' ','\'');
+        return DEFAULT_SEPARATORS;
+    }
+
+    /**
+     * Statistics of the cache of complete UNA headers
+     */
+    public static SeparatorCache.Stats getSeparatorCacheStats() {
+        return SEPARATOR_CACHE.getStats();
+    }
+
+    private static Separators toSeparators(String chars) {
+        char subElement = chars.charAt(0);
+        char element    = chars.charAt(1);
+        char decimal    = chars.charAt(2);
+        char release    = chars.charAt(3);
+        char segment    = chars.charAt(4);
+        char terminator = chars.charAt(5);
+        return new Separators(subElement, element, decimal, release, segment,terminator);
+    }
+
+    // Characters the regex dot does not match
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
 
     private static String GetTokenised(String normalizedName) {
@@ -1,5 +1,7 @@
 package com.l3.rcaengine.pnr.utils;
 
+import com.l3.common.util.SeparatorCache;
+
 /**
  * EDIFACT separators parser - replicates PowerShell Parse-Separators functionality
  */
@@ -13,6 +15,10 @@ public class EdifactSeparators {
     private final char terminator;
     
     private static final int MAX_UNA_LINES = 8;
+    private static final int UNA_CHARS_LENGTH = 9; // The separators and the 3 characters checked after them
+
+    // Separators of the well-formed UNA headers seen so far
+    private static final SeparatorCache<EdifactSeparators> CACHE = new SeparatorCache<>(64);
     
     public EdifactSeparators(char subElement, char element, char decimal, char release, char segment, char terminator) {
         this.subElement = subElement;
@@ -29,64 +35,103 @@ public class EdifactSeparators {
      * Enhanced to handle malformed UNA segments robustly
      */
     public static EdifactSeparators parse(String content) {
-        if (content == null || content.trim().isEmpty()) {
+        if (content == null || isBlank(content)) {
             return getDefault();
         }
         
-        // Look at first 8 lines for UNA segment
-        String[] lines = content.replace("\r", "\n").split("\n");
-        StringBuilder firstLines = new StringBuilder();
-        
-        for (int i = 0; i < Math.min(MAX_UNA_LINES, lines.length); i++) {
-            firstLines.append(lines[i]).append("\n");
-        }
-        
-        String searchContent = firstLines.toString();
-        
-        // Find UNA position
-        int unaIndex = searchContent.indexOf("UNA");
+        // Find UNA position, it has to be in the first 8 lines (CR and LF each end a line)
+        int unaIndex = content.indexOf("UNA");
         if (unaIndex == -1) {
             return getDefault();
         }
+        int linesBefore = countLineBreaks(content, 0, unaIndex);
+        if (linesBefore >= MAX_UNA_LINES) {
+            return getDefault();
+        }
         
         // UNA should be followed by exactly 6 separator characters
         int separatorStart = unaIndex + 3; // Skip "UNA"
         
         // Enhanced parsing with malformed UNA detection
-        return parseUnaSegment(searchContent, separatorStart);
+        return parseUnaSegment(content, separatorStart, linesBefore);
+    }
+
+    /**
+     * Statistics of the cache of well-formed UNA headers
+     */
+    public static SeparatorCache.Stats getCacheStats() {
+        return CACHE.getStats();
+    }
+
+    // Same as content.trim().isEmpty() without the copy
+    private static boolean isBlank(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int countLineBreaks(String content, int from, int to) {
+        int lines = 0;
+        for (int i = from; i < to; i++) {
+            char c = content.charAt(i);
+            if (c == '\r' || c == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * The 6 separator characters and the 3 after them as the first lines show them: CR read as LF, cut
+     * after the line break that ends line MAX_UNA_LINES, and one LF after the last line with characters
+     */
+    private static String readUnaChars(String content, int separatorStart, int linesBefore) {
+        int contentEnd = content.length(); // Like String.split, empty lines at the end do not count
+        while (contentEnd > separatorStart && (content.charAt(contentEnd - 1) == '\r' || content.charAt(contentEnd - 1) == '\n')) {
+            contentEnd--;
+        }
+        char[] chars = new char[UNA_CHARS_LENGTH];
+        int length = 0;
+        int lines = linesBefore;
+        for (int i = separatorStart; i < contentEnd && length < UNA_CHARS_LENGTH; i++) {
+            char c = content.charAt(i) == '\r' ? '\n' : content.charAt(i);
+            chars[length++] = c;
+            if (c == '\n' && ++lines == MAX_UNA_LINES) {
+                return new String(chars, 0, length);
+            }
+        }
+        if (length < UNA_CHARS_LENGTH) {
+            chars[length++] = '\n';
+        }
+        return new String(chars, 0, length);
     }
     
     /**
      * Parse UNA segment with robust handling of different patterns
      * Ensures complete isolation between files - each file gets its own separators
      */
-    private static EdifactSeparators parseUnaSegment(String content, int separatorStart) {
-        // Check if we have enough characters for analysis
-        if (separatorStart >= content.length()) {
-            return getDefault();
-        }
+    private static EdifactSeparators parseUnaSegment(String content, int separatorStart, int linesBefore) {
+        String unaChars = readUnaChars(content, separatorStart, linesBefore);
         
         // Standard case: try to extract exactly 6 characters after UNA
-        if (separatorStart + 6 <= content.length()) {
-            String unaChars = content.substring(separatorStart, separatorStart + 6);
-            
+        if (unaChars.length() >= 6) {
             // Validate that this looks like a proper UNA pattern
-            if (isValidUnaSequence(unaChars, content, separatorStart + 6)) {
-                return new EdifactSeparators(
-                    unaChars.charAt(0), // SubElement separator
-                    unaChars.charAt(1), // Element separator
-                    unaChars.charAt(2), // Decimal notation
-                    unaChars.charAt(3), // Release character
-                    unaChars.charAt(4), // Segment separator (reserved)
-                    unaChars.charAt(5)  // Segment terminator
-                );
+            if (isValidUnaSequence(unaChars)) {
+                // Headers read as they are in the content are cached, headers with line breaks are rare
+                if (separatorStart + 6 <= content.length() && !hasCarriageReturn(content, separatorStart)) {
+                    return CACHE.get(content, separatorStart - 3, header -> fromChars(header, 3));
+                }
+                return fromChars(unaChars, 0);
             }
         }
         
-        // Fallback: try to find UNB and work backwards
+        // Fallback: try to find UNB (also in the first lines) and work backwards
         int unbIndex = content.indexOf("UNB", separatorStart);
-        if (unbIndex > separatorStart) {
-            return reconstructFromAvailableChars(content, separatorStart, unbIndex);
+        if (unbIndex > separatorStart && linesBefore + countLineBreaks(content, separatorStart, unbIndex) < MAX_UNA_LINES) {
+            return reconstructFromAvailableChars(unaChars, 0, unbIndex - separatorStart);
         }
         
         // Last resort: use default
@@ -95,13 +140,9 @@ public class EdifactSeparators {
     
     /**
      * Validate if a 6-character UNA sequence looks correct
+     * @param unaChars The 6 characters followed by up to 3 more (see readUnaChars)
      */
-    private static boolean isValidUnaSequence(String unaChars, String content, int nextPos) {
-        // Basic sanity checks
-        if (unaChars.length() != 6) {
-            return false;
-        }
-        
+    private static boolean isValidUnaSequence(String unaChars) {
         // Check that characters are not control characters (except space)
         for (int i = 0; i < 6; i++) {
             char c = unaChars.charAt(i);
@@ -111,25 +152,44 @@ public class EdifactSeparators {
         }
         
         // Check if followed by UNB or reasonable content
-        if (nextPos < content.length()) {
-            String following = content.substring(nextPos, Math.min(nextPos + 3, content.length()));
-            return following.startsWith("UNB") || following.contains("\n") || following.contains("\r");
+        if (unaChars.length() > 6) {
+            return unaChars.startsWith("UNB", 6) || unaChars.indexOf('\n', 6) >= 0;
         }
         
         return true; // End of content is acceptable
     }
+
+    private static boolean hasCarriageReturn(String content, int separatorStart) {
+        for (int i = separatorStart; i < separatorStart + 6; i++) {
+            if (content.charAt(i) == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static EdifactSeparators fromChars(CharSequence unaChars, int start) {
+        return new EdifactSeparators(
+            unaChars.charAt(start),     // SubElement separator
+            unaChars.charAt(start + 1), // Element separator
+            unaChars.charAt(start + 2), // Decimal notation
+            unaChars.charAt(start + 3), // Release character
+            unaChars.charAt(start + 4), // Segment separator (reserved)
+            unaChars.charAt(start + 5)  // Segment terminator
+        );
+    }
     
     /**
      * Reconstruct separators from available characters between UNA and UNB
      */
-    private static EdifactSeparators reconstructFromAvailableChars(String content, int separatorStart, int unbIndex) {
+    private static EdifactSeparators reconstructFromAvailableChars(CharSequence content, int separatorStart, int unbIndex) {
         int availableLength = unbIndex - separatorStart;
         
         if (availableLength < 5) {
             return getDefault(); // Not enough data
         }
         
-        String available = content.substring(separatorStart, Math.min(separatorStart + 6, unbIndex));
+        String available = content.subSequence(separatorStart, Math.min(separatorStart + 6, unbIndex)).toString();
         
         // Pad to 6 characters if needed
         while (available.length() < 6) {
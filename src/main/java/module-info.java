@@ -26,7 +26,7 @@ module com.l3.launcher {
     opens com.l3.rcaengine.pnr.utils to javafx.fxml;
 
     // Launcher module
-    opens com.l3.launcher to javafx.fxml;
+    opens com.l3.launcher to javafx.fxml, com.fasterxml.jackson.databind; // Batch jobs and results are JSON
 
     // Log parser module - CORRECTED: Controller is now shared between API and PNR
     opens com.l3.logparser to javafx.fxml;
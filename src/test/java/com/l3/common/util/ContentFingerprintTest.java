@@ -0,0 +1,79 @@
+package com.l3.common.util;
+
+import com.l3.logparser.api.model.EdifactMessage;
+import com.l3.logparser.api.parser.ApiParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for content fingerprints and the fingerprint index used for deduplication
+ */
+@DisplayName("Content Fingerprint Tests")
+public class ContentFingerprintTest {
+
+    private static final String BODY =
+        "UNH+123+PAXLST:D:05B:UN:IATA+MS7752510151000+01:F'BGM+745'TDT+20+MS775'LOC+125+DXB'" +
+        "DTM+189:2510151030:201'NAD+FL+++DOE:JOHN'UNT+7+123'";
+
+    @Test
+    @DisplayName("The envelope and line breaks do not change the fingerprint, the body does")
+    public void testNormalisedBody() {
+        ContentFingerprint single = ContentFingerprint.ofEdifact(
+            "UNA:+.? 'UNB+UNOA:4+SND+RCV+251015:1000+1'" + BODY + "UNZ+1+1'");
+        ContentFingerprint multiLine = ContentFingerprint.ofEdifact(
+            "UNA:+.? '\nUNB+UNOA:4+OTHER+DEST+251015:1002+9'\n" + BODY.replace("'", "'\r\n") + "UNZ+1+9'\n");
+        ContentFingerprint noEnvelope = ContentFingerprint.ofEdifact(BODY);
+
+        assertEquals(single, multiLine);
+        assertEquals(single, noEnvelope);
+        assertNotEquals(single, ContentFingerprint.ofEdifact(BODY.replace("01:F", "02:F")));
+        assertNotEquals(single, ContentFingerprint.ofEdifact(BODY.replace("DOE:JOHN", "DOE:JANE")));
+        assertNotEquals(single, single.combine(1));
+        assertEquals(single.combine(1), noEnvelope.combine(1));
+
+        // Without UNH the whole content counts
+        assertNotEquals(ContentFingerprint.ofEdifact("UNB+UNOA:4+SND'BGM+745'"), ContentFingerprint.ofEdifact("UNB+UNOA:4+RCV'BGM+745'"));
+        // A released terminator stays inside its segment
+        assertNotEquals(ContentFingerprint.ofEdifact("UNH+1'NAD+FL+++O?'NEIL'UNT+2+1'"), ContentFingerprint.ofEdifact("UNH+1'NAD+FL+++O'NEIL'UNT+2+1'"));
+    }
+
+    @Test
+    @DisplayName("The parser computes the same fingerprint while tokenising")
+    public void testParserFingerprint() {
+        String logContent = "2025-10-15 10:00:01,123 INFO  [rcv] $STX$UNA:+.? 'UNB+UNOA:4+SND+RCV+251015:1000+1'" +
+            BODY + "UNZ+1+1'\n";
+        List<EdifactMessage> messages = new ApiParser().parseLogContent(logContent, "MS775", false, null);
+
+        assertEquals(1, messages.size());
+        assertEquals(ContentFingerprint.ofEdifact(BODY), messages.get(0).getContentFingerprint());
+        assertEquals(ContentFingerprint.ofEdifact(messages.get(0).getRawContent()), messages.get(0).getContentFingerprint());
+    }
+
+    @Test
+    @DisplayName("The index keeps the first value of each fingerprint and grows")
+    public void testFingerprintIndex() {
+        FingerprintIndex index = new FingerprintIndex(4);
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(-1, index.putIfAbsent(new ContentFingerprint(i % 7, i), i));
+        }
+        assertEquals(10_000, index.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, index.putIfAbsent(new ContentFingerprint(i % 7, i), 0));
+        }
+        assertEquals(-1, index.get(new ContentFingerprint(1, 0)));
+        assertTrue(index.contains(new ContentFingerprint(0, 0)));
+        assertEquals(10_000, index.size());
+
+        assertTrue(index.add(new ContentFingerprint(0, 0).combine(5)));
+        assertFalse(index.add(new ContentFingerprint(0, 0).combine(5)));
+        assertThrows(IllegalArgumentException.class, () -> index.putIfAbsent(new ContentFingerprint(9, 9), -1));
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertFalse(index.contains(new ContentFingerprint(0, 0)));
+    }
+}
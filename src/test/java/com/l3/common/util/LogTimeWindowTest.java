@@ -0,0 +1,118 @@
+package com.l3.common.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for restricting log reads to a time window
+ */
+@DisplayName("Log Time Window Tests")
+public class LogTimeWindowTest {
+
+    private static final LocalDateTime FIRST_ENTRY = LocalDateTime.of(2025, 10, 15, 6, 0);
+
+    /**
+     * One entry per second in both log formats, each followed by continuation lines without a timestamp
+     */
+    private static String buildLog(int entries) {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < entries; i++) {
+            LocalDateTime time = FIRST_ENTRY.plusSeconds(i);
+            if (i % 2 == 0) {
+                log.append(String.format("%tF %<tT,%03d INFO  [rcv] entry %d%n", time, i % 1000, i));
+            } else {
+                log.append(String.format("INFO  [%tFT%<tT,%03d] [trace.id:%d] entry %d%n", time, i % 1000, i, i));
+            }
+            log.append("UNA:+.? 'UNB+UNOA:4+SND+RCV'\n");
+            log.append("  continuation 2025-10-15 23:59:59 not an entry start\n");
+        }
+        return log.toString();
+    }
+
+    /**
+     * Offset of the line of an entry, found by a plain text search
+     */
+    private static long offsetOf(String log, int entry) {
+        int index = log.indexOf(" entry " + entry + "\n");
+        return log.lastIndexOf('\n', index) + 1;
+    }
+
+    @Test
+    @DisplayName("Binary search finds the entries of the window in a large file")
+    public void testFindRange(@TempDir Path tempDir) throws Exception {
+        String log = buildLog(20000);
+        Path logFile = tempDir.resolve("das.log");
+        Files.writeString(logFile, log);
+
+        LogTimeWindow window = new LogTimeWindow(FIRST_ENTRY.plusSeconds(7001), FIRST_ENTRY.plusSeconds(12000));
+        long[] range = window.findRange(logFile);
+        assertEquals(offsetOf(log, 7001), range[0]);
+        assertEquals(offsetOf(log, 12001), range[1]);
+
+        String content = log.substring((int) range[0], (int) range[1]);
+        assertTrue(content.contains("entry 7001\n"));
+        assertTrue(content.contains("entry 12000\n"));
+        assertFalse(content.contains("entry 7000\n"));
+        assertFalse(content.contains("entry 12001\n"));
+
+        // Window between two entries, open ends
+        assertEquals(offsetOf(log, 101), new LogTimeWindow(FIRST_ENTRY.plusSeconds(100).plusNanos(500_000_000), null).findRange(logFile)[0]);
+        assertArrayEquals(new long[]{0, offsetOf(log, 51)}, new LogTimeWindow(null, FIRST_ENTRY.plusSeconds(50).plusNanos(50_000_000)).findRange(logFile));
+        assertArrayEquals(new long[]{0, log.length()}, LogTimeWindow.around(FIRST_ENTRY, Duration.ofDays(1)).findRange(logFile));
+    }
+
+    @Test
+    @DisplayName("Files completely outside the window are skipped")
+    public void testFileOutsideWindow(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("das.log.1");
+        Files.writeString(logFile, buildLog(100));
+
+        long[] before = new LogTimeWindow(FIRST_ENTRY.minusHours(3), FIRST_ENTRY.minusHours(1)).findRange(logFile);
+        long[] after = LogTimeWindow.around(FIRST_ENTRY.plusHours(5), Duration.ofHours(2)).findRange(logFile);
+        assertEquals(before[0], before[1]);
+        assertEquals(after[0], after[1]);
+
+        Path plain = tempDir.resolve("plain.log");
+        Files.writeString(plain, "no timestamps\nat all\n");
+        assertArrayEquals(new long[]{0, 21}, new LogTimeWindow(FIRST_ENTRY, FIRST_ENTRY).findRange(plain));
+    }
+
+    @Test
+    @DisplayName("Filtered stream passes exactly the byte range of the window")
+    public void testFilterMatchesRange(@TempDir Path tempDir) throws Exception {
+        String log = buildLog(3000);
+        Path logFile = tempDir.resolve("das.log");
+        Files.writeString(logFile, log);
+
+        LogTimeWindow window = new LogTimeWindow(FIRST_ENTRY.plusSeconds(999), FIRST_ENTRY.plusSeconds(2000));
+        long[] range = window.findRange(logFile);
+
+        try (InputStream in = window.filter(new ByteArrayInputStream(log.getBytes(StandardCharsets.UTF_8)))) {
+            String filtered = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(log.substring((int) range[0], (int) range[1]), filtered);
+        }
+
+        try (InputStream in = new LogTimeWindow(FIRST_ENTRY.plusHours(5), null).filter(new ByteArrayInputStream(log.getBytes(StandardCharsets.UTF_8)))) {
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    @DisplayName("Window must not end before it starts")
+    public void testInvalidWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new LogTimeWindow(FIRST_ENTRY, FIRST_ENTRY.minusSeconds(1)));
+        assertTrue(LogTimeWindow.around(FIRST_ENTRY, Duration.ofHours(2)).contains(FIRST_ENTRY.plusHours(2)));
+        assertFalse(LogTimeWindow.around(FIRST_ENTRY, Duration.ofHours(2)).contains(FIRST_ENTRY.plusHours(2).plusNanos(1_000_000)));
+    }
+}
@@ -0,0 +1,112 @@
+package com.l3.common.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the asynchronous message file writer
+ */
+@DisplayName("Message File Writer Tests")
+public class MessageFileWriterTest {
+
+    @Test
+    @DisplayName("All queued files are written through a small queue and counted")
+    public void testWritesAllFiles(@TempDir Path tempDir) throws Exception {
+        MessageFileWriter writer = new MessageFileWriter(3, 4, 2);
+        long expectedBytes = 0;
+        for (int i = 0; i < 500; i++) {
+            String content = "UNH+" + i + "+PAXLST'NAD+FL+++MÜLLER'\n";
+            expectedBytes += content.getBytes(StandardCharsets.UTF_8).length;
+            writer.write(tempDir.resolve("part" + i + ".txt"), content);
+        }
+        MessageFileWriter.Stats stats = writer.finish();
+
+        assertEquals(500, stats.getFilesWritten());
+        assertEquals(expectedBytes, stats.getBytesWritten());
+        assertEquals(0, stats.getFilesFailed());
+        assertTrue(writer.getErrors().isEmpty());
+        assertEquals("UNH+42+PAXLST'NAD+FL+++MÜLLER'\n", Files.readString(tempDir.resolve("part42.txt")));
+        assertThrows(IllegalStateException.class, () -> writer.write(tempDir.resolve("late.txt"), ""));
+    }
+
+    @Test
+    @DisplayName("Writes and deletes of one file keep their order")
+    public void testSameFileOrder(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("PNR_MS775_Part1_C_INPUT.txt");
+        Path replaced = tempDir.resolve("PNR_MS775_Part1_F_INPUT.txt");
+        try (MessageFileWriter writer = new MessageFileWriter(4, 8, 3)) {
+            for (int i = 0; i < 100; i++) {
+                writer.write(file, "version " + i);
+            }
+            writer.write(replaced, "replaced");
+            writer.delete(replaced);
+            writer.delete(tempDir.resolve("never-written.txt"));
+            writer.finish(false);
+        }
+
+        assertEquals("version 99", Files.readString(file));
+        assertFalse(Files.exists(replaced));
+    }
+
+    @Test
+    @DisplayName("A failing file is reported without stopping the others")
+    public void testFailedFile(@TempDir Path tempDir) throws Exception {
+        MessageFileWriter writer = new MessageFileWriter();
+        writer.write(tempDir.resolve("missing").resolve("part1.txt"), "lost");
+        writer.write(tempDir.resolve("part2.txt"), "kept");
+        MessageFileWriter.Stats stats = writer.finish();
+
+        assertEquals(1, stats.getFilesWritten());
+        assertEquals(1, stats.getFilesFailed());
+        assertEquals(1, writer.getErrors().size());
+        assertTrue(writer.getErrors().get(0).startsWith("part1.txt"));
+        assertTrue(stats.toString().contains("1 failed"));
+    }
+
+    @Test
+    @DisplayName("A file deleted after it was written is not synced")
+    public void testDeletedFileNotSynced(@TempDir Path tempDir) throws Exception {
+        Path replaced = tempDir.resolve("PNR_MS775_Part1_F_INPUT.txt");
+        MessageFileWriter writer = new MessageFileWriter(2, 8, 4);
+        writer.write(replaced, "replaced");
+        writer.write(tempDir.resolve("PNR_MS775_Part1_C_INPUT.txt"), "complete");
+        writer.delete(replaced);
+        writer.finish();
+
+        assertFalse(Files.exists(replaced));
+        assertTrue(writer.getErrors().isEmpty(), () -> "Unexpected errors: " + writer.getErrors());
+    }
+
+    @Test
+    @DisplayName("A file that throws an unchecked exception does not stop its I/O thread")
+    public void testUncheckedFailure(@TempDir Path tempDir) throws Exception {
+        Path zip = tempDir.resolve("closed.zip");
+        Path unwritable;
+        try (FileSystem zipFs = FileSystems.newFileSystem(URI.create("jar:" + zip.toUri()), Map.of("create", "true"))) {
+            unwritable = zipFs.getPath("part0.txt");
+        }
+
+        MessageFileWriter writer = new MessageFileWriter(1, 16, 2);
+        writer.write(unwritable, "lost"); // ClosedFileSystemException
+        for (int i = 1; i <= 5; i++) {
+            writer.write(tempDir.resolve("part" + i + ".txt"), "kept " + i);
+        }
+        MessageFileWriter.Stats stats = writer.finish();
+
+        assertEquals(5, stats.getFilesWritten());
+        assertEquals(1, stats.getFilesFailed());
+        assertTrue(writer.getErrors().get(0).startsWith("part0.txt"));
+        assertEquals("kept 5", Files.readString(tempDir.resolve("part5.txt")));
+    }
+}
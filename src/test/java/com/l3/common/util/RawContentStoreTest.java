@@ -0,0 +1,105 @@
+package com.l3.common.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for keeping raw message contents in a file
+ */
+@DisplayName("Raw Content Store Tests")
+public class RawContentStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should load stored contents back exactly")
+    void testRoundTrip() throws Exception {
+        try (RawContentStore store = new RawContentStore(tempDir.resolve("raw.edi"), 4, 1024)) {
+            String[] contents = {
+                "UNA:+.? 'UNB+IATA:1+EK+NR+251015:1030+1++PNRGOV'",
+                "",
+                "NAD+FL+++MÜLLER:JÖRG'SSR+DOCS:HK::P/ÉGY/A1234567'\r\n😀"
+            };
+            List<RawContentStore.Ref> refs = new ArrayList<>();
+            for (String content : contents) {
+                refs.add(store.store(content));
+            }
+
+            for (int i = contents.length - 1; i >= 0; i--) {
+                assertEquals(contents[i], refs.get(i).load());
+                assertEquals(contents[i].length(), refs.get(i).length());
+            }
+            assertEquals(refs.get(2).getOffset() + refs.get(2).getByteLength(), store.getSize());
+            assertEquals(store.getSize(), Files.size(store.getFile()));
+            assertEquals(3, store.getStoredCount());
+
+            // An unpaired surrogate has no UTF-8 form, such content has to stay in memory
+            assertNull(store.store("UNH+1'\uD83D"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep recently loaded contents within the cache limits")
+    void testRecentlyUsedCache() throws Exception {
+        try (RawContentStore store = new RawContentStore(tempDir.resolve("raw.edi"), 2, 1000)) {
+            RawContentStore.Ref first = store.store("A".repeat(400));
+            RawContentStore.Ref second = store.store("B".repeat(400));
+            RawContentStore.Ref third = store.store("C".repeat(400));
+            RawContentStore.Ref large = store.store("D".repeat(2000));
+
+            first.load();
+            second.load();
+            first.load();
+            assertEquals(2, store.getFileReads());
+            assertEquals(1, store.getCacheHits());
+
+            // Over the character limit the least recently used content (second) leaves the cache
+            third.load();
+            first.load();
+            second.load();
+            assertEquals(4, store.getFileReads());
+            assertEquals(2, store.getCacheHits());
+
+            // Contents larger than the cache are never cached
+            large.load();
+            large.load();
+            assertEquals(6, store.getFileReads());
+        }
+    }
+
+    @Test
+    @DisplayName("Should delete the store file when closed")
+    void testClose() throws Exception {
+        Path file = tempDir.resolve("raw.edi");
+        RawContentStore store = new RawContentStore(file, 4, 1024);
+        RawContentStore.Ref ref = store.store("UNZ+1+1'");
+        store.close();
+
+        assertFalse(Files.exists(file));
+        assertThrows(UncheckedIOException.class, ref::load);
+    }
+
+    @Test
+    @DisplayName("Should delete a temporary store file when the results are cleared and again on exit")
+    void testTemporaryStoreClosedTwice() throws Exception {
+        RawContentStore store = RawContentStore.createTemp();
+        Path file = store.getFile();
+        store.store("UNZ+1+1'");
+        assertTrue(Files.exists(file));
+
+        store.close(); // Results cleared
+        assertFalse(Files.exists(file));
+        store.close(); // Window closed
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,93 @@
+package com.l3.common.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for caching separators by UNA header
+ */
+@DisplayName("Separator Cache Tests")
+public class SeparatorCacheTest {
+
+    @Test
+    @DisplayName("Should parse a header once and find it again anywhere in other text")
+    void testHitsAndMisses() {
+        SeparatorCache<String> cache = new SeparatorCache<>(4);
+        AtomicInteger parsed = new AtomicInteger();
+
+        assertEquals("UNA:+.? '", cache.get("UNA:+.? 'UNB+IATA", 0, header -> {
+            parsed.incrementAndGet();
+            return header;
+        }));
+        assertEquals("UNA:+.? '", cache.get("INFO [x] UNA:+.? 'UNB", 9, header -> "parsed again"));
+        assertEquals("UNA:+.? '", cache.get(new StringBuilder("\nUNA:+.? '"), 1));
+        assertNull(cache.get("UNA*+.? 'UNB", 0));
+
+        assertEquals(1, parsed.get());
+        SeparatorCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(1, stats.getEntries());
+        assertEquals(0.5, stats.getHitRate());
+
+        cache.resetStats();
+        assertEquals(0, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getEntries());
+    }
+
+    @Test
+    @DisplayName("Should keep at most the configured number of headers and the first value of each")
+    void testBounded() {
+        SeparatorCache<String> cache = new SeparatorCache<>(2);
+        assertEquals("first", cache.put("UNA:+.? '", 0, "first"));
+        assertEquals("first", cache.put("UNA:+.? '", 0, "second"));
+        assertEquals("other", cache.put("UNA|^.? ~", 0, "other"));
+        assertEquals("third", cache.put("UNA:+,? '", 0, "third"));
+
+        assertEquals(2, cache.getStats().getEntries());
+        assertNull(cache.get("UNA:+,? '", 0));
+        assertEquals("parsed", cache.get("UNA:+,? '", 0, header -> "parsed"));
+        assertEquals(2, cache.getStats().getEntries());
+        assertThrows(IllegalArgumentException.class, () -> new SeparatorCache<String>(0));
+    }
+
+    @Test
+    @DisplayName("Should return one shared value per header across threads")
+    void testConcurrentLookups() throws Exception {
+        SeparatorCache<Object> cache = new SeparatorCache<>(8);
+        String[] headers = {"UNA:+.? '", "UNA:+.?*'", "UNA|^.? ~", "UNA:+,? '"};
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Object>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Object> values = new ArrayList<>();
+                    for (int i = 0; i < 1000; i++) {
+                        values.add(cache.get(headers[i % headers.length], 0, header -> new Object()));
+                    }
+                    return values;
+                }));
+            }
+            List<Object> first = futures.get(0).get();
+            for (Future<List<Object>> future : futures) {
+                List<Object> values = future.get();
+                for (int i = 0; i < values.size(); i++) {
+                    assertSame(first.get(i % headers.length), values.get(i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(headers.length, cache.getStats().getEntries());
+        assertEquals(4000, cache.getStats().getHits() + cache.getStats().getMisses());
+    }
+}
@@ -0,0 +1,76 @@
+package com.l3.launcher;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the headless batch launcher
+ */
+@DisplayName("Batch Launcher Tests")
+public class BatchLauncherTest {
+
+    @Test
+    @DisplayName("Command-line options give one job per flight")
+    public void testJobsFromOptions() {
+        BatchLauncher.Options options = BatchLauncher.Options.parse(new String[] {
+                "--type", "pnr", "--logs", "logs", "--flight", "MS775, MS776", "--from", "2025-10-15 06:00",
+                "--save", "out", "--threads", "2"});
+        List<BatchJob> jobs = options.jobs();
+
+        assertEquals(2, options.threads);
+        assertEquals(2, jobs.size());
+        assertEquals("pnr-MS776", jobs.get(1).getId());
+        assertEquals(BatchJob.Type.PNR, jobs.get(1).getType());
+        assertEquals(LocalDateTime.of(2025, 10, 15, 6, 0), jobs.get(1).getFromTime());
+        assertEquals(Path.of("out", "MS776").toString(), jobs.get(1).getSaveDirectory());
+
+        assertThrows(IllegalArgumentException.class, () -> BatchLauncher.Options.parse(new String[] {"--type", "xml"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchLauncher.Options.parse(new String[] {"--threads", "0"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchLauncher.Options.parse(new String[] {"--logs", "logs"}));
+    }
+
+    @Test
+    @DisplayName("A job file is read with its thread count")
+    public void testReadJobFile(@TempDir Path tempDir) throws Exception {
+        Path jobFile = tempDir.resolve("jobs.json");
+        Files.writeString(jobFile, "{\"threads\": 3, \"jobs\": ["
+                + "{\"id\": \"a\", \"type\": \"api\", \"logDirectory\": \"logs\", \"toTime\": \"2025-10-15T18:00:00\"},"
+                + "{\"type\": \"API_RCA\", \"folder\": \"rca\", \"recordType\": \"crew\"}]}");
+        BatchLauncher.Options options = BatchLauncher.Options.parse(new String[] {"--jobs", jobFile.toString()});
+        List<BatchJob> jobs = BatchLauncher.readJobFile(jobFile, options);
+
+        assertEquals(3, options.threads);
+        assertEquals(2, jobs.size());
+        assertEquals(BatchJob.Type.API, jobs.get(0).getType());
+        assertEquals(LocalDateTime.of(2025, 10, 15, 18, 0), jobs.get(0).getToTime());
+        assertNull(jobs.get(1).getId());
+        assertEquals("crew", jobs.get(1).getRecordType());
+    }
+
+    @Test
+    @DisplayName("CSV output has a column per metric and quotes values with commas")
+    public void testWriteCsv() throws Exception {
+        BatchJobResult first = new BatchJobResult(new BatchJob("a", BatchJob.Type.PNR));
+        first.putMetric("messages", 12);
+        BatchJobResult second = new BatchJobResult(new BatchJob("b", BatchJob.Type.PNR_RCA));
+        second.putMetric("droppedPassengers", List.of("DOE/JOHN", "ROE/JANE"));
+        second.fail("Folder not found: a,b");
+
+        StringWriter writer = new StringWriter();
+        BatchLauncher.writeCsv(List.of(first, second), writer);
+        String[] lines = writer.toString().split(System.lineSeparator());
+
+        assertEquals("jobId,type,status,flightNumber,durationMillis,messages,droppedPassengers,warnings,errors", lines[0]);
+        assertEquals("a,PNR,OK,,0,12,,0,", lines[1]);
+        assertEquals("b,PNR_RCA,FAILED,,0,,DOE/JOHN; ROE/JANE,0,\"Folder not found: a,b\"", lines[2]);
+    }
+}
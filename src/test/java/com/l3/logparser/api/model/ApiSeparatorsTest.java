@@ -0,0 +1,41 @@
+package com.l3.logparser.api.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for ApiSeparators extraction from UNA headers
+ */
+public class ApiSeparatorsTest {
+
+    @Test
+    public void testFromUnaSegment() {
+        ApiSeparators separators = ApiSeparators.fromUna("UNA:+.?*'UNB+UNOA:4+SND+RCV'");
+
+        assertEquals(':', separators.getSubElementSeparator());
+        assertEquals('+', separators.getElementSeparator());
+        assertEquals('.', separators.getDecimalSeparator());
+        assertEquals('?', separators.getReleaseIndicator());
+        assertEquals('*', separators.getReservedSeparator());
+        assertEquals('\'', separators.getTerminatorSeparator());
+    }
+
+    @Test
+    public void testFromDollarUnaWithControlCharacters() {
+        ApiSeparators separators = ApiSeparators.fromUna("INFO $STX$UNA|\t^.? ~\r\nUNB^UNOA|4~");
+
+        assertEquals('|', separators.getSubElementSeparator());
+        assertEquals('^', separators.getElementSeparator());
+        assertEquals('.', separators.getDecimalSeparator());
+        assertEquals('?', separators.getReleaseIndicator());
+        assertEquals(' ', separators.getReservedSeparator());
+        assertEquals('~', separators.getTerminatorSeparator());
+    }
+
+    @Test
+    public void testIncompleteUnaFallsBackToDefaults() {
+        assertSame(ApiSeparators.DEFAULT, ApiSeparators.fromUna("UNA:+."));
+        assertSame(ApiSeparators.DEFAULT, ApiSeparators.fromUna("  UNA:+.? "));
+        assertSame(ApiSeparators.DEFAULT, ApiSeparators.fromUna(null));
+    }
+}
@@ -0,0 +1,150 @@
+package com.l3.logparser.api.parser;
+
+import com.l3.logparser.api.model.EdifactMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the persistent API flight index
+ */
+@DisplayName("API Flight Index Tests")
+public class ApiFlightIndexTest {
+
+    private static final String MESSAGE =
+        "UNA:+.? 'UNB+UNOA:4+SND+RCV+251015:1000+1'UNH+123+PAXLST:D:05B:UN:IATA+MS7752510151000+01:F'" +
+        "BGM+745'TDT+20+MS775'LOC+125+DXB'DTM+189:2510151030:201'LOC+87+CAI'UNT+8+123'UNZ+1+1'";
+
+    private static final String FIRST_ENTRIES =
+        "2025-10-15 10:00:01,123 INFO  [rcv] $STX$" + MESSAGE + "\n" +
+        "2025-10-15 10:00:02,123 INFO  [rcv] $STX$" + MESSAGE.replace("MS775", "QR512") + "\n";
+
+    @Test
+    @DisplayName("Lookup returns only the ranges of the flight, padded or not")
+    public void testLookup(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("das.log");
+        Files.writeString(logFile, FIRST_ENTRIES);
+
+        ApiParser parser = new ApiParser();
+        ApiFlightIndex index = build(parser, logFile);
+
+        assertEquals(2, index.getEntryCount());
+        assertEquals(1, index.lookup(parser.flightIndexKey("MS0775"), null).size());
+        assertEquals(1, index.lookup(parser.flightIndexKey("MS775"), "251015").size());
+        assertEquals(0, index.lookup(parser.flightIndexKey("MS775"), "251016").size());
+        assertEquals(0, index.lookup(parser.flightIndexKey("EK160"), null).size());
+
+        List<EdifactMessage> indexed = new ApiLogScanner(parser).scanEntries(logFile,
+            index.lookup(parser.flightIndexKey("QR512"), null), "QR512", false, null);
+        List<EdifactMessage> scanned = new ApiLogScanner(parser).scanFile(logFile, "QR512", false, null);
+        assertEquals(1, indexed.size());
+        assertEquals(scanned.get(0).getRawContent(), indexed.get(0).getRawContent());
+    }
+
+    @Test
+    @DisplayName("Saved index is reloaded and extended after the file grew")
+    public void testSaveLoadAndExtend(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("das.log");
+        // Third message is still being written: no newline and no UNZ yet
+        String partial = MESSAGE.replace("MS775", "EK160");
+        Files.writeString(logFile, FIRST_ENTRIES + "2025-10-15 10:00:03,123 INFO  [rcv] $STX$" + partial.substring(0, 120));
+
+        ApiParser parser = new ApiParser();
+        long fingerprint = parser.flightIndexFingerprint();
+        ApiFlightIndex index = build(parser, logFile);
+        assertEquals(FIRST_ENTRIES.length(), index.getResumeOffset());
+
+        Path indexFile = ApiFlightIndex.indexFileFor(tempDir.resolve("index"), logFile);
+        index.save(indexFile);
+        ApiFlightIndex loaded = ApiFlightIndex.load(indexFile, logFile);
+        assertNotNull(loaded);
+        assertTrue(loaded.isCurrent(logFile, fingerprint));
+        assertFalse(loaded.isCurrent(logFile, fingerprint + 1));
+        assertNull(ApiFlightIndex.load(indexFile, tempDir.resolve("other.log")));
+
+        Files.writeString(logFile, partial.substring(120) + "\n", StandardOpenOption.APPEND);
+        assertTrue(loaded.canExtend(logFile, fingerprint));
+
+        long size = Files.size(logFile);
+        long modified = Files.getLastModifiedTime(logFile).toMillis();
+        List<ApiFlightIndex.Entry> tail = new ArrayList<>();
+        long resume = new ApiLogScanner(parser).indexRange(logFile, loaded.getResumeOffset(), Long.MAX_VALUE, tail, false, null);
+        loaded.extend(logFile, size, modified, tail, resume);
+
+        // The last message runs until the next start line, so it is rescanned when the file grows again
+        assertEquals(FIRST_ENTRIES.length(), loaded.getResumeOffset());
+        assertEquals(3, loaded.getEntryCount());
+        assertEquals(1, loaded.lookup(parser.flightIndexKey("EK160"), null).size());
+    }
+
+    @Test
+    @DisplayName("A file rewritten with the same head and a larger size is not extended")
+    public void testRewrittenFileIsNotExtended(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("das.log");
+        StringBuilder heartbeats = new StringBuilder();
+        while (heartbeats.length() < 8192) {
+            heartbeats.append("2025-10-15 09:59:59,000 INFO  [hb] Heartbeat\n");
+        }
+        Files.writeString(logFile, heartbeats + FIRST_ENTRIES);
+
+        ApiParser parser = new ApiParser();
+        long fingerprint = parser.flightIndexFingerprint();
+        ApiFlightIndex index = build(parser, logFile);
+        assertTrue(index.canExtend(logFile, fingerprint));
+
+        // Same first 4 KB and more bytes, but the message in front of the resume offset changed
+        Files.writeString(logFile, heartbeats + FIRST_ENTRIES.replace("MS775", "MS776") + FIRST_ENTRIES);
+        assertFalse(index.canExtend(logFile, fingerprint));
+        assertFalse(index.isCurrent(logFile, fingerprint));
+    }
+
+    @Test
+    @DisplayName("Unused and surplus index files are evicted")
+    public void testEviction(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("das.log");
+        Files.writeString(logFile, FIRST_ENTRIES);
+        ApiFlightIndex index = build(new ApiParser(), logFile);
+
+        Path indexDirectory = tempDir.resolve("index");
+        Path indexFile = ApiFlightIndex.indexFileFor(indexDirectory, logFile);
+        Path staleFile = ApiFlightIndex.indexFileFor(indexDirectory, tempDir.resolve("gone/das.log"));
+        index.save(indexFile);
+        index.save(staleFile);
+        long eightDaysAgo = System.currentTimeMillis() - 8L * 24 * 60 * 60 * 1000;
+        Files.setLastModifiedTime(staleFile, FileTime.fromMillis(eightDaysAgo));
+
+        ApiFlightIndex.evict(indexDirectory);
+        assertTrue(Files.exists(indexFile));
+        assertFalse(Files.exists(staleFile));
+        try (Stream<Path> files = Files.list(indexDirectory)) {
+            assertEquals(1, files.count());
+        }
+
+        // Loading marks an index as used
+        Files.setLastModifiedTime(indexFile, FileTime.fromMillis(eightDaysAgo));
+        assertNotNull(ApiFlightIndex.load(indexFile, logFile));
+        ApiFlightIndex.evict(indexDirectory);
+        assertTrue(Files.exists(indexFile));
+    }
+
+    private ApiFlightIndex build(ApiParser parser, Path logFile) throws Exception {
+        long size = Files.size(logFile);
+        long modified = Files.getLastModifiedTime(logFile).toMillis();
+        List<ApiFlightIndex.Entry> entries = new ArrayList<>();
+        long resume = new ApiLogScanner(parser).indexRange(logFile, 0, Long.MAX_VALUE, entries, false, null);
+
+        ApiFlightIndex index = new ApiFlightIndex(logFile, parser.flightIndexFingerprint());
+        index.extend(logFile, size, modified, entries, resume);
+        return index;
+    }
+}
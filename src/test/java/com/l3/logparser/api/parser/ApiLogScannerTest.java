@@ -0,0 +1,197 @@
+package com.l3.logparser.api.parser;
+
+import com.l3.common.util.LogFileChunker;
+import com.l3.common.util.LogTimeWindow;
+import com.l3.logparser.api.model.EdifactMessage;
+import com.l3.logparser.model.ExtractionMonitor;
+import com.l3.logparser.model.ExtractionProgress;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the memory-mapped API log scanner
+ * Verifies that scanning a file gives the same messages as parsing its full content
+ */
+@DisplayName("API Log Scanner Tests")
+public class ApiLogScannerTest {
+
+    private static final String SINGLE_LINE_MESSAGE =
+        "UNA:+.? 'UNB+UNOA:4+SND+RCV+251015:1000+1'UNH+123+PAXLST:D:05B:UN:IATA+MS7752510151000+01:F'" +
+        "BGM+745'TDT+20+MS775'LOC+125+DXB'DTM+189:2510151030:201'LOC+87+CAI'UNT+8+123'UNZ+1+1'";
+
+    private static final String LOG_CONTENT =
+        "2025-10-15 10:00:00,123 INFO  [main] Starting listener\n" +
+        "2025-10-15 10:00:01,123 INFO  [rcv] $STX$" + SINGLE_LINE_MESSAGE + "\r\n" +
+        "2025-10-15 10:00:02,123 INFO  [rcv] $STX$UNA:+.? '\n" +
+        "UNB+UNOA:4+SND+RCV+251015:1000+1'\n" +
+        "UNH+456+PAXLST:D:05B:UN:IATA+MS7752510151000+02:C'\n" +
+        "BGM+250'\n" +
+        "TDT+20+MS775'\n" +
+        "UNZ+1+1'\n" +
+        "2025-10-15 10:00:03,123 INFO  [main] Unrelated entry\n" +
+        "2025-10-15 10:00:04,123 INFO  [rcv] $STX$" + SINGLE_LINE_MESSAGE.replace("MS775", "QR512");
+
+    @Test
+    @DisplayName("Scanned file yields the same messages as in-memory parsing")
+    public void testScanMatchesContentParsing(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("das.log");
+        Files.writeString(logFile, LOG_CONTENT);
+
+        ApiParser parser = new ApiParser();
+        List<EdifactMessage> expected = parser.parseLogContent(LOG_CONTENT, "MS775", false, null);
+        List<EdifactMessage> scanned = new ApiLogScanner(parser).scanFile(logFile, "MS775", false, null);
+
+        assertEquals(2, expected.size());
+        assertEquals(expected.size(), scanned.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getRawContent(), scanned.get(i).getRawContent());
+            assertEquals(expected.get(i).getPartNumber(), scanned.get(i).getPartNumber());
+        }
+    }
+
+    @Test
+    @DisplayName("Messages spanning mapping windows are reassembled")
+    public void testSmallWindowsGiveSameResult(@TempDir Path tempDir) throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            content.append(LOG_CONTENT).append('\n');
+        }
+        Path logFile = tempDir.resolve("MessageAPI.log");
+        Files.writeString(logFile, content);
+
+        ApiParser parser = new ApiParser();
+        List<EdifactMessage> large = new ApiLogScanner(parser).scanFile(logFile, null, false, null);
+        List<EdifactMessage> small = new ApiLogScanner(parser, 1024).scanFile(logFile, null, false, null);
+
+        assertEquals(150, large.size());
+        assertEquals(large.size(), small.size());
+        for (int i = 0; i < large.size(); i++) {
+            assertEquals(large.get(i).getRawContent(), small.get(i).getRawContent());
+        }
+    }
+
+    @Test
+    @DisplayName("Adjacent ranges together yield the messages of the whole file")
+    public void testRangesGiveSameResult(@TempDir Path tempDir) throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            content.append(LOG_CONTENT).append('\n');
+        }
+        Path logFile = tempDir.resolve("MessageForwarder.log");
+        Files.writeString(logFile, content);
+
+        ApiParser parser = new ApiParser();
+        List<EdifactMessage> whole = new ApiLogScanner(parser).scanFile(logFile, null, false, null);
+
+        // Splitting at every line start also cuts through multi-line messages
+        for (int chunkCount = 2; chunkCount <= 16; chunkCount++) {
+            List<EdifactMessage> ranged = new ArrayList<>();
+            for (LogFileChunker.Chunk chunk : LogFileChunker.split(logFile, chunkCount, Pattern.compile(""))) {
+                ranged.addAll(new ApiLogScanner(parser).scanRange(logFile, chunk.getStart(), chunk.getEnd(), null, false, null));
+            }
+
+            assertEquals(whole.size(), ranged.size(), "chunk count " + chunkCount);
+            for (int i = 0; i < whole.size(); i++) {
+                assertEquals(whole.get(i).getRawContent(), ranged.get(i).getRawContent());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Gzip-compressed file yields the same messages as the plain file")
+    public void testGzipMatchesPlainFile(@TempDir Path tempDir) throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            content.append(LOG_CONTENT).append('\n');
+        }
+        Path logFile = tempDir.resolve("das.log.1");
+        Files.writeString(logFile, content);
+        Path gzFile = tempDir.resolve("das.log.1.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzFile))) {
+            Files.copy(logFile, out);
+        }
+
+        ApiParser parser = new ApiParser();
+        List<EdifactMessage> plain = new ApiLogScanner(parser).scanFile(logFile, "MS775", false, null);
+        List<EdifactMessage> compressed = new ApiLogScanner(parser).scanFile(gzFile, "MS775", false, null);
+
+        assertEquals(40, plain.size());
+        assertEquals(plain.size(), compressed.size());
+        for (int i = 0; i < plain.size(); i++) {
+            assertEquals(plain.get(i).getRawContent(), compressed.get(i).getRawContent());
+        }
+    }
+
+    @Test
+    @DisplayName("Time window restricts plain and compressed files to the messages logged inside it")
+    public void testTimeWindow(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("das.log");
+        Files.writeString(logFile, LOG_CONTENT);
+        Path gzFile = tempDir.resolve("das.log.1.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzFile))) {
+            out.write(LOG_CONTENT.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ApiParser parser = new ApiParser();
+        List<String> flights = List.of("MS775");
+        List<EdifactMessage> all = new ApiLogScanner(parser).scanFile(logFile, "MS775", false, null);
+        LogTimeWindow window = new LogTimeWindow(LocalDateTime.of(2025, 10, 15, 10, 0, 2), LocalDateTime.of(2025, 10, 15, 10, 0, 3));
+
+        for (Path file : List.of(logFile, gzFile)) {
+            List<EdifactMessage> windowed = new ApiLogScanner(parser).scanFileForFlights(file, window, flights, false, null);
+            assertEquals(1, windowed.size());
+            assertEquals(all.get(1).getRawContent(), windowed.get(0).getRawContent());
+
+            LogTimeWindow later = new LogTimeWindow(LocalDateTime.of(2025, 10, 15, 12, 0), null);
+            assertTrue(new ApiLogScanner(parser).scanFileForFlights(file, later, flights, false, null).isEmpty());
+            assertEquals(all.size(), new ApiLogScanner(parser).scanFileForFlights(file, null, flights, false, null).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Monitor counts scanned bytes and messages, and a cancelled monitor stops the scan")
+    public void testMonitorProgressAndCancellation(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("das.log");
+        Files.writeString(logFile, LOG_CONTENT);
+        long size = Files.size(logFile);
+
+        ApiParser parser = new ApiParser();
+        ExtractionMonitor monitor = new ExtractionMonitor();
+        parser.setExtractionMonitor(monitor);
+        monitor.start(1, size);
+
+        new ApiLogScanner(parser).scanFile(logFile, "MS775", false, null);
+        ExtractionProgress progress = monitor.snapshot();
+        assertEquals(size, progress.getBytesRead());
+        assertEquals(2, progress.getMessagesFound());
+        assertEquals(1.0, progress.getFraction(), 0.0001);
+
+        monitor.cancel();
+        assertThrows(CancellationException.class, () -> new ApiLogScanner(parser).scanFile(logFile, "MS775", false, null));
+        assertThrows(CancellationException.class, () -> parser.parseLogContent(LOG_CONTENT, "MS775", false, null));
+    }
+
+    @Test
+    @DisplayName("Empty file yields no messages")
+    public void testEmptyFile(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("das.log");
+        Files.writeString(logFile, "");
+
+        List<EdifactMessage> scanned = new ApiLogScanner(new ApiParser()).scanFile(logFile, null, false, null);
+        assertTrue(scanned.isEmpty());
+    }
+}
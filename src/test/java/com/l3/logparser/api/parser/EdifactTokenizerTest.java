@@ -0,0 +1,62 @@
+package com.l3.logparser.api.parser;
+
+import com.l3.logparser.api.model.ApiSeparators;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the in-place EDIFACT segment tokenizer
+ */
+@DisplayName("EDIFACT Tokenizer Tests")
+public class EdifactTokenizerTest {
+
+    @Test
+    @DisplayName("Segments are trimmed, empty ones skipped and released terminators kept")
+    public void testSegments() {
+        EdifactTokenizer tokenizer = new EdifactTokenizer(ApiSeparators.DEFAULT);
+        tokenizer.reset("UNH+1+PAXLST'\n  '' TDT+20+MS?'775 '\nLOC+125+CAI");
+
+        assertTrue(tokenizer.nextSegment());
+        assertTrue(tokenizer.isSegment("UNH"));
+        assertTrue(tokenizer.nextSegment());
+        assertTrue(tokenizer.isSegment("TDT"));
+        assertEquals("TDT+20+MS?'775", tokenizer.segmentText());
+        assertTrue(tokenizer.nextSegment());
+        assertFalse(tokenizer.isSegment("LO"));
+        assertTrue(tokenizer.isSegment("LOC"));
+        assertFalse(tokenizer.nextSegment());
+    }
+
+    @Test
+    @DisplayName("Elements read like the segment with a terminator appended")
+    public void testElements() {
+        EdifactTokenizer tokenizer = new EdifactTokenizer(ApiSeparators.DEFAULT);
+        tokenizer.reset("UNH+1+PAXLST:D:05B:UN:IATA+MS0775/251015/1000'TDT+20+ MS?'0775 '");
+
+        assertTrue(tokenizer.nextSegment());
+        assertEquals(4, tokenizer.elementCount());
+        assertEquals("1", tokenizer.element(1));
+        assertEquals("MS0775/251015/1000'", tokenizer.element(3));
+        assertTrue(tokenizer.elementEquals(3, "MS0775/251015/1000'"));
+        assertEquals("MS0775/251015/1000", tokenizer.elementValue(3));
+
+        assertTrue(tokenizer.nextSegment());
+        assertEquals("MS?0775", tokenizer.elementValue(2));
+        assertTrue(tokenizer.elementValueEquals(1, "20"));
+    }
+
+    @Test
+    @DisplayName("Components and cleaned segments")
+    public void testComponentsAndCleaning() {
+        EdifactTokenizer tokenizer = new EdifactTokenizer(ApiSeparators.DEFAULT);
+        tokenizer.reset("DTM+189:25101\\r5\n1000+X'");
+
+        assertTrue(tokenizer.nextSegment());
+        assertTrue(tokenizer.firstComponentEquals(1, "189"));
+        assertFalse(tokenizer.firstComponentEquals(1, "18"));
+        assertEquals("2510151000", tokenizer.secondComponentValue(1));
+        assertNull(tokenizer.secondComponentValue(2));
+    }
+}
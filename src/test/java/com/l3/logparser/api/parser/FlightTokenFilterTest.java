@@ -0,0 +1,62 @@
+package com.l3.logparser.api.parser;
+
+import com.l3.logparser.api.model.ApiSeparators;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the raw-message flight number prefilter
+ */
+@DisplayName("Flight Token Filter Tests")
+public class FlightTokenFilterTest {
+
+    private static final String MESSAGE =
+        "UNA:+.? 'UNB+UNOA:4+SND+RCV+251015:1000+1'UNH+1+PAXLST:D:05B:UN:IATA+MS0775/251015/1000+01:C'" +
+        "TDT+20+MS0775'UNT+3+1'UNZ+1+1'";
+
+    @Test
+    @DisplayName("Padded and unpadded flight numbers match the same digit run")
+    public void testPaddedVariants() {
+        assertTrue(FlightTokenFilter.forTarget("MS775").mayMatch(MESSAGE, ApiSeparators.DEFAULT));
+        assertTrue(FlightTokenFilter.forTarget("ms00775").mayMatch(MESSAGE, ApiSeparators.DEFAULT));
+        assertFalse(FlightTokenFilter.forTarget("MS776").mayMatch(MESSAGE, ApiSeparators.DEFAULT));
+        assertFalse(FlightTokenFilter.forTarget("MS77").mayMatch(MESSAGE, ApiSeparators.DEFAULT));
+    }
+
+    @Test
+    @DisplayName("Line breaks removed by the parser do not split a digit run")
+    public void testCleanedCharactersAreSkipped() {
+        String wrapped = "UNH+1+PAXLST'TDT+20+MS07\n7\\r5'";
+        assertTrue(FlightTokenFilter.forTarget("MS775").mayMatch(wrapped, ApiSeparators.DEFAULT));
+    }
+
+    @Test
+    @DisplayName("Targets without a usable number disable the prefilter")
+    public void testNoFilterWithoutNumber() {
+        assertNull(FlightTokenFilter.forTarget(null));
+        assertNull(FlightTokenFilter.forTarget("  "));
+        assertNull(FlightTokenFilter.forTarget("MS"));
+        assertNull(FlightTokenFilter.forTarget("MS000"));
+    }
+
+    @Test
+    @DisplayName("Several targets pass a message holding any of them")
+    public void testMultipleTargets() {
+        assertTrue(FlightTokenFilter.forTargets(List.of("EK160", "MS775")).mayMatch(MESSAGE, ApiSeparators.DEFAULT));
+        assertFalse(FlightTokenFilter.forTargets(List.of("EK160", "MS7750", "MS77")).mayMatch(MESSAGE, ApiSeparators.DEFAULT));
+        assertNull(FlightTokenFilter.forTargets(Arrays.asList("EK160", null)));
+        assertNull(FlightTokenFilter.forTargets(List.of()));
+    }
+
+    @Test
+    @DisplayName("Digit separators always fall back to the full parse")
+    public void testDigitSeparators() {
+        ApiSeparators separators = new ApiSeparators(':', '1', '.', '?', ' ', '\'');
+        assertTrue(FlightTokenFilter.forTarget("MS999").mayMatch(MESSAGE, separators));
+    }
+}
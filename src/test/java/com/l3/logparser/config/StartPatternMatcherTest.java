@@ -0,0 +1,107 @@
+package com.l3.logparser.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the compiled message start pattern matcher
+ */
+@DisplayName("Start Pattern Matcher Tests")
+public class StartPatternMatcherTest {
+
+    @Test
+    @DisplayName("Default API patterns return the first matching pattern name")
+    public void testDefaultApiPatterns() {
+        ApiPatternConfig config = new ApiPatternConfig();
+        config.loadDefaults();
+        StartPatternMatcher matcher = StartPatternMatcher.compileApi(config.getMessageStartPatterns());
+
+        assertEquals("$STX$UNA", matcher.firstMatch("2025-10-15 10:00:01,123 INFO [rcv] $STX$UNA:+.? 'UNB+UNOA:4"));
+        assertEquals("$STX$UNB", matcher.firstMatch("2025-10-15 10:00:01,123 INFO [rcv] $STX$UNB+UNOA:4"));
+        assertEquals("MessageForwarder_UNB", matcher.firstMatch(
+            "INFO  [fwd] Forward.BUSINESS_RULES_PROCESSOR Message body [UNB+UNOA:4+SND'UNZ+1+1']"));
+        assertEquals("WARN_UNA", matcher.firstMatch("WARN Failed to parse API message [UNA:+.? 'UNB+UNOA:4"));
+        assertEquals("WARN_MULTILINE", matcher.firstMatch("WARN Failed to parse API message ["));
+        assertEquals("STANDALONE_UNA", matcher.firstMatch("UNA:+.? '"));
+        assertNull(matcher.firstMatch("2025-10-15 10:00:00,123 INFO  [main] Starting listener"));
+    }
+
+    @Test
+    @DisplayName("PNR startsWith checks the trimmed entry and empty multiple patterns never match")
+    public void testPnrSemantics() {
+        List<PnrPatternConfig.MessagePattern> patterns = new ArrayList<>();
+        patterns.add(new PnrPatternConfig.MessagePattern("EMPTY_MULTIPLE", "multiple", "", true));
+        patterns.add(new PnrPatternConfig.MessagePattern("STARTS_UNB", "startsWith", "UNB+", true));
+        StartPatternMatcher matcher = StartPatternMatcher.compilePnr(patterns);
+
+        assertTrue(matcher.matchesAny("   UNB+IATA:1+1A'  "));
+        assertFalse(matcher.matchesAny("INFO UNB+IATA:1+1A'"));
+        assertFalse(matcher.matchesAny("UNB"));
+    }
+
+    @Test
+    @DisplayName("Byte prefilter never rejects a line a pattern matches")
+    public void testBytePrefilter() {
+        ApiPatternConfig config = new ApiPatternConfig();
+        config.loadDefaults();
+        List<ApiPatternConfig.MessagePattern> patterns = config.getMessageStartPatterns();
+        patterns.add(new ApiPatternConfig.MessagePattern("UMLAUT", "contains", "Nachricht ü", true));
+        StartPatternMatcher matcher = StartPatternMatcher.compileApi(patterns);
+
+        String[] lines = {
+            "2025-10-15 10:00:01,123 INFO [rcv] $STX$UNA:+.? 'UNB+UNOA:4",
+            "WARN Failed to parse API message [",
+            "UNA:+.? '",
+            "INFO Nachricht über Ä",
+            "INFO Nachricht ü",
+            "2025-10-15 10:00:00,123 INFO  [main] Starting listener",
+            ""
+        };
+        for (String line : lines) {
+            if (matcher.matchesAny(line)) {
+                assertTrue(matcher.mayMatch(utf8(line), 0, utf8(line).limit()), line);
+            }
+        }
+        assertFalse(matcher.mayMatch(utf8(lines[5]), 0, utf8(lines[5]).limit()));
+
+        // Only the given range is scanned
+        ByteBuffer padded = utf8("xxUNA:+.? 'xx");
+        assertTrue(matcher.mayMatch(padded, 2, 11));
+        assertFalse(matcher.mayMatch(padded, 3, 11));
+
+        List<PnrPatternConfig.MessagePattern> pnrPatterns = new ArrayList<>();
+        pnrPatterns.add(new PnrPatternConfig.MessagePattern("STARTS_UNB", "startsWith", "UNB+", true));
+        StartPatternMatcher pnrMatcher = StartPatternMatcher.compilePnr(pnrPatterns);
+        assertTrue(pnrMatcher.mayMatch(utf8("  UNB+IATA"), 0, 10));
+        assertFalse(pnrMatcher.mayMatch(utf8("  UNA+IATA"), 0, 10));
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Fingerprint changes when a pattern is edited in place")
+    public void testFingerprintTracksInPlaceEdits() {
+        ApiPatternConfig config = new ApiPatternConfig();
+        config.loadDefaults();
+        List<ApiPatternConfig.MessagePattern> patterns = config.getMessageStartPatterns();
+        long before = StartPatternMatcher.fingerprintApi(patterns);
+
+        patterns.get(0).setEnabled(false);
+        assertNotEquals(before, StartPatternMatcher.fingerprintApi(patterns));
+
+        patterns.get(0).setEnabled(true);
+        assertEquals(before, StartPatternMatcher.fingerprintApi(patterns));
+
+        patterns.get(2).getConditions().get(0).setValue("DEBUG ");
+        assertNotEquals(before, StartPatternMatcher.fingerprintApi(patterns));
+    }
+}
@@ -0,0 +1,266 @@
+package com.l3.logparser.corpus;
+
+import com.l3.logparser.api.model.EdifactMessage;
+import com.l3.logparser.pnr.model.PnrMessage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Messages a generated log corpus holds, per flight (see LogCorpusGenerator)
+ * Written next to the logs as expected-api.csv and expected-pnr.csv, so extractions of a corpus
+ * can be checked at any size. Messages are identified by their content fingerprint; corrupted
+ * messages may or may not be recovered by the parsers, clean ones must be found exactly once.
+ */
+public class CorpusExpectations {
+
+    public static final String API_FILE = "expected-api.csv";
+    public static final String PNR_FILE = "expected-pnr.csv";
+
+    private static final String HEADER = "flight,departureDate,kind,part,indicator,status,fingerprint";
+
+    public enum Status { OK, CORRUPT }
+
+    /**
+     * One distinct message of the corpus
+     * The kind is the data type of API messages (PASSENGER or CREW) and the direction of PNR messages (INPUT or OUTPUT).
+     */
+    public static final class Entry {
+        private final String flight;
+        private final String departureDate;
+        private final String kind;
+        private final int part;
+        private final String indicator;
+        private final Status status;
+        private final String fingerprint;
+
+        public Entry(String flight, String departureDate, String kind, int part, String indicator, Status status, String fingerprint) {
+            this.flight = flight;
+            this.departureDate = departureDate;
+            this.kind = kind;
+            this.part = part;
+            this.indicator = indicator;
+            this.status = status;
+            this.fingerprint = fingerprint;
+        }
+
+        public String getFlight() { return flight; }
+        public String getDepartureDate() { return departureDate; }
+        public String getKind() { return kind; }
+        public int getPart() { return part; }
+        public String getIndicator() { return indicator; }
+        public Status getStatus() { return status; }
+        public String getFingerprint() { return fingerprint; }
+
+        private String toCsv() {
+            return String.join(",", flight, departureDate, kind, String.valueOf(part), indicator, status.name(), fingerprint);
+        }
+
+        private static Entry fromCsv(String line) {
+            String[] values = line.split(",", -1);
+            if (values.length != 7) {
+                throw new IllegalArgumentException("Invalid expectation line: " + line);
+            }
+            return new Entry(values[0], values[1], values[2], Integer.parseInt(values[3]), values[4],
+                    Status.valueOf(values[5]), values[6]);
+        }
+
+        @Override
+        public String toString() {
+            return flight + " " + kind + " part " + part + indicator + " (" + status + " " + fingerprint + ")";
+        }
+    }
+
+    private final Map<String, List<Entry>> apiEntries = new LinkedHashMap<>();
+    private final Map<String, List<Entry>> pnrEntries = new LinkedHashMap<>();
+
+    public void addApi(Entry entry) {
+        apiEntries.computeIfAbsent(entry.getFlight(), flight -> new ArrayList<>()).add(entry);
+    }
+
+    public void addPnr(Entry entry) {
+        pnrEntries.computeIfAbsent(entry.getFlight(), flight -> new ArrayList<>()).add(entry);
+    }
+
+    /**
+     * Flight numbers of the corpus, in generation order
+     */
+    public List<String> getFlights() {
+        Set<String> flights = new LinkedHashSet<>(apiEntries.keySet());
+        flights.addAll(pnrEntries.keySet());
+        return new ArrayList<>(flights);
+    }
+
+    public List<Entry> getApi(String flight) {
+        return apiEntries.getOrDefault(flight, Collections.emptyList());
+    }
+
+    public List<Entry> getPnr(String flight) {
+        return pnrEntries.getOrDefault(flight, Collections.emptyList());
+    }
+
+    public int getApiCount() {
+        return apiEntries.values().stream().mapToInt(List::size).sum();
+    }
+
+    public int getPnrCount() {
+        return pnrEntries.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Compare the API messages extracted for a flight with the corpus
+     * A message that matches no fingerprint counts as a partly recovered corrupted message if the flight
+     * has an unmatched corrupted message with the same data type and part.
+     * @return Problems found; empty if every clean message was extracted once with its part
+     *         information and nothing else was extracted
+     */
+    public List<String> verifyApi(String flight, List<EdifactMessage> messages) {
+        List<String> problems = new ArrayList<>();
+        List<Entry> entries = getApi(flight);
+        Map<String, Entry> expected = index(entries, false);
+        Set<String> found = new HashSet<>();
+        List<Entry> unmatchedCorrupt = corrupt(entries);
+        for (EdifactMessage message : messages) {
+            String key = message.getContentFingerprint().toString();
+            Entry entry = expected.get(key);
+            if (entry == null) {
+                if (!takeCorrupt(unmatchedCorrupt, message.getDataType(), message.getPartNumber(), message.getPartIndicator())) {
+                    problems.add(flight + ": unexpected API message " + message.getMessageId() + " (" + key + ")");
+                }
+            } else if (!found.add(key)) {
+                problems.add(flight + ": API message extracted twice: " + entry);
+            } else if (entry.getStatus() == Status.OK) {
+                if (message.getPartNumber() != entry.getPart() || !entry.getIndicator().equals(message.getPartIndicator())
+                        || !entry.getKind().equals(message.getDataType())) {
+                    problems.add(flight + ": API message " + entry + " extracted as " + message.getDataType() + " part "
+                            + message.getPartNumber() + message.getPartIndicator());
+                }
+            } else {
+                unmatchedCorrupt.remove(entry);
+            }
+        }
+        addMissing(flight, expected, found, problems);
+        return problems;
+    }
+
+    /**
+     * Compare the PNR messages extracted for a flight with the corpus; input and output copies count separately
+     * Messages matching no fingerprint are attributed to corrupted messages like in verifyApi.
+     * @return Problems found; empty if every clean message was extracted once per direction and nothing else was extracted
+     */
+    public List<String> verifyPnr(String flight, List<PnrMessage> messages) {
+        List<String> problems = new ArrayList<>();
+        List<Entry> entries = getPnr(flight);
+        Map<String, Entry> expected = index(entries, true);
+        Set<String> found = new HashSet<>();
+        List<Entry> unmatchedCorrupt = corrupt(entries);
+        for (PnrMessage message : messages) {
+            String key = message.getContentFingerprint() + "/" + message.getDirection();
+            Entry entry = expected.get(key);
+            if (entry == null) {
+                if (!takeCorrupt(unmatchedCorrupt, String.valueOf(message.getDirection()), message.getPartNumber(), message.getPartIndicator())) {
+                    problems.add(flight + ": unexpected PNR message " + message.getMessageId() + " (" + key + ")");
+                }
+            } else if (!found.add(key)) {
+                problems.add(flight + ": PNR message extracted twice: " + entry);
+            } else if (entry.getStatus() == Status.CORRUPT) {
+                unmatchedCorrupt.remove(entry);
+            }
+        }
+        addMissing(flight, expected, found, problems);
+        return problems;
+    }
+
+    private static List<Entry> corrupt(List<Entry> entries) {
+        List<Entry> corrupt = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.getStatus() == Status.CORRUPT) {
+                corrupt.add(entry);
+            }
+        }
+        return corrupt;
+    }
+
+    private static boolean takeCorrupt(List<Entry> corrupt, String kind, int part, String indicator) {
+        for (int i = 0; i < corrupt.size(); i++) {
+            Entry entry = corrupt.get(i);
+            if (entry.getKind().equals(kind) && entry.getPart() == part && entry.getIndicator().equals(indicator)) {
+                corrupt.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, Entry> index(List<Entry> entries, boolean withKind) {
+        Map<String, Entry> index = new HashMap<>();
+        for (Entry entry : entries) {
+            index.put(withKind ? entry.getFingerprint() + "/" + entry.getKind() : entry.getFingerprint(), entry);
+        }
+        return index;
+    }
+
+    private static void addMissing(String flight, Map<String, Entry> expected, Set<String> found, List<String> problems) {
+        for (Map.Entry<String, Entry> entry : expected.entrySet()) {
+            if (entry.getValue().getStatus() == Status.OK && !found.contains(entry.getKey())) {
+                problems.add(flight + ": missing " + entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Write expected-api.csv and expected-pnr.csv to a directory
+     */
+    public void write(Path directory) throws IOException {
+        write(directory.resolve(API_FILE), apiEntries);
+        write(directory.resolve(PNR_FILE), pnrEntries);
+    }
+
+    private static void write(Path file, Map<String, List<Entry>> entries) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (List<Entry> flightEntries : entries.values()) {
+                for (Entry entry : flightEntries) {
+                    writer.write(entry.toCsv());
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the expectations written next to a corpus
+     */
+    public static CorpusExpectations read(Path directory) throws IOException {
+        CorpusExpectations expectations = new CorpusExpectations();
+        read(directory.resolve(API_FILE), expectations::addApi);
+        read(directory.resolve(PNR_FILE), expectations::addPnr);
+        return expectations;
+    }
+
+    private static void read(Path file, Consumer<Entry> target) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine(); // Header
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    target.accept(Entry.fromCsv(line));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,653 @@
+package com.l3.logparser.corpus;
+
+import com.l3.common.util.ContentFingerprint;
+import com.l3.logparser.api.service.MessageParserService;
+import com.l3.logparser.enums.DataType;
+import com.l3.logparser.model.FlightCriteria;
+import com.l3.logparser.pnr.service.PnrExtractionService;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates log directories like the production servers write, for sizing and for checking the parsers at scale
+ *
+ * Writes das.log, MessageAPI.log, MessageTypeB.log, MessageMHPNRGOV.log and MessageForwarder.log in the
+ * formats the start patterns expect ($STX$UNA, multi-line WARN "Failed to parse API message", "Message body [UNA",
+ * PNRGOV push requests), with multipart C/F messages, custom UNA separators, noise lines and size-based rotation.
+ * Every API message is logged on receipt and again by the forwarder; every PNR message once as input and once as output.
+ * The same seed and settings always give the same files. The messages of each flight are written to
+ * expected-api.csv and expected-pnr.csv (see CorpusExpectations) and the settings to corpus.properties.
+ *
+ * Usage: LogCorpusGenerator DIR [--seed N] [--flights N] [--days N] [--passengers N] [--part-size N]
+ *        [--multipart-ratio R] [--corruption-rate R] [--custom-separator-ratio R] [--multiline-ratio R]
+ *        [--noise N] [--rotate-mb N]
+ *        LogCorpusGenerator --verify DIR   (extract every flight of a corpus and compare with its expectations)
+ */
+public class LogCorpusGenerator {
+
+    public static final String DAS_LOG = "das.log";
+    public static final String API_LOG = "MessageAPI.log";
+    public static final String TYPE_B_LOG = "MessageTypeB.log";
+    public static final String PNR_INPUT_LOG = "MessageMHPNRGOV.log";
+    public static final String FORWARDER_LOG = "MessageForwarder.log";
+
+    private static final String[] AIRLINES = {"MS", "EK", "QR", "TS", "LH", "BA", "AF", "KL"};
+    private static final String[] AIRPORTS = {"CAI", "DXB", "DOH", "YUL", "FRA", "LHR", "CDG", "AMS", "JFK", "SIN"};
+    private static final String[] SURNAMES = {"DOE", "MÜLLER", "O'BRIEN", "SMITH-JONES", "AL HASHEMI", "GARCÍA", "NGUYEN",
+            "KOWALSKI", "TREMBLAY", "ROSSI", "YILMAZ", "HASSAN"};
+    private static final String[] GIVEN_NAMES = {"JOHN", "ANNA MARIA", "JEAN+LUC", "LI", "FATIMA", "PETER:PAUL", "ZOË",
+            "AHMED", "MARIE", "OMAR", "SOFIA", "KENJI"};
+    private static final String NOISE_CHARACTERS = "#%&@";
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 10, 15, 0, 0);
+    private static final DateTimeFormatter DAS_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss,SSS");
+    private static final DateTimeFormatter ISO_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss,SSS");
+    private static final DateTimeFormatter API_DATE = DateTimeFormatter.ofPattern("yyMMdd");
+    private static final DateTimeFormatter PNR_DATE = DateTimeFormatter.ofPattern("ddMMyy");
+    private static final int FLIGHT_BLOCK = 32; // Flights whose messages are interleaved in the logs
+
+    /**
+     * EDIFACT separators of a message
+     */
+    private enum Syntax {
+        STANDARD(':', '+', '?', '\''),
+        CUSTOM('!', '*', '?', '~');
+
+        final char subElement;
+        final char element;
+        final char release;
+        final char terminator;
+
+        Syntax(char subElement, char element, char release, char terminator) {
+            this.subElement = subElement;
+            this.element = element;
+            this.release = release;
+            this.terminator = terminator;
+        }
+
+        String una() {
+            return "UNA" + subElement + element + ".? " + terminator;
+        }
+
+        String escape(String value) {
+            StringBuilder escaped = new StringBuilder(value.length() + 2);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == subElement || c == element || c == release || c == terminator) {
+                    escaped.append(release);
+                }
+                escaped.append(c);
+            }
+            return escaped.toString();
+        }
+    }
+
+    /**
+     * A generated message and how it is logged
+     */
+    private static final class Message {
+        final String text; // Single line, from UNA to the last terminator
+        final Syntax syntax;
+        final boolean multiLine;
+
+        Message(String text, Syntax syntax, boolean multiLine) {
+            this.text = text;
+            this.syntax = syntax;
+            this.multiLine = multiLine;
+        }
+    }
+
+    private long seed = 1;
+    private int flights = 100;
+    private int days = 1;
+    private int passengersPerFlight = 150;
+    private int passengersPerPart = 50;
+    private double multipartRatio = 0.3;
+    private double corruptionRate = 0.0;
+    private double customSeparatorRatio = 0.2;
+    private double multiLineRatio = 0.4;
+    private int noiseLinesPerMessage = 2;
+    private long rotateBytes = 0; // 0 = no rotation
+
+    private Random random;
+    private LocalDateTime clock;
+    private long traceId;
+
+    public void setSeed(long seed) { this.seed = seed; }
+
+    /**
+     * Number of flights, at most 8999 (flight numbers 1000-9999 so no flight number is a prefix of another)
+     */
+    public void setFlights(int flights) {
+        if (flights < 1 || flights > 8999) {
+            throw new IllegalArgumentException("Flights must be between 1 and 8999: " + flights);
+        }
+        this.flights = flights;
+    }
+
+    /**
+     * Number of consecutive departure dates every flight operates on
+     */
+    public void setDays(int days) { this.days = Math.max(1, days); }
+
+    /**
+     * Average passengers per flight and date (the actual count varies by up to 20%)
+     */
+    public void setPassengersPerFlight(int passengersPerFlight) { this.passengersPerFlight = Math.max(1, passengersPerFlight); }
+
+    /**
+     * Passengers per part of a multipart message
+     */
+    public void setPassengersPerPart(int passengersPerPart) { this.passengersPerPart = Math.max(1, passengersPerPart); }
+
+    /**
+     * Share of passenger lists sent as multipart messages (01:C ... nn:F) instead of one 01:F message
+     */
+    public void setMultipartRatio(double multipartRatio) { this.multipartRatio = ratio(multipartRatio); }
+
+    /**
+     * Share of messages that are logged truncated or with garbled characters
+     */
+    public void setCorruptionRate(double corruptionRate) { this.corruptionRate = ratio(corruptionRate); }
+
+    /**
+     * Share of messages sent with UNA!*.? ~ instead of UNA:+.? '
+     */
+    public void setCustomSeparatorRatio(double customSeparatorRatio) { this.customSeparatorRatio = ratio(customSeparatorRatio); }
+
+    /**
+     * Share of messages logged with line breaks in the EDIFACT content
+     */
+    public void setMultiLineRatio(double multiLineRatio) { this.multiLineRatio = ratio(multiLineRatio); }
+
+    /**
+     * Unrelated log lines written before every message
+     */
+    public void setNoiseLinesPerMessage(int noiseLinesPerMessage) { this.noiseLinesPerMessage = Math.max(0, noiseLinesPerMessage); }
+
+    /**
+     * Rotate a log (das.log -> das.log.1 ...) once it holds about this many bytes; 0 disables rotation
+     */
+    public void setRotateBytes(long rotateBytes) { this.rotateBytes = Math.max(0, rotateBytes); }
+
+    private static double ratio(double value) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException("Ratio must be between 0 and 1: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Generate a corpus into a directory (created if needed; existing logs of the same names are replaced)
+     * @return The messages of the corpus, also written to the directory
+     */
+    public CorpusExpectations generate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        random = new Random(seed);
+        clock = START;
+        traceId = 0;
+        CorpusExpectations expectations = new CorpusExpectations();
+
+        Map<String, RotatingLog> logs = new LinkedHashMap<>();
+        for (String name : new String[] {DAS_LOG, API_LOG, TYPE_B_LOG, PNR_INPUT_LOG, FORWARDER_LOG}) {
+            logs.put(name, new RotatingLog(directory, name));
+        }
+        try {
+            for (int day = 0; day < days; day++) {
+                LocalDate departureDate = START.toLocalDate().plusDays(day);
+                for (int first = 0; first < flights; first += FLIGHT_BLOCK) {
+                    // Messages of a block of flights are logged in random order, as they arrive in production
+                    List<Runnable> entries = new ArrayList<>();
+                    for (int flight = first; flight < Math.min(flights, first + FLIGHT_BLOCK); flight++) {
+                        addFlight(flight, departureDate, expectations, logs, entries);
+                    }
+                    Collections.shuffle(entries, random);
+                    for (Runnable entry : entries) {
+                        entry.run();
+                    }
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (RotatingLog log : logs.values()) {
+                log.close();
+            }
+        }
+
+        expectations.write(directory);
+        writeProperties(directory, expectations, logs);
+        return expectations;
+    }
+
+    /**
+     * Generate the API and PNR messages of one flight and date, and queue their log entries
+     */
+    private void addFlight(int index, LocalDate departureDate, CorpusExpectations expectations,
+                           Map<String, RotatingLog> logs, List<Runnable> entries) {
+        String airline = AIRLINES[index % AIRLINES.length];
+        String flight = airline + (1000 + index);
+        String departure = AIRPORTS[index % AIRPORTS.length];
+        String arrival = AIRPORTS[(index / AIRPORTS.length + index + 1) % AIRPORTS.length];
+        String date = departureDate.toString();
+        int passengers = Math.max(1, passengersPerFlight * (80 + random.nextInt(41)) / 100);
+        int parts = random.nextDouble() < multipartRatio ? Math.max(2, (passengers + passengersPerPart - 1) / passengersPerPart) : 1;
+        int perPart = (passengers + parts - 1) / parts;
+
+        // API: passenger list in parts, crew list in one message
+        for (int part = 1; part <= parts; part++) {
+            int count = Math.min(perPart, passengers - (part - 1) * perPart);
+            addApiMessage(flight, departure, arrival, departureDate, part, part == parts ? "F" : "C", false, Math.max(1, count),
+                    date, expectations, logs, entries);
+        }
+        addApiMessage(flight, departure, arrival, departureDate, 1, "F", true, 4 + random.nextInt(12), date, expectations, logs, entries);
+
+        // PNR: reservations in parts of one push
+        String reference = String.format("%014d", 1 + random.nextInt(Integer.MAX_VALUE));
+        for (int part = 1; part <= parts; part++) {
+            int count = Math.min(perPart, passengers - (part - 1) * perPart);
+            addPnrMessage(flight, departure, arrival, departureDate, reference, part, part == parts ? "F" : "C", Math.max(1, count),
+                    date, expectations, logs, entries);
+        }
+    }
+
+    private void addApiMessage(String flight, String departure, String arrival, LocalDate departureDate, int part, String indicator,
+                               boolean crew, int people, String date, CorpusExpectations expectations,
+                               Map<String, RotatingLog> logs, List<Runnable> entries) {
+        Syntax syntax = random.nextDouble() < customSeparatorRatio ? Syntax.CUSTOM : Syntax.STANDARD;
+        char e = syntax.element;
+        char s = syntax.subElement;
+        String apiDate = departureDate.format(API_DATE);
+        String reference = String.valueOf(1 + random.nextInt(99999));
+        List<String> segments = new ArrayList<>();
+        segments.add("UNB" + e + "UNOA" + s + "4" + e + "APIS" + e + "DCS" + e + apiDate + s + "0900" + e + reference);
+        segments.add("UNG" + e + "PAXLST" + e + "APIS" + e + "DCS" + e + apiDate + s + "0900" + e + reference + e + "UN" + e + "D" + s + "05B");
+        segments.add("UNH" + e + reference + e + "PAXLST" + s + "D" + s + "05B" + s + "UN" + s + "IATA" + e + flight + apiDate + "1030"
+                + e + String.format("%02d", part) + s + indicator);
+        segments.add("BGM" + e + (crew ? "250" : "745"));
+        segments.add("TDT" + e + "20" + e + flight);
+        segments.add("LOC" + e + "125" + e + departure);
+        segments.add("DTM" + e + "189" + s + apiDate + "1030" + s + "201");
+        segments.add("LOC" + e + "87" + e + arrival);
+        segments.add("DTM" + e + "232" + s + apiDate + "1430" + s + "201");
+        for (int i = 0; i < people; i++) {
+            segments.add("NAD" + e + (crew ? "FM" : "FL") + e + e + e + syntax.escape(SURNAMES[random.nextInt(SURNAMES.length)])
+                    + s + syntax.escape(GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)]));
+            segments.add("DTM" + e + "329" + s + String.format("%02d%02d%02d", 40 + random.nextInt(60), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+            segments.add("DOC" + e + "P" + s + "110" + s + "111" + e + (char) ('A' + random.nextInt(26)) + (1000000 + random.nextInt(9000000)));
+        }
+        segments.add("CNT" + e + (crew ? "41" : "42") + s + people);
+        segments.add("UNT" + e + (segments.size() - 1) + e + reference);
+        segments.add("UNE" + e + "1" + e + reference);
+        segments.add("UNZ" + e + "1" + e + reference);
+
+        Message message = createMessage(segments, syntax);
+        boolean corrupt = !message.text.equals(join(segments, syntax));
+        expectations.addApi(new CorpusExpectations.Entry(flight, date, crew ? "CREW" : "PASSENGER", part, indicator,
+                corrupt ? CorpusExpectations.Status.CORRUPT : CorpusExpectations.Status.OK, fingerprint(message)));
+
+        // Received: most messages in das.log or MessageAPI.log, some only as a WARN in MessageTypeB.log
+        double receipt = random.nextDouble();
+        String received = receipt < 0.45 ? DAS_LOG : receipt < 0.9 ? API_LOG : TYPE_B_LOG;
+        RotatingLog receiveLog = logs.get(received);
+        if (received.equals(TYPE_B_LOG)) {
+            entries.add(() -> writeTypeBEntry(receiveLog, message));
+        } else {
+            entries.add(() -> writeStxEntry(receiveLog, message, received.equals(DAS_LOG)));
+        }
+        // Forwarded after the business rules, always on one line
+        entries.add(() -> writeForwarderEntry(logs.get(FORWARDER_LOG), message));
+    }
+
+    private void addPnrMessage(String flight, String departure, String arrival, LocalDate departureDate, String reference, int part,
+                               String indicator, int passengers, String date, CorpusExpectations expectations,
+                               Map<String, RotatingLog> logs, List<Runnable> entries) {
+        Syntax syntax = random.nextDouble() < customSeparatorRatio ? Syntax.CUSTOM : Syntax.STANDARD;
+        char e = syntax.element;
+        char s = syntax.subElement;
+        String pnrDate = departureDate.format(PNR_DATE);
+        String apiDate = departureDate.format(API_DATE);
+        String airline = flight.substring(0, 2);
+        List<String> segments = new ArrayList<>();
+        segments.add("UNB" + e + "IATA" + s + "1" + e + airline + e + "NR" + e + apiDate + s + "0900" + e + reference + e + e + "PNRGOV");
+        segments.add("UNG" + e + "PNRGOV" + e + airline + e + "NR" + e + apiDate + s + "0900" + e + "1" + e + "IA" + e + "11" + s + "1");
+        segments.add("UNH" + e + reference + e + "PNRGOV" + s + "11" + s + "1" + s + "IA" + e + flight + "/" + pnrDate + "/1030"
+                + e + String.format("%02d", part) + s + indicator);
+        segments.add("MSG" + e + s + "22");
+        segments.add("ORG" + e + airline);
+        segments.add("TVL" + e + pnrDate + s + "1030" + s + pnrDate + s + "1430" + e + departure + e + arrival + e + airline + e + flight.substring(2));
+        segments.add("EQN" + e + passengers);
+        for (int i = 0; i < passengers; i++) {
+            StringBuilder locator = new StringBuilder(6);
+            for (int c = 0; c < 6; c++) {
+                locator.append((char) ('A' + random.nextInt(26)));
+            }
+            segments.add("SRC");
+            segments.add("RCI" + e + airline + s + locator);
+            segments.add("TIF" + e + syntax.escape(SURNAMES[random.nextInt(SURNAMES.length)]) + e
+                    + syntax.escape(GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)]) + s + "A" + s + (i + 1));
+        }
+        segments.add("UNT" + e + (segments.size() - 1) + e + reference);
+        segments.add("UNE" + e + "1" + e + "1");
+        segments.add("UNZ" + e + "1" + e + reference);
+
+        Message message = createMessage(segments, syntax);
+        boolean corrupt = !message.text.equals(join(segments, syntax));
+        String fingerprint = fingerprint(message);
+        CorpusExpectations.Status status = corrupt ? CorpusExpectations.Status.CORRUPT : CorpusExpectations.Status.OK;
+        expectations.addPnr(new CorpusExpectations.Entry(flight, date, "INPUT", part, indicator, status, fingerprint));
+        expectations.addPnr(new CorpusExpectations.Entry(flight, date, "OUTPUT", part, indicator, status, fingerprint));
+
+        entries.add(() -> writePnrInputEntry(logs.get(PNR_INPUT_LOG), message));
+        entries.add(() -> writeForwarderEntry(logs.get(FORWARDER_LOG), message));
+    }
+
+    /**
+     * Build the logged text of a message, corrupted at the configured rate
+     * Corruption never touches the envelope up to UNH, so a corrupted message still belongs to its flight.
+     */
+    private Message createMessage(List<String> segments, Syntax syntax) {
+        String text = join(segments, syntax);
+        boolean multiLine = random.nextDouble() < multiLineRatio;
+        if (random.nextDouble() < corruptionRate) {
+            int unhEnd = text.indexOf(syntax.terminator, text.indexOf("UNH")) + 1;
+            int position = unhEnd + 1 + random.nextInt(Math.max(1, text.length() - unhEnd - 2));
+            if (random.nextBoolean()) {
+                // Truncated: the rest of the message was lost
+                text = text.substring(0, position);
+            } else {
+                // Garbled characters
+                StringBuilder garbled = new StringBuilder(text);
+                for (int i = 0; i < 3 && position + i < garbled.length() - 1; i++) {
+                    garbled.setCharAt(position + i, NOISE_CHARACTERS.charAt(random.nextInt(NOISE_CHARACTERS.length())));
+                }
+                text = garbled.toString();
+            }
+        }
+        return new Message(text, syntax, multiLine);
+    }
+
+    private static String join(List<String> segments, Syntax syntax) {
+        StringBuilder text = new StringBuilder(syntax.una());
+        for (String segment : segments) {
+            text.append(segment).append(syntax.terminator);
+        }
+        return text.toString();
+    }
+
+    private static String fingerprint(Message message) {
+        return ContentFingerprint.ofEdifact(message.text, message.syntax.terminator, message.syntax.release).toString();
+    }
+
+    /**
+     * The text with a line break after the UNA header and after segments; every segment on its own line,
+     * or (wrap > 0) after the first segment that reaches the wrap length
+     */
+    private static String lines(Message message, int wrap) {
+        String text = message.text;
+        StringBuilder lines = new StringBuilder(text.length() + text.length() / 20);
+        int headerEnd = Math.min(text.length(), 9);
+        lines.append(text, 0, headerEnd).append('\n');
+        int lineStart = headerEnd;
+        for (int i = headerEnd; i < text.length(); i++) {
+            if (text.charAt(i) == message.syntax.terminator && text.charAt(i - 1) != message.syntax.release && i - lineStart + 1 >= wrap) {
+                lines.append(text, lineStart, i + 1).append('\n');
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < text.length()) {
+            lines.append(text, lineStart, text.length()).append('\n');
+        }
+        return lines.toString();
+    }
+
+    /**
+     * Advance the log clock by up to maxMillis and return its time
+     */
+    private String tick(int maxMillis, DateTimeFormatter format) {
+        clock = clock.plusNanos((1 + random.nextInt(maxMillis)) * 1_000_000L);
+        return clock.format(format);
+    }
+
+    private void writeNoise(RotatingLog log, boolean das) {
+        for (int i = 0; i < noiseLinesPerMessage; i++) {
+            String time = tick(200, das ? DAS_TIME : ISO_TIME);
+            switch (random.nextInt(3)) {
+                case 0 -> log.write(das ? time + " INFO  [main] Heartbeat queue=rcv depth=" + random.nextInt(50) + "\n"
+                        : "INFO  [" + time + "] [trace.id:H" + (++traceId) + "] Health check OK\n");
+                case 1 -> log.write(das ? time + " DEBUG [pool-1-thread-2] UNABLE to reach DMS, retrying\n"
+                        : time + " DEBUG UNABLE TO acknowledge trace.id:" + traceId + ", retrying\n");
+                default -> log.write(das ? time + " WARN  [rcv] Slow consumer, " + random.nextInt(2000) + " ms\n"
+                        : "DEBUG [" + time + "] [trace.id:D" + (++traceId) + "] Connection pool stats active=" + random.nextInt(20) + "\n");
+            }
+        }
+    }
+
+    private void writeStxEntry(RotatingLog log, Message message, boolean das) {
+        writeNoise(log, das);
+        String time = tick(2000, DAS_TIME);
+        String content = message.multiLine ? lines(message, 0) : message.text + "\n";
+        log.write(time + " INFO  [rcv] $STX$" + content);
+    }
+
+    private void writeTypeBEntry(RotatingLog log, Message message) {
+        writeNoise(log, false);
+        log.write("WARN  [" + tick(2000, ISO_TIME) + "] [trace.id:W" + (++traceId) + "] Failed to parse API message [" + lines(message, 0) + "]\n");
+    }
+
+    private void writeForwarderEntry(RotatingLog log, Message message) {
+        writeNoise(log, false);
+        log.write("INFO  [" + tick(2000, ISO_TIME) + "] [trace.id:F" + (++traceId) + "] Forward.BUSINESS_RULES_PROCESSOR Message body ["
+                + message.text + "]\n");
+    }
+
+    private void writePnrInputEntry(RotatingLog log, Message message) {
+        writeNoise(log, false);
+        String time = tick(2000, ISO_TIME);
+        long trace = ++traceId;
+        String content = message.multiLine ? lines(message, 120) : message.text + "\n";
+        log.write("INFO  [" + time + "] [trace.id:P" + trace + "] Received PNRGOV_PNR_PUSH request\n" + content);
+        log.write(tick(50, ISO_TIME) + " DEBUG Acknowledged trace.id:P" + trace + "\n");
+    }
+
+    private void writeProperties(Path directory, CorpusExpectations expectations, Map<String, RotatingLog> logs) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("seed", String.valueOf(seed));
+        properties.setProperty("flights", String.valueOf(flights));
+        properties.setProperty("days", String.valueOf(days));
+        properties.setProperty("passengersPerFlight", String.valueOf(passengersPerFlight));
+        properties.setProperty("passengersPerPart", String.valueOf(passengersPerPart));
+        properties.setProperty("multipartRatio", String.valueOf(multipartRatio));
+        properties.setProperty("corruptionRate", String.valueOf(corruptionRate));
+        properties.setProperty("customSeparatorRatio", String.valueOf(customSeparatorRatio));
+        properties.setProperty("multiLineRatio", String.valueOf(multiLineRatio));
+        properties.setProperty("noiseLinesPerMessage", String.valueOf(noiseLinesPerMessage));
+        properties.setProperty("rotateBytes", String.valueOf(rotateBytes));
+        properties.setProperty("apiMessages", String.valueOf(expectations.getApiCount()));
+        properties.setProperty("pnrMessages", String.valueOf(expectations.getPnrCount()));
+        for (RotatingLog log : logs.values()) {
+            properties.setProperty("files." + log.name, String.valueOf(log.files));
+            properties.setProperty("bytes." + log.name, String.valueOf(log.totalBytes));
+        }
+        // Written without the timestamp Properties.store adds, so equal settings give equal files
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("corpus.properties"), StandardCharsets.UTF_8)) {
+            writer.write("# Generated by LogCorpusGenerator");
+            writer.newLine();
+            for (String name : properties.stringPropertyNames().stream().sorted().toList()) {
+                writer.write(name + "=" + properties.getProperty(name));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * A log file with size-based rotation
+     * Files are written in order and renamed at the end: the newest is das.log, older ones das.log.1, das.log.2, ...
+     */
+    private final class RotatingLog implements Closeable {
+        final Path directory;
+        final String name;
+        BufferedWriter writer;
+        long bytes;
+        long totalBytes;
+        int files;
+
+        RotatingLog(Path directory, String name) {
+            this.directory = directory;
+            this.name = name;
+        }
+
+        void write(String entry) {
+            try {
+                long size = entry.length() + countNonAscii(entry);
+                if (writer == null || (rotateBytes > 0 && bytes > 0 && bytes + size > rotateBytes)) {
+                    rotate();
+                }
+                writer.write(entry);
+                bytes += size;
+                totalBytes += size;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void rotate() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+            writer = Files.newBufferedWriter(directory.resolve(name + ".generating" + files), StandardCharsets.UTF_8);
+            files++;
+            bytes = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer == null) {
+                // Every log exists, even if nothing was written to it
+                rotate();
+            }
+            writer.close();
+            for (int i = 0; i < files; i++) {
+                int age = files - 1 - i;
+                Files.move(directory.resolve(name + ".generating" + i), directory.resolve(age == 0 ? name : name + "." + age),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private static int countNonAscii(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                count++; // Two bytes in UTF-8 for the names used here
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Extract every flight of a corpus with both services and compare the results with its expectations
+     * @return Problems found, empty if the extractions match
+     */
+    public static List<String> verify(Path directory, int flightsPerBatch) throws IOException {
+        // Flight indexes and cached parse results go to a directory of their own, not the user's caches
+        Path cacheDirectory = Files.createTempDirectory("corpus-caches");
+        try {
+            return verify(directory, flightsPerBatch, cacheDirectory);
+        } finally {
+            try (Stream<Path> files = Files.walk(cacheDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Extract every flight of a corpus with flight indexes and cached parse results kept in a cache directory
+     * The caches may come from an earlier corpus in the same directory; they must detect that it changed.
+     */
+    public static List<String> verify(Path directory, int flightsPerBatch, Path cacheDirectory) throws IOException {
+        CorpusExpectations expectations = CorpusExpectations.read(directory);
+        List<String> problems = new ArrayList<>();
+        List<String> allFlights = expectations.getFlights();
+        MessageParserService apiService = new MessageParserService();
+        apiService.setFlightIndexDirectory(cacheDirectory.resolve("flight-index"));
+        PnrExtractionService pnrService = new PnrExtractionService();
+        pnrService.setResultCacheDirectory(cacheDirectory.resolve("pnr-result-cache"));
+        for (int first = 0; first < allFlights.size(); first += flightsPerBatch) {
+            List<String> batch = allFlights.subList(first, Math.min(allFlights.size(), first + flightsPerBatch));
+            List<FlightCriteria> criteria = new ArrayList<>();
+            for (String flight : batch) {
+                criteria.add(new FlightCriteria(flight));
+            }
+
+            List<MessageParserService.ExtractionResult> apiResults =
+                    apiService.extractMessagesBatch(directory.toString(), criteria, DataType.API, false, null);
+            List<PnrExtractionService.PnrExtractionResult> pnrResults = pnrService.extractPnrMessagesBatch(directory.toString(), criteria);
+            for (int i = 0; i < batch.size(); i++) {
+                problems.addAll(apiResults.get(i).getErrors());
+                problems.addAll(expectations.verifyApi(batch.get(i), apiResults.get(i).getExtractedMessages()));
+                problems.addAll(pnrResults.get(i).getErrors());
+                problems.addAll(expectations.verifyPnr(batch.get(i), pnrResults.get(i).getExtractedMessages()));
+            }
+        }
+        return problems;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: LogCorpusGenerator DIR [options] | --verify DIR");
+            System.exit(2);
+        }
+        if (args[0].equals("--verify")) {
+            List<String> problems = verify(Paths.get(args[1]), 200);
+            problems.forEach(System.out::println);
+            System.out.println(problems.isEmpty() ? "Corpus extractions match the expectations" : problems.size() + " problem(s)");
+            System.exit(problems.isEmpty() ? 0 : 1);
+        }
+
+        LogCorpusGenerator generator = new LogCorpusGenerator();
+        for (int i = 1; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--seed" -> generator.setSeed(Long.parseLong(value));
+                case "--flights" -> generator.setFlights(Integer.parseInt(value));
+                case "--days" -> generator.setDays(Integer.parseInt(value));
+                case "--passengers" -> generator.setPassengersPerFlight(Integer.parseInt(value));
+                case "--part-size" -> generator.setPassengersPerPart(Integer.parseInt(value));
+                case "--multipart-ratio" -> generator.setMultipartRatio(Double.parseDouble(value));
+                case "--corruption-rate" -> generator.setCorruptionRate(Double.parseDouble(value));
+                case "--custom-separator-ratio" -> generator.setCustomSeparatorRatio(Double.parseDouble(value));
+                case "--multiline-ratio" -> generator.setMultiLineRatio(Double.parseDouble(value));
+                case "--noise" -> generator.setNoiseLinesPerMessage(Integer.parseInt(value));
+                case "--rotate-mb" -> generator.setRotateBytes(Long.parseLong(value) * 1024 * 1024);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        long start = System.currentTimeMillis();
+        CorpusExpectations expectations = generator.generate(Paths.get(args[0]));
+        System.out.printf(Locale.ROOT, "%d API and %d PNR messages for %d flights written to %s in %d ms%n",
+                expectations.getApiCount(), expectations.getPnrCount(), expectations.getFlights().size(), args[0],
+                System.currentTimeMillis() - start);
+    }
+}
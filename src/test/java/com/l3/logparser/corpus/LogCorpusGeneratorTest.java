@@ -0,0 +1,100 @@
+package com.l3.logparser.corpus;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the synthetic log corpus and the extraction of its messages
+ */
+@DisplayName("Log Corpus Generator Tests")
+public class LogCorpusGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static LogCorpusGenerator generator(long seed) {
+        LogCorpusGenerator generator = new LogCorpusGenerator();
+        generator.setSeed(seed);
+        generator.setFlights(12);
+        generator.setPassengersPerFlight(12);
+        generator.setPassengersPerPart(5);
+        generator.setMultipartRatio(0.5);
+        generator.setCustomSeparatorRatio(0.3);
+        generator.setMultiLineRatio(0.5);
+        return generator;
+    }
+
+    @Test
+    @DisplayName("Should generate the same corpus for the same seed")
+    void testDeterministic() throws Exception {
+        Path first = Files.createDirectory(tempDir.resolve("first"));
+        Path second = Files.createDirectory(tempDir.resolve("second"));
+        generator(7).generate(first);
+        generator(7).generate(second);
+
+        List<String> files = list(first);
+        assertEquals(files, list(second));
+        for (String file : files) {
+            assertEquals(-1L, Files.mismatch(first.resolve(file), second.resolve(file)), "Different " + file);
+        }
+    }
+
+    @Test
+    @DisplayName("Should rotate logs by size with das.log the newest file")
+    void testRotation() throws Exception {
+        LogCorpusGenerator generator = generator(3);
+        generator.setRotateBytes(16 * 1024);
+        generator.generate(tempDir);
+
+        assertTrue(Files.exists(tempDir.resolve(LogCorpusGenerator.DAS_LOG)));
+        assertTrue(Files.exists(tempDir.resolve(LogCorpusGenerator.FORWARDER_LOG + ".1")));
+        assertTrue(Files.getLastModifiedTime(tempDir.resolve(LogCorpusGenerator.FORWARDER_LOG))
+                .compareTo(Files.getLastModifiedTime(tempDir.resolve(LogCorpusGenerator.FORWARDER_LOG + ".1"))) >= 0);
+    }
+
+    @Test
+    @DisplayName("Should extract every clean message of a corrupted corpus exactly once")
+    void testExtractionMatchesExpectations() throws Exception {
+        LogCorpusGenerator generator = generator(11);
+        generator.setCorruptionRate(0.2);
+        generator.setRotateBytes(32 * 1024);
+        CorpusExpectations expectations = generator.generate(tempDir);
+
+        assertTrue(expectations.getApiCount() > 0);
+        assertTrue(expectations.getPnrCount() > 0);
+        assertEquals(expectations.getApiCount(), CorpusExpectations.read(tempDir).getApiCount());
+
+        List<String> problems = LogCorpusGenerator.verify(tempDir, 5);
+        assertTrue(problems.isEmpty(), () -> String.join("\n", problems));
+    }
+
+    @Test
+    @DisplayName("Should extract a corpus regenerated in place through the caches of the previous one")
+    void testRegeneratedCorpusWithExistingCaches() throws Exception {
+        Path corpus = Files.createDirectory(tempDir.resolve("corpus"));
+        Path caches = Files.createDirectory(tempDir.resolve("caches"));
+        generator(5).generate(corpus);
+        List<String> problems = LogCorpusGenerator.verify(corpus, 5, caches);
+        assertTrue(problems.isEmpty(), () -> String.join("\n", problems));
+
+        LogCorpusGenerator regenerated = generator(5);
+        regenerated.setCorruptionRate(0.2);
+        regenerated.generate(corpus);
+        List<String> afterRegeneration = LogCorpusGenerator.verify(corpus, 5, caches);
+        assertTrue(afterRegeneration.isEmpty(), () -> String.join("\n", afterRegeneration));
+    }
+
+    private static List<String> list(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.l3.logparser.model;
+
+import com.l3.logparser.api.parser.ApiParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the lock-free parser debug trace
+ */
+@DisplayName("Parse Trace Tests")
+public class ParseTraceTest {
+
+    private static final String LOG_CONTENT =
+        "2025-10-15 10:00:01,123 INFO  [rcv] $STX$UNA:+.? 'UNB+UNOA:4+SND+RCV+251015:1000+1'" +
+        "UNH+123+PAXLST:D:05B:UN:IATA+MS7752510151000+01:F'BGM+745'TDT+20+MS775'LOC+125+DXB'" +
+        "DTM+189:2510151030:201'NAD+FL+++DOE:JOHN'UNT+8+123'UNZ+1+1'\n";
+
+    @Test
+    @DisplayName("Events are drained in order and details are only evaluated when formatted")
+    public void testDrainOrderAndLazyDetail() {
+        ParseTrace trace = new ParseTrace(8);
+        AtomicInteger supplierCalls = new AtomicInteger();
+
+        trace.record(TraceEvent.Type.RAW_MESSAGES_FOUND, 0, 3);
+        trace.record(TraceEvent.Type.MESSAGE_START, 0, 12, 0, "$STX$");
+        trace.record(TraceEvent.Type.PNR_EDIFACT_CONTENT, 4, 0, 0, (Supplier<String>) () -> {
+            supplierCalls.incrementAndGet();
+            return "UNA:+.? '";
+        });
+        assertEquals(0, supplierCalls.get());
+
+        List<TraceEvent> events = new ArrayList<>();
+        assertEquals(3, trace.drain(events::add));
+        assertEquals(0, supplierCalls.get());
+
+        assertEquals("Stage 1 complete: Found 3 raw message boundaries", events.get(0).format());
+        assertEquals("[Line 12] Started new message with pattern: $STX$", events.get(1).format());
+        assertEquals(TraceEvent.Type.PNR_EDIFACT_CONTENT, events.get(2).getType());
+        assertEquals(4, events.get(2).getMessageIndex());
+        assertEquals("        → Extracted EDIFACT content: UNA:+.? '...", events.get(2).format());
+        assertEquals(1, supplierCalls.get());
+        assertEquals(Thread.currentThread().getName(), events.get(0).getThreadName());
+
+        assertEquals(0, trace.drain(events::add));
+    }
+
+    @Test
+    @DisplayName("A full buffer drops and counts new events, and is reused after draining")
+    public void testFullBufferDropsEvents() {
+        ParseTrace trace = new ParseTrace(5);
+        assertEquals(8, trace.getCapacity());
+
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 10; i++) {
+                trace.record(TraceEvent.Type.SEGMENTS_SPLIT, i, i);
+            }
+            List<TraceEvent> events = new ArrayList<>();
+            assertEquals(8, trace.drain(events::add));
+            for (int i = 0; i < 8; i++) {
+                assertEquals(i, events.get(i).getValue());
+            }
+            assertEquals(2L * (lap + 1), trace.getDroppedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent producers lose no events and keep their own order")
+    public void testConcurrentProducers() throws Exception {
+        ParseTrace trace = new ParseTrace(1024);
+        int producers = 4;
+        int eventsPerProducer = 50_000;
+        AtomicBoolean producing = new AtomicBoolean(true);
+        Map<String, Long> lastValue = new HashMap<>();
+        AtomicInteger drained = new AtomicInteger();
+        AtomicBoolean ordered = new AtomicBoolean(true);
+
+        Thread drainer = new Thread(() -> {
+            while (producing.get()) {
+                drainOnce(trace, lastValue, drained, ordered);
+            }
+        });
+        drainer.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    trace.record(TraceEvent.Type.SEGMENTS_SPLIT, 0, i);
+                }
+            }, "producer-" + p);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        producing.set(false);
+        drainer.join();
+        drainOnce(trace, lastValue, drained, ordered);
+
+        assertTrue(ordered.get());
+        assertEquals((long) producers * eventsPerProducer, drained.get() + trace.getDroppedCount());
+    }
+
+    private static int drainOnce(ParseTrace trace, Map<String, Long> lastValue, AtomicInteger drained, AtomicBoolean ordered) {
+        return trace.drain(event -> {
+            Long previous = lastValue.put(event.getThreadName(), event.getValue());
+            if (previous != null && previous >= event.getValue()) {
+                ordered.set(false);
+            }
+            drained.incrementAndGet();
+        });
+    }
+
+    @Test
+    @DisplayName("Traced parser events read like the debug logger output")
+    public void testParserTraceMatchesDebugLogger() {
+        ApiParser parser = new ApiParser();
+        List<String> logged = new ArrayList<>();
+        parser.parseLogContent(LOG_CONTENT, "MS775", true, logged::add);
+
+        ParseTrace trace = new ParseTrace();
+        parser.setParseTrace(trace);
+        List<String> unused = new ArrayList<>();
+        assertEquals(1, parser.parseLogContent(LOG_CONTENT, "MS775", true, unused::add).size());
+        assertTrue(unused.isEmpty());
+
+        List<String> traced = new ArrayList<>();
+        trace.drain(event -> traced.add(event.format()));
+        assertEquals(logged, traced);
+        assertTrue(traced.contains("Processed UNH segment"));
+        assertTrue(traced.contains("Skipped segment type: NAD"));
+    }
+}
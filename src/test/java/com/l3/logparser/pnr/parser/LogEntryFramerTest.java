@@ -0,0 +1,123 @@
+package com.l3.logparser.pnr.parser;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for framing PNR log content into log entries
+ */
+@DisplayName("Log Entry Framer Tests")
+public class LogEntryFramerTest {
+
+    // How the parser split log content before the framer
+    private static final Pattern SPLIT_PATTERN =
+        Pattern.compile("(?m)(?=^(?:" + PnrEdifactParser.LOG_ENTRY_START.pattern() + "))");
+
+    private static final String[] LINES = {
+        "INFO  [2025-10-15T06:50:51,113] [trace.id:abc] Received PNRGOV_PNR_PUSH request",
+        "UNA:+.? 'UNB+IATA:1+EK+NR+251015:1030+1++PNRGOV'UNH+1+PNRGOV:11:1:IA+EK0160/151025/1030+01:F'",
+        "2025-10-15T06:50:52,000 DEBUG Acknowledged",
+        "DEBUG\t[worker-1] Forward.BUSINESS_RULES_PROCESSOR Message body [UNA:+.? '",
+        "WARN [x]",
+        "ERROR   [",
+        "INFOX [not an entry",
+        "INFO without bracket",
+        "2025-10-15 06:50:51 not an ISO timestamp",
+        "2025-10-15T06:5",
+        "TVL+151025:1030:151025:1330+DXB+CAI+EK+0160'",
+        "",
+        "   INFO [indented]",
+        "ERROR",
+        "DEBUG  ",
+    };
+
+    // Mostly "\n", like the logs; the others are line terminators for the regex too
+    private static final String[] LINE_BREAKS = {"\n", "\n", "\n", "\n", "\r\n", "\r", "\u0085", "\u2028", "\u2029"};
+
+    @Test
+    @DisplayName("Should cut content at the same lines as the entry-start regex")
+    void testSameEntriesAsRegexSplit() throws Exception {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            String content = randomContent(random, 1 + random.nextInt(40));
+            List<String> expected = Arrays.asList(SPLIT_PATTERN.split(content));
+            if (content.isEmpty()) {
+                expected = List.of();
+            }
+
+            assertEquals(expected, frame(new LogEntryFramer(content)), "In memory: " + content);
+            // Small buffers make lines and entries straddle buffer refills
+            for (int bufferSize : new int[]{1, 7, 23, 64, LogEntryFramer.DEFAULT_BUFFER_SIZE}) {
+                assertEquals(expected, frame(new LogEntryFramer(new StringReader(content), bufferSize)),
+                        "Buffer " + bufferSize + ": " + content);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should report entries as ranges of the text and grow the buffer for long entries")
+    void testRangesAndLongEntries() throws Exception {
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            longLine.append("SRC'RCI+EK:ABCDEF'");
+        }
+        String content = LINES[0] + "\n" + longLine + "\n" + LINES[2] + "\n";
+
+        LogEntryFramer framer = new LogEntryFramer(new StringReader(content), 64);
+        assertTrue(framer.next());
+        assertEquals(LINES[0].length() + longLine.length() + 2, framer.length());
+        assertEquals(framer.entryString(), framer.text().subSequence(framer.start(), framer.end()).toString());
+        assertEquals(framer.entryString(), framer.entry().toString());
+        assertTrue(framer.next());
+        assertEquals(LINES[2] + "\n", framer.entry().toString());
+        assertFalse(framer.next());
+        assertEquals(2, framer.getEntryCount());
+    }
+
+    @Test
+    @DisplayName("Should cut content with carriage return line endings")
+    void testCarriageReturnLineEndings() throws Exception {
+        String content = LINES[0] + "\r" + LINES[1] + "\r" + LINES[2] + "\r" + LINES[10] + "\r";
+
+        List<String> expected = List.of(LINES[0] + "\r" + LINES[1] + "\r", LINES[2] + "\r" + LINES[10] + "\r");
+        assertEquals(expected, frame(new LogEntryFramer(content)));
+        assertEquals(expected, frame(new LogEntryFramer(new StringReader(content), 7)));
+    }
+
+    @Test
+    @DisplayName("Should recognise entry starts by hand like the regex")
+    void testIsEntryStart() {
+        for (String line : LINES) {
+            assertEquals(PnrEdifactParser.LOG_ENTRY_START.matcher(line).lookingAt(),
+                    LogEntryFramer.isEntryStart(line, 0, line.length()), line);
+        }
+    }
+
+    private static List<String> frame(LogEntryFramer framer) throws Exception {
+        List<String> entries = new ArrayList<>();
+        while (framer.next()) {
+            entries.add(framer.entryString());
+        }
+        return entries;
+    }
+
+    private static String randomContent(Random random, int lineCount) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < lineCount; i++) {
+            content.append(LINES[random.nextInt(LINES.length)]);
+            if (i < lineCount - 1 || random.nextBoolean()) {
+                content.append(LINE_BREAKS[random.nextInt(LINE_BREAKS.length)]);
+            }
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,183 @@
+package com.l3.logparser.pnr.parser;
+
+import com.l3.logparser.enums.MessageType;
+import com.l3.logparser.pnr.model.PnrMessage;
+import com.l3.logparser.pnr.model.PnrSeparators;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for parsing PNR log content on one and on several threads
+ */
+@DisplayName("PNR EDIFACT Parser Tests")
+public class PnrEdifactParserTest {
+
+    private static final String[] FLIGHTS = {"EK0160", "QR0512", "MS0775"};
+
+    private static String logContent(int entries) {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < entries; i++) {
+            String flight = FLIGHTS[i % FLIGHTS.length];
+            String time = String.format("06:%02d:%02d", (i / 60) % 60, i % 60);
+            log.append("INFO  [2025-10-15T").append(time).append(",113] [trace.id:T").append(i)
+                .append("] Received PNRGOV_PNR_PUSH request\n");
+            log.append("UNA:+.? 'UNB+IATA:1+EK+NR+251015:1030+").append(i).append("++PNRGOV'")
+                .append("UNH+").append(i).append("+PNRGOV:11:1:IA+").append(flight).append("/151025/1030+01:F'")
+                .append("TVL+151025:1030:151025:1330+DXB+CAI+").append(flight, 0, 2).append('+').append(flight.substring(2)).append("'")
+                .append("SRC'RCI+EK:LOC").append(i).append("'UNT+5+").append(i).append("'UNZ+1+").append(i).append("'\n");
+            log.append("2025-10-15T").append(time).append(",500 DEBUG Acknowledged trace.id:T").append(i).append('\n');
+        }
+        return log.toString();
+    }
+
+    private static List<String> traceIds(List<PnrMessage> messages) {
+        List<String> ids = new ArrayList<>();
+        for (PnrMessage message : messages) {
+            ids.add(message.getLogTraceId() + " " + message.getContentFingerprint());
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Should return the same messages in file order on several threads")
+    void testParallelParsingKeepsFileOrder() throws Exception {
+        String content = logContent(3000);
+
+        PnrEdifactParser inline = new PnrEdifactParser();
+        List<PnrMessage> expected = inline.parseLogContentForFlights(content, List.of("EK0160", "MS0775"), MessageType.INPUT);
+        assertEquals(2000, expected.size());
+
+        PnrEdifactParser parallel = new PnrEdifactParser();
+        parallel.setParallelism(4);
+        List<PnrMessage> fromString = parallel.parseLogContentForFlights(content, List.of("EK0160", "MS0775"), MessageType.INPUT);
+        List<PnrMessage> fromStream = parallel.parseLogStreamForFlights(new StringReader(content), List.of("EK0160", "MS0775"), MessageType.INPUT);
+
+        assertEquals(traceIds(expected), traceIds(fromString));
+        assertEquals(traceIds(expected), traceIds(fromStream));
+        assertEquals((inline.getSeparatorCacheHitCount() + inline.getSeparatorCacheMissCount()) * 2,
+                parallel.getSeparatorCacheHitCount() + parallel.getSeparatorCacheMissCount());
+    }
+
+    @Test
+    @DisplayName("Should log the separators of a file once whatever the number of threads")
+    void testSeparatorsLoggedOncePerFile() {
+        String content = logContent(2000);
+        AtomicInteger separatorLines = new AtomicInteger();
+
+        PnrEdifactParser parser = new PnrEdifactParser();
+        parser.setParallelism(4);
+        parser.setProgressCallback(line -> {
+            if (line.equals("  Found UNA segment, extracting separators")) {
+                separatorLines.incrementAndGet();
+            }
+        });
+        parser.setDebugMode(true);
+
+        parser.parseLogContentForFlights(content, Collections.emptyList(), MessageType.INPUT);
+        assertEquals(1, separatorLines.get());
+
+        parser.parseLogContentForFlights(content, Collections.emptyList(), MessageType.INPUT);
+        assertEquals(1, separatorLines.get());
+
+        parser.resetSeparatorLogging();
+        parser.parseLogContentForFlights(content, Collections.emptyList(), MessageType.INPUT);
+        assertEquals(2, separatorLines.get());
+    }
+
+    @Test
+    @DisplayName("Should stop the entry threads on close and still parse afterwards")
+    void testCloseReleasesEntryThreads() throws Exception {
+        String content = logContent(2000);
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        PnrEdifactParser parser = new PnrEdifactParser();
+        parser.setParallelism(4);
+        parser.setProgressCallback(line -> {
+            if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
+                workers.add(Thread.currentThread());
+            }
+        });
+        parser.setDebugMode(true);
+
+        List<PnrMessage> expected = parser.parseLogContentForFlights(content, Collections.emptyList(), MessageType.INPUT);
+        assertFalse(workers.isEmpty());
+        parser.close();
+        for (Thread worker : workers) {
+            worker.join(10_000);
+            assertFalse(worker.isAlive());
+        }
+
+        parser.resetSeparatorLogging();
+        assertEquals(traceIds(expected), traceIds(parser.parseLogContentForFlights(content, Collections.emptyList(), MessageType.INPUT)));
+        parser.close();
+    }
+
+    @Test
+    @DisplayName("Should keep a message with custom UNA separators that is wrapped over several lines")
+    void testWrappedMessageWithCustomSeparators() {
+        String content = "INFO  [2025-10-15T06:00:00,113] [trace.id:T1] Received PNRGOV_PNR_PUSH request\n" +
+            "UNA!*.? ~UNB*IATA!1*EK*NR*251015!1030*77**PNRGOV~UNH*77*PNRGOV!11!1!IA*EK0160/151025/1030*01!F~\n" +
+            "TVL*151025!1030!151025!1330*DXB*CAI*EK*0160~SRC~RCI*EK!LOCABC~IFT*4*28*PLUS EXTRA BAGGAGE ALLOWANCE ON RETURN~\n" +
+            "SRC~RCI*EK!LOCDEF~UNT*7*77~UNZ*1*77~\n" +
+            "2025-10-15T06:00:00,500 DEBUG Acknowledged trace.id:T1\n";
+
+        List<PnrMessage> messages = new PnrEdifactParser().parseLogContentForFlights(content, List.of("EK0160"), MessageType.INPUT);
+
+        assertEquals(1, messages.size());
+        String rawContent = messages.get(0).getRawContent();
+        assertTrue(rawContent.startsWith("UNA!*.? ~UNB*"), rawContent);
+        assertTrue(rawContent.contains("RCI*EK!LOCDEF~"), rawContent);
+        assertTrue(rawContent.endsWith("UNZ*1*77~"), rawContent);
+    }
+
+    @Test
+    @DisplayName("Should take the separators of repeated UNA headers from the cache")
+    void testSeparatorCache() {
+        PnrEdifactParser parser = new PnrEdifactParser();
+        List<PnrMessage> messages = parser.parseLogContentForFlights(logContent(600), List.of("QR0512"), MessageType.INPUT);
+        assertEquals(200, messages.size());
+
+        long lookups = parser.getSeparatorCacheHitCount() + parser.getSeparatorCacheMissCount();
+        assertEquals(600, lookups);
+        assertTrue(parser.getSeparatorCacheMissCount() <= 1, () -> "Misses: " + parser.getSeparatorCacheMissCount());
+        assertEquals('\'', messages.get(0).getSeparators().getTerminatorSeparator());
+        // Same raw UNA segment as without the cache: the header and the text after it on its line (at most 15 characters)
+        assertEquals("UNA:+.? 'UNB+IA", messages.get(0).getSeparators().getRawUnaSegment());
+
+        parser.resetSeparatorCacheStats();
+        assertEquals(0, parser.getSeparatorCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Should share cached separators and keep the raw UNA segment of each message")
+    void testRawUnaSegmentPerMessage() {
+        String content =
+            "INFO  [2025-10-15T06:00:01,113] [trace.id:T1] Received PNRGOV_PNR_PUSH request\n" +
+            "UNA:+.? '\nUNB+IATA:1+EK+NR+251015:1030+1++PNRGOV'UNH+1+PNRGOV:11:1:IA+EK0160/151025/1030+01:F'UNT+2+1'UNZ+1+1'\n" +
+            "INFO  [2025-10-15T06:00:02,113] [trace.id:T2] Received PNRGOV_PNR_PUSH request\n" +
+            "UNA:+.? '\nUNB+IATA:1+EK+NR+251015:1030+2++PNRGOV'UNH+2+PNRGOV:11:1:IA+EK0160/151025/1030+01:F'UNT+2+2'UNZ+1+2'\n" +
+            "INFO  [2025-10-15T06:00:03,113] [trace.id:T3] Received PNRGOV_PNR_PUSH request\n" +
+            "UNA:+.? 'UNB+IATA:1+EK+NR+251015:1030+3++PNRGOV' UNH+3+PNRGOV:11:1:IA+EK0160/151025/1030+01:F'UNT+2+3'UNZ+1+3'\n";
+        List<PnrMessage> messages = new PnrEdifactParser().parseLogContentForFlights(content, List.of("EK0160"), MessageType.INPUT);
+        assertEquals(3, messages.size());
+
+        PnrSeparators headerOnly = messages.get(0).getSeparators();
+        assertEquals("UNA:+.? '", headerOnly.getRawUnaSegment());
+        assertSame(headerOnly, messages.get(1).getSeparators());
+
+        PnrSeparators ownSegment = messages.get(2).getSeparators();
+        assertEquals("UNA:+.? 'UNB+IATA:1+EK+NR+251015:1030+3++PNRGOV'", ownSegment.getRawUnaSegment());
+        assertEquals(headerOnly.toString(), ownSegment.toString());
+        assertEquals("UNA:+.? '", headerOnly.getRawUnaSegment(), "The shared separators must keep the header");
+    }
+}
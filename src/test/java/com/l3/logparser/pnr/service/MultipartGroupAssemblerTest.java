@@ -0,0 +1,100 @@
+package com.l3.logparser.pnr.service;
+
+import com.l3.logparser.pnr.model.PnrMessage;
+import com.l3.logparser.pnr.model.PnrMultipartGroup;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for assembling multipart PNR messages while they are extracted
+ */
+@DisplayName("Multipart Group Assembler Tests")
+public class MultipartGroupAssemblerTest {
+
+    private static PnrMessage part(String reference, int partNumber, boolean last) {
+        PnrMessage message = new PnrMessage();
+        message.setMessageReferenceNumber(reference);
+        message.setFlightNumber("EK0160");
+        message.setPartNumber(partNumber);
+        message.setPartIndicator(last ? "F" : "C");
+        message.setLastPart(last);
+        return message;
+    }
+
+    @Test
+    @DisplayName("Should report a group once its final part and all lower parts arrived")
+    void testEarlyEmission() {
+        List<PnrMultipartGroup> assembled = new ArrayList<>();
+        MultipartGroupAssembler assembler = new MultipartGroupAssembler(assembled::add);
+
+        assembler.add(part("A", 3, true));
+        assembler.add(part("B", 1, true));
+        assertEquals(List.of("B_EK0160"), groupIds(assembled));
+
+        assembler.add(part("A", 1, false));
+        assertEquals(1, assembled.size());
+        assertEquals(List.of(2), assembler.getOpenGroups().get(0).getMissingParts());
+        assertEquals(1, assembler.getOpenGroupCount());
+
+        assembler.add(part("A", 2, false));
+        assertEquals(List.of("B_EK0160", "A_EK0160"), groupIds(assembled));
+        assertEquals(0, assembler.getOpenGroupCount());
+        assertEquals(2, assembler.getPeakOpenGroupCount());
+        assertEquals(3, assembled.get(1).getExpectedParts());
+        assertEquals(List.of(1, 2, 3), partNumbers(assembled.get(1).getSortedParts()));
+    }
+
+    @Test
+    @DisplayName("Should release assembled groups and count their late parts")
+    void testReleaseAssembledGroups() {
+        List<PnrMultipartGroup> assembled = new ArrayList<>();
+        MultipartGroupAssembler assembler = new MultipartGroupAssembler(assembled::add);
+        PnrMessage first = part("A", 1, true);
+        assembler.add(first);
+        assembler.add(part("C", 2, false));
+        assertEquals(List.of("A_EK0160"), groupIds(assembled));
+        assertEquals(List.of("C_EK0160"), groupIds(assembler.getOpenGroups()));
+
+        // A late resend is counted with the released group, it is neither reported again nor a new group
+        assembler.add(part("A", 1, true));
+        assertEquals(1, assembled.size());
+        assertEquals(1, assembled.get(0).getActualPartCount(), "The released group must not hold the late part");
+        assertEquals(2, assembler.getAssembledPartCount("A_EK0160"));
+        assertEquals(2, assembler.getGroupCount());
+
+        // A more complete duplicate of a part of a released group is accepted, one of an open group replaces it
+        assertTrue(assembler.replace(first, part("A", 1, true)));
+        PnrMessage open = assembler.getOpenGroups().get(0).getParts().get(0);
+        PnrMessage replacement = part("C", 2, false);
+        assertTrue(assembler.replace(open, replacement));
+        assertSame(replacement, assembler.getOpenGroups().get(0).getParts().get(0));
+        assertFalse(assembler.replace(part("D", 1, true), replacement));
+
+        PnrMultipartGroup waiting = assembler.getOpenGroups().get(0);
+        assertFalse(waiting.isComplete());
+        assertFalse(waiting.hasAllParts());
+        assertEquals(List.of(1), waiting.getMissingParts());
+        assertEquals(Set.of("A_EK0160"), assembler.getAssembledGroupIds());
+        assertEquals(0, assembler.getAssembledPartCount("C_EK0160"));
+        assertEquals(1, assembler.getAssembledGroupCount());
+        assertEquals(1, assembler.getOpenGroupCount());
+    }
+
+    private static List<String> groupIds(List<PnrMultipartGroup> groups) {
+        List<String> ids = new ArrayList<>();
+        groups.forEach(group -> ids.add(group.getGroupId()));
+        return ids;
+    }
+
+    private static List<Integer> partNumbers(List<PnrMessage> parts) {
+        List<Integer> numbers = new ArrayList<>();
+        parts.forEach(part -> numbers.add(part.getPartNumber()));
+        return numbers;
+    }
+}
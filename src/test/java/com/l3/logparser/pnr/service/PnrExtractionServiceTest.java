@@ -0,0 +1,122 @@
+package com.l3.logparser.pnr.service;
+
+import com.l3.logparser.model.FlightCriteria;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for deduplicating and grouping PNR messages while the log files are scanned
+ */
+@DisplayName("PNR Extraction Service Tests")
+public class PnrExtractionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String entry(int trace, String reference, String part, String flight, String locator) {
+        return "INFO  [2025-10-15T06:00:" + String.format("%02d", trace) + ",113] [trace.id:T" + trace +
+                "] Received PNRGOV_PNR_PUSH request\n" +
+                "UNA:+.? 'UNB+IATA:1+EK+NR+251015:1030+" + reference + "++PNRGOV'" +
+                "UNH+" + reference + "+PNRGOV:11:1:IA+" + flight + "/151025/1030+" + part + "'" +
+                "TVL+151025:1030:151025:1330+DXB+CAI+" + flight.substring(0, 2) + "+" + flight.substring(2) + "'" +
+                "SRC'RCI+EK:" + locator + "'UNT+5+" + reference + "'UNZ+1+" + reference + "'\n";
+    }
+
+    private Path logDirectory() throws Exception {
+        Path logDir = Files.createDirectory(tempDir.resolve("logs"));
+        Files.writeString(logDir.resolve("MessageMHPNRGOV.log.1"),
+                entry(1, "100", "01:C", "EK0160", "LOC1") +
+                entry(2, "200", "02:F", "EK0160", "LOC3") +
+                entry(3, "300", "01:F", "QR0512", "LOC5"));
+        Files.writeString(logDir.resolve("MessageMHPNRGOV.log"),
+                entry(4, "100", "02:F", "EK0160", "LOC2") +
+                entry(5, "100", "02:F", "EK0160", "LOC2") + // Resend of the final part
+                entry(6, "300", "01:F", "QR0512", "LOC5"));
+        return logDir;
+    }
+
+    @Test
+    @DisplayName("Should count complete and incomplete groups across files")
+    void testGroupsAcrossFiles() throws Exception {
+        Path logDir = logDirectory();
+        try (PnrExtractionService service = new PnrExtractionService()) {
+            service.setResultCacheEnabled(false);
+            PnrExtractionService.PnrExtractionResult result =
+                    service.extractPnrMessages(logDir.toString(), "EK0160", null, null, null);
+
+            assertTrue(result.isSuccess());
+            assertEquals(3, result.getExtractedMessages().size());
+            assertEquals(2, result.getMultipartGroupCount());
+            assertEquals(1, result.getCompleteGroups());
+            assertEquals(1, result.getIncompleteGroups());
+            assertEquals(1, result.getWarnings().size());
+            assertTrue(result.getWarnings().get(0).endsWith("Missing parts: [1]"), result.getWarnings().get(0));
+        }
+    }
+
+    @Test
+    @DisplayName("Should return the same groups for each flight of a batch as for the flight alone")
+    void testBatchMatchesSingleExtractions() throws Exception {
+        Path logDir = logDirectory();
+        try (PnrExtractionService service = new PnrExtractionService()) {
+            service.setResultCacheEnabled(false);
+            List<PnrExtractionService.PnrExtractionResult> batch = service.extractPnrMessagesBatch(logDir.toString(),
+                    List.of(new FlightCriteria("EK0160", null, null, null), new FlightCriteria("QR0512", null, null, null)));
+
+            for (PnrExtractionService.PnrExtractionResult fromBatch : batch) {
+                PnrExtractionService.PnrExtractionResult alone =
+                        service.extractPnrMessages(logDir.toString(), fromBatch.getFlightNumber(), null, null, null);
+                assertEquals(alone.getExtractedMessages().size(), fromBatch.getExtractedMessages().size());
+                assertEquals(alone.getMultipartGroupCount(), fromBatch.getMultipartGroupCount());
+                assertEquals(alone.getCompleteGroups(), fromBatch.getCompleteGroups());
+                assertEquals(alone.getIncompleteGroups(), fromBatch.getIncompleteGroups());
+                assertEquals(alone.getWarnings(), fromBatch.getWarnings());
+            }
+            assertEquals(1, batch.get(1).getExtractedMessages().size());
+            assertEquals(1, batch.get(1).getCompleteGroups());
+        }
+    }
+
+    @Test
+    @DisplayName("Should assemble a group while the files are scanned, not after the last file")
+    void testAssemblyDuringScan() throws Exception {
+        Path logDir = Files.createDirectory(tempDir.resolve("logs"));
+        // Each file holds a complete group of its own
+        Files.writeString(logDir.resolve("MessageMHPNRGOV.log.1"),
+                entry(1, "100", "01:C", "EK0160", "LOC1") + entry(2, "100", "02:F", "EK0160", "LOC2"));
+        Files.writeString(logDir.resolve("MessageMHPNRGOV.log"),
+                entry(3, "400", "01:C", "EK0160", "LOC3") + entry(4, "400", "02:F", "EK0160", "LOC4"));
+
+        List<String> log = new ArrayList<>();
+        try (PnrExtractionService service = new PnrExtractionService()) {
+            service.setResultCacheEnabled(false);
+            service.setDebugMode(true);
+            service.setProgressCallback(log::add);
+            PnrExtractionService.PnrExtractionResult result =
+                    service.extractPnrMessages(logDir.toString(), "EK0160", null, null, null);
+            assertEquals(2, result.getCompleteGroups());
+        }
+
+        int firstAssembled = indexOf(log, "Multipart group ");
+        int secondFile = indexOf(log, "Processing INPUT file [2]");
+        assertTrue(firstAssembled >= 0 && secondFile >= 0, () -> String.join("\n", log));
+        assertTrue(firstAssembled < secondFile, "The first group must be assembled before the second file is read");
+    }
+
+    private static int indexOf(List<String> log, String text) {
+        for (int i = 0; i < log.size(); i++) {
+            if (log.get(i).contains(text)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
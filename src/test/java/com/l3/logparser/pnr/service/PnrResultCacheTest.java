@@ -0,0 +1,178 @@
+package com.l3.logparser.pnr.service;
+
+import com.l3.logparser.enums.MessageType;
+import com.l3.logparser.pnr.model.PnrMessage;
+import com.l3.logparser.pnr.parser.PnrEdifactParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for reusing parsed PNR messages across extractions
+ */
+@DisplayName("PNR Result Cache Tests")
+public class PnrResultCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String logContent(int entries, String flight) {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < entries; i++) {
+            String time = String.format("06:%02d:%02d", (i / 60) % 60, i % 60);
+            log.append("INFO  [2025-10-15T").append(time).append(",113] [trace.id:T").append(i)
+                .append("] Received PNRGOV_PNR_PUSH request\n");
+            log.append("UNA:+.? 'UNB+IATA:1+EK+NR+251015:1030+").append(i).append("++PNRGOV'")
+                .append("UNH+").append(i).append("+PNRGOV:11:1:IA+").append(flight).append("/151025/1030+01:F'")
+                .append("TVL+151025:1030:151025:1330+DXB+CAI+").append(flight, 0, 2).append('+').append(flight.substring(2)).append("'")
+                .append("SRC'RCI+EK:LOC").append(i).append("'UNT+5+").append(i).append("'UNZ+1+").append(i).append("'\n");
+        }
+        return log.toString();
+    }
+
+    private static List<String> describe(List<PnrMessage> messages) {
+        List<String> lines = new ArrayList<>();
+        for (PnrMessage message : messages) {
+            lines.add(message.getLogTraceId() + " " + message.getFlightNumber() + " " + message.getPartIndicator() + " " +
+                    message.getFlightDetails() + " " + message.getDirection() + " " + message.getContentFingerprint() + " " +
+                    message.getSeparators() + " " + message.getSeparators().getRawUnaSegment() + " " +
+                    message.getRawContent().hashCode());
+        }
+        return lines;
+    }
+
+    @Test
+    @DisplayName("Should return the saved messages for the same key only")
+    void testRoundTripAndKey() throws Exception {
+        Path logFile = tempDir.resolve("MessageMHPNRGOV.log");
+        Files.writeString(logFile, logContent(50, "EK0160"));
+        PnrEdifactParser parser = new PnrEdifactParser();
+        List<PnrMessage> parsed = parser.parseLogContentForFlights(Files.readString(logFile), List.of("EK0160"), MessageType.INPUT);
+        assertEquals(50, parsed.size());
+
+        PnrResultCache cache = new PnrResultCache(tempDir.resolve("cache"));
+        PnrResultCache.Key key = PnrResultCache.Key.of(logFile, MessageType.INPUT, List.of("EK0160"), 7);
+        cache.save(key, parsed);
+
+        List<PnrMessage> loaded = cache.load(PnrResultCache.Key.of(logFile, MessageType.INPUT, List.of(" ek0160 "), 7));
+        assertNotNull(loaded);
+        assertEquals(describe(parsed), describe(loaded));
+        assertEquals("UNA:+.? 'UNB+IA", loaded.get(0).getSeparators().getRawUnaSegment());
+
+        assertNull(cache.load(PnrResultCache.Key.of(logFile, MessageType.OUTPUT, List.of("EK0160"), 7)));
+        assertNull(cache.load(PnrResultCache.Key.of(logFile, MessageType.INPUT, List.of("EK0160", "QR0512"), 7)));
+        assertNull(cache.load(PnrResultCache.Key.of(logFile, MessageType.INPUT, List.of("EK0160"), 8)));
+
+        Files.writeString(logFile, logContent(1, "EK0160"), StandardOpenOption.APPEND);
+        assertNull(cache.load(PnrResultCache.Key.of(logFile, MessageType.INPUT, List.of("EK0160"), 7)));
+    }
+
+    @Test
+    @DisplayName("Should treat a missing or blank flight number as no flight filter")
+    void testFlightToken() {
+        assertEquals("*", PnrResultCache.Key.flightToken(null));
+        assertEquals("*", PnrResultCache.Key.flightToken(List.of()));
+        assertEquals("*", PnrResultCache.Key.flightToken(List.of("EK0160", " ")));
+        assertEquals("EK0160,QR0512", PnrResultCache.Key.flightToken(List.of("qr0512", "EK0160 ")));
+    }
+
+    @Test
+    @DisplayName("Should evict expired and least recently used entries")
+    void testEviction() throws Exception {
+        Path logFile = tempDir.resolve("MessageMHPNRGOV.log");
+        Files.writeString(logFile, logContent(20, "EK0160"));
+        List<PnrMessage> parsed = new PnrEdifactParser().parseLogContentForFlights(Files.readString(logFile), List.of(), MessageType.INPUT);
+
+        Path directory = tempDir.resolve("cache");
+        PnrResultCache.Key first = PnrResultCache.Key.of(logFile, MessageType.INPUT, List.of("EK0160"), 0);
+        PnrResultCache.Key second = PnrResultCache.Key.of(logFile, MessageType.INPUT, List.of("EK0161"), 0);
+        PnrResultCache unbounded = new PnrResultCache(directory);
+        unbounded.save(first, parsed);
+        long entrySize = Files.size(unbounded.fileFor(first));
+        Files.setLastModifiedTime(unbounded.fileFor(first), FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+
+        // Room for one entry: the one used longest ago goes
+        PnrResultCache bounded = new PnrResultCache(directory, entrySize + entrySize / 2, PnrResultCache.DEFAULT_MAX_AGE_MILLIS);
+        bounded.save(second, parsed);
+        assertNull(bounded.load(first));
+        assertNotNull(bounded.load(second));
+
+        // Older than the maximum age
+        Files.setLastModifiedTime(bounded.fileFor(second), FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        new PnrResultCache(directory, Long.MAX_VALUE, 30_000).evict();
+        assertFalse(Files.exists(bounded.fileFor(second)));
+    }
+
+    @Test
+    @DisplayName("Should keep a readable entry when the same key is saved concurrently")
+    void testConcurrentSaves() throws Exception {
+        Path logFile = tempDir.resolve("MessageMHPNRGOV.log");
+        Files.writeString(logFile, logContent(20, "EK0160"));
+        List<PnrMessage> parsed = new PnrEdifactParser().parseLogContentForFlights(Files.readString(logFile), List.of(), MessageType.INPUT);
+        PnrResultCache cache = new PnrResultCache(tempDir.resolve("cache"));
+        PnrResultCache.Key key = PnrResultCache.Key.of(logFile, MessageType.INPUT, List.of(), 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> saves = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                saves.add(executor.submit(() -> {
+                    cache.save(key, parsed);
+                    return null;
+                }));
+            }
+            for (Future<?> save : saves) {
+                save.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(describe(parsed), describe(cache.load(key)));
+        try (Stream<Path> files = Files.list(cache.getDirectory())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip parsing unchanged files on the next extraction")
+    void testServiceReusesParsedFiles() throws Exception {
+        Path logDir = Files.createDirectory(tempDir.resolve("logs"));
+        Files.writeString(logDir.resolve("MessageMHPNRGOV.log"), logContent(30, "EK0160"), StandardCharsets.UTF_8);
+
+        AtomicInteger reused = new AtomicInteger();
+        PnrExtractionService service = new PnrExtractionService();
+        service.setResultCacheDirectory(tempDir.resolve("cache"));
+        service.setProgressCallback(line -> {
+            if (line.contains("taken from the result cache")) {
+                reused.incrementAndGet();
+            }
+        });
+
+        PnrExtractionService.PnrExtractionResult first = service.extractPnrMessages(logDir.toString(), "EK0160", null, null, null);
+        assertEquals(0, reused.get());
+        PnrExtractionService.PnrExtractionResult second = service.extractPnrMessages(logDir.toString(), "EK0160", null, null, null);
+        assertEquals(1, reused.get());
+        assertEquals(30, second.getExtractedMessages().size());
+        assertEquals(describe(first.getExtractedMessages()), describe(second.getExtractedMessages()));
+
+        service.setResultCacheEnabled(false);
+        service.extractPnrMessages(logDir.toString(), "EK0160", null, null, null);
+        assertEquals(1, reused.get());
+    }
+}